@@ -0,0 +1,48 @@
+work_path=$(dirname $(readlink -f $0))
+cd ${work_path}
+
+./requirements.sh
+ret=$?
+if [ $ret -ne 0 ]; then
+  echo "Cannot find necessary libraries."
+  exit $ret
+fi
+
+# JMH and its dependencies
+mkdir -p bench/lib
+for path1 in \
+    "org/openjdk/jmh/jmh-core/1.37/jmh-core-1.37.jar" \
+    "org/openjdk/jmh/jmh-generator-annprocess/1.37/jmh-generator-annprocess-1.37.jar" \
+    "net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar" \
+    "org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar"
+do
+  jar1="bench/lib/$(basename $path1)"
+  if [ ! -f $jar1 ]
+  then
+    curl "https://repo1.maven.org/maven2/$path1" -o $jar1
+    ret=$?
+    if [ $ret -ne 0 ]; then
+      echo "Cannot find necessary libraries."
+      exit $ret
+    fi
+  fi
+done
+bench_cp="./jna-5.10.0.jar:bench/lib/jmh-core-1.37.jar:bench/lib/jopt-simple-5.0.4.jar:bench/lib/commons-math3-3.6.1.jar"
+
+rm -rf out/bench/tictactoe
+find src bench -name "*.java" > sources.txt
+javac -encoding UTF-8 -classpath $bench_cp \
+  -processorpath bench/lib/jmh-generator-annprocess-1.37.jar:bench/lib/jmh-core-1.37.jar \
+  @sources.txt -d out/bench/tictactoe
+
+ret=$?
+rm sources.txt
+if [ $ret -ne 0 ]; then
+  echo "Failed to build benchmarks."
+  exit $ret
+fi
+
+# Run all the benchmarks with the GC profiler, or pass JMH options,
+# e.g. ./bench.sh ReversiPlayerBenchmark -p depth=2
+java -Dfile.encoding=UTF-8 -classpath out/bench/tictactoe:$bench_cp \
+  org.openjdk.jmh.Main -prof gc "$@"
@@ -0,0 +1,207 @@
+package club.denkyoku.tictactoe.bench;
+
+import club.denkyoku.tictactoe.models.network.GameServer;
+import club.denkyoku.tictactoe.models.network.GameSession;
+import club.denkyoku.tictactoe.models.player.Move;
+import club.denkyoku.tictactoe.services.network.LineServer;
+import club.denkyoku.tictactoe.services.profiling.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+
+/**
+ * A load generator for the game server.
+ * <br/>
+ * It opens two connections per session on one selector, and each pair
+ * plays random legal moves, game after game, until the time is up. The
+ * clients keep a <code>GameSession</code> copy of every game to choose
+ * their moves. The move latency is the time from sending a <code>MOVE</code>
+ * to receiving its <code>MOVED</code>.
+ * <br/>
+ * Every game can also be watched by a number of spectator connections,
+ * which count the frames they receive.
+ * <pre>
+ *     java ... club.denkyoku.tictactoe.bench.GameServerLoad [sessions] [mod] [seconds] [host:port|-] [spectators]
+ * </pre>
+ * Without <code>host:port</code> (or with <code>-</code>), a server is started in this JVM on a free port.
+ */
+public class GameServerLoad implements LineServer.Handler {
+    /**
+     * The state of one client connection.
+     */
+    protected static class Client {
+        protected final boolean host;
+        protected Client partner;
+        // The spectators of the games of a host.
+        protected Client[] spectators = new Client[0];
+        protected LineServer.Connection connection;
+        protected GameSession game;
+        protected int seat;
+        protected long sentNanos;
+
+        protected Client(boolean host) {
+            this.host = host;
+        }
+    }
+
+    protected final String mod;
+    protected final Random random = new Random(Positions.SEED);
+    protected final LatencyHistogram moveLatency = new LatencyHistogram("server.move");
+    protected volatile boolean stopping;
+    protected long games;
+    protected long moves;
+    protected long errors;
+    protected long frames;
+    protected long keyframes;
+
+    public GameServerLoad(String mod) {
+        this.mod = mod;
+    }
+
+    @Override
+    public void onOpen(LineServer.Connection connection) {
+    }
+
+    @Override
+    public void onLine(LineServer.Connection connection, String line) {
+        Client client = (Client) connection.getAttachment();
+        String[] words = line.split(" ");
+        switch (words[0]) {
+            case "HELLO" -> {
+                if (client.host) {
+                    connection.send("NEW " + this.mod);
+                }
+            }
+            case "JOINED" -> {
+                GameSession.Kind kind = GameSession.Kind.of(words[2]);
+                client.game = new GameSession(kind, Integer.parseInt(words[3]), Integer.parseInt(words[4]));
+                client.seat = Integer.parseInt(words[5]);
+                if (client.host) {
+                    client.partner.connection.send("JOIN " + words[1]);
+                    for (Client spectator : client.spectators) {
+                        spectator.connection.send("WATCH " + words[1]);
+                    }
+                }
+            }
+            case "START", "TURN" -> {
+                if (Integer.parseInt(words[1]) == client.seat) {
+                    this.play(client);
+                }
+            }
+            case "MOVED" -> {
+                int seat = Integer.parseInt(words[1]);
+                client.game.play(seat, Integer.parseInt(words[3]), Integer.parseInt(words[4]),
+                        Integer.parseInt(words[2]));
+                if (seat == client.seat) {
+                    this.moveLatency.record(System.nanoTime() - client.sentNanos);
+                    this.moves++;
+                }
+            }
+            case "END" -> {
+                if (client.host) {
+                    this.games++;
+                    if (!this.stopping) {
+                        connection.send("NEW " + this.mod);
+                    }
+                }
+            }
+            case "FRAME" -> {
+                this.frames++;
+                this.keyframes++;
+            }
+            case "DIFF" -> this.frames++;
+            case "ERR" -> this.errors++;
+            default -> { }
+        }
+    }
+
+    @Override
+    public void onClose(LineServer.Connection connection) {
+    }
+
+    protected void play(Client client) {
+        Move[] moves = client.game.getLegalMoves();
+        Move move = moves[this.random.nextInt(moves.length)];
+        client.sentNanos = System.nanoTime();
+        if (client.game.getKind() == GameSession.Kind.ORDER_AND_CHAOS) {
+            client.connection.send(String.format("MOVE %d %d %d", move.x, move.y, this.random.nextInt(2)));
+        } else {
+            client.connection.send(String.format("MOVE %d %d", move.x, move.y));
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        String mod = args.length > 1 ? args[1] : "tictactoe";
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int spectators = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+        InetSocketAddress address;
+        if (args.length > 3 && !args[3].equals("-")) {
+            String[] hostPort = args[3].split(":");
+            address = new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1]));
+        } else {
+            CompletableFuture<Integer> port = new CompletableFuture<>();
+            Thread server = new Thread(() -> {
+                try {
+                    GameServer.serve(0, port::complete);
+                } catch (IOException e) {
+                    port.completeExceptionally(e);
+                }
+            }, "game-server");
+            server.setDaemon(true);
+            server.start();
+            address = new InetSocketAddress("127.0.0.1", port.join());
+        }
+
+        GameServerLoad load = new GameServerLoad(mod);
+        LineServer clients = new LineServer(load);
+        for (int i = 0; i < sessions; i++) {
+            Client host = new Client(true);
+            Client guest = new Client(false);
+            host.partner = guest;
+            guest.partner = host;
+            host.connection = clients.connect(address);
+            host.connection.setAttachment(host);
+            guest.connection = clients.connect(address);
+            guest.connection.setAttachment(guest);
+            host.spectators = new Client[spectators];
+            for (int j = 0; j < spectators; j++) {
+                Client spectator = new Client(false);
+                spectator.connection = clients.connect(address);
+                spectator.connection.setAttachment(spectator);
+                host.spectators[j] = spectator;
+            }
+        }
+
+        Thread timer = new Thread(() -> {
+            try {
+                Thread.sleep(seconds * 1000L);
+                load.stopping = true;
+                // let the games in progress end.
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+            }
+            clients.stop();
+        }, "game-server-load-timer");
+        timer.start();
+        long start = System.nanoTime();
+        clients.run();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        LatencyHistogram.Snapshot latency = load.moveLatency.snapshot();
+        System.out.printf("%d sessions (%d connections), %s, %.1f s%n",
+                sessions, sessions * (2 + spectators), mod, elapsed);
+        System.out.printf("%d games, %d moves (%.0f moves/s), %d errors%n",
+                load.games, load.moves, load.moves / elapsed, load.errors);
+        System.out.printf("move latency: p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                latency.getValueAtPercentile(50) / 1e6, latency.getValueAtPercentile(90) / 1e6,
+                latency.getValueAtPercentile(99) / 1e6, latency.getMax() / 1e6);
+        if (spectators > 0) {
+            System.out.printf("%d spectator frames (%.0f frames/s), %d keyframes%n",
+                    load.frames, load.frames / elapsed, load.keyframes);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package club.denkyoku.tictactoe.bench;
+
+import club.denkyoku.tictactoe.services.output.terminal.ConsoleHelper;
+import club.denkyoku.tictactoe.services.output.terminal.OutputChannel;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+
+/**
+ * An in-memory terminal sink for the rendering benchmarks.
+ * <br/>
+ * The written bytes are copied into a reusable array, like a terminal
+ * would read them, and counted for <code>TerminalBytesProfiler</code>.
+ */
+public class MemoryTerminal implements WritableByteChannel {
+    private static long totalBytes = 0;
+
+    private byte[] screen = new byte[64 * 1024];
+
+    /**
+     * Send the console output to a new in-memory terminal of the given size.
+     * @param width The console width.
+     * @param height The console height.
+     */
+    public static void install(int width, int height) {
+        ConsoleHelper.setConsoleSize(width, height);
+        ConsoleHelper.setOutput(new OutputChannel(new MemoryTerminal()));
+    }
+
+    /**
+     * @return The number of bytes written to all the in-memory terminals.
+     */
+    public static synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        int length = src.remaining();
+        if (length > this.screen.length) {
+            this.screen = new byte[Math.max(length, 2 * this.screen.length)];
+        }
+        src.get(this.screen, 0, length);
+        synchronized (MemoryTerminal.class) {
+            totalBytes += length;
+        }
+        return length;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,135 @@
+package club.denkyoku.tictactoe.bench;
+
+import club.denkyoku.tictactoe.models.board.Board;
+import club.denkyoku.tictactoe.models.board.Slot;
+import club.denkyoku.tictactoe.models.gameplay.ReversiGamePlay;
+import club.denkyoku.tictactoe.models.player.Move;
+import club.denkyoku.tictactoe.models.player.Player;
+import club.denkyoku.tictactoe.models.player.ReversiPlayer;
+
+import java.util.Random;
+
+
+/**
+ * Realistic position corpora for the benchmarks.
+ * <br/>
+ * The positions are generated from a fixed seed, so every run of a
+ * benchmark measures the same positions.
+ */
+public class Positions {
+    public static final long SEED = 20240601L;
+    public static final int CORPUS_SIZE = 16;
+
+    /**
+     * The phase of a game.
+     * <br/>
+     * For Reversi, it's the number of random plies played from the
+     * opening position. For the line games, it's how much of the
+     * board is filled.
+     */
+    public enum Phase {
+        opening(6, 0.15),
+        midgame(30, 0.5),
+        endgame(52, 0.85);
+
+        public final int plies;
+        public final double fill;
+
+        Phase(int plies, double fill) {
+            this.plies = plies;
+            this.fill = fill;
+        }
+    }
+
+    /**
+     * A Reversi position, with the player to move.
+     */
+    public record ReversiPosition(Board<Slot> board, ReversiPlayer self, ReversiPlayer opponent) {
+        public Move[] availableMoves() {
+            return ReversiGamePlay.getAvailableMoves(this.board, this.self, this.opponent);
+        }
+    }
+
+    public static ReversiPlayer[] reversiPlayers() {
+        return new ReversiPlayer[]{
+                new ReversiPlayer(false, 1.0, 4, "Black", '●'),
+                new ReversiPlayer(false, 1.0, 4, "White", '○'),
+        };
+    }
+
+    /**
+     * Generate Reversi positions by playing random legal moves.
+     * <br/>
+     * Only positions where the player to move has a legal move are kept.
+     * @param phase The phase of the positions.
+     * @param count The number of positions.
+     * @return The positions.
+     */
+    public static ReversiPosition[] reversi(Phase phase, int count) {
+        ReversiPlayer[] players = reversiPlayers();
+        Random random = new Random(SEED + phase.ordinal());
+        ReversiPosition[] positions = new ReversiPosition[count];
+
+        int found = 0;
+        while (found < count) {
+            Board<Slot> board = new Board<>(8, 8);
+            board.put(3, 3, new Slot(players[0]));
+            board.put(4, 4, new Slot(players[0]));
+            board.put(3, 4, new Slot(players[1]));
+            board.put(4, 3, new Slot(players[1]));
+
+            int turn = 0;
+            int passes = 0;
+            int ply = 0;
+            while (ply < phase.plies && passes < 2) {
+                ReversiPlayer self = players[turn], opponent = players[1 - turn];
+                Move[] moves = ReversiGamePlay.getAvailableMoves(board, self, opponent);
+                if (moves.length == 0) {
+                    passes++;
+                } else {
+                    Move move = moves[random.nextInt(moves.length)];
+                    ReversiGamePlay.tryTurn(board, move.x, move.y, self, opponent);
+                    passes = 0;
+                    ply++;
+                }
+                turn = 1 - turn;
+            }
+
+            ReversiPosition position = new ReversiPosition(board, players[turn], players[1 - turn]);
+            if (ply == phase.plies && position.availableMoves().length > 0) {
+                positions[found++] = position;
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Generate positions of a line game (TicTacToe, Order and Chaos),
+     * by filling random slots of the board in turn.
+     * @param size The size of the square board.
+     * @param phase The phase of the positions.
+     * @param players The players taking turns.
+     * @param count The number of positions.
+     * @return The boards.
+     */
+    public static Board<Slot>[] filled(int size, Phase phase, Player[] players, int count) {
+        Random random = new Random(SEED + 31L * size + phase.ordinal());
+        @SuppressWarnings("unchecked")
+        Board<Slot>[] boards = (Board<Slot>[]) new Board<?>[count];
+
+        int slots = (int) Math.round(size * size * phase.fill);
+        for (int n = 0; n < count; n++) {
+            Board<Slot> board = new Board<>(size, size);
+            for (int i = 0; i < slots; i++) {
+                int x, y;
+                do {
+                    x = random.nextInt(size);
+                    y = random.nextInt(size);
+                } while (board.at(x, y) != null);
+                board.put(x, y, new Slot(players[i % players.length]));
+            }
+            boards[n] = board;
+        }
+        return boards;
+    }
+}
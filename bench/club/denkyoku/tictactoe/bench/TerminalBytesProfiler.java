@@ -0,0 +1,42 @@
+package club.denkyoku.tictactoe.bench;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.util.Collection;
+import java.util.List;
+
+
+/**
+ * JMH profiler reporting how many bytes a benchmark writes to the
+ * <code>MemoryTerminal</code> per operation (i.e. per frame).
+ * <br/>
+ * Usage: <code>-prof club.denkyoku.tictactoe.bench.TerminalBytesProfiler</code>
+ */
+public class TerminalBytesProfiler implements InternalProfiler {
+    private long bytesBefore;
+
+    @Override
+    public String getDescription() {
+        return "Bytes written to the in-memory terminal per operation";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        this.bytesBefore = MemoryTerminal.getTotalBytes();
+    }
+
+    @Override
+    public Collection<? extends Result<?>> afterIteration(
+            BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+        long bytes = MemoryTerminal.getTotalBytes() - this.bytesBefore;
+        long ops = result.getMetadata().getAllOps();
+        double perOp = ops == 0 ? Double.NaN : (double) bytes / ops;
+        return List.of(new ScalarResult("terminal.bytes.norm", perOp, "B/op", AggregationPolicy.AVG));
+    }
+}
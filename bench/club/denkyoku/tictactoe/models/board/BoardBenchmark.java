@@ -0,0 +1,49 @@
+package club.denkyoku.tictactoe.models.board;
+
+import club.denkyoku.tictactoe.bench.Positions;
+import club.denkyoku.tictactoe.models.player.Player;
+import club.denkyoku.tictactoe.models.player.TicTacToeAIPlayer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmark of copying a board, which the AI search does for every node.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    @Param({"3", "8", "20"})
+    public int size;
+
+    protected Board<Slot> board;
+
+    @Setup
+    public void setup() {
+        Player[] players = new Player[]{
+                new TicTacToeAIPlayer('X', 1.0),
+                new TicTacToeAIPlayer('O', 1.0),
+        };
+        this.board = Positions.filled(this.size, Positions.Phase.midgame, players, 1)[0];
+    }
+
+    @Benchmark
+    public Board<Slot> cloneBoard() {
+        return this.board.clone();
+    }
+}
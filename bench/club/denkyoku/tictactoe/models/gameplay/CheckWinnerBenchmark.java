@@ -0,0 +1,87 @@
+package club.denkyoku.tictactoe.models.gameplay;
+
+import club.denkyoku.tictactoe.bench.Positions;
+import club.denkyoku.tictactoe.models.board.Board;
+import club.denkyoku.tictactoe.models.board.Slot;
+import club.denkyoku.tictactoe.models.player.Player;
+import club.denkyoku.tictactoe.models.player.TicTacToeAIPlayer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks of the winner checks of the line games, at several board sizes.
+ * <br/>
+ * Each operation is one position of the corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckWinnerBenchmark {
+    @Param({"6", "10", "20"})
+    public int size;
+
+    @Param({"opening", "midgame", "endgame"})
+    public Positions.Phase phase;
+
+    protected TicTacToeGamePlay[] ticTacToeGames;
+    protected OrderAndChaosGamePlay[] orderAndChaosGames;
+
+    @Setup
+    public void setup() {
+        Player[] players = new Player[]{
+                new TicTacToeAIPlayer('X', 1.0),
+                new TicTacToeAIPlayer('O', 1.0),
+        };
+        Board<Slot>[] boards = Positions.filled(this.size, this.phase, players, Positions.CORPUS_SIZE);
+
+        this.ticTacToeGames = new TicTacToeGamePlay[boards.length];
+        this.orderAndChaosGames = new OrderAndChaosGamePlay[boards.length];
+        for (int n = 0; n < boards.length; n++) {
+            this.ticTacToeGames[n] = new TicTacToeGamePlay(this.size, players);
+            this.orderAndChaosGames[n] = new OrderAndChaosGamePlay(this.size, players);
+            copyBoard(boards[n], this.ticTacToeGames[n].board);
+            copyBoard(boards[n], this.orderAndChaosGames[n].board);
+        }
+    }
+
+    private static void copyBoard(Board<Slot> from, Board<Slot> to) {
+        for (int i = 0; i < from.getHeight(); i++) {
+            for (int j = 0; j < from.getWidth(); j++) {
+                to.put(i, j, from.at(i, j));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Positions.CORPUS_SIZE)
+    public void ticTacToe(Blackhole bh) {
+        for (var game : this.ticTacToeGames) {
+            bh.consume(game.checkWinner());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Positions.CORPUS_SIZE)
+    public void orderAndChaos(Blackhole bh) {
+        for (var game : this.orderAndChaosGames) {
+            bh.consume(game.checkWinner());
+        }
+    }
+}
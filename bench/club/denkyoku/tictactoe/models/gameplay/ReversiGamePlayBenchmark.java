@@ -0,0 +1,72 @@
+package club.denkyoku.tictactoe.models.gameplay;
+
+import club.denkyoku.tictactoe.bench.Positions;
+import club.denkyoku.tictactoe.models.player.Move;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks of the Reversi move generation.
+ * <br/>
+ * Each operation is one position of the corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReversiGamePlayBenchmark {
+    @Param({"opening", "midgame", "endgame"})
+    public Positions.Phase phase;
+
+    protected Positions.ReversiPosition[] positions;
+
+    @Setup
+    public void setup() {
+        this.positions = Positions.reversi(this.phase, Positions.CORPUS_SIZE);
+    }
+
+    /**
+     * <code>computeFlip()</code> on every empty slot of the position.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Positions.CORPUS_SIZE)
+    public void computeFlip(Blackhole bh) {
+        for (var position : this.positions) {
+            var board = position.board();
+            for (int i = 0; i < board.getHeight(); i++) {
+                for (int j = 0; j < board.getWidth(); j++) {
+                    if (board.at(i, j) == null) {
+                        bh.consume(ReversiGamePlay.computeFlip(
+                                board, i, j, position.self(), position.opponent()));
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Positions.CORPUS_SIZE)
+    public void getAvailableMoves(Blackhole bh) {
+        for (var position : this.positions) {
+            Move[] moves = ReversiGamePlay.getAvailableMoves(
+                    position.board(), position.self(), position.opponent());
+            bh.consume(moves);
+        }
+    }
+}
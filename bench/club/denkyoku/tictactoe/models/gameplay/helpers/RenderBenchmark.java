@@ -0,0 +1,109 @@
+package club.denkyoku.tictactoe.models.gameplay.helpers;
+
+import club.denkyoku.tictactoe.bench.MemoryTerminal;
+import club.denkyoku.tictactoe.bench.Positions;
+import club.denkyoku.tictactoe.models.board.Board;
+import club.denkyoku.tictactoe.models.board.Slot;
+import club.denkyoku.tictactoe.models.player.Player;
+import club.denkyoku.tictactoe.models.player.TicTacToeAIPlayer;
+import club.denkyoku.tictactoe.services.output.terminal.ConsoleHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks of the game screen rendering, against an in-memory terminal.
+ * <br/>
+ * Each operation is one frame, where the cursor has moved by one slot,
+ * as when the user presses an arrow key. Run with
+ * <code>-prof club.denkyoku.tictactoe.bench.TerminalBytesProfiler</code>
+ * for the bytes per frame.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+    @Param({"3", "8", "20", "50"})
+    public int size;
+
+    @Param({"2", "4", "8"})
+    public int playerCount;
+
+    protected Player[] players;
+    protected Board<Slot> board;
+    protected BoardRender boardRender;
+    protected String[][] screens;
+    protected int frame = 0;
+
+    @Setup
+    public void setup() {
+        MemoryTerminal.install(240, 120);
+
+        this.players = new Player[this.playerCount];
+        for (int i = 0; i < this.playerCount; i++) {
+            this.players[i] = new TicTacToeAIPlayer((char) ('A' + i), 1.0);
+        }
+        this.board = Positions.filled(this.size, Positions.Phase.midgame, this.players, 1)[0];
+        this.boardRender = new BoardRender(this.board);
+
+        // two full screens to switch between, for printScreen()
+        this.screens = new String[2][];
+        for (int i = 0; i < 2; i++) {
+            this.screens[i] = BoardRender.drawRectBoard(this.board, true, i, i, null);
+        }
+    }
+
+    private int nextFrame() {
+        return this.frame = (this.frame + 1) % (this.size * this.size);
+    }
+
+    /**
+     * The static helper, which builds a new renderer for each frame.
+     */
+    @Benchmark
+    public String[] drawRectBoard() {
+        int f = this.nextFrame();
+        return BoardRender.drawRectBoard(this.board, true, f / this.size, f % this.size, null);
+    }
+
+    /**
+     * The renderer kept by the game, which only re-renders changed rows.
+     */
+    @Benchmark
+    public String[] boardRenderDraw() {
+        int f = this.nextFrame();
+        return this.boardRender.draw(true, f / this.size, f % this.size, null);
+    }
+
+    /**
+     * The whole game screen, from the board to the terminal.
+     */
+    @Benchmark
+    public void drawUI() {
+        int f = this.nextFrame();
+        String[] boardString = this.boardRender.draw(true, f / this.size, f % this.size, null);
+        TurnBased.drawUI(boardString, this.players, f % this.playerCount, null, null);
+    }
+
+    /**
+     * Clearing the terminal and printing the whole screen.
+     */
+    @Benchmark
+    public void printScreen() {
+        ConsoleHelper.printScreen(this.screens[this.nextFrame() & 1]);
+    }
+}
@@ -0,0 +1,61 @@
+package club.denkyoku.tictactoe.models.player;
+
+import club.denkyoku.tictactoe.bench.Positions;
+import club.denkyoku.tictactoe.models.board.Board;
+import club.denkyoku.tictactoe.models.board.Slot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks of the Reversi AI search, at each depth.
+ * <br/>
+ * Each invocation searches the next position of the corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReversiPlayerBenchmark {
+    @Param({"1", "2", "3", "4"})
+    public int depth;
+
+    @Param({"opening", "midgame", "endgame"})
+    public Positions.Phase phase;
+
+    protected Positions.ReversiPosition[] positions;
+    protected Move[][] availableMoves;
+    protected int next = 0;
+
+    @Setup
+    public void setup() {
+        this.positions = Positions.reversi(this.phase, Positions.CORPUS_SIZE);
+        this.availableMoves = new Move[this.positions.length][];
+        for (int n = 0; n < this.positions.length; n++) {
+            this.availableMoves[n] = this.positions[n].availableMoves();
+        }
+    }
+
+    @Benchmark
+    public Move minimax() {
+        int n = this.next;
+        this.next = (n + 1) % this.positions.length;
+        var position = this.positions[n];
+        Board<Slot> board = position.board();
+        return ReversiPlayer.minimax(this.depth, board, this.availableMoves[n],
+                position.self(), position.opponent()).getMove();
+    }
+}
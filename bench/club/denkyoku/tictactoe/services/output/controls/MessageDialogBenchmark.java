@@ -0,0 +1,77 @@
+package club.denkyoku.tictactoe.services.output.controls;
+
+import club.denkyoku.tictactoe.bench.MemoryTerminal;
+import club.denkyoku.tictactoe.services.output.terminal.ConsoleHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks of the Message Dialog rendering, against an in-memory terminal.
+ * <br/>
+ * Each operation is one frame. Run with
+ * <code>-prof club.denkyoku.tictactoe.bench.TerminalBytesProfiler</code>
+ * for the bytes per frame.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageDialogBenchmark {
+    @Param({"80x24", "240x120"})
+    public String console;
+
+    protected final String[] message = new String[]{
+            "Game is paused.",
+            "What do you want to do?",
+    };
+    protected final MessageDialog.Button[] buttons = MessageDialog.getYesNoCancel();
+    protected String[] lastScreen;
+    protected int frame = 0;
+
+    @Setup
+    public void setup() {
+        String[] size = this.console.split("x");
+        int width = Integer.parseInt(size[0]), height = Integer.parseInt(size[1]);
+        MemoryTerminal.install(width, height);
+
+        String[] screen = new String[height - 1];
+        for (int i = 0; i < screen.length; i++) {
+            screen[i] = String.valueOf((char) ('a' + i % 26)).repeat(width);
+        }
+        ConsoleHelper.printScreen(screen);
+        this.lastScreen = ConsoleHelper.GetLastScreen();
+        MessageDialog.printDialog(this.message, this.buttons, 0, this.lastScreen);
+    }
+
+    /**
+     * Moving the selection to the next button of a shown dialog.
+     */
+    @Benchmark
+    public void moveSelection() {
+        this.frame = (this.frame + 1) % this.buttons.length;
+        MessageDialog.printDialog(this.message, this.buttons, this.frame, this.lastScreen);
+    }
+
+    /**
+     * Showing a dialog over the screen, and closing it.
+     */
+    @Benchmark
+    public void openAndClose() {
+        MessageDialog.printDialog(this.message, this.buttons, 0, this.lastScreen);
+        MessageDialog.closeDialog(this.lastScreen);
+    }
+}
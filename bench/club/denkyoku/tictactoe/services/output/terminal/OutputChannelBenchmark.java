@@ -0,0 +1,98 @@
+package club.denkyoku.tictactoe.services.output.terminal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmark of the console output path.
+ * <br/>
+ * Compares the old per-line autoflushing <code>PrintWriter</code> with the
+ * buffered <code>OutputChannel</code>, writing board frames to
+ * <code>/dev/null</code>. Each operation is one frame.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputChannelBenchmark {
+    @Param({"3", "8", "20"})
+    public int size;
+
+    @Param({"/dev/null"})
+    public String path;
+
+    protected String[] frame;
+    protected FileOutputStream out;
+    protected PrintWriter printWriter;
+    protected OutputChannel outputChannel;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.frame = makeFrame(this.size);
+        this.out = new FileOutputStream(this.path);
+        this.printWriter = new PrintWriter(new OutputStreamWriter(this.out, StandardCharsets.UTF_8), true);
+        this.outputChannel = new OutputChannel(this.out.getChannel());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.out.close();
+    }
+
+    @Benchmark
+    public void printWriter() {
+        this.printWriter.print("\033[H\033[2J");
+        for (String line : this.frame) {
+            this.printWriter.println(line);
+        }
+    }
+
+    @Benchmark
+    public void outputChannel() {
+        this.outputChannel.print("\033[H\033[2J");
+        for (String line : this.frame) {
+            this.outputChannel.println(line);
+        }
+        this.outputChannel.flush();
+    }
+
+    protected static String[] makeFrame(int size) {
+        String[] frame = new String[2 * size + 4];
+        frame[0] = "Player 1 ●    Player 2 ○";
+        frame[1] = "┌" + "───┬".repeat(size - 1) + "───┐";
+        for (int i = 0; i < size; i++) {
+            StringBuilder row = new StringBuilder("│");
+            for (int j = 0; j < size; j++) {
+                row.append(' ').append((i + j) % 3 == 0 ? '●' : (i + j) % 3 == 1 ? '○' : ' ').append(" │");
+            }
+            frame[2 * i + 2] = row.toString();
+            frame[2 * i + 3] = i == size - 1
+                    ? "└" + "───┴".repeat(size - 1) + "───┘"
+                    : "├" + "───┼".repeat(size - 1) + "───┤";
+        }
+        frame[2 * size + 2] = "";
+        frame[2 * size + 3] = "[Arrows] Move   [Enter] Place   [Esc] Menu";
+        return frame;
+    }
+}
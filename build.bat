@@ -6,7 +6,7 @@ IF %retCode% NEQ 0 (
     EXIT /B %retCode%
 )
 
-dir /s /B *.java > sources.txt
+dir /s /B src\*.java > sources.txt
 javac -encoding UTF-8 -classpath .\jna-5.10.0.jar @sources.txt -d out\production\tictactoe
 
 set retCode=%ERRORLEVEL%
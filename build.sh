@@ -8,7 +8,7 @@ if [ $ret -ne 0 ]; then
   exit $ret
 fi
 
-find . -name "*.java" > sources.txt
+find src -name "*.java" > sources.txt
 javac -classpath ./jna-5.10.0.jar @sources.txt -d out/production/tictactoe
 
 ret=$?
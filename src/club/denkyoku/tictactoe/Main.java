@@ -1,16 +1,33 @@
 package club.denkyoku.tictactoe;
 
-import club.denkyoku.tictactoe.models.Config;
-import club.denkyoku.tictactoe.models.game.Mod;
+import club.denkyoku.tictactoe.models.Session;
+import club.denkyoku.tictactoe.models.network.GameServer;
+import club.denkyoku.tictactoe.models.network.SearchWorker;
+import club.denkyoku.tictactoe.models.network.TerminalServer;
+
+import java.io.IOException;
+import java.util.Arrays;
 
 
 public class Main {
 
-    public static void main(String[] args) {
-        while (!Config.doExitProgram) {
-            // load the current Mod
-            Mod mod = Config.modUUIDMap.get(Config.currentModUUID);
-            mod.run();
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--server")) {
+            // run the networked multiplayer server, without the UI.
+            GameServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--telnet")) {
+            // run the terminal UI for remote terminals, e.g. telnet.
+            TerminalServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--search-worker")) {
+            // search the AI moves for the game servers.
+            SearchWorker.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
         }
+        // the session of the console, which offers to resume the saved game first.
+        Session.console().run();
     }
 }
@@ -5,19 +5,47 @@ import java.util.Random;
 
 public final class StdRandom {
 
-    private static Random random;    // pseudo-random number generator
-    private static long seed;        // pseudo-random number generator seed
-
-    // static initializer
-    static {
-        // this is how the seed was set in Java 1.4
-        seed = System.currentTimeMillis();
-        random = new Random(seed);
+    // a pseudo-random number generator and its seed
+    private static final class Source {
+        private Random random;
+        private long seed;
+
+        private Source(long seed) {
+            this.seed = seed;
+            this.random = new Random(seed);
+        }
     }
 
+    // this is how the seed was set in Java 1.4
+    private static final Source global = new Source(System.currentTimeMillis());
+    // the generator bound to a thread, e.g. by a session, instead of the global one
+    private static final ThreadLocal<Source> bound = new ThreadLocal<>();
+
     // don't instantiate
     private StdRandom() { }
 
+    private static Source source() {
+        Source source = bound.get();
+        return source != null ? source : global;
+    }
+
+    /**
+     * Binds a pseudo-random number generator of its own to the calling thread,
+     * so that concurrent sessions neither share nor disturb each other's sequence.
+     *
+     * @param s the seed
+     */
+    public static void bind(long s) {
+        bound.set(new Source(s));
+    }
+
+    /**
+     * Removes the generator bound by {@link #bind(long)}, going back to the global one.
+     */
+    public static void unbind() {
+        bound.remove();
+    }
+
     /**
      * Sets the seed of the pseudo-random number generator.
      * This method enables you to produce the same sequence of "random"
@@ -27,8 +55,9 @@ public final class StdRandom {
      * @param s the seed
      */
     public static void setSeed(long s) {
-        seed   = s;
-        random = new Random(seed);
+        Source source = source();
+        source.seed   = s;
+        source.random = new Random(s);
     }
 
     /**
@@ -37,7 +66,7 @@ public final class StdRandom {
      * @return the seed
      */
     public static long getSeed() {
-        return seed;
+        return source().seed;
     }
 
     /**
@@ -46,7 +75,7 @@ public final class StdRandom {
      * @return a random real number uniformly in [0, 1)
      */
     public static double uniform() {
-        return random.nextDouble();
+        return source().random.nextDouble();
     }
 
     /**
@@ -58,7 +87,7 @@ public final class StdRandom {
      */
     public static int uniform(int n) {
         if (n <= 0) throw new IllegalArgumentException("argument must be positive: " + n);
-        return random.nextInt(n);
+        return source().random.nextInt(n);
     }
 
 
@@ -73,6 +102,7 @@ public final class StdRandom {
         if (n <= 0L) throw new IllegalArgumentException("argument must be positive: " + n);
 
         // https://docs.oracle.com/javase/8/docs/api/java/util/Random.html#longs-long-long-long-
+        Random random = source().random;
         long r = random.nextLong();
         long m = n - 1;
 
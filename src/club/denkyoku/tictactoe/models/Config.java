@@ -5,42 +5,56 @@ import club.denkyoku.tictactoe.models.game.Mod;
 import club.denkyoku.tictactoe.models.game.OrderAndChaosMod;
 import club.denkyoku.tictactoe.models.game.ReversiMod;
 import club.denkyoku.tictactoe.models.game.TicTacToeMod;
+import club.denkyoku.tictactoe.models.gameplay.helpers.GameClock;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * The settings of one session, chosen in the menus.
+ * <br/>
+ * Every <code>Session</code> has its own, so sessions never see each other's settings.
+ * Only the list of mods is shared.
+ */
 public class Config {
-    // The main loop control, decides whether to exit the program.
-    public static boolean doExitProgram = false;
+    // The main loop control, decides whether to exit the session.
+    public boolean doExitProgram = false;
 
     // The common setting for board size.
     // Some mod may ignore this setting.
-    public static int boardSize = 3;
+    public int boardSize = 3;
 
-    public static boolean doReversiUseAnimation = true;
-    public static int[] reversiSkirmishRoles = new int[]{1, 0};
+    public boolean doReversiUseAnimation = true;
+    public boolean doReversiShowSearchStatistics = false;
+    public int[] reversiSkirmishRoles = new int[]{1, 0};
+
+    // The common setting for the time control of the games.
+    // The default is -Dtictactoe.timeControl=<control>, e.g. 5+3 or 10/move, else no clock.
+    public GameClock.TimeControl timeControl = GameClock.TimeControl.parse(
+            System.getProperty("tictactoe.timeControl", "none"));
 
     // The common setting for the number of players.
     // Some mod may ignore this setting.
-    private static int playerCounts = 2;
-    public static final ArrayList<PlayerInfo> playerInfos = new ArrayList<>();
-    static {
-        playerInfos.add(new PlayerInfo("Player 1", '✕'));
-        playerInfos.add(new PlayerInfo("Player 2", '○'));
+    private int playerCounts = 2;
+    public final ArrayList<PlayerInfo> playerInfos = new ArrayList<>();
+
+    public Config() {
+        this.playerInfos.add(new PlayerInfo("Player 1", '✕'));
+        this.playerInfos.add(new PlayerInfo("Player 2", '○'));
     }
 
     /**
      * Set the number of players.
      * @param playerCounts The number of players.
      */
-    public static void setPlayerCounts(int playerCounts) {
-        Config.playerCounts = playerCounts;
-        while (playerInfos.size() < playerCounts) {
+    public void setPlayerCounts(int playerCounts) {
+        this.playerCounts = playerCounts;
+        while (this.playerInfos.size() < playerCounts) {
             char newSymbol = Resources.getRandomSymbol(
                     (int)(Math.random() * Resources.getRandomSymbolLength()));
-            playerInfos.add(new PlayerInfo(
-                    "Player " + (playerInfos.size() + 1), newSymbol));
+            this.playerInfos.add(new PlayerInfo(
+                    "Player " + (this.playerInfos.size() + 1), newSymbol));
         }
     }
 
@@ -48,8 +62,8 @@ public class Config {
      * Get the number of players.
      * @return The number of players.
      */
-    public static int getPlayerCounts() {
-        return playerCounts;
+    public int getPlayerCounts() {
+        return this.playerCounts;
     }
 
     /**
@@ -62,7 +76,7 @@ public class Config {
     };
 
     // The UUID of the current game to load.
-    public static String currentModUUID = modList[0].getUUID();
+    public String currentModUUID = modList[0].getUUID();
 
     public static final Map<String, Mod> modUUIDMap = new HashMap<>();
     static {
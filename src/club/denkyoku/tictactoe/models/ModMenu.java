@@ -3,7 +3,12 @@ package club.denkyoku.tictactoe.models;
 import club.denkyoku.tictactoe.services.output.controls.Menu;
 
 public class ModMenu {
-    public static boolean chooseMod() {
+    /**
+     * Let the user choose the mod to run next in the session.
+     * @param session The session.
+     * @return <code>false</code> if the user has cancelled.
+     */
+    public static boolean chooseMod(Session session) {
         String[] modItemList = new String[Config.modList.length];
         String[] modUuidList = new String[Config.modList.length];
 
@@ -18,7 +23,7 @@ public class ModMenu {
         if (ret == -1) {
             return false;
         } else {
-            Config.currentModUUID = modUuidList[ret];
+            session.getConfig().currentModUUID = modUuidList[ret];
             return true;
         }
     }
@@ -0,0 +1,154 @@
+package club.denkyoku.tictactoe.models;
+
+import club.denkyoku.tictactoe.libraries.math.StdRandom;
+import club.denkyoku.tictactoe.models.game.Mod;
+import club.denkyoku.tictactoe.models.gameplay.SavedGame;
+import club.denkyoku.tictactoe.services.event.EventLoop;
+import club.denkyoku.tictactoe.services.input.InputPump;
+import club.denkyoku.tictactoe.services.output.terminal.Terminal;
+import club.denkyoku.tictactoe.services.storage.SaveJournal;
+
+import java.nio.file.Path;
+
+
+/**
+ * One user playing: the settings, the terminal, the random generator
+ * and the save of the in-progress game.
+ * <br/>
+ * A session is passed down to the mods, the menus and the game plays.
+ * <code>run()</code> also binds its terminal and its random generator to the
+ * thread, for the static helpers (<code>ConsoleHelper</code>, <code>StdRandom</code>),
+ * so many sessions can run at once, one per thread, without sharing any state.
+ * <pre>
+ *     new Session(new Config(), terminal, seed, null).run();
+ * </pre>
+ */
+public class Session {
+    // The directory of the persistent data, -Dtictactoe.statsDir=<dir> (default ~/.tictactoe).
+    public static final Path statsDir = Path.of(System.getProperty(
+            "tictactoe.statsDir", Path.of(System.getProperty("user.home"), ".tictactoe").toString()));
+
+    protected static final ThreadLocal<Session> bound = new ThreadLocal<>();
+    private static volatile Session console;
+
+    protected final Config config;
+    protected final Terminal terminal;
+    protected final long seed;
+    protected final SaveJournal saveJournal;
+    protected EventLoop eventLoop;
+    protected InputPump inputPump;
+
+    /**
+     * Create a session.
+     * @param config The settings of the session.
+     * @param terminal The terminal of the user.
+     * @param seed The seed of the random generator.
+     * @param saveJournal The save of the in-progress game, <code>null</code> if the games are not saved.
+     */
+    public Session(Config config, Terminal terminal, long seed, SaveJournal saveJournal) {
+        this.config = config;
+        this.terminal = terminal;
+        this.seed = seed;
+        this.saveJournal = saveJournal;
+    }
+
+    /**
+     * @return The session of the process console, which saves its game in the stats directory.
+     */
+    public static Session console() {
+        Session session = console;
+        if (session == null) {
+            synchronized (Session.class) {
+                if (console == null) {
+                    console = new Session(new Config(), Terminal.console(),
+                            StdRandom.getSeed(), SaveJournal.open(statsDir));
+                }
+                session = console;
+            }
+        }
+        return session;
+    }
+
+    /**
+     * @return The session running on the calling thread, or the console session.
+     */
+    public static Session current() {
+        Session session = bound.get();
+        return session != null ? session : console();
+    }
+
+    public Config getConfig() {
+        return this.config;
+    }
+
+    public Terminal getTerminal() {
+        return this.terminal;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * @return The save of the in-progress game, <code>null</code> if the games are not saved.
+     */
+    public SaveJournal getSaveJournal() {
+        return this.saveJournal;
+    }
+
+    /**
+     * @return The event loop of the games of the session, run on the thread of the session.
+     */
+    public EventLoop getEventLoop() {
+        if (this.eventLoop == null) {
+            this.eventLoop = new EventLoop();
+        }
+        return this.eventLoop;
+    }
+
+    /**
+     * @return The reader of the keys of the terminal, for the event loop.
+     */
+    public InputPump getInputPump() {
+        if (this.inputPump == null) {
+            this.inputPump = new InputPump(this.getEventLoop(), this.terminal);
+        }
+        return this.inputPump;
+    }
+
+    /**
+     * Run the session on the calling thread: offer to resume the saved game,
+     * then run the chosen mods until the user exits.
+     */
+    public void run() {
+        Session previousSession = bound.get();
+        Terminal previousTerminal = Terminal.bind(this.terminal);
+        bound.set(this);
+        if (this != console) {
+            StdRandom.bind(this.seed);
+        }
+        try {
+            // continue the game quit (or crashed) last time, if the user wants.
+            SavedGame.offerResume(this);
+            while (!this.config.doExitProgram) {
+                // load the current Mod
+                Mod mod = Config.modUUIDMap.get(this.config.currentModUUID);
+                mod.run(this);
+            }
+        } finally {
+            if (this.inputPump != null) {
+                this.inputPump.close();
+                this.inputPump = null;
+            }
+            if (this != console) {
+                StdRandom.unbind();
+            }
+            Terminal.bind(previousTerminal);
+            if (previousSession == null) {
+                bound.remove();
+            } else {
+                bound.set(previousSession);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package club.denkyoku.tictactoe.models;
+
+import club.denkyoku.tictactoe.models.gameplay.helpers.GameClock;
+import club.denkyoku.tictactoe.services.output.controls.Menu;
+
+public class TimeControlMenu {
+    /**
+     * Let the user choose the time control of the games of the session,
+     * among <code>GameClock.TimeControl.PRESETS</code>.
+     * @param config The settings of the session.
+     * @return <code>false</code> if the user has cancelled.
+     */
+    public static boolean chooseTimeControl(Config config) {
+        GameClock.TimeControl[] presets = GameClock.TimeControl.PRESETS;
+        String[] items = new String[presets.length];
+        for (int i = 0; i < presets.length; i++) {
+            items[i] = presets[i].toString();
+        }
+
+        Menu menu = new Menu(items, "Time Control", "Current: " + config.timeControl);
+        int ret = menu.start();
+
+        if (ret == -1) {
+            return false;
+        } else {
+            config.timeControl = presets[ret];
+            return true;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package club.denkyoku.tictactoe.models.game;
 
 
+import club.denkyoku.tictactoe.models.Session;
+
 import java.util.Objects;
 
 public abstract class Mod {
@@ -32,8 +34,9 @@ public abstract class Mod {
 
     /**
      * Run the Game Mod.
+     * @param session The session running it.
      */
-    abstract public void run();
+    abstract public void run(Session session);
 
     @Override
     public boolean equals(Object obj) {
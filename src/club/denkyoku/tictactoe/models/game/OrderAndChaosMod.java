@@ -1,16 +1,18 @@
 package club.denkyoku.tictactoe.models.game;
 
+import club.denkyoku.tictactoe.models.Session;
 import club.denkyoku.tictactoe.models.gamemenu.OrderAndChaosMenu;
 
 public class OrderAndChaosMod extends Mod {
+    public static final String MOD_UUID = "9c9b05cc-20bc-40f9-93dc-048bef65d51f";
+
     public OrderAndChaosMod() {
-        super("Order and Chaos",
-                "9c9b05cc-20bc-40f9-93dc-048bef65d51f");
+        super("Order and Chaos", MOD_UUID);
     }
 
     @Override
-    public void run() {
-        OrderAndChaosMenu game = new OrderAndChaosMenu();
+    public void run(Session session) {
+        OrderAndChaosMenu game = new OrderAndChaosMenu(session);
         game.start();
     }
 }
@@ -1,15 +1,17 @@
 package club.denkyoku.tictactoe.models.game;
 
+import club.denkyoku.tictactoe.models.Session;
 import club.denkyoku.tictactoe.models.gamemenu.ReversiMenu;
 
 public class ReversiMod extends Mod {
+    public static final String MOD_UUID = "45213d75-103f-46d2-ad44-a06ff2793521";
+
     public ReversiMod() {
-        super("Reversi",
-                "45213d75-103f-46d2-ad44-a06ff2793521");
+        super("Reversi", MOD_UUID);
     }
 
     @Override
-    public void run() {
-        (new ReversiMenu()).start();
+    public void run(Session session) {
+        (new ReversiMenu(session)).start();
     }
 }
@@ -1,16 +1,18 @@
 package club.denkyoku.tictactoe.models.game;
 
+import club.denkyoku.tictactoe.models.Session;
 import club.denkyoku.tictactoe.models.gamemenu.TicTacToeMenu;
 
 public class TicTacToeMod extends Mod {
+    public static final String MOD_UUID = "cf28330e-9d0b-4ce2-b158-96d46fc397b2";
+
     public TicTacToeMod() {
-        super("Tic-Tac-Toe",
-                "cf28330e-9d0b-4ce2-b158-96d46fc397b2");
+        super("Tic-Tac-Toe", MOD_UUID);
     }
 
     @Override
-    public void run() {
-        TicTacToeMenu game = new TicTacToeMenu();
+    public void run(Session session) {
+        TicTacToeMenu game = new TicTacToeMenu(session);
         game.start();
     }
 }
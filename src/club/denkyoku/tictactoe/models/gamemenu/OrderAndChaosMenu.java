@@ -2,6 +2,7 @@ package club.denkyoku.tictactoe.models.gamemenu;
 
 import club.denkyoku.tictactoe.models.Config;
 import club.denkyoku.tictactoe.models.ModMenu;
+import club.denkyoku.tictactoe.models.Session;
 import club.denkyoku.tictactoe.models.gameplay.GamePlay;
 import club.denkyoku.tictactoe.models.gameplay.OrderAndChaosGamePlay;
 import club.denkyoku.tictactoe.models.player.HumanPlayer;
@@ -21,6 +22,15 @@ public class OrderAndChaosMenu {
             "Are you sure you want to exit?"
     };
 
+    // The session running the menu, and its settings.
+    protected final Session session;
+    protected final Config config;
+
+    public OrderAndChaosMenu(Session session) {
+        this.session = session;
+        this.config = session.getConfig();
+    }
+
     public void start() {
         Menu menu = new Menu(mainMenuItems, "Order and Chaos", copyright);
         while (true) {
@@ -28,7 +38,7 @@ public class OrderAndChaosMenu {
             switch (ret) {
                 case 0 -> multiplayer();
                 case 1 -> {
-                    if (ModMenu.chooseMod())
+                    if (ModMenu.chooseMod(this.session))
                         return;
                 }
                 case 2, -1 -> {
@@ -36,7 +46,7 @@ public class OrderAndChaosMenu {
                             MessageDialog.getYesNo(), 1, 1);
                     if (retVal == 0) {
                         ConsoleHelper.println("See you~");
-                        Config.doExitProgram = true;
+                        this.config.doExitProgram = true;
                         return;
                     }
                 }
@@ -45,7 +55,7 @@ public class OrderAndChaosMenu {
     }
 
     protected void multiplayer() {
-        GamePlay gamePlay = new OrderAndChaosGamePlay(createPlayers());
+        GamePlay gamePlay = new OrderAndChaosGamePlay(this.session, createPlayers());
         gamePlay.start();
     }
 
@@ -54,7 +64,7 @@ public class OrderAndChaosMenu {
         Player[] players = new Player[playerMax];
 
         for (int i = 0; i < playerMax; i++) {
-            var info = Config.playerInfos.get(i);
+            var info = this.config.playerInfos.get(i);
             players[i] = new HumanPlayer(info.name, info.symbol);
         }
 
@@ -3,6 +3,8 @@ package club.denkyoku.tictactoe.models.gamemenu;
 import club.denkyoku.tictactoe.libraries.math.StdRandom;
 import club.denkyoku.tictactoe.models.Config;
 import club.denkyoku.tictactoe.models.ModMenu;
+import club.denkyoku.tictactoe.models.Session;
+import club.denkyoku.tictactoe.models.TimeControlMenu;
 import club.denkyoku.tictactoe.models.configuration.PlayerInfo;
 import club.denkyoku.tictactoe.models.gameplay.ReversiGamePlay;
 import club.denkyoku.tictactoe.models.player.HumanPlayer;
@@ -43,6 +45,15 @@ public class ReversiMenu {
             new MessageDialog.Button("AI: Master", 'M'),
     };
 
+    // The session running the menu, and its settings.
+    protected final Session session;
+    protected final Config config;
+
+    public ReversiMenu(Session session) {
+        this.session = session;
+        this.config = session.getConfig();
+    }
+
     // begin the main menu
     public void start() {
         Menu menu = new Menu(mainMenuItems,
@@ -64,7 +75,7 @@ Copyright © 1987-1990 Microsoft Corp.""");
                 case 2 -> skirmish();
                 case 3 -> settings();
                 case 4 -> {
-                    if (ModMenu.chooseMod())
+                    if (ModMenu.chooseMod(this.session))
                         return;
                 }
                 case 5, -1 -> {
@@ -73,7 +84,7 @@ Copyright © 1987-1990 Microsoft Corp.""");
                     int retVal = MessageDialog.show(exitQueryMessage[choose],
                             exitButtons, 1, 1);
                     if (retVal == 0) {
-                        Config.doExitProgram = true;
+                        this.config.doExitProgram = true;
                         return;
                     }
                 }
@@ -134,8 +145,9 @@ Copyright © 1987-1990 Microsoft Corp.""");
             switch (ret) {
                 case 0, 1, 2, 3 -> {
                     players[1] = new ReversiPlayer(false, getSmartProb(ret + 1), getDepth(ret + 1), "Computer", '○');
-                    players[0] = new ReversiPlayer(true, getSmartProb(0), getDepth(0), Config.playerInfos.get(0).name, '●');
-                    ReversiGamePlay gamePlay = new ReversiGamePlay(players, Config.doReversiUseAnimation);
+                    players[0] = new ReversiPlayer(true, getSmartProb(0), getDepth(0), this.config.playerInfos.get(0).name, '●');
+                    ReversiGamePlay gamePlay = new ReversiGamePlay(this.session, players, this.config.doReversiUseAnimation);
+                    gamePlay.setShowSearchStatistics(this.config.doReversiShowSearchStatistics);
                     gamePlay.start();
                     return;
                 }
@@ -149,13 +161,14 @@ Copyright © 1987-1990 Microsoft Corp.""");
     protected void multiPlayer() {
         ReversiPlayer[] players = new ReversiPlayer[2];
         for (int i = 0; i < 2; i++) {
-            PlayerInfo info = Config.playerInfos.get(i);
+            PlayerInfo info = this.config.playerInfos.get(i);
             players[i] = new ReversiPlayer(true, 1.0, 4, info.name, info.symbol);
         }
         players[0].setSymbol('●');
         players[1].setSymbol('○');
 
-        ReversiGamePlay gamePlay = new ReversiGamePlay(players, Config.doReversiUseAnimation);
+        ReversiGamePlay gamePlay = new ReversiGamePlay(this.session, players, this.config.doReversiUseAnimation);
+        gamePlay.setShowSearchStatistics(this.config.doReversiShowSearchStatistics);
         gamePlay.start();
     }
 
@@ -220,8 +233,8 @@ Copyright © 1987-1990 Microsoft Corp.""");
         while (dataSync.keepRun) {
             dataSync.reset();
             if (redraw) {
-                printSkirmishUI(line, skirmishRoleNames[Config.reversiSkirmishRoles[0]],
-                        skirmishRoleNames[Config.reversiSkirmishRoles[1]]);
+                printSkirmishUI(line, skirmishRoleNames[this.config.reversiSkirmishRoles[0]],
+                        skirmishRoleNames[this.config.reversiSkirmishRoles[1]]);
                 redraw = false;
             }
 
@@ -242,23 +255,24 @@ Copyright © 1987-1990 Microsoft Corp.""");
                 if (line == 2) {
                     ReversiPlayer[] players = new ReversiPlayer[2];
                     for (int i = 0; i < 2; i++) {
-                        PlayerInfo info = Config.playerInfos.get(i);
-                        int role = Config.reversiSkirmishRoles[i];
+                        PlayerInfo info = this.config.playerInfos.get(i);
+                        int role = this.config.reversiSkirmishRoles[i];
                         players[i] = new ReversiPlayer(role == 0, getSmartProb(role), getDepth(role), info.name, info.symbol);
                     }
                     players[0].setSymbol('●');
                     players[1].setSymbol('○');
 
-                    ReversiGamePlay gamePlay = new ReversiGamePlay(players, Config.doReversiUseAnimation);
+                    ReversiGamePlay gamePlay = new ReversiGamePlay(this.session, players, this.config.doReversiUseAnimation);
+                    gamePlay.setShowSearchStatistics(this.config.doReversiShowSearchStatistics);
                     gamePlay.start();
 
                     redraw = true;
                 } else if (line == 1 || line == 0) {
-                    int cur = Config.reversiSkirmishRoles[line];
+                    int cur = this.config.reversiSkirmishRoles[line];
                     int ret = MessageDialog.show(new String[]{ "Select Role" },
                             skirmishRoleMenus, cur, -1);
                     if (ret >= 0) {
-                        Config.reversiSkirmishRoles[line] = ret;
+                        this.config.reversiSkirmishRoles[line] = ret;
                         redraw = true;
                     }
                 }
@@ -287,7 +301,7 @@ Copyright © 1987-1990 Microsoft Corp.""");
 
     protected void settings() {
         Menu menu = new Menu(new String[]{
-                "Use Animation"
+                "Use Animation", "Show Search Statistics", "Time Control"
         }, "Reversi Settings", null);
         while (true) {
             int ret = menu.start();
@@ -295,6 +309,12 @@ Copyright © 1987-1990 Microsoft Corp.""");
                 case 0 -> {
                     settingsUseAnimation();
                 }
+                case 1 -> {
+                    settingsShowSearchStatistics();
+                }
+                case 2 -> {
+                    TimeControlMenu.chooseTimeControl(this.config);
+                }
                 case -1 -> { return; }
             }
         }
@@ -308,11 +328,31 @@ Copyright © 1987-1990 Microsoft Corp.""");
             int ret = menu.start();
             switch (ret) {
                 case 0 -> {
-                    Config.doReversiUseAnimation = true;
+                    this.config.doReversiUseAnimation = true;
+                    return;
+                }
+                case 1 -> {
+                    this.config.doReversiUseAnimation = false;
+                    return;
+                }
+                case -1 -> { return; }
+            }
+        }
+    }
+
+    protected void settingsShowSearchStatistics() {
+        Menu menu = new Menu(new String[]{
+                "Yes", "No"
+        }, "Show Search Statistics", null);
+        while (true) {
+            int ret = menu.start();
+            switch (ret) {
+                case 0 -> {
+                    this.config.doReversiShowSearchStatistics = true;
                     return;
                 }
                 case 1 -> {
-                    Config.doReversiUseAnimation = false;
+                    this.config.doReversiShowSearchStatistics = false;
                     return;
                 }
                 case -1 -> { return; }
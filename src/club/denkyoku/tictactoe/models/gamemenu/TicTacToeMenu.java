@@ -2,7 +2,9 @@ package club.denkyoku.tictactoe.models.gamemenu;
 
 import club.denkyoku.tictactoe.models.Config;
 import club.denkyoku.tictactoe.models.ModMenu;
+import club.denkyoku.tictactoe.models.Session;
 import club.denkyoku.tictactoe.models.Resources;
+import club.denkyoku.tictactoe.models.TimeControlMenu;
 import club.denkyoku.tictactoe.models.gameplay.GamePlay;
 import club.denkyoku.tictactoe.models.gameplay.TicTacToeGamePlay;
 import club.denkyoku.tictactoe.models.player.HumanPlayer;
@@ -36,12 +38,21 @@ Denkyoku. All Rights Reserved.""";
     /**
      * The main entry point of the program.
      */
+    // The session running the menu, and its settings.
+    protected final Session session;
+    protected final Config config;
+
+    public TicTacToeMenu(Session session) {
+        this.session = session;
+        this.config = session.getConfig();
+    }
+
     public void start() {
         // When enter the game, we first run the bell once.
         ConsoleHelper.bell();
 
         Menu menu = new Menu(mainMenuItems,
-                TicTacToeMenu.getCustomTicName(Config.boardSize), copyright);
+                TicTacToeMenu.getCustomTicName(this.config.boardSize), copyright);
         while (true) {
 
             int ret = menu.start();
@@ -50,7 +61,7 @@ Denkyoku. All Rights Reserved.""";
                 case 1 -> multiplayer();
                 case 2 -> settings();
                 case 3 -> {
-                    if (ModMenu.chooseMod())
+                    if (ModMenu.chooseMod(this.session))
                         return;
                 }
                 case 4, -1 -> {
@@ -58,7 +69,7 @@ Denkyoku. All Rights Reserved.""";
                             MessageDialog.getYesNo(), 1, 1);
                     if (retVal == 0) {
                         ConsoleHelper.println("See you~");
-                        Config.doExitProgram = true;
+                        this.config.doExitProgram = true;
                         return;
                     }
                 }
@@ -70,7 +81,7 @@ Denkyoku. All Rights Reserved.""";
      * Do single player game.
      */
     protected void singlePlayer() {
-        if (Config.boardSize != 3 || Config.getPlayerCounts() != 2) {
+        if (this.config.boardSize != 3 || this.config.getPlayerCounts() != 2) {
             MessageDialog.showOK(singleWarning);
             return;
         }
@@ -93,10 +104,10 @@ Denkyoku. All Rights Reserved.""";
                     ai_prob = 0.8;
                 }
                 players = new Player[]{
-                        new HumanPlayer("Player", Config.playerInfos.get(0).symbol),
-                        new TicTacToeAIPlayer(Config.playerInfos.get(1).symbol, ai_prob),
+                        new HumanPlayer("Player", this.config.playerInfos.get(0).symbol),
+                        new TicTacToeAIPlayer(this.config.playerInfos.get(1).symbol, ai_prob),
                 };
-                GamePlay gamePlay = new TicTacToeGamePlay(Config.boardSize, players);
+                GamePlay gamePlay = new TicTacToeGamePlay(this.session, this.config.boardSize, players);
                 gamePlay.start();
             }
         }
@@ -106,8 +117,8 @@ Denkyoku. All Rights Reserved.""";
      * Do multiplayer game.
      */
     protected void multiplayer() {
-        GamePlay gamePlay = new TicTacToeGamePlay(Config.boardSize,
-                HumanPlayer.createHumanPlayers());
+        GamePlay gamePlay = new TicTacToeGamePlay(this.session, this.config.boardSize,
+                HumanPlayer.createHumanPlayers(this.config));
         gamePlay.start();
     }
 
@@ -117,20 +128,21 @@ Denkyoku. All Rights Reserved.""";
     protected void settings() {
         String[] basicSettings = new String[]{
                 "Board size",
-                "Player counts"
+                "Player counts",
+                "Time control"
         };
 
         while (true) {
             String[] advSettings = Arrays.copyOf(basicSettings,
-                    basicSettings.length + Config.getPlayerCounts());
-            for (int i = 0; i < Config.getPlayerCounts(); i++) {
+                    basicSettings.length + this.config.getPlayerCounts());
+            for (int i = 0; i < this.config.getPlayerCounts(); i++) {
                 advSettings[basicSettings.length + i] =
                         String.format("Player %d settings: %c", (i + 1),
-                                Config.playerInfos.get(i).symbol);
+                                this.config.playerInfos.get(i).symbol);
             }
 
             Menu menu = new Menu(advSettings,
-                    TicTacToeMenu.getCustomTicName(Config.boardSize) + " Settings", "");
+                    TicTacToeMenu.getCustomTicName(this.config.boardSize) + " Settings", "");
             int ret = menu.start();
 
             switch (ret) {
@@ -140,6 +152,9 @@ Denkyoku. All Rights Reserved.""";
                 case 1:
                     settingsPlayerCounts();
                     break;
+                case 2:
+                    TimeControlMenu.chooseTimeControl(this.config);
+                    break;
                 case -1:
                     return;
                 default:
@@ -162,8 +177,8 @@ Denkyoku. All Rights Reserved.""";
         while (true) {
 
             String title = String.format("%s\n%s\nName: %s\nSymbol: %c", str1, str2,
-                    Config.playerInfos.get(id).name,
-                    Config.playerInfos.get(id).symbol);
+                    this.config.playerInfos.get(id).name,
+                    this.config.playerInfos.get(id).symbol);
             Menu menu = new Menu(settings, title, "");
             int ret = menu.start();
             switch (ret) {
@@ -192,7 +207,7 @@ Denkyoku. All Rights Reserved.""";
         Menu menu = new Menu(symbols,"Player " + (id + 1) + " symbol", "");
         int ret = menu.start();
         if (ret >= 0) {
-            Config.playerInfos.get(id).symbol = Resources.getAllSymbol(ret);
+            this.config.playerInfos.get(id).symbol = Resources.getAllSymbol(ret);
         }
     }
 
@@ -206,14 +221,14 @@ Denkyoku. All Rights Reserved.""";
         );
         int ret = menu.start();
         switch (ret) {
-            case 0 -> Config.setPlayerCounts(2);
-            case 1 -> Config.setPlayerCounts(3);
-            case 2 -> Config.setPlayerCounts(4);
-            case 3 -> Config.setPlayerCounts(5);
-            case 4 -> Config.setPlayerCounts(6);
-            case 5 -> Config.setPlayerCounts(7);
-            case 6 -> Config.setPlayerCounts(8);
-            case 7 -> Config.setPlayerCounts(9);
+            case 0 -> this.config.setPlayerCounts(2);
+            case 1 -> this.config.setPlayerCounts(3);
+            case 2 -> this.config.setPlayerCounts(4);
+            case 3 -> this.config.setPlayerCounts(5);
+            case 4 -> this.config.setPlayerCounts(6);
+            case 5 -> this.config.setPlayerCounts(7);
+            case 6 -> this.config.setPlayerCounts(8);
+            case 7 -> this.config.setPlayerCounts(9);
             default -> {
             }
         }
@@ -229,13 +244,13 @@ Denkyoku. All Rights Reserved.""";
         );
         int ret = menu.start();
         switch (ret) {
-            case 0 -> Config.boardSize = 3;
-            case 1 -> Config.boardSize = 4;
-            case 2 -> Config.boardSize = 5;
-            case 3 -> Config.boardSize = 6;
-            case 4 -> Config.boardSize = 7;
-            case 5 -> Config.boardSize = 8;
-            case 6 -> Config.boardSize = 9;
+            case 0 -> this.config.boardSize = 3;
+            case 1 -> this.config.boardSize = 4;
+            case 2 -> this.config.boardSize = 5;
+            case 3 -> this.config.boardSize = 6;
+            case 4 -> this.config.boardSize = 7;
+            case 5 -> this.config.boardSize = 8;
+            case 6 -> this.config.boardSize = 9;
         }
     }
 
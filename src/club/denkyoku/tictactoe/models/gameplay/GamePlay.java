@@ -1,7 +1,29 @@
 package club.denkyoku.tictactoe.models.gameplay;
 
+import club.denkyoku.tictactoe.libraries.math.StdRandom;
+import club.denkyoku.tictactoe.models.Session;
+import club.denkyoku.tictactoe.models.board.Board;
+import club.denkyoku.tictactoe.models.gameplay.helpers.GameClock;
 import club.denkyoku.tictactoe.models.player.Player;
+import club.denkyoku.tictactoe.models.player.MoveScheduler;
+import club.denkyoku.tictactoe.models.player.SearchStatistics;
+import club.denkyoku.tictactoe.services.event.EventLoop;
+import club.denkyoku.tictactoe.services.input.KeyHandler;
 import club.denkyoku.tictactoe.services.output.controls.MessageDialog;
+import club.denkyoku.tictactoe.services.profiling.AllocationProfiler;
+import club.denkyoku.tictactoe.services.profiling.JsonLinesLog;
+import club.denkyoku.tictactoe.services.profiling.LatencyHistogram;
+import club.denkyoku.tictactoe.services.profiling.MetricsRegistry;
+import club.denkyoku.tictactoe.services.profiling.TurnEvent;
+import club.denkyoku.tictactoe.services.rating.Leaderboard;
+import club.denkyoku.tictactoe.services.storage.GameRecord;
+import club.denkyoku.tictactoe.services.storage.GameRecordWriter;
+import club.denkyoku.tictactoe.services.storage.GameResult;
+import club.denkyoku.tictactoe.services.storage.ResultStore;
+import club.denkyoku.tictactoe.services.storage.SaveJournal;
+
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
 
 public abstract class GamePlay {
     // whether there's only one human player
@@ -10,6 +32,283 @@ public abstract class GamePlay {
     protected boolean hasAI = false;
     protected boolean hasHuman;
 
+    // The structured log of the AI searches, enabled by -Dtictactoe.searchLog=<file>
+    protected static JsonLinesLog searchLog = JsonLinesLog.fromProperty("tictactoe.searchLog");
+
+    // How long the statistics wait for the result of the game to be stored, in milliseconds.
+    protected static final long RESULT_FLUSH_TIMEOUT = 1000;
+
+    // How often the times of the clock are shown again, in milliseconds.
+    protected static final int CLOCK_REFRESH_MILLIS = 250;
+
+    // A snapshot of the game is saved every this many turns, the turns between are journaled.
+    protected static final int SNAPSHOT_INTERVAL = 16;
+
+    // The shared services below are created when first used, not when the class is loaded,
+    // so a process which only uses the static helpers (e.g. a SearchWorker) opens none of them.
+
+    /**
+     * The persistent game results and ratings, in the stats directory, shared by all the sessions.
+     * -Dtictactoe.recomputeRatings=true rates the whole history again at startup.
+     */
+    protected static class ResultStoreHolder {
+        // null if it cannot be opened.
+        protected static final ResultStore resultStore = ResultStore.open(Session.statsDir,
+                Boolean.getBoolean("tictactoe.recomputeRatings"));
+    }
+
+    /**
+     * The archive of the game records, enabled by -Dtictactoe.recordFile=&lt;file&gt;
+     */
+    protected static class GameRecordsHolder {
+        // null if not enabled.
+        protected static final GameRecordWriter gameRecords = GameRecordWriter.fromProperty("tictactoe.recordFile");
+    }
+
+    /**
+     * The scheduler of the AI moves of the games played on an event loop, shared by all the sessions.
+     */
+    protected static class MoveSchedulerHolder {
+        protected static final MoveScheduler moveScheduler = new MoveScheduler(
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * @return The result store, <code>null</code> if it cannot be opened.
+     */
+    protected static ResultStore getResultStore() {
+        return ResultStoreHolder.resultStore;
+    }
+
+    /**
+     * @return The archive of the game records, <code>null</code> if not enabled.
+     */
+    protected static GameRecordWriter getGameRecords() {
+        return GameRecordsHolder.gameRecords;
+    }
+
+    /**
+     * @return The scheduler of the AI moves.
+     */
+    protected static MoveScheduler getMoveScheduler() {
+        return MoveSchedulerHolder.moveScheduler;
+    }
+
+    protected final String[] timedTakeBackMessage = new String[]{
+            "You may not take back a move",
+            "in a game with a clock.",
+    };
+
+    // The session playing the game, its settings and its save.
+    protected final Session session;
+    // The save of the in-progress game, null if the session does not save.
+    protected final SaveJournal saveJournal;
+
+    // The number of moves, and the start time of the current game.
+    protected int moveCount;
+    protected long gameStartMillis;
+    // The players of the current game, in the order of the record.
+    protected Player[] recordPlayers;
+    // Whether the current game is restored from the save, see restore().
+    protected boolean resumed;
+    // The piece placed in the current turn: the index of its owner (-1 if none) and position.
+    protected int placedOwner = -1;
+    protected int placedX;
+    protected int placedY;
+    protected int turnsSinceSnapshot;
+    // The record of the current game, written to the archive when it ends. null if not recorded.
+    protected GameRecord record;
+    // The clock of the current game, with the time control of the session.
+    protected GameClock clock = new GameClock(GameClock.TimeControl.NONE, 0);
+    // The names of the profiled sections of the turns and the frames, and the latency of the frames,
+    // made once, so that the profiled sections do not allocate them.
+    protected final String turnSection = "turn." + this.getClass().getSimpleName();
+    protected final String frameSection = "frame." + this.getClass().getSimpleName();
+    protected final LatencyHistogram renderLatency = MetricsRegistry.histogram("render." + this.getClass().getSimpleName());
+
+    /**
+     * @param session The session playing the game.
+     */
+    protected GamePlay(Session session) {
+        this.session = session;
+        this.saveJournal = session.getSaveJournal();
+    }
+
+    /**
+     * @return The UUID of the mod of the game, as chosen in the session.
+     */
+    protected String getModUUID() {
+        return this.session.getConfig().currentModUUID;
+    }
+
+    /**
+     * Reset the move count and the start time, start the game record,
+     * and save the first snapshot, when a new game begins.
+     * <br/>
+     * A resumed game keeps its move count, and is not recorded,
+     * since its first moves are not known.
+     * @param board The board of the game.
+     * @param players The players of the game.
+     * @param turn The turn of the first player.
+     */
+    protected void beginGame(Board<?> board, Player[] players, int turn) {
+        this.gameStartMillis = System.currentTimeMillis();
+        // a resumed game starts with a full clock too, its times are not saved.
+        this.clock = new GameClock(this.session.getConfig().timeControl, players.length);
+        this.recordPlayers = players;
+        this.placedOwner = -1;
+        this.turnsSinceSnapshot = 0;
+        if (this.saveJournal != null) {
+            this.saveJournal.snapshot(this.toSavedGame(turn).encode());
+        }
+        if (this.resumed) {
+            this.resumed = false;
+            return;
+        }
+        this.moveCount = 0;
+        if (getGameRecords() != null) {
+            String[] identities = new String[players.length];
+            for (int i = 0; i < players.length; i++) {
+                identities[i] = players[i].getIdentity();
+            }
+            // recorded apart from the other sessions, and written at once when it ends.
+            this.record = new GameRecord(this.getModUUID(), board.getWidth(), board.getHeight(),
+                    identities, StdRandom.getSeed());
+        }
+    }
+
+    /**
+     * Write a placed piece into the game record.
+     * @param owner The player owning the piece.
+     * @param x The x coordinate of the piece.
+     * @param y The y coordinate of the piece.
+     */
+    protected void recordMove(Player owner, int x, int y) {
+        for (int i = 0; i < this.recordPlayers.length; i++) {
+            if (this.recordPlayers[i] == owner) {
+                this.placedOwner = i;
+                this.placedX = x;
+                this.placedY = y;
+                if (this.record != null) {
+                    this.record.addMove(i, x, y);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Count the move of a finished turn, and journal it into the save.
+     * Every <code>SNAPSHOT_INTERVAL</code> turns, a snapshot replaces the journal.
+     * @param mover The index of the player of the turn.
+     * @param exitCode The exit code of the turn, -2 if the game is quit,
+     *                 -4 or -5 if the moves are to be undone or redone (see <code>saveTakeBack()</code>).
+     */
+    protected void endTurn(int mover, int exitCode) {
+        if (exitCode == -2 || exitCode == -4 || exitCode == -5) {
+            return;
+        }
+        if (this.placedOwner >= 0) {
+            this.moveCount++;
+        }
+        if (this.saveJournal != null) {
+            this.saveJournal.append(SavedGame.encodeTurn(mover, this.placedOwner, this.placedX, this.placedY));
+            if (++this.turnsSinceSnapshot >= SNAPSHOT_INTERVAL) {
+                this.turnsSinceSnapshot = 0;
+                this.saveJournal.snapshot(this.toSavedGame((mover + 1) % this.recordPlayers.length).encode());
+            }
+        }
+        this.placedOwner = -1;
+    }
+
+    /**
+     * Take back the piece of an undone move from the move count and the game record.
+     */
+    protected void unrecordMove() {
+        this.moveCount--;
+        if (this.record != null) {
+            this.record.removeLastMove();
+        }
+    }
+
+    /**
+     * Put the piece of a redone move back into the move count and the game record.
+     * @param owner The index of the player owning the piece.
+     * @param x The x coordinate of the piece.
+     * @param y The y coordinate of the piece.
+     */
+    protected void rerecordMove(int owner, int x, int y) {
+        this.moveCount++;
+        if (this.record != null) {
+            this.record.addMove(owner, x, y);
+        }
+    }
+
+    /**
+     * Save a snapshot of the game after moves are undone or redone,
+     * since the journal only goes forward.
+     * @param turn The turn of the next player to move.
+     */
+    protected void saveTakeBack(int turn) {
+        this.placedOwner = -1;
+        if (this.saveJournal != null) {
+            this.turnsSinceSnapshot = 0;
+            this.saveJournal.snapshot(this.toSavedGame(turn).encode());
+        }
+    }
+
+    /**
+     * End the game record, and delete the save if the game has ended.
+     * A quit game stays saved, so that it can be resumed.
+     * @param winner The winner, <code>null</code> if there's no winner.
+     * @param quit Whether the game was quit before its end.
+     */
+    protected void endGame(Player winner, boolean quit) {
+        if (this.saveJournal != null && !quit) {
+            this.saveJournal.clear();
+        }
+        if (this.record == null) {
+            return;
+        }
+        int index = quit ? GameRecord.UNFINISHED : -1;
+        for (int i = 0; i < this.recordPlayers.length; i++) {
+            if (this.recordPlayers[i] == winner) {
+                index = i;
+            }
+        }
+        this.record.setWinner(index);
+        getGameRecords().write(this.record);
+        this.record = null;
+    }
+
+    /**
+     * Read one key of the player to move, in a game play which runs a turn at a time.
+     * <br/>
+     * With a limited clock, the key is read while the event loop of the session
+     * draws the screen again and again, so the clock goes on, and the time out is
+     * shown as soon as the flag falls. The key read then acknowledges the time out.
+     * @param keyHandler The handler of the key.
+     * @param renderer Draws the screen, with the clock.
+     * @return <code>false</code> if the flag has fallen.
+     */
+    protected boolean readKey(KeyHandler keyHandler, Runnable renderer) {
+        if (!this.clock.isLimited()) {
+            keyHandler.run();
+            return true;
+        }
+        EventLoop loop = this.session.getEventLoop();
+        loop.setRenderer(renderer);
+        ScheduledFuture<?> refresh = loop.scheduleAtFixedRate(loop::requestRender, CLOCK_REFRESH_MILLIS);
+        this.session.getInputPump().request(keyHandler, loop::stop);
+        try {
+            loop.run();
+        } finally {
+            refresh.cancel(false);
+            loop.setRenderer(null);
+        }
+        return !this.clock.hasFlagFallen();
+    }
+
     /**
      * Helper functions for computing the player
      * numbers, how many Human players and how many
@@ -50,16 +349,193 @@ public abstract class GamePlay {
         }
     }
 
-    public static void showGameStatistics(Player[] players) {
-        String[] messages = new String[players.length + 2];
+    /**
+     * Helper functions to update the statistics of players after
+     * a game, and record the game in the persistent store.
+     * @param modUUID The UUID of the mod of the game.
+     * @param players The players of the game.
+     * @param winner The winner of the game. <code>null</code> if there's no winner.
+     * @param moveCount The number of moves played.
+     * @param durationMillis The duration of the game in milliseconds.
+     */
+    public static void doGameStatistics(String modUUID, Player[] players, Player winner,
+                                        int moveCount, long durationMillis) {
+        GamePlay.doGameStatistics(modUUID, players, winner, null, moveCount, durationMillis);
+    }
+
+    /**
+     * Helper functions to update the statistics of players after
+     * a game, which may be lost on time, and record the game in the persistent store.
+     * @param modUUID The UUID of the mod of the game.
+     * @param players The players of the game.
+     * @param winner The winner of the game. <code>null</code> if there's no winner.
+     *               For a game lost on time, see <code>getWinnerOnTime()</code>.
+     * @param flagged The player whose flag has fallen, <code>null</code> if none.
+     *                Without a winner, the others tie, but the flagged player loses.
+     * @param moveCount The number of moves played.
+     * @param durationMillis The duration of the game in milliseconds.
+     */
+    public static void doGameStatistics(String modUUID, Player[] players, Player winner, Player flagged,
+                                        int moveCount, long durationMillis) {
+        GamePlay.doGameStatistics(players, winner);
+        if (flagged != null) {
+            flagged.timeLosses += 1;
+            if (winner == null) {
+                flagged.ties -= 1;
+                flagged.losses += 1;
+            }
+        }
+        ResultStore resultStore = getResultStore();
+        if (resultStore == null) {
+            return;
+        }
+        String[] names = new String[players.length];
+        int winnerIndex = -1;
+        int flaggedIndex = -1;
+        for (int i = 0; i < players.length; i++) {
+            names[i] = players[i].getIdentity();
+            if (players[i] == winner) {
+                winnerIndex = i;
+            }
+            if (players[i] == flagged) {
+                flaggedIndex = i;
+            }
+        }
+        resultStore.append(new GameResult(System.currentTimeMillis(), modUUID, names,
+                winnerIndex, moveCount, durationMillis, flaggedIndex));
+    }
+
+    /**
+     * @param players The players of the game.
+     * @param flagged The player whose flag has fallen.
+     * @return The opponent of the flagged player in a game of two players,
+     *         else <code>null</code>, i.e. no winner.
+     */
+    public static Player getWinnerOnTime(Player[] players, Player flagged) {
+        if (players.length != 2) {
+            return null;
+        }
+        return players[0] == flagged ? players[1] : players[0];
+    }
+
+    /**
+     * Get the rating of a player in a mod, from the persistent store.
+     * @param modUUID The UUID of the mod.
+     * @param identity The identity of the player, see <code>Player.getIdentity()</code>.
+     * @param unrated The rating of a player who is not rated yet,
+     *                e.g. <code>RatingEngine.INITIAL_RATING</code>.
+     * @return The rating.
+     */
+    public static double getRating(String modUUID, String identity, double unrated) {
+        ResultStore resultStore = getResultStore();
+        if (resultStore == null) {
+            return unrated;
+        }
+        Leaderboard.Standing standing = resultStore.getRatings().getLeaderboard(modUUID).get(identity);
+        return standing == null ? unrated : standing.rating();
+    }
+
+    /**
+     * Helper functions to write the statistics of the last
+     * search of a player into the search log, if enabled.
+     * @param player The player who has searched a move.
+     */
+    protected void logSearchStatistics(Player player) {
+        SearchStatistics statistics = player.getLastSearchStatistics();
+        if (searchLog == null || statistics == null) {
+            return;
+        }
+        searchLog.append(String.format("{\"time\":%d,\"game\":%s,\"player\":%s,\"human\":%b,%s}",
+                System.currentTimeMillis(),
+                JsonLinesLog.quote(this.getClass().getSimpleName()),
+                JsonLinesLog.quote(player.getName()),
+                player.isHumanPlayer(),
+                statistics.toJsonFields()));
+    }
+
+    /**
+     * Helper functions to end the JFR event of a turn.
+     * @param event The event, which has begun at the start of the turn.
+     * @param player The player of the turn.
+     * @param exitCode The exit code of the turn.
+     */
+    protected void commitTurnEvent(TurnEvent event, Player player, int exitCode) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.game = this.getClass().getSimpleName();
+            event.player = player.getName();
+            event.human = player.isHumanPlayer();
+            event.exitCode = exitCode;
+            event.commit();
+        }
+    }
+
+    /**
+     * Helper functions to show the statistics of the players after a game.
+     * @param modUUID The UUID of the mod of the game.
+     * @param players The players of the game.
+     */
+    public static void showGameStatistics(String modUUID, Player[] players) {
+        // in the allocation profiling mode, show its summary below the scores.
+        List<String> allocations = AllocationProfiler.toTable();
+        int extraLines = allocations.isEmpty() ? 0 : allocations.size() + 1;
+        // and the all-time records of the players, if stored, with the game just ended.
+        ResultStore resultStore = getResultStore();
+        int recordLines = resultStore == null ? 0 : players.length + 2;
+        if (resultStore != null) {
+            resultStore.flush(RESULT_FLUSH_TIMEOUT);
+        }
+
+        String[] messages = new String[players.length + 2 + recordLines + extraLines];
         messages[0] = "Game Statistics:";
         messages[1] = "";
         for (int i = 0; i < players.length; i++) {
             messages[i + 2] = String.format("%s: %d wins, %d losses, %d ties", players[i].getName(), players[i].wins, players[i].losses, players[i].ties);
+            if (players[i].timeLosses > 0) {
+                messages[i + 2] += String.format(" (%d lost on time)", players[i].timeLosses);
+            }
+        }
+        int line = players.length + 2;
+        if (recordLines > 0) {
+            messages[line++] = "";
+            messages[line++] = "All-time:";
+            Leaderboard leaderboard = resultStore.getRatings().getLeaderboard(modUUID);
+            for (Player player : players) {
+                ResultStore.PlayerRecord record = resultStore.getRecord(modUUID, player.getIdentity());
+                Leaderboard.Standing standing = leaderboard.get(player.getIdentity());
+                if (record == null || standing == null) {
+                    messages[line++] = String.format("%s: no games", player.getName());
+                } else {
+                    messages[line++] = String.format("%s: %d wins, %d losses, %d ties, rating %.0f (#%d of %d)",
+                            player.getName(), record.getWins(), record.getLosses(), record.getTies(),
+                            standing.rating(), leaderboard.rankOf(player.getIdentity()), leaderboard.size());
+                }
+            }
+        }
+        if (extraLines > 0) {
+            messages[line++] = "";
+            for (String allocation : allocations) {
+                messages[line++] = allocation;
+            }
         }
         MessageDialog.showOK(messages);
     }
 
+    /**
+     * Save the state of the game.
+     * @param turn The turn of the next player to move.
+     * @return The state of the game.
+     */
+    protected abstract SavedGame toSavedGame(int turn);
+
+    /**
+     * Restore a saved game, which is continued by the next <code>start()</code>
+     * instead of a new game.
+     * @param saved The last snapshot of the game.
+     * @param entries The journal entries after the snapshot.
+     */
+    protected abstract void restore(SavedGame saved, List<byte[]> entries);
+
     /**
      * The abstract function for playing the game.
      */
@@ -0,0 +1,115 @@
+package club.denkyoku.tictactoe.models.gameplay;
+
+import club.denkyoku.tictactoe.models.board.Board;
+import club.denkyoku.tictactoe.models.board.Slot;
+import club.denkyoku.tictactoe.models.game.ReversiMod;
+import club.denkyoku.tictactoe.models.player.HumanPlayer;
+import club.denkyoku.tictactoe.models.player.Player;
+import club.denkyoku.tictactoe.services.storage.GameRecord;
+
+
+/**
+ * Reconstruct the positions of a recorded game, without rendering.
+ * <br/>
+ * The moves are fast-forwarded with <code>ReversiGamePlay.tryTurn</code>
+ * for Reversi, and <code>Board.put</code> for the line games.
+ * Seeking backwards replays from the start.
+ * <pre>
+ *     GameReplay replay = new GameReplay(record);
+ *     Board&lt;Slot&gt; board = replay.seek(20);
+ * </pre>
+ */
+public class GameReplay {
+    protected final GameRecord record;
+    protected final Player[] players;
+    protected final boolean flips;
+    protected final Board<Slot> board;
+    // The number of moves applied to the board.
+    protected int position;
+
+    /**
+     * Create a replay of a record, at the start of the game.
+     * @param record The record of the game.
+     */
+    public GameReplay(GameRecord record) {
+        this.record = record;
+        String[] identities = record.getPlayers();
+        this.players = new Player[identities.length];
+        for (int i = 0; i < identities.length; i++) {
+            // stand-in players, the slots only need a distinct owner.
+            this.players[i] = new HumanPlayer(identities[i], (char) ('A' + i));
+        }
+        this.flips = ReversiMod.MOD_UUID.equals(record.getModUUID());
+        this.board = new Board<>(record.getWidth(), record.getHeight());
+        this.rewind();
+    }
+
+    public GameRecord getRecord() {
+        return this.record;
+    }
+
+    /**
+     * @return The stand-in players, in the order of the record.
+     */
+    public Player[] getPlayers() {
+        return this.players;
+    }
+
+    public Board<Slot> getBoard() {
+        return this.board;
+    }
+
+    /**
+     * @return The number of moves applied to the board.
+     */
+    public int getPosition() {
+        return this.position;
+    }
+
+    /**
+     * Go back to the start of the game.
+     */
+    public void rewind() {
+        this.board.clear();
+        if (this.flips) {
+            ReversiGamePlay.putOpeningPosition(this.board, this.players);
+        }
+        this.position = 0;
+    }
+
+    /**
+     * Apply the next move.
+     * @return <code>false</code> if there's no move left.
+     */
+    public boolean step() {
+        if (this.position >= this.record.getMoveCount()) {
+            return false;
+        }
+        int owner = this.record.getOwner(this.position);
+        int x = this.record.getX(this.position);
+        int y = this.record.getY(this.position);
+        if (this.flips) {
+            ReversiGamePlay.tryTurn(this.board, x, y, this.players[owner], this.players[owner ^ 1]);
+        } else {
+            this.board.put(x, y, new Slot(this.players[owner]));
+        }
+        this.position++;
+        return true;
+    }
+
+    /**
+     * Reconstruct the position after a number of moves.
+     * @param moves The number of moves, clamped into the moves of the game.
+     * @return The board, which is reused by the next call.
+     */
+    public Board<Slot> seek(int moves) {
+        moves = Math.max(0, Math.min(moves, this.record.getMoveCount()));
+        if (moves < this.position) {
+            this.rewind();
+        }
+        while (this.position < moves) {
+            this.step();
+        }
+        return this.board;
+    }
+}
@@ -1,5 +1,7 @@
 package club.denkyoku.tictactoe.models.gameplay;
 
+import club.denkyoku.tictactoe.models.Session;
+import club.denkyoku.tictactoe.models.board.Board;
 import club.denkyoku.tictactoe.models.board.Slot;
 import club.denkyoku.tictactoe.models.player.Player;
 import club.denkyoku.tictactoe.services.output.controls.MessageDialog;
@@ -11,7 +13,35 @@ public class OrderAndChaosGamePlay extends TicTacToeGamePlay{
      * @param players The players of the game
      */
     public OrderAndChaosGamePlay(Player[] players) {
-        super(6, players);
+        this(Session.current(), players);
+    }
+
+    /**
+     * Create a new Order And Chaos game of a session
+     * @param session The session playing the game.
+     * @param players The players of the game
+     */
+    public OrderAndChaosGamePlay(Session session, Player[] players) {
+        this(session, 6, players);
+    }
+
+    /**
+     * Create a new Order And Chaos game on a board of another size
+     * @param boardSize The size of the board, at least 5.
+     * @param players The players of the game
+     */
+    protected OrderAndChaosGamePlay(int boardSize, Player[] players) {
+        this(Session.current(), boardSize, players);
+    }
+
+    /**
+     * Create a new Order And Chaos game of a session
+     * @param session The session playing the game.
+     * @param boardSize The size of the board, at least 5.
+     * @param players The players of the game
+     */
+    public OrderAndChaosGamePlay(Session session, int boardSize, Player[] players) {
+        super(session, boardSize, players);
     }
 
     /**
@@ -30,59 +60,71 @@ public class OrderAndChaosGamePlay extends TicTacToeGamePlay{
                 "You want to place:"
         }, btns, 0, -1);
         this.board.put(this.cursor_x, this.cursor_y, new Slot(this.players[ret]));
+        this.recordMove(this.players[ret], this.cursor_x, this.cursor_y);
     }
 
     @Override
     protected Player checkWinner()  {
+        return OrderAndChaosGamePlay.checkWinner(this.board, this.players);
+    }
+
+    /**
+     * Check if Order has five in a row, or Chaos has filled the board.
+     * It's also used without a game, e.g. by the game server.
+     * @param board The board.
+     * @param players Order and Chaos.
+     * @return The winner player. If there's no winner, return null.
+     */
+    public static Player checkWinner(Board<Slot> board, Player[] players) {
         // Check if chaos wins
-        if (this.board.isFull()){
-            return this.players[1];
+        if (board.isFull()){
+            return players[1];
         }
 
         // TODO: p <= player counts
         for (int p = 0; p < 2; p++) {
-            Player the_p = this.players[p];
-            for (int x = 0; x < this.board.getWidth(); x++) {
-                for (int y = 0; y < this.board.getHeight(); y++) {
+            Player the_p = players[p];
+            for (int x = 0; x < board.getWidth(); x++) {
+                for (int y = 0; y < board.getHeight(); y++) {
                     //Check rows
-                    if (x <= this.board.getWidth() - 5 && (
-                            this.board.at(x, y) != null && this.board.at(x, y).getPlayer() == the_p &&
-                            this.board.at(x + 1, y) != null && this.board.at(x + 1, y).getPlayer() == the_p &&
-                            this.board.at(x + 2, y) != null && this.board.at(x + 2, y).getPlayer() == the_p &&
-                            this.board.at(x + 3, y) != null && this.board.at(x + 3, y).getPlayer()  == the_p &&
-                            this.board.at(x + 4, y) != null && this.board.at(x + 4, y).getPlayer() == the_p)
+                    if (x <= board.getWidth() - 5 && (
+                            board.at(x, y) != null && board.at(x, y).getPlayer() == the_p &&
+                            board.at(x + 1, y) != null && board.at(x + 1, y).getPlayer() == the_p &&
+                            board.at(x + 2, y) != null && board.at(x + 2, y).getPlayer() == the_p &&
+                            board.at(x + 3, y) != null && board.at(x + 3, y).getPlayer()  == the_p &&
+                            board.at(x + 4, y) != null && board.at(x + 4, y).getPlayer() == the_p)
                     ) {
-                        return this.players[0];
+                        return players[0];
                     }
 
                     //Check columns
-                    if (y <= this.board.getHeight() - 5 && (
-                            this.board.at(x, y) != null && this.board.at(x, y).getPlayer() == the_p &&
-                            this.board.at(x, y + 1) != null && this.board.at(x, y + 1).getPlayer() == the_p &&
-                            this.board.at(x, y + 2) != null && this.board.at(x, y + 2).getPlayer() == the_p &&
-                            this.board.at(x, y + 3) != null && this.board.at(x, y + 3).getPlayer() == the_p &&
-                            this.board.at(x, y + 4) != null && this.board.at(x, y + 4).getPlayer() == the_p )
+                    if (y <= board.getHeight() - 5 && (
+                            board.at(x, y) != null && board.at(x, y).getPlayer() == the_p &&
+                            board.at(x, y + 1) != null && board.at(x, y + 1).getPlayer() == the_p &&
+                            board.at(x, y + 2) != null && board.at(x, y + 2).getPlayer() == the_p &&
+                            board.at(x, y + 3) != null && board.at(x, y + 3).getPlayer() == the_p &&
+                            board.at(x, y + 4) != null && board.at(x, y + 4).getPlayer() == the_p )
                     ) {
-                        return this.players[0];
+                        return players[0];
                     }
 
                     //Check diagonals
-                    if (x >= 2 && x <= this.board.getWidth() - 3 &&
-                            y >= 2 && y <= this.board.getHeight() - 3
+                    if (x >= 2 && x <= board.getWidth() - 3 &&
+                            y >= 2 && y <= board.getHeight() - 3
                             && ((
-                                this.board.at(x - 2, y - 2) != null && this.board.at(x - 2, y - 2).getPlayer() == the_p &&
-                                this.board.at(x - 1, y - 1) != null && this.board.at(x - 1, y - 1).getPlayer() == the_p &&
-                                this.board.at(x, y) != null && this.board.at(x, y).getPlayer() == the_p &&
-                                this.board.at(x + 1, y + 1) != null && this.board.at(x + 1, y + 1).getPlayer() == the_p &&
-                                this.board.at(x + 2, y + 2) != null && this.board.at(x + 2, y + 2).getPlayer() == the_p )
+                                board.at(x - 2, y - 2) != null && board.at(x - 2, y - 2).getPlayer() == the_p &&
+                                board.at(x - 1, y - 1) != null && board.at(x - 1, y - 1).getPlayer() == the_p &&
+                                board.at(x, y) != null && board.at(x, y).getPlayer() == the_p &&
+                                board.at(x + 1, y + 1) != null && board.at(x + 1, y + 1).getPlayer() == the_p &&
+                                board.at(x + 2, y + 2) != null && board.at(x + 2, y + 2).getPlayer() == the_p )
                             || (
-                                this.board.at(x + 2, y - 2) != null && this.board.at(x + 2, y - 2).getPlayer() == the_p &&
-                                this.board.at(x + 1, y - 1) != null && this.board.at(x + 1, y - 1).getPlayer() == the_p &&
-                                this.board.at(x, y) != null && this.board.at(x, y).getPlayer() == the_p &&
-                                this.board.at(x - 1, y + 1) != null && this.board.at(x - 1, y + 1).getPlayer() == the_p &&
-                                this.board.at(x - 2, y + 2) != null && this.board.at(x - 2, y + 2).getPlayer() == the_p )
+                                board.at(x + 2, y - 2) != null && board.at(x + 2, y - 2).getPlayer() == the_p &&
+                                board.at(x + 1, y - 1) != null && board.at(x + 1, y - 1).getPlayer() == the_p &&
+                                board.at(x, y) != null && board.at(x, y).getPlayer() == the_p &&
+                                board.at(x - 1, y + 1) != null && board.at(x - 1, y + 1).getPlayer() == the_p &&
+                                board.at(x - 2, y + 2) != null && board.at(x - 2, y + 2).getPlayer() == the_p )
                     )) {
-                        return this.players[0];
+                        return players[0];
                     }
                 }
             }
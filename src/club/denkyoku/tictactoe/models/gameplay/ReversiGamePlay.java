@@ -1,17 +1,30 @@
 package club.denkyoku.tictactoe.models.gameplay;
 
+import club.denkyoku.tictactoe.libraries.math.StdRandom;
 import club.denkyoku.tictactoe.libraries.os.Time;
+import club.denkyoku.tictactoe.models.Session;
 import club.denkyoku.tictactoe.models.board.Board;
 import club.denkyoku.tictactoe.models.board.Slot;
 import club.denkyoku.tictactoe.models.gameplay.helpers.BoardRender;
+import club.denkyoku.tictactoe.models.gameplay.helpers.FlipAnimation;
+import club.denkyoku.tictactoe.models.gameplay.helpers.MoveHistory;
 import club.denkyoku.tictactoe.models.gameplay.helpers.TurnBased;
 import club.denkyoku.tictactoe.models.player.Move;
 import club.denkyoku.tictactoe.models.player.Player;
 import club.denkyoku.tictactoe.models.player.ReversiPlayer;
+import club.denkyoku.tictactoe.models.player.SearchStatistics;
 import club.denkyoku.tictactoe.services.input.KeyHandler;
 import club.denkyoku.tictactoe.services.output.controls.MessageDialog;
+import club.denkyoku.tictactoe.services.profiling.AllocationProfiler;
+import club.denkyoku.tictactoe.services.profiling.TurnEvent;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 
 // Classes for the whole Reversi Game Play Experience
@@ -49,7 +62,7 @@ public class ReversiGamePlay extends GamePlay {
     };
     protected final MessageDialog.Button[] pauseGameButtons = new MessageDialog.Button[]{
             new MessageDialog.Button("Resume", 'R'),
-            new MessageDialog.Button("Quit", 'Q'),
+            new MessageDialog.Button("Save and quit", 'Q'),
     };
     protected final MessageDialog.Button[] restartGameButtons = new MessageDialog.Button[]{
             new MessageDialog.Button("Have another try", 'T'),
@@ -60,24 +73,49 @@ public class ReversiGamePlay extends GamePlay {
             "",
     };
     protected final String[] footerMessage = new String[] {
-            "F1: Pass  F2: Hint  Esc: Pause"
+            "F1: Pass  F2: Hint  F3: Undo  F4: Redo  Esc: Pause"
+    };
+    protected final String[] footerWithStatistics = new String[] {
+            footerMessage[0],
+            "",
+    };
+    protected final String[] timeUpFooter = new String[] {
+            "Time is up! Press any key."
     };
 
     protected final int boardSize = 8;
     protected final ReversiPlayer[] players;
     protected final int[] playerMovesCount;
     protected final Board<Slot> board;
+    protected final BoardRender boardRender;
     protected int turn;
     protected int cursor_x;
     protected int cursor_y;
     // if show animation
     protected boolean showAnimation;
-    // when use cheats (hint), this won't be counted into statistics
+    // the flip animation which may be still playing
+    protected FlipAnimation flipAnimation;
+    // if show the statistics of the last AI search in the footer
+    protected boolean showSearchStatistics;
+    // when use cheats (hint, undo), this won't be counted into statistics
     protected boolean cheats;
+    // The moves of the current game, with their flips, for undo and redo.
+    protected final MoveHistory history = new MoveHistory();
     // pass can be used only once
     protected boolean freshBoard;
 
     public ReversiGamePlay(ReversiPlayer[] players, boolean showAnimation) {
+        this(Session.current(), players, showAnimation);
+    }
+
+    /**
+     * Create a new Reversi game of a session.
+     * @param session The session playing the game.
+     * @param players The two players.
+     * @param showAnimation Whether the flips are animated.
+     */
+    public ReversiGamePlay(Session session, ReversiPlayer[] players, boolean showAnimation) {
+        super(session);
         if (players == null || players.length != 2) {
             throw new IllegalArgumentException("Reversi requires exactly 2 players.");
         }
@@ -86,6 +124,7 @@ public class ReversiGamePlay extends GamePlay {
 
         this.showAnimation = showAnimation;
         this.board = new Board<>(boardSize, boardSize);
+        this.boardRender = new BoardRender(this.board);
 
         this.doPlayerStatistics(players);
     }
@@ -98,16 +137,28 @@ public class ReversiGamePlay extends GamePlay {
         this.showAnimation = value;
     }
 
+    public boolean getShowSearchStatistics() {
+        return this.showSearchStatistics;
+    }
+
+    public void setShowSearchStatistics(boolean value) {
+        this.showSearchStatistics = value;
+    }
+
     @Override
     public void start() {
         while (true) {
-            // first reset the game states.
-            this.reset();
+            // first reset the game states, unless a saved game is resumed.
+            if (!this.resumed) {
+                this.reset();
+            }
             // print the first UI
-            this.printUI(false, null, null);
+            this.printUI(false, null);
+            this.beginGame(this.board, this.players, this.turn);
 
             int exitCode;
             int consecutiveNoMoves = 0;
+            Player flagged = null;
             while (true) {
                 // compute the available moves for the player
                 Move[] availableMoves = getAvailableMoves(this.board,
@@ -127,9 +178,21 @@ public class ReversiGamePlay extends GamePlay {
 
                 // means user want to quit
                 if (exitCode == -2) {
-                    GamePlay.showGameStatistics(this.players);
+                    this.endGame(null, true);
+                    GamePlay.showGameStatistics(this.getModUUID(), this.players);
                     return;
                 }
+                // means the user wants to undo or redo
+                if (exitCode == -4 || exitCode == -5) {
+                    this.takeBack(exitCode == -4);
+                    consecutiveNoMoves = 0;
+                    continue;
+                }
+                // means the player has lost on time
+                if (exitCode == -3) {
+                    flagged = this.players[this.turn];
+                    break;
+                }
 
                 // when the board is full or
                 // when someone has no moves, he immediately loses.
@@ -141,20 +204,28 @@ public class ReversiGamePlay extends GamePlay {
                 this.nextTurn();
             }
 
-            Player winner = this.checkWinner();
+            Player winner = flagged != null ? GamePlay.getWinnerOnTime(this.players, flagged) : this.checkWinner();
+            this.endGame(winner, false);
             if (!this.cheats) {
-                GamePlay.doGameStatistics(this.players, winner);
+                GamePlay.doGameStatistics(this.getModUUID(), this.players, winner, flagged,
+                        this.moveCount, System.currentTimeMillis() - this.gameStartMillis);
             }
 
             // Reprint the board once before ending
-            this.printUI(false, null, null);
+            this.printUI(false, null);
 
             // print the game over message.
             String[] messages;
             int moveDiff = this.playerMovesCount[0] - this.playerMovesCount[1];
             moveDiff = Math.abs(moveDiff);
 
-            if (winner == null) {
+            if (flagged != null) {
+                messages = new String[]{
+                        "Time is up!",
+                        String.format("%s has lost on time.", flagged.getName()),
+                        "Would you like to have another try?",
+                };
+            } else if (winner == null) {
                 messages = new String[]{
                         "You draw the game",
                         "Please restart the game.",
@@ -194,7 +265,7 @@ public class ReversiGamePlay extends GamePlay {
             }
             int msgRet = MessageDialog.show(messages, restartGameButtons, 0, 1);
             if (msgRet == 1) {
-                GamePlay.showGameStatistics(this.players);
+                GamePlay.showGameStatistics(this.getModUUID(), this.players);
                 break;
             }
         }
@@ -285,15 +356,52 @@ public class ReversiGamePlay extends GamePlay {
     }
 
     protected int oneTurn(Move[] availableMoves) {
-        // first print the game without cursor.
-        this.printUI(false, availableMoves, null);
+        Player curTurnPlayer = this.players[this.turn];
+        long allocated = AllocationProfiler.begin();
+        TurnEvent event = new TurnEvent();
+        event.begin();
+        this.clock.start(this.turn);
+        int exitCode = this.doOneTurn(availableMoves);
+        if (!this.clock.stop() && exitCode == 0) {
+            // the flag has fallen before the move, which stays on the board.
+            exitCode = -3;
+        }
+        this.endTurn(this.turn, exitCode);
+        this.commitTurnEvent(event, curTurnPlayer, exitCode);
+        AllocationProfiler.end(this.turnSection, allocated);
+        return exitCode;
+    }
 
+    protected int doOneTurn(Move[] availableMoves) {
         Player curTurnPlayer = this.players[this.turn];
 
+        Move the_move = null;
+        if (!curTurnPlayer.isHumanPlayer() && availableMoves.length > 0) {
+            // the AI thinks while the last flip animation is still playing,
+            // which is followed by the frame showing whose turn it is.
+            if (this.flipAnimation != null) {
+                this.flipAnimation.whenFinished(() -> this.drawUI(false, availableMoves));
+            } else {
+                this.printUI(false, availableMoves);
+            }
+            the_move = this.searchMove(curTurnPlayer, availableMoves);
+            if (the_move == null) {
+                return -3;
+            }
+            this.onSearchDone(curTurnPlayer);
+            // the animations are not on the clock of the AI.
+            if (!this.clock.stop()) {
+                return -3;
+            }
+        }
+
+        // first print the game without cursor,
+        // or with the search statistics of the AI.
+        this.printUI(false, availableMoves);
+
         TurnBased.TurnBasedDataSync dataSync = new TurnBased.TurnBasedDataSync();
         KeyHandler keyHandler = new TurnBased.TurnBasedKeyHandler(dataSync);
 
-        Move the_move = null;
         if (curTurnPlayer.isHumanPlayer()) {
             if (availableMoves.length == 0) {
                 MessageDialog.showOK(mustPassMessage);
@@ -304,12 +412,16 @@ public class ReversiGamePlay extends GamePlay {
 
             while (dataSync.keepRun) {
                 if (redraw) {
-                    this.printUI(true, availableMoves, null);
+                    this.printUI(true, availableMoves);
                     redraw = false;
                 }
 
                 dataSync.reset();
-                keyHandler.run();
+                boolean showCursor = !firstTouch;
+                if (!this.readKey(keyHandler, () -> this.printUI(showCursor, availableMoves))) {
+                    keyHandler.exitInput();
+                    return -3;
+                }
 
                 if (firstTouch) {
                     redraw = true;
@@ -317,7 +429,11 @@ public class ReversiGamePlay extends GamePlay {
                 }
 
                 if (dataSync.doExit) {
-                    if (MessageDialog.show(pauseGameMessages, pauseGameButtons, 0, 0) == 1) {
+                    // the game is paused, and its clock too.
+                    this.clock.pause();
+                    int ret = MessageDialog.show(pauseGameMessages, pauseGameButtons, 0, 0);
+                    this.clock.resume();
+                    if (ret == 1) {
                         keyHandler.exitInput();
                         return -2;
                     }
@@ -367,6 +483,7 @@ public class ReversiGamePlay extends GamePlay {
                     }
                 } else if (dataSync.doFunction1) {
                     if (this.freshBoard || availableMoves.length == 0) {
+                        this.history.push(MoveHistory.Entry.pass(this.turn));
                         return 0;
                     } else {
                         MessageDialog.showOK(onlyFirstPassMessage);
@@ -383,37 +500,49 @@ public class ReversiGamePlay extends GamePlay {
                         MessageDialog.showOK(useHintMessage);
                     }
                     Move hint = curTurnPlayer.getMove(this.board, this.players, availableMoves);
+                    this.onSearchDone(curTurnPlayer);
                     this.cursor_x = hint.x;
                     this.cursor_y = hint.y;
                     redraw = true;
+                } else if (dataSync.doFunction3 || dataSync.doFunction4) {
+                    // undo or redo
+                    if (this.confirmTakeBack(dataSync.doFunction3)) {
+                        keyHandler.exitInput();
+                        return dataSync.doFunction3 ? -4 : -5;
+                    }
                 }
             }
             keyHandler.exitInput();
         } else {
             // AI player
             if (availableMoves.length == 0) {
+                this.clock.stop();
                 MessageDialog.show(aiMustPassMessage);
+                this.history.push(MoveHistory.Entry.pass(this.turn));
                 return 0;
             }
             // if show animation, wait for 1 second
             if (!this.players[this.turn].isHumanPlayer() && this.showAnimation) {
                 Time.waitMilliseconds(1000);
             }
-            the_move = curTurnPlayer.getMove(this.board, this.players, availableMoves);
         }
 
         if (the_move == null) {
             throw new RuntimeException("Unexpected null move!");
         }
 
-        // First play the flipping animation
         Move[] flippedMoves = ReversiGamePlay.computeFlip(
                 this.board, the_move.x, the_move.y,
                 this.players[this.turn], this.players[this.turn ^ 1]);
         this.playerMovesCount[this.turn]++;
+        this.history.push(new MoveHistory.Entry(this.turn, this.turn, the_move, flippedMoves));
 
         this.board.put(the_move.x, the_move.y, new Slot(curTurnPlayer));
-        this.printUI(false, null, flippedMoves);
+        this.recordMove(curTurnPlayer, the_move.x, the_move.y);
+        if (this.showAnimation) {
+            // draw the board before flipping, the animation will paint over it.
+            this.printUI(false, null);
+        }
         this.playerMovesCount[this.turn] += flippedMoves.length;
         this.playerMovesCount[this.turn ^ 1] -= flippedMoves.length;
 
@@ -421,10 +550,33 @@ public class ReversiGamePlay extends GamePlay {
         for (Move move : flippedMoves) {
             this.board.put(move.x, move.y, new Slot(curTurnPlayer));
         }
+
+        if (this.showAnimation) {
+            // play the flipping animation in the background,
+            // the next printUI() will wait for it.
+            this.flipAnimation = new FlipAnimation(the_move, flippedMoves,
+                    this.players[this.turn ^ 1].getSymbol(), curTurnPlayer.getSymbol(),
+                    this.headerMessage.length, presets -> this.printFrame(false, presets));
+            this.flipAnimation.start();
+        } else {
+            this.printUI(false, null);
+        }
 //        this.headerMessage[1] = "A: " + this.playerMovesCount[0] + " B: " + this.playerMovesCount[1];
         return 0;
     }
 
+    /**
+     * A helper function to put the default moves in the center of the board.
+     * @param board The empty board.
+     * @param players The two players.
+     */
+    public static void putOpeningPosition(Board<Slot> board, Player[] players) {
+        board.put(3, 3, new Slot(players[0]));
+        board.put(4, 4, new Slot(players[0]));
+        board.put(3, 4, new Slot(players[1]));
+        board.put(4, 3, new Slot(players[1]));
+    }
+
     /**
      * A helper function for doing the turn
      * It's called by Players
@@ -466,6 +618,8 @@ public class ReversiGamePlay extends GamePlay {
 
     /**
      * Print the UI of the Reversi Game.
+     * <br/>
+     * If the flip animation is still playing, wait for it first.
      *
      * @param bShowCursor    Whether to show the cursor.
      *                       If <code>true</code>, the cursor will be shown at the
@@ -473,76 +627,179 @@ public class ReversiGamePlay extends GamePlay {
      * @param availableMoves Whether to show the available moves.
      *                       If <code>null</code>, then this will be skipped.
      *                       Else, it will show dots at the slots.
-     * @param flippingMoves  Whether to show the flipping moves.
-     *                       If <code>null</code>, then this will be skipped.
-     *                       Else, it will play the animation of flipping the moves.
      */
     protected void printUI(boolean bShowCursor,
-                           Move[] availableMoves,
-                           Move[] flippingMoves) {
-        int init_capacity = 0;
-        if (availableMoves != null) {
-            init_capacity += availableMoves.length;
-        }
-        if (flippingMoves != null) {
-            init_capacity += flippingMoves.length;
+                           Move[] availableMoves) {
+        if (this.flipAnimation != null) {
+            this.flipAnimation.await();
+            this.flipAnimation = null;
         }
+        this.drawUI(bShowCursor, availableMoves);
+    }
 
-        // making the preset backgrounds
-        ArrayList<BoardRender.SlotChar> dynamicPreset = new ArrayList<>(init_capacity);
-        BoardRender.SlotChar[] presetArray;
-
+    /**
+     * Helper function to draw the UI of the Reversi Game at once,
+     * e.g. when the flip animation has ended.
+     * @param bShowCursor    Whether to show the cursor.
+     * @param availableMoves Whether to show the available moves.
+     */
+    protected void drawUI(boolean bShowCursor, Move[] availableMoves) {
+        BoardRender.SlotChar[] presetArray = null;
         if (availableMoves != null) {
-            for (var move : availableMoves) {
-                dynamicPreset.add(new BoardRender.SlotChar(move, '·', false));
+            presetArray = new BoardRender.SlotChar[availableMoves.length];
+            for (int i = 0; i < availableMoves.length; i++) {
+                presetArray[i] = new BoardRender.SlotChar(availableMoves[i], '·', false);
             }
         }
+        long allocated = AllocationProfiler.begin();
+        long start = System.nanoTime();
+        this.printFrame(bShowCursor, presetArray);
+        this.renderLatency.record(System.nanoTime() - start);
+        AllocationProfiler.end(this.frameSection, allocated);
+    }
 
-        if (flippingMoves == null) {
-            presetArray = new BoardRender.SlotChar[dynamicPreset.size()];
-            presetArray = dynamicPreset.toArray(presetArray);
-            String[] boardString = BoardRender.drawRectBoard(this.board,
-                    bShowCursor, this.cursor_x, this.cursor_y,
-                    presetArray);
-
-            TurnBased.drawUI(boardString, this.players, this.turn, this.headerMessage, this.footerMessage);
-            return;
+    /**
+     * Helper function to draw the whole game screen once.
+     * @param bShowCursor Whether to show the cursor.
+     * @param presetArray The preset backgrounds of the board.
+     *                    If <code>null</code>, then this will be skipped.
+     */
+    protected void printFrame(boolean bShowCursor, BoardRender.SlotChar[] presetArray) {
+        String[] boardString = this.boardRender.draw(
+                bShowCursor, this.cursor_x, this.cursor_y, presetArray);
+        String[] footer = this.showSearchStatistics ? this.footerWithStatistics : this.footerMessage;
+        if (this.clock.hasFlagFallen()) {
+            footer = this.timeUpFooter;
         }
+        TurnBased.drawUI(boardString, this.players, this.turn, this.headerMessage, footer,
+                this.clock.getLabels());
+    }
 
-        char curPlayerSymbol = this.players[this.turn].getSymbol();
-
-        // if show animation, we will show flipping one by one.
-        for (var move : flippingMoves) {
-            dynamicPreset.add(new BoardRender.SlotChar(move, curPlayerSymbol,true));
-            if (this.showAnimation) {
-                presetArray = new BoardRender.SlotChar[dynamicPreset.size()];
-                presetArray = dynamicPreset.toArray(presetArray);
+    /**
+     * Helper function to check if the moves can be undone or redone,
+     * and warn the user the first time, as for a hint.
+     * @param undo Whether to undo, else redo.
+     * @return Whether to take back the moves.
+     */
+    protected boolean confirmTakeBack(boolean undo) {
+        if (undo ? !this.history.canUndo() : !this.history.canRedo()) {
+            return false;
+        }
+        if (this.clock.isLimited()) {
+            MessageDialog.showOK(timedTakeBackMessage);
+            return false;
+        }
+        if (!this.cheats) {
+            if (MessageDialog.show(cheatsWarningMessage, MessageDialog.getYesNo(), 1, 1) == 1) {
+                return false;
+            }
+            this.headerMessage[0] = "Reversi Practice Game";
+            this.cheats = true;
+        }
+        return true;
+    }
 
-                char tempPlayerSymbol = presetArray[dynamicPreset.size() - 1].getSymbol();
-                if (tempPlayerSymbol == '●') {
-                    tempPlayerSymbol = '⬬';
-                } else if (tempPlayerSymbol == '○') {
-                    tempPlayerSymbol = '⬭';
-                }
-                presetArray[dynamicPreset.size() - 1] = new BoardRender.SlotChar(move, tempPlayerSymbol, true);
-
-                // draw 1st times
-                String[] boardString = BoardRender.drawRectBoard(this.board,
-                        bShowCursor, this.cursor_x, this.cursor_y,
-                        presetArray);
-                TurnBased.drawUI(boardString, this.players, this.turn, this.headerMessage, this.footerMessage);
-                Time.waitMilliseconds(500);
+    /**
+     * Undo the last move, and the moves of the AI player before it,
+     * or redo the next move, and the moves of the AI player after it,
+     * so a human player moves next.
+     * @param undo Whether to undo, else redo.
+     */
+    protected void takeBack(boolean undo) {
+        if (undo) {
+            do {
+                this.undoTurn(this.history.undo());
+            } while (this.history.canUndo() && !this.players[this.turn].isHumanPlayer());
+            // the first moves of the AI player are not undone.
+            while (this.history.canRedo() && !this.players[this.turn].isHumanPlayer()) {
+                this.redoTurn(this.history.redo());
             }
+        } else {
+            do {
+                this.redoTurn(this.history.redo());
+            } while (this.history.canRedo() && !this.players[this.turn].isHumanPlayer());
+        }
+        // the pass of the fresh board is allowed again before the first turn.
+        this.freshBoard = this.history.getPosition() == 0 && this.moveCount == 0;
+        this.saveTakeBack(this.turn);
+    }
+
+    /**
+     * Helper function to undo a turn: remove its piece and flip back the
+     * pieces it has flipped, then count the pieces again.
+     */
+    protected void undoTurn(MoveHistory.Entry entry) {
+        this.turn = entry.turn();
+        if (entry.isPass()) {
+            return;
+        }
+        Player opponent = this.players[entry.turn() ^ 1];
+        this.board.put(entry.move().x, entry.move().y, null);
+        for (Move move : entry.flips()) {
+            this.board.put(move.x, move.y, new Slot(opponent));
         }
+        this.playerMovesCount[entry.turn()] -= 1 + entry.flips().length;
+        this.playerMovesCount[entry.turn() ^ 1] += entry.flips().length;
+        this.unrecordMove();
+    }
 
-        presetArray = new BoardRender.SlotChar[dynamicPreset.size()];
-        presetArray = dynamicPreset.toArray(presetArray);
+    /**
+     * Helper function to redo a turn: put its piece and flip the pieces again,
+     * then count the pieces again.
+     */
+    protected void redoTurn(MoveHistory.Entry entry) {
+        this.turn = entry.turn() ^ 1;
+        if (entry.isPass()) {
+            return;
+        }
+        Player self = this.players[entry.turn()];
+        this.board.put(entry.move().x, entry.move().y, new Slot(self));
+        for (Move move : entry.flips()) {
+            this.board.put(move.x, move.y, new Slot(self));
+        }
+        this.playerMovesCount[entry.turn()] += 1 + entry.flips().length;
+        this.playerMovesCount[entry.turn() ^ 1] -= entry.flips().length;
+        this.rerecordMove(entry.turn(), entry.move().x, entry.move().y);
+    }
 
-        String[] boardString = BoardRender.drawRectBoard(this.board,
-                bShowCursor, this.cursor_x, this.cursor_y,
-                presetArray);
+    /**
+     * Helper function to search the move of an AI player.
+     * With a limited clock, the search runs on the shared <code>MoveScheduler</code>,
+     * and is waited for until the flag falls.
+     * @param player The AI player.
+     * @param availableMoves The legal moves of the player.
+     * @return The move, or <code>null</code> if the flag has fallen first.
+     */
+    protected Move searchMove(Player player, Move[] availableMoves) {
+        if (!this.clock.isLimited()) {
+            return player.getMove(this.board, this.players, availableMoves);
+        }
+        CompletableFuture<Move> move = getMoveScheduler().submit(this.getModUUID(), player, this.board.clone(),
+                this.players, availableMoves, this.clock.getDeadlineNanos(), StdRandom.uniform(Long.MAX_VALUE));
+        try {
+            return move.get(this.clock.getMillisToFlag(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // the search goes on, but its move is dropped.
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        }
+    }
 
-        TurnBased.drawUI(boardString, this.players, this.turn, this.headerMessage, this.footerMessage);
+    /**
+     * Called when a player has searched a move (or a hint).
+     * Log the search, and show it in the footer.
+     * @param player The player who has searched.
+     */
+    protected void onSearchDone(Player player) {
+        this.logSearchStatistics(player);
+        SearchStatistics statistics = player.getLastSearchStatistics();
+        if (statistics != null) {
+            this.footerWithStatistics[1] = statistics.toDisplayString();
+        }
     }
 
     /**
@@ -556,19 +813,58 @@ public class ReversiGamePlay extends GamePlay {
         }
     }
 
+    @Override
+    protected SavedGame toSavedGame(int turn) {
+        SavedGame saved = new SavedGame();
+        saved.modUUID = this.getModUUID();
+        saved.players = this.players;
+        saved.setCells(this.board, this.players);
+        saved.turn = turn;
+        saved.cursorX = this.cursor_x;
+        saved.cursorY = this.cursor_y;
+        saved.moveCount = this.moveCount;
+        saved.showAnimation = this.showAnimation;
+        saved.cheats = this.cheats;
+        // the pass of the fresh board is only allowed in the first turn.
+        saved.freshBoard = this.freshBoard && turn == this.turn;
+        return saved;
+    }
+
+    @Override
+    protected void restore(SavedGame saved, List<byte[]> entries) {
+        this.reset();
+        this.turn = saved.restoreBoard(this.board, entries, true);
+        this.cursor_x = saved.cursorX;
+        this.cursor_y = saved.cursorY;
+        this.moveCount = saved.moveCount;
+        this.cheats = saved.cheats;
+        this.freshBoard = saved.freshBoard;
+        if (this.cheats) {
+            this.headerMessage[0] = "Reversi Practice Game";
+        }
+        this.playerMovesCount[0] = this.playerMovesCount[1] = 0;
+        for (int y = 0; y < this.board.getHeight(); y++) {
+            for (int x = 0; x < this.board.getWidth(); x++) {
+                Slot slot = this.board.at(x, y);
+                if (slot != null) {
+                    this.playerMovesCount[slot.getPlayer() == this.players[0] ? 0 : 1]++;
+                }
+            }
+        }
+        this.resumed = true;
+    }
+
     public void reset() {
         this.cursor_x = this.cursor_y = 3;
         this.turn = 0;
         this.board.clear();
         this.cheats = false;
         this.freshBoard = true;
+        this.history.clear();
         this.headerMessage[0] = "Reversi";
+        this.footerWithStatistics[1] = "";
 
-        // default moves in the center of the board.
-        this.board.put(3, 3, new Slot(this.players[0]));
-        this.board.put(4, 4, new Slot(this.players[0]));
-        this.board.put(3, 4, new Slot(this.players[1]));
-        this.board.put(4, 3, new Slot(this.players[1]));
+        ReversiGamePlay.putOpeningPosition(this.board, this.players);
         this.playerMovesCount[0] = 2;
         this.playerMovesCount[1] = 2;
     }
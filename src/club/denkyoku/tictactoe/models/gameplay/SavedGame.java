@@ -0,0 +1,282 @@
+package club.denkyoku.tictactoe.models.gameplay;
+
+import club.denkyoku.tictactoe.models.Config;
+import club.denkyoku.tictactoe.models.Session;
+import club.denkyoku.tictactoe.models.board.Board;
+import club.denkyoku.tictactoe.models.board.Slot;
+import club.denkyoku.tictactoe.models.game.Mod;
+import club.denkyoku.tictactoe.models.game.OrderAndChaosMod;
+import club.denkyoku.tictactoe.models.game.ReversiMod;
+import club.denkyoku.tictactoe.models.game.TicTacToeMod;
+import club.denkyoku.tictactoe.models.player.HumanPlayer;
+import club.denkyoku.tictactoe.models.player.Player;
+import club.denkyoku.tictactoe.models.player.ReversiPlayer;
+import club.denkyoku.tictactoe.models.player.TicTacToeAIPlayer;
+import club.denkyoku.tictactoe.services.output.controls.MessageDialog;
+import club.denkyoku.tictactoe.services.storage.SaveJournal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+
+/**
+ * The state of an in-progress game, saved by <code>GamePlay</code>
+ * into the <code>SaveJournal</code>, so that it can be resumed.
+ * <br/>
+ * The snapshot is the board (the owner of every slot), the players,
+ * the turn, the cursor and a few flags of the game. A journal entry is
+ * one finished turn: the mover, and the owner and position of the
+ * placed piece (or a pass).
+ */
+public class SavedGame {
+    protected static final int VERSION = 1;
+    // The kinds of saved players.
+    protected static final int HUMAN = 0;
+    protected static final int REVERSI = 1;
+    protected static final int TICTACTOE_AI = 2;
+    // The owner of a journal entry of a pass.
+    protected static final int PASS = 0xFF;
+
+    protected static final MessageDialog.Button[] resumeButtons = new MessageDialog.Button[]{
+            new MessageDialog.Button("Resume", 'R'),
+            new MessageDialog.Button("Not now", 'N'),
+            new MessageDialog.Button("Discard", 'D'),
+    };
+
+    public String modUUID;
+    public int boardSize;
+    public Player[] players;
+    // The owner (index of the player) of every slot, y * boardSize + x. -1 if empty.
+    public int[] cells;
+    public int turn;
+    public int cursorX;
+    public int cursorY;
+    public int moveCount;
+    public boolean showAnimation;
+    public boolean cheats;
+    public boolean freshBoard;
+
+    /**
+     * Helper function to save the board.
+     * @param board The board.
+     * @param players The players owning the slots.
+     */
+    public void setCells(Board<Slot> board, Player[] players) {
+        this.boardSize = board.getWidth();
+        this.cells = new int[board.getWidth() * board.getHeight()];
+        for (int y = 0; y < board.getHeight(); y++) {
+            for (int x = 0; x < board.getWidth(); x++) {
+                Slot slot = board.at(x, y);
+                int owner = -1;
+                if (slot != null) {
+                    for (int i = 0; i < players.length; i++) {
+                        if (players[i] == slot.getPlayer()) {
+                            owner = i;
+                        }
+                    }
+                }
+                this.cells[y * board.getWidth() + x] = owner;
+            }
+        }
+    }
+
+    /**
+     * Helper function to restore the board and the moves after the snapshot.
+     * @param board The board, which is cleared first.
+     * @param entries The journal entries after the snapshot.
+     * @param flips Whether a move flips pieces (Reversi).
+     * @return The turn after the last entry.
+     */
+    public int restoreBoard(Board<Slot> board, List<byte[]> entries, boolean flips) {
+        board.clear();
+        for (int i = 0; i < this.cells.length; i++) {
+            if (this.cells[i] >= 0) {
+                board.put(i % this.boardSize, i / this.boardSize, new Slot(this.players[this.cells[i]]));
+            }
+        }
+        int turn = this.turn;
+        for (byte[] entry : entries) {
+            int mover = entry[0] & 0xFF;
+            int owner = entry[1] & 0xFF;
+            int x = entry[2] & 0xFF;
+            int y = entry[3] & 0xFF;
+            if (owner != PASS) {
+                if (flips) {
+                    ReversiGamePlay.tryTurn(board, x, y, this.players[owner], this.players[owner ^ 1]);
+                } else {
+                    board.put(x, y, new Slot(this.players[owner]));
+                }
+                this.moveCount++;
+            }
+            turn = (mover + 1) % this.players.length;
+        }
+        if (!entries.isEmpty()) {
+            this.freshBoard = false;
+        }
+        return turn;
+    }
+
+    /**
+     * Encode a journal entry.
+     * @param mover The index of the player of the turn.
+     * @param owner The index of the owner of the placed piece, -1 for a pass.
+     * @param x The x coordinate of the piece.
+     * @param y The y coordinate of the piece.
+     * @return The entry.
+     */
+    public static byte[] encodeTurn(int mover, int owner, int x, int y) {
+        return new byte[]{(byte) mover, (byte) (owner < 0 ? PASS : owner), (byte) x, (byte) y};
+    }
+
+    public byte[] encode() {
+        byte[] mod = this.modUUID.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(64 + mod.length + this.cells.length + this.players.length * 64);
+        buffer.put((byte) VERSION);
+        putString(buffer, this.modUUID);
+        buffer.putShort((short) this.boardSize);
+        buffer.put((byte) this.players.length);
+        for (Player player : this.players) {
+            if (player instanceof ReversiPlayer reversiPlayer) {
+                buffer.put((byte) REVERSI);
+                buffer.put((byte) (player.isHumanPlayer() ? 1 : 0));
+                buffer.putDouble(reversiPlayer.getSmartProb());
+                buffer.put((byte) reversiPlayer.getDepth());
+            } else if (player instanceof TicTacToeAIPlayer aiPlayer) {
+                buffer.put((byte) TICTACTOE_AI);
+                buffer.putDouble(aiPlayer.getSmartProb());
+            } else {
+                buffer.put((byte) HUMAN);
+            }
+            putString(buffer, player.getName());
+            buffer.putChar(player.getSymbol());
+        }
+        for (int cell : this.cells) {
+            buffer.put((byte) cell);
+        }
+        buffer.put((byte) this.turn);
+        buffer.putShort((short) this.cursorX).putShort((short) this.cursorY);
+        buffer.putInt(this.moveCount);
+        buffer.put((byte) ((this.showAnimation ? 1 : 0) | (this.cheats ? 2 : 0) | (this.freshBoard ? 4 : 0)));
+        byte[] state = new byte[buffer.position()];
+        buffer.flip().get(state);
+        return state;
+    }
+
+    /**
+     * Decode a snapshot.
+     * @param state The encoded state.
+     * @return The saved game, or <code>null</code> if it's malformed or of another version.
+     */
+    public static SavedGame decode(byte[] state) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(state);
+            if (buffer.get() != VERSION) {
+                return null;
+            }
+            SavedGame saved = new SavedGame();
+            saved.modUUID = getString(buffer);
+            saved.boardSize = buffer.getShort();
+            saved.players = new Player[buffer.get()];
+            for (int i = 0; i < saved.players.length; i++) {
+                int kind = buffer.get();
+                boolean human = false;
+                double smartProb = 1.0;
+                int depth = 4;
+                if (kind == REVERSI) {
+                    human = buffer.get() != 0;
+                    smartProb = buffer.getDouble();
+                    depth = buffer.get();
+                } else if (kind == TICTACTOE_AI) {
+                    smartProb = buffer.getDouble();
+                }
+                String name = getString(buffer);
+                char symbol = buffer.getChar();
+                saved.players[i] = switch (kind) {
+                    case REVERSI -> new ReversiPlayer(human, smartProb, depth, name, symbol);
+                    case TICTACTOE_AI -> new TicTacToeAIPlayer(name, symbol, smartProb);
+                    default -> new HumanPlayer(name, symbol);
+                };
+            }
+            saved.cells = new int[saved.boardSize * saved.boardSize];
+            for (int i = 0; i < saved.cells.length; i++) {
+                saved.cells[i] = buffer.get();
+            }
+            saved.turn = buffer.get();
+            saved.cursorX = buffer.getShort();
+            saved.cursorY = buffer.getShort();
+            saved.moveCount = buffer.getInt();
+            int flags = buffer.get();
+            saved.showAnimation = (flags & 1) != 0;
+            saved.cheats = (flags & 2) != 0;
+            saved.freshBoard = (flags & 4) != 0;
+            return saved;
+        } catch (RuntimeException e) {
+            // BufferUnderflowException, or an invalid player.
+            return null;
+        }
+    }
+
+    protected static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    protected static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * If there's a saved game, ask the user whether to resume it,
+     * and play it until it ends or is quit again.
+     * <br/>
+     * It should be called once when the session starts, before any game is saved.
+     * @param session The session, whose save is resumed.
+     */
+    public static void offerResume(Session session) {
+        SaveJournal saveJournal = session.getSaveJournal();
+        if (saveJournal == null) {
+            return;
+        }
+        SaveJournal.Saved loaded = saveJournal.load();
+        SavedGame saved = loaded == null ? null : decode(loaded.snapshot());
+        Mod mod = saved == null ? null : Config.modUUIDMap.get(saved.modUUID);
+        if (mod == null) {
+            return;
+        }
+
+        int ret = MessageDialog.show(new String[]{
+                "You have an unfinished game of " + mod.getDisplayName() + ".",
+                "Do you want to resume it?",
+        }, resumeButtons, 0, 1);
+        if (ret == 2) {
+            saveJournal.clear();
+            return;
+        } else if (ret != 0) {
+            return;
+        }
+
+        GamePlay gamePlay;
+        switch (saved.modUUID) {
+            case ReversiMod.MOD_UUID -> {
+                ReversiPlayer[] players = new ReversiPlayer[saved.players.length];
+                for (int i = 0; i < players.length; i++) {
+                    players[i] = (ReversiPlayer) saved.players[i];
+                }
+                ReversiGamePlay reversi = new ReversiGamePlay(session, players, saved.showAnimation);
+                reversi.setShowSearchStatistics(session.getConfig().doReversiShowSearchStatistics);
+                gamePlay = reversi;
+            }
+            case OrderAndChaosMod.MOD_UUID -> gamePlay = new OrderAndChaosGamePlay(session, saved.boardSize, saved.players);
+            case TicTacToeMod.MOD_UUID -> gamePlay = new TicTacToeGamePlay(session, saved.boardSize, saved.players);
+            default -> {
+                return;
+            }
+        }
+        session.getConfig().currentModUUID = saved.modUUID;
+        gamePlay.restore(saved, loaded.entries());
+        gamePlay.start();
+    }
+}
@@ -1,15 +1,32 @@
 package club.denkyoku.tictactoe.models.gameplay;
 
+import club.denkyoku.tictactoe.libraries.math.StdRandom;
+import club.denkyoku.tictactoe.models.Session;
 import club.denkyoku.tictactoe.models.board.Board;
 import club.denkyoku.tictactoe.models.board.Slot;
 import club.denkyoku.tictactoe.models.gameplay.helpers.BoardRender;
+import club.denkyoku.tictactoe.models.gameplay.helpers.MoveHistory;
 import club.denkyoku.tictactoe.models.gameplay.helpers.TurnBased;
 import club.denkyoku.tictactoe.models.player.Move;
 import club.denkyoku.tictactoe.models.player.Player;
+import club.denkyoku.tictactoe.services.event.EventLoop;
+import club.denkyoku.tictactoe.services.input.InputPump;
 import club.denkyoku.tictactoe.services.input.KeyHandler;
 import club.denkyoku.tictactoe.services.output.controls.MessageDialog;
+import club.denkyoku.tictactoe.services.profiling.AllocationProfiler;
+import club.denkyoku.tictactoe.services.profiling.TurnEvent;
 
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
 
+
+/**
+ * A game of Tic-Tac-Toe, played on the event loop of its session:
+ * the keys, the moves of the AI players (searched by the shared
+ * <code>MoveScheduler</code>) and the timers of the clock arrive as events,
+ * and the board is drawn at most once per tick.
+ */
 public class TicTacToeGamePlay extends GamePlay {
     protected final String[] pauseGameMessages = new String[]{
             "Game is paused.",
@@ -17,7 +34,21 @@ public class TicTacToeGamePlay extends GamePlay {
     };
     protected final MessageDialog.Button[] pauseGameButtons = new MessageDialog.Button[]{
             new MessageDialog.Button("Resume", 'R'),
-            new MessageDialog.Button("Quit", 'Q'),
+            new MessageDialog.Button("Save and quit", 'Q'),
+    };
+    protected final String[] takeBackWarningMessage = new String[]{
+            "You're about to take back a move.",
+            "This round won't be counted",
+            "into the statistics.",
+            "Do you want to continue?",
+    };
+    protected final String[] controlsFooter = new String[]{
+            "",
+            "F3: Undo  F4: Redo  Esc: Pause",
+    };
+    protected final String[] timeUpFooter = new String[]{
+            "",
+            "Time is up! Press any key.",
     };
     protected final MessageDialog.Button[] restartGameButtons = new MessageDialog.Button[]{
             new MessageDialog.Button("Have another try", 'T'),
@@ -26,10 +57,33 @@ public class TicTacToeGamePlay extends GamePlay {
 
     protected final int boardSize;
     protected final Board<Slot> board;
+    protected final BoardRender boardRender;
     protected final Player[] players;
     protected int turn;
     protected int cursor_x;
     protected int cursor_y;
+    // The moves of the current game, for undo and redo.
+    protected final MoveHistory history = new MoveHistory();
+    // when a move is taken back, this won't be counted into statistics
+    protected boolean cheats;
+
+    // The loop running the game, and the reader of its keys, of the session.
+    protected EventLoop loop;
+    protected InputPump inputPump;
+    protected final TurnBased.TurnBasedDataSync dataSync = new TurnBased.TurnBasedDataSync();
+    protected final KeyHandler keyHandler = new TurnBased.TurnBasedKeyHandler(this.dataSync);
+    // The state of the current turn.
+    protected boolean showCursor;
+    protected boolean firstTouch;
+    protected TurnEvent turnEvent;
+    protected long turnAllocated;
+    // Counts the turns, so the events of an ended turn (an AI move, a flag timer) are dropped.
+    protected int turnSerial;
+    // The timers of the clock: the flag of the turn, and the refresh of the times shown.
+    protected ScheduledFuture<?> flagTimer;
+    protected ScheduledFuture<?> clockTimer;
+    // The player whose flag has fallen, waiting for a key to end the game.
+    protected Player flagged;
 
     /**
      * Create a new TicTacToe game
@@ -37,9 +91,21 @@ public class TicTacToeGamePlay extends GamePlay {
      * @param players A list of <code>Player</code> objects.
      */
     public TicTacToeGamePlay(int boardSize, Player[] players) {
+        this(Session.current(), boardSize, players);
+    }
+
+    /**
+     * Create a new TicTacToe game of a session
+     * @param session The session playing the game.
+     * @param boardSize The size of the TicTacToe board.
+     * @param players A list of <code>Player</code> objects.
+     */
+    public TicTacToeGamePlay(Session session, int boardSize, Player[] players) {
+        super(session);
         this.boardSize = boardSize;
         this.players = players;
         this.board = new Board<>(boardSize, boardSize);
+        this.boardRender = new BoardRender(this.board);
         this.turn = 0;
         this.cursor_x = 0;
         this.cursor_y = 0;
@@ -49,158 +115,397 @@ public class TicTacToeGamePlay extends GamePlay {
 
     @Override
     public void start() {
-        while (true) {
-            // first reset the game states.
+        this.loop = this.session.getEventLoop();
+        this.inputPump = this.session.getInputPump();
+        this.loop.setRenderer(() -> this.printUI(this.showCursor));
+        this.loop.post(this::beginRound);
+        try {
+            this.loop.run();
+        } finally {
+            this.cancelTimers();
+            this.loop.setRenderer(null);
+        }
+    }
+
+    /**
+     * Event which begins a game, on the loop.
+     */
+    protected void beginRound() {
+        // first reset the game states, unless a saved game is resumed.
+        if (!this.resumed) {
             this.reset();
-            // print the first UI.
-            this.printUI(false);
+        }
+        this.beginGame(this.board, this.players, this.turn);
+        this.flagged = null;
+        if (this.clock.isLimited()) {
+            this.clockTimer = this.loop.scheduleAtFixedRate(this.loop::requestRender, CLOCK_REFRESH_MILLIS);
+        }
+        this.beginTurn();
+    }
 
-            boolean gameOver = false;
-            int exitCode;
-            Player winner;
-            do {
-                // do one turn
-                exitCode = this.oneTurn();
+    /**
+     * Event which begins a turn, on the loop: it asks the human player for a key,
+     * or an AI player for its move, and returns to the loop until it comes.
+     */
+    protected void beginTurn() {
+        Player curTurnPlayer = this.players[this.turn];
+        this.turnAllocated = AllocationProfiler.begin();
+        this.turnEvent = new TurnEvent();
+        this.turnEvent.begin();
+        int serial = ++this.turnSerial;
+        this.clock.start(this.turn);
+        if (this.clock.isLimited()) {
+            this.flagTimer = this.loop.schedule(() -> this.onFlagTimer(serial), this.clock.getMillisToFlag());
+        }
 
-                // means user want to quit
-                if (exitCode == -2) {
-                    GamePlay.showGameStatistics(this.players);
-                    return;
-                }
-                // check if the game is over
-                winner = this.checkWinner();
-
-                if (winner != null) {
-                    gameOver = true;
-                } else {
-                    // check if the game is draw
-                    if (this.board.isFull()) {
-                        gameOver = true;
-                    }
-                    this.nextTurn();
-                }
+        // first print the game without cursor.
+        this.showCursor = false;
+        this.loop.requestRender();
+
+        if (curTurnPlayer.isHumanPlayer()) {
+            this.firstTouch = true;
+            this.requestKey();
+        } else {
+            // AI player, searched off the loop on a copy of the board,
+            // with a random generator drawn from the one of the session,
+            // before the searches of the players with more time.
+            long deadline = this.clock.isLimited() ? this.clock.getDeadlineNanos() : System.nanoTime();
+            this.loop.whenDone(getMoveScheduler().submit(this.getModUUID(), curTurnPlayer, this.board.clone(),
+                            this.players, null, deadline, StdRandom.uniform(Long.MAX_VALUE)),
+                    (move, error) -> {
+                        if (serial == this.turnSerial) {
+                            this.onAIMove(curTurnPlayer, move, error);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Helper function to read the next key of the human player.
+     */
+    protected void requestKey() {
+        this.dataSync.reset();
+        this.inputPump.request(this.keyHandler, this::onKey);
+    }
 
-            } while (!gameOver);
+    /**
+     * Event of a key of the human player, on the loop.
+     */
+    protected void onKey() {
+        Player curTurnPlayer = this.players[this.turn];
 
-            // Reprint the board once before ending.
-            this.printUI(false);
+        if (this.flagged != null) {
+            // the key which acknowledges the time out.
+            this.keyHandler.exitInput();
+            this.finishTurn(-3);
+            return;
+        }
 
-            String[] messages;
-            GamePlay.doGameStatistics(this.players, winner);
+        if (this.firstTouch) {
+            this.showCursor = true;
+            this.loop.requestRender();
+            this.firstTouch = false;
+        }
 
-            if (winner == null) {
-                messages = new String[]{
-                        "You draw the game",
-                        "Please restart the game.",
-                };
-            } else {
-                if (this.hasAI && !winner.isHumanPlayer()) {
-                    messages = new String[] {
-                            "You lose!",
-                            "[Computer] beats you.",
-                            "Would you like to have another try?",
-                    };
-                } else if (this.onlyOneHuman && this.hasAI) {
-                    messages = new String[] {
-                            "You win!",
-                            "Congratulations! You beat the Computer!",
-                            "Now do you want to play again?",
-                    };
-                } else if (!this.onlyOneHuman && this.hasAI) {
-                    messages = new String[] {
-                            String.format("%s win!", winner.getName()),
-                            "Congratulations! You beat the Computer!",
-                            "Now do you want to play again?",
-                    };
-                } else {
-                    messages = new String[] {
-                            String.format("%s win!", winner.getName()),
-                            "Congratulations! You beat your friends.",
-                            "Now do you want to play again?",
-                    };
-                }
+        if (this.dataSync.doExit) {
+            this.loop.flushRender();
+            // the game is paused, and its clock too; the flag timer armed meanwhile
+            // finds the flag up, and waits for the rest of the time, see onFlagTimer().
+            this.clock.pause();
+            int ret = MessageDialog.show(pauseGameMessages, pauseGameButtons, 0, 0);
+            this.clock.resume();
+            if (ret == 1) {
+                this.keyHandler.exitInput();
+                this.finishTurn(-2);
+                return;
+            }
+        } else if (this.dataSync.doMoveUp) {
+            this.cursor_x--;
+            if (this.cursor_x < 0) {
+                this.cursor_x = this.board.getWidth() - 1;
+            }
+            this.loop.requestRender();
+        } else if (this.dataSync.doMoveDown) {
+            this.cursor_x++;
+            if (this.cursor_x >= this.board.getWidth()) {
+                this.cursor_x = 0;
+            }
+            this.loop.requestRender();
+        } else if (this.dataSync.doMoveLeft) {
+            this.cursor_y--;
+            if (this.cursor_y < 0) {
+                this.cursor_y = this.board.getHeight() - 1;
+            }
+            this.loop.requestRender();
+        } else if (this.dataSync.doMoveRight) {
+            this.cursor_y++;
+            if (this.cursor_y >= this.board.getHeight()) {
+                this.cursor_y = 0;
+            }
+            this.loop.requestRender();
+        } else if (this.dataSync.doEnter) {
+            if (this.checkCanPut(this.cursor_x, this.cursor_y)) {
+                this.loop.flushRender();
+                this.humanSelectMove(curTurnPlayer);
+                this.keyHandler.exitInput();
+                this.finishTurn(0);
+                return;
             }
-            int msgRet = MessageDialog.show(messages, restartGameButtons, 0, 1);
-            if (msgRet == 1) {
-                GamePlay.showGameStatistics(this.players);
-                break;
+        } else if (this.dataSync.doFunction3 || this.dataSync.doFunction4) {
+            // undo or redo
+            boolean undo = this.dataSync.doFunction3;
+            if (this.confirmTakeBack(undo)) {
+                this.keyHandler.exitInput();
+                this.finishTurn(undo ? -4 : -5);
+                return;
             }
         }
+        this.requestKey();
     }
 
+    /**
+     * Event of the move of an AI player, on the loop.
+     */
+    protected void onAIMove(Player curTurnPlayer, Move move, Throwable error) {
+        if (error != null) {
+            throw new CompletionException(error);
+        }
+        this.logSearchStatistics(curTurnPlayer);
+        this.board.put(move.x, move.y, new Slot(curTurnPlayer));
+        this.recordMove(curTurnPlayer, move.x, move.y);
+        this.finishTurn(0);
+    }
 
+    /**
+     * Event of the flag timer of a turn, on the loop.
+     */
+    protected void onFlagTimer(int serial) {
+        if (serial != this.turnSerial) {
+            return;
+        }
+        if (!this.clock.hasFlagFallen()) {
+            // the timer has rounded the time down.
+            this.flagTimer = this.loop.schedule(() -> this.onFlagTimer(serial),
+                    Math.max(1, this.clock.getMillisToFlag()));
+            return;
+        }
+        if (this.players[this.turn].isHumanPlayer()) {
+            // the key being read ends the game, see onKey().
+            this.flagged = this.players[this.turn];
+            this.showCursor = false;
+            this.loop.requestRender();
+        } else {
+            // the search goes on, but its move is dropped.
+            this.finishTurn(-3);
+        }
+    }
 
-    public int oneTurn() {
-        // first print the game without cursor.
-        this.printUI(false);
-
+    /**
+     * Helper function to end a turn, then begin the next one or end the game.
+     * @param exitCode The exit code of the turn, -2 if the user wants to quit,
+     *                 -3 if the flag of the player has fallen,
+     *                 -4 or -5 if the user wants to undo or redo.
+     */
+    protected void finishTurn(int exitCode) {
         Player curTurnPlayer = this.players[this.turn];
+        this.turnSerial++;
+        if (this.flagTimer != null) {
+            this.flagTimer.cancel(false);
+            this.flagTimer = null;
+        }
+        if (!this.clock.stop() && exitCode == 0) {
+            // the flag has fallen before the move, which stays on the board.
+            exitCode = -3;
+        }
+        if (this.placedOwner >= 0) {
+            this.history.push(new MoveHistory.Entry(this.turn, this.placedOwner,
+                    new Move(this.placedX, this.placedY), MoveHistory.Entry.NO_FLIPS));
+        }
+        this.endTurn(this.turn, exitCode);
+        this.commitTurnEvent(this.turnEvent, curTurnPlayer, exitCode);
+        AllocationProfiler.end(this.turnSection, this.turnAllocated);
+        this.showCursor = false;
+
+        // means user want to quit
+        if (exitCode == -2) {
+            this.cancelTimers();
+            this.endGame(null, true);
+            GamePlay.showGameStatistics(this.getModUUID(), this.players);
+            this.loop.stop();
+            return;
+        }
+        // means the user wants to undo or redo
+        if (exitCode == -4 || exitCode == -5) {
+            this.takeBack(exitCode == -4);
+            this.beginTurn();
+            return;
+        }
+        // means the player has lost on time
+        if (exitCode == -3) {
+            this.endRound(null, curTurnPlayer);
+            return;
+        }
+        // check if the game is over
+        Player winner = this.checkWinner();
+        if (winner == null) {
+            // check if the game is draw
+            boolean gameOver = this.board.isFull();
+            this.nextTurn();
+            if (!gameOver) {
+                this.beginTurn();
+                return;
+            }
+        }
+        this.endRound(winner, null);
+    }
 
-        TurnBased.TurnBasedDataSync dataSync = new TurnBased.TurnBasedDataSync();
-        KeyHandler keyHandler = new TurnBased.TurnBasedKeyHandler(dataSync);
+    /**
+     * Helper function to end a game, and offer another one.
+     * @param winner The winner, <code>null</code> for a draw.
+     * @param flagged The player who has lost on time, <code>null</code> if none.
+     */
+    protected void endRound(Player winner, Player flagged) {
+        this.cancelTimers();
+        if (flagged != null) {
+            winner = GamePlay.getWinnerOnTime(this.players, flagged);
+        }
+        // Reprint the board once before ending.
+        this.flagged = null;
+        this.loop.requestRender();
+        this.loop.flushRender();
+
+        String[] messages;
+        this.endGame(winner, false);
+        if (!this.cheats) {
+            GamePlay.doGameStatistics(this.getModUUID(), this.players, winner, flagged,
+                    this.moveCount, System.currentTimeMillis() - this.gameStartMillis);
+        }
 
-        if (curTurnPlayer.isHumanPlayer()) {
-            boolean redraw = false;
-            boolean firstTouch = true;
+        if (flagged != null) {
+            messages = new String[]{
+                    "Time is up!",
+                    String.format("%s has lost on time.", flagged.getName()),
+                    "Would you like to have another try?",
+            };
+        } else if (winner == null) {
+            messages = new String[]{
+                    "You draw the game",
+                    "Please restart the game.",
+            };
+        } else {
+            if (this.hasAI && !winner.isHumanPlayer()) {
+                messages = new String[] {
+                        "You lose!",
+                        "[Computer] beats you.",
+                        "Would you like to have another try?",
+                };
+            } else if (this.onlyOneHuman && this.hasAI) {
+                messages = new String[] {
+                        "You win!",
+                        "Congratulations! You beat the Computer!",
+                        "Now do you want to play again?",
+                };
+            } else if (!this.onlyOneHuman && this.hasAI) {
+                messages = new String[] {
+                        String.format("%s win!", winner.getName()),
+                        "Congratulations! You beat the Computer!",
+                        "Now do you want to play again?",
+                };
+            } else {
+                messages = new String[] {
+                        String.format("%s win!", winner.getName()),
+                        "Congratulations! You beat your friends.",
+                        "Now do you want to play again?",
+                };
+            }
+        }
+        int msgRet = MessageDialog.show(messages, restartGameButtons, 0, 1);
+        if (msgRet == 1) {
+            GamePlay.showGameStatistics(this.getModUUID(), this.players);
+            this.loop.stop();
+        } else {
+            this.loop.post(this::beginRound);
+        }
+    }
 
-            while (dataSync.keepRun) {
-                if (redraw) {
-                    this.printUI(true);
-                    redraw = false;
-                }
+    /**
+     * Helper function to check if the moves can be undone or redone,
+     * and warn the user the first time.
+     * @param undo Whether to undo, else redo.
+     * @return Whether to take back the moves.
+     */
+    protected boolean confirmTakeBack(boolean undo) {
+        if (undo ? !this.history.canUndo() : !this.history.canRedo()) {
+            return false;
+        }
+        this.loop.flushRender();
+        if (this.clock.isLimited()) {
+            MessageDialog.showOK(timedTakeBackMessage);
+            return false;
+        }
+        if (!this.cheats) {
+            if (MessageDialog.show(takeBackWarningMessage, MessageDialog.getYesNo(), 1, 1) == 1) {
+                return false;
+            }
+            this.cheats = true;
+        }
+        return true;
+    }
 
-                dataSync.reset();
-                keyHandler.run();
+    /**
+     * Undo the last move, and the moves of the AI players before it,
+     * or redo the next move, and the moves of the AI players after it,
+     * so a human player moves next.
+     * @param undo Whether to undo, else redo.
+     */
+    protected void takeBack(boolean undo) {
+        if (undo) {
+            do {
+                this.undoTurn(this.history.undo());
+            } while (this.history.canUndo() && !this.players[this.turn].isHumanPlayer());
+            // the first moves of the AI players are not undone.
+            while (this.history.canRedo() && !this.players[this.turn].isHumanPlayer()) {
+                this.redoTurn(this.history.redo());
+            }
+        } else {
+            do {
+                this.redoTurn(this.history.redo());
+            } while (this.history.canRedo() && !this.players[this.turn].isHumanPlayer());
+        }
+        this.saveTakeBack(this.turn);
+    }
 
-                if (firstTouch) {
-                    redraw = true;
-                    firstTouch = false;
-                }
+    /**
+     * Helper function to undo the move of a turn.
+     */
+    protected void undoTurn(MoveHistory.Entry entry) {
+        this.board.put(entry.move().x, entry.move().y, null);
+        this.unrecordMove();
+        this.turn = entry.turn();
+    }
 
-                if (dataSync.doExit) {
-                    if (MessageDialog.show(pauseGameMessages, pauseGameButtons, 0, 0) == 1) {
-                        keyHandler.exitInput();
-                        return -2;
-                    }
-                } else if (dataSync.doMoveUp) {
-                    this.cursor_x--;
-                    if (this.cursor_x < 0) {
-                        this.cursor_x = this.board.getWidth() - 1;
-                    }
-                    redraw = true;
-                } else if (dataSync.doMoveDown) {
-                    this.cursor_x++;
-                    if (this.cursor_x >= this.board.getWidth()) {
-                        this.cursor_x = 0;
-                    }
-                    redraw = true;
-                } else if (dataSync.doMoveLeft) {
-                    this.cursor_y--;
-                    if (this.cursor_y < 0) {
-                        this.cursor_y = this.board.getHeight() - 1;
-                    }
-                    redraw = true;
-                } else if (dataSync.doMoveRight) {
-                    this.cursor_y++;
-                    if (this.cursor_y >= this.board.getHeight()) {
-                        this.cursor_y = 0;
-                    }
-                    redraw = true;
-                } else if (dataSync.doEnter) {
-                    if (this.checkCanPut(this.cursor_x, this.cursor_y)) {
-                        humanSelectMove(curTurnPlayer);
-                        break;
-                    }
-                }
-            }
+    /**
+     * Helper function to redo the move of a turn.
+     */
+    protected void redoTurn(MoveHistory.Entry entry) {
+        this.board.put(entry.move().x, entry.move().y, new Slot(this.players[entry.owner()]));
+        this.rerecordMove(entry.owner(), entry.move().x, entry.move().y);
+        this.turn = entry.turn();
+        this.nextTurn();
+    }
 
-            keyHandler.exitInput();
-        } else {
-            // AI player
-            Move move = curTurnPlayer.getMove(this.board, this.players, null);
-            this.board.put(move.x, move.y, new Slot(curTurnPlayer));
+    /**
+     * Helper function to stop the timers of the clock.
+     */
+    protected void cancelTimers() {
+        if (this.flagTimer != null) {
+            this.flagTimer.cancel(false);
+            this.flagTimer = null;
+        }
+        if (this.clockTimer != null) {
+            this.clockTimer.cancel(false);
+            this.clockTimer = null;
         }
-        return 0;
     }
 
     /**
@@ -208,6 +513,7 @@ public class TicTacToeGamePlay extends GamePlay {
      */
     protected void humanSelectMove(Player curTurnPlayer) {
         this.board.put(this.cursor_x, this.cursor_y, new Slot(curTurnPlayer));
+        this.recordMove(curTurnPlayer, this.cursor_x, this.cursor_y);
     }
 
     /**
@@ -229,20 +535,31 @@ public class TicTacToeGamePlay extends GamePlay {
      * @return The winner player. If there's no winner, return null.
      */
     protected Player checkWinner() {
+        return TicTacToeGamePlay.checkWinner(this.board);
+    }
+
+    /**
+     * Check if a line of the board is owned by one player.
+     * It's also used without a game, e.g. by the game server.
+     * @param board The square board.
+     * @return The winner player. If there's no winner, return null.
+     */
+    public static Player checkWinner(Board<Slot> board) {
+        int boardSize = board.getWidth();
         boolean same;
         Slot first;
 
         // line check
-        for (int i = 0; i < this.boardSize; i++) {
-            first = this.board.at(i, 0);
+        for (int i = 0; i < boardSize; i++) {
+            first = board.at(i, 0);
 
             // if the first slot is null, skip this line
             if (first == null)
                 continue;
 
             same = true;
-            for (int j = 1; j < this.boardSize; j++) {
-                Slot cur = this.board.at(i, j);
+            for (int j = 1; j < boardSize; j++) {
+                Slot cur = board.at(i, j);
                 if (cur == null || cur.getPlayer() != first.getPlayer()) {
                     same = false;
                     break;
@@ -255,16 +572,16 @@ public class TicTacToeGamePlay extends GamePlay {
         }
 
         // column check
-        for (int j = 0; j < this.boardSize; j++) {
-            first = this.board.at(0, j);
+        for (int j = 0; j < boardSize; j++) {
+            first = board.at(0, j);
 
             // if the first slot is null, skip this column
             if (first == null)
                 continue;
 
             same = true;
-            for (int i = 1; i < this.boardSize; i++) {
-                Slot cur = this.board.at(i, j);
+            for (int i = 1; i < boardSize; i++) {
+                Slot cur = board.at(i, j);
                 if (cur == null || cur.getPlayer() != first.getPlayer()) {
                     same = false;
                     break;
@@ -278,10 +595,10 @@ public class TicTacToeGamePlay extends GamePlay {
 
         // NW to SE check
         same = true;
-        first = this.board.at(0, 0);
+        first = board.at(0, 0);
         if (first != null) {
-            for (int i = 1; i < this.boardSize; i++) {
-                Slot cur = this.board.at(i, i);
+            for (int i = 1; i < boardSize; i++) {
+                Slot cur = board.at(i, i);
                 if (cur == null || cur.getPlayer() != first.getPlayer()) {
                     same = false;
                     break;
@@ -295,10 +612,10 @@ public class TicTacToeGamePlay extends GamePlay {
 
         // NE to SW check
         same = true;
-        first = this.board.at(0, this.boardSize - 1);
+        first = board.at(0, boardSize - 1);
         if (first != null) {
-            for (int i = 1; i < this.boardSize; i++) {
-                Slot cur = this.board.at(i, this.boardSize - i - 1);
+            for (int i = 1; i < boardSize; i++) {
+                Slot cur = board.at(i, boardSize - i - 1);
                 if (cur == null || cur.getPlayer() != first.getPlayer()) {
                     same = false;
                     break;
@@ -317,14 +634,46 @@ public class TicTacToeGamePlay extends GamePlay {
      * @param showCursor Whether to show the cursor.
      */
     protected void printUI(boolean showCursor) {
-        String[] boardString = BoardRender.drawRectBoard(this.board,
+        long allocated = AllocationProfiler.begin();
+        long start = System.nanoTime();
+        String[] boardString = this.boardRender.draw(
                 showCursor, this.cursor_x, this.cursor_y, null);
-        TurnBased.drawUI(boardString, this.players, this.turn, null, null);
+        TurnBased.drawUI(boardString, this.players, this.turn, null,
+                this.flagged != null ? this.timeUpFooter : this.controlsFooter, this.clock.getLabels());
+        this.renderLatency.record(System.nanoTime() - start);
+        AllocationProfiler.end(this.frameSection, allocated);
+    }
+
+    @Override
+    protected SavedGame toSavedGame(int turn) {
+        SavedGame saved = new SavedGame();
+        saved.modUUID = this.getModUUID();
+        saved.players = this.players;
+        saved.setCells(this.board, this.players);
+        saved.turn = turn;
+        saved.cursorX = this.cursor_x;
+        saved.cursorY = this.cursor_y;
+        saved.moveCount = this.moveCount;
+        saved.cheats = this.cheats;
+        return saved;
+    }
+
+    @Override
+    protected void restore(SavedGame saved, List<byte[]> entries) {
+        this.reset();
+        this.turn = saved.restoreBoard(this.board, entries, false);
+        this.cursor_x = saved.cursorX;
+        this.cursor_y = saved.cursorY;
+        this.moveCount = saved.moveCount;
+        this.cheats = saved.cheats;
+        this.resumed = true;
     }
 
     public void reset() {
         this.cursor_x = this.cursor_y = 0;
         this.turn = 0;
         this.board.clear();
+        this.history.clear();
+        this.cheats = false;
     }
 }
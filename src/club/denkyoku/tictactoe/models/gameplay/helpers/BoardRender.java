@@ -4,7 +4,9 @@ import club.denkyoku.tictactoe.models.board.Board;
 import club.denkyoku.tictactoe.models.board.Slot;
 import club.denkyoku.tictactoe.models.player.Move;
 
-import java.util.StringJoiner;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class BoardRender {
     public record SlotChar(Move move, char symbol, boolean top) {
@@ -19,10 +21,64 @@ public class BoardRender {
         }
     }
 
+    // The static grid lines (top, middle and bottom), indexed by the board width.
+    private static final Map<Integer, String[]> gridLinesCache = new ConcurrentHashMap<>();
+
+    protected final Board<? extends Slot> board;
+    // the symbols of the frame being computed.
+    protected final char[][] frameCells;
+    // the symbols which have been rendered into the lines.
+    protected final char[][] renderedCells;
+    // whether each cell row changed in the last frame.
+    protected final boolean[] changedRows;
+    // the reusable buffer for rendering one cell row.
+    protected final char[] rowBuffer;
+    protected final String[] lines;
+    protected boolean rendered = false;
+
     /**
-     * Helper function for printing a common rectangular board
-     * @param <T> The type of the slot.
+     * Create a renderer for a common rectangular board.
+     * <br/>
+     * The renderer keeps the lines of the last frame, so that drawing
+     * a frame only re-renders the cell rows which have changed.
      * @param board The <code>Board&lt;T extends Slot&gt;</code> object.
+     */
+    public BoardRender(Board<? extends Slot> board) {
+        this.board = board;
+        int height = board.getHeight(), width = board.getWidth();
+        this.frameCells = new char[height][width];
+        this.renderedCells = new char[height][width];
+        this.changedRows = new boolean[height];
+        this.rowBuffer = ("│" + "   │".repeat(width)).toCharArray();
+        this.lines = new String[2 * height + 1];
+
+        String[] gridLines = getGridLines(width);
+        this.lines[0] = gridLines[0];
+        for (int i = 1; i < height; i++) {
+            this.lines[2 * i] = gridLines[1];
+        }
+        this.lines[2 * height] = gridLines[2];
+    }
+
+    /**
+     * Get the precomputed static grid lines for the given width.
+     * @param width The width of the board.
+     * @return The top, middle and bottom grid lines.
+     */
+    protected static String[] getGridLines(int width) {
+        return gridLinesCache.computeIfAbsent(width, w -> new String[]{
+                "┌" + "───┬".repeat(w - 1) + "───┐",
+                "├" + "───┼".repeat(w - 1) + "───┤",
+                "└" + "───┴".repeat(w - 1) + "───┘",
+        });
+    }
+
+    /**
+     * Draw the board.
+     * <br/>
+     * The returned array is reused by the next call. Lines which did not
+     * change keep the same <code>String</code> object, and
+     * <code>isRowChanged()</code> tells which cell rows changed.
      * @param showCursor Whether to show the cursor. If <code>false</code>,
      *                   then <code>x</code> and <code>y</code> will be ignored.
      * @param x The x-coordinate of the cursor.
@@ -31,74 +87,92 @@ public class BoardRender {
      *                          If <code>null</code>, then it will be skipped.
      * @return A string representation of the board.
      */
-    public static <T extends Slot> String[] drawRectBoard(
-            Board<T> board, boolean showCursor, int x, int y,
-            SlotChar[] presetBackGrounds) {
-        String[] lines = new String[2 * board.getHeight() + 1];
-
-        // pre-compute the display characters for each slot.
-        char[][] boardCache = new char[board.getWidth()][board.getHeight()];
+    public String[] draw(boolean showCursor, int x, int y, SlotChar[] presetBackGrounds) {
+        int height = this.board.getHeight(), width = this.board.getWidth();
 
+        for (char[] row : this.frameCells) {
+            Arrays.fill(row, ' ');
+        }
         // under layer
         if (presetBackGrounds != null) {
             for (var slotChar : presetBackGrounds) {
-                if (!slotChar.getTop() && checkSlotChar(board, slotChar)) {
-                    boardCache[slotChar.getMove().x][slotChar.getMove().y] = slotChar.getSymbol();
+                if (!slotChar.getTop() && checkSlotChar(this.board, slotChar)) {
+                    this.frameCells[slotChar.getMove().x][slotChar.getMove().y] = slotChar.getSymbol();
                 }
             }
         }
         // slot
-        for (int i = 0; i < board.getWidth(); i++) {
-            for (int j = 0; j < board.getHeight(); j++) {
-                Slot slot = board.at(i, j);
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                Slot slot = this.board.at(i, j);
                 if (slot != null) {
-                    boardCache[i][j] = slot.getPlayer().getSymbol();
+                    this.frameCells[i][j] = slot.getPlayer().getSymbol();
                 }
             }
         }
         // over layer
         if (presetBackGrounds != null) {
             for (var slotChar : presetBackGrounds) {
-                if (slotChar.getTop() && checkSlotChar(board, slotChar)) {
-                    boardCache[slotChar.getMove().x][slotChar.getMove().y] = slotChar.getSymbol();
+                if (slotChar.getTop() && checkSlotChar(this.board, slotChar)) {
+                    this.frameCells[slotChar.getMove().x][slotChar.getMove().y] = slotChar.getSymbol();
                 }
             }
         }
+        if (showCursor && 0 <= x && x < height && 0 <= y && y < width) {
+            this.frameCells[x][y] = '█';
+        }
 
-        StringJoiner joiner1, joiner2;
-        for (int i = 0; i < board.getHeight(); ++i) {
-            if (i == 0)
-                joiner1 = new StringJoiner("┬", "┌", "┐");
-            else
-                joiner1 = new StringJoiner("┼", "├", "┤");
-
-            joiner2 = new StringJoiner("│", "│", "│");
-
-            for (int j = 0; j < board.getWidth(); ++j) {
-                joiner1.add("───");
-                char symbolForJoiner2 = boardCache[i][j] == '\0' ? ' ' : boardCache[i][j];
-                if (showCursor && x == i && y == j) {
-                    symbolForJoiner2 = '█';
+        // only re-render the rows with changed cells.
+        for (int i = 0; i < height; i++) {
+            boolean changed = !this.rendered;
+            for (int j = 0; j < width; j++) {
+                char symbol = this.frameCells[i][j];
+                if (symbol != this.renderedCells[i][j]) {
+                    this.renderedCells[i][j] = symbol;
+                    changed = true;
                 }
-                joiner2.add(" " + String.valueOf(symbolForJoiner2) + " ");
+                this.rowBuffer[4 * j + 2] = symbol;
             }
-
-            lines[2 * i] = joiner1.toString();
-            lines[2 * i + 1] = joiner2.toString();
+            if (changed) {
+                this.lines[2 * i + 1] = new String(this.rowBuffer);
+            }
+            this.changedRows[i] = changed;
         }
+        this.rendered = true;
+        return this.lines;
+    }
 
-        joiner1 = new StringJoiner("┴", "└", "┘");
-        for (int j = 0; j < board.getWidth(); ++j) {
-            joiner1.add("───");
-        }
-        lines[2 * board.getHeight()] = joiner1.toString();
-        return lines;
+    /**
+     * Whether a cell row changed in the last <code>draw()</code>.
+     * @param row The row of the board.
+     * @return <code>true</code> if the row has been re-rendered.
+     */
+    public boolean isRowChanged(int row) {
+        return this.changedRows[row];
+    }
+
+    /**
+     * Helper function for printing a common rectangular board
+     * @param <T> The type of the slot.
+     * @param board The <code>Board&lt;T extends Slot&gt;</code> object.
+     * @param showCursor Whether to show the cursor. If <code>false</code>,
+     *                   then <code>x</code> and <code>y</code> will be ignored.
+     * @param x The x-coordinate of the cursor.
+     * @param y The y-coordinate of the cursor.
+     * @param presetBackGrounds You can preset the background of the board.
+     *                          If <code>null</code>, then it will be skipped.
+     * @return A string representation of the board.
+     */
+    public static <T extends Slot> String[] drawRectBoard(
+            Board<T> board, boolean showCursor, int x, int y,
+            SlotChar[] presetBackGrounds) {
+        return new BoardRender(board).draw(showCursor, x, y, presetBackGrounds);
     }
 
-    private static <T extends Slot>  boolean checkSlotChar(Board<T> board, SlotChar slotChar) {
+    private static boolean checkSlotChar(Board<? extends Slot> board, SlotChar slotChar) {
         int i = slotChar.getMove().x;
         int j = slotChar.getMove().y;
-        return i >= 0 && i < board.getWidth() &&
-                j >= 0 && j < board.getHeight();
+        return i >= 0 && i < board.getHeight() &&
+                j >= 0 && j < board.getWidth();
     }
 }
@@ -0,0 +1,119 @@
+package club.denkyoku.tictactoe.models.gameplay.helpers;
+
+import club.denkyoku.tictactoe.models.player.Move;
+import club.denkyoku.tictactoe.services.output.animation.Animation;
+import club.denkyoku.tictactoe.services.output.terminal.ConsoleHelper;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+
+/**
+ * The animation of flipping discs, e.g. in Reversi.
+ * <br/>
+ * All the discs are flipped at the same time, rippling out from the
+ * disc which has just been placed. Only the cells whose symbol changed
+ * in a frame are redrawn.
+ */
+public class FlipAnimation extends Animation {
+    // the duration of one frame, in milliseconds.
+    protected static final int FRAME_MILLIS = 60;
+
+    protected final Move[] flips;
+    protected final int[] delays;
+    protected final char[] phases;
+    protected final char[] lastDrawn;
+    protected final int boardTop;
+    protected final Consumer<BoardRender.SlotChar[]> fullRedraw;
+
+    /**
+     * Create a new flip animation.
+     * @param origin The disc which has just been placed.
+     * @param flips The discs to flip.
+     * @param fromSymbol The symbol before flipping.
+     * @param toSymbol The symbol after flipping.
+     * @param boardTop The screen line where the board drawn by
+     *                 <code>BoardRender.drawRectBoard</code> begins.
+     * @param fullRedraw Used when the terminal cannot redraw single cells.
+     *                   It receives the top layer presets of the frame,
+     *                   and should redraw the whole board with them.
+     */
+    public FlipAnimation(Move origin, Move[] flips, char fromSymbol, char toSymbol,
+                         int boardTop, Consumer<BoardRender.SlotChar[]> fullRedraw) {
+        super(computeFrameCount(origin, flips), FRAME_MILLIS);
+        this.flips = flips;
+        this.delays = new int[flips.length];
+        for (int k = 0; k < flips.length; k++) {
+            this.delays[k] = distance(origin, flips[k]) - 1;
+        }
+        this.phases = new char[]{fromSymbol, edgeSymbol(fromSymbol), edgeSymbol(toSymbol), toSymbol};
+        this.lastDrawn = new char[flips.length];
+        Arrays.fill(this.lastDrawn, fromSymbol);
+        this.boardTop = boardTop;
+        this.fullRedraw = fullRedraw;
+    }
+
+    private static int distance(Move a, Move b) {
+        return Math.max(Math.abs(a.x - b.x), Math.abs(a.y - b.y));
+    }
+
+    private static int computeFrameCount(Move origin, Move[] flips) {
+        int maxDelay = -1;
+        for (var move : flips) {
+            maxDelay = Math.max(maxDelay, distance(origin, move) - 1);
+        }
+        return maxDelay < 0 ? 0 : maxDelay + 3;
+    }
+
+    /**
+     * Helper function to get the symbol of a disc seen from its edge.
+     * @param symbol The symbol of the disc.
+     * @return The symbol seen from its edge.
+     */
+    public static char edgeSymbol(char symbol) {
+        if (symbol == '●') {
+            return '⬬';
+        } else if (symbol == '○') {
+            return '⬭';
+        }
+        return symbol;
+    }
+
+    @Override
+    protected void drawFrame(int frame) {
+        this.draw(frame + 1);
+    }
+
+    @Override
+    protected void drawFinal() {
+        this.draw(this.phases.length - 1 + this.frameCount);
+    }
+
+    /**
+     * Draw the given frame, where frame <code>0</code> is the board before flipping.
+     */
+    protected void draw(int frame) {
+        if (!ConsoleHelper.supportsCursorAddressing()) {
+            BoardRender.SlotChar[] presets = new BoardRender.SlotChar[this.flips.length];
+            for (int k = 0; k < this.flips.length; k++) {
+                presets[k] = new BoardRender.SlotChar(this.flips[k], this.symbolAt(k, frame), true);
+            }
+            this.fullRedraw.accept(presets);
+            return;
+        }
+        for (int k = 0; k < this.flips.length; k++) {
+            char symbol = this.symbolAt(k, frame);
+            if (symbol != this.lastDrawn[k]) {
+                ConsoleHelper.printAt(this.boardTop + 2 * this.flips[k].x + 1,
+                        4 * this.flips[k].y + 2, String.valueOf(symbol));
+                this.lastDrawn[k] = symbol;
+            }
+        }
+        ConsoleHelper.flush();
+    }
+
+    private char symbolAt(int flip, int frame) {
+        int phase = Math.max(0, Math.min(frame - this.delays[flip], this.phases.length - 1));
+        return this.phases[phase];
+    }
+}
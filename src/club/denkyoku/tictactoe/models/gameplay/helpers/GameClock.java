@@ -0,0 +1,281 @@
+package club.denkyoku.tictactoe.models.gameplay.helpers;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The chess clock of a game: the time left of every player, which runs
+ * only during the turns of the player, on the monotonic clock of
+ * <code>System.nanoTime()</code>.
+ * <br/>
+ * The clock is passive: it is read when the turns begin and end, and when the
+ * screen is drawn, so it costs nothing between them. The flag of a player falls
+ * when the time left, or the time of the move, runs out; the game play arms
+ * a timer for <code>getDeadlineNanos()</code> to end the turn then.
+ * <br/>
+ * The running clock can be paused, e.g. while the game is paused,
+ * and the time of the pause is not counted.
+ * <pre>
+ *     GameClock clock = new GameClock(GameClock.TimeControl.parse("5+3"), 2);
+ *     clock.start(turn);
+ *     ...
+ *     boolean inTime = clock.stop();
+ * </pre>
+ */
+public class GameClock {
+    /**
+     * A time control: the time of each player for the game, plus an increment
+     * after each move, and/or a limit per move.
+     * @param baseMillis The time of each player for the game, 0 for unlimited.
+     * @param incrementMillis The time added after each move made in time.
+     * @param moveMillis The limit of each move, 0 for unlimited.
+     */
+    public record TimeControl(long baseMillis, long incrementMillis, long moveMillis) {
+        public static final TimeControl NONE = new TimeControl(0, 0, 0);
+
+        // The presets offered by the settings menus.
+        public static final TimeControl[] PRESETS = new TimeControl[] {
+                NONE,
+                new TimeControl(60_000, 0, 0),
+                new TimeControl(180_000, 2_000, 0),
+                new TimeControl(300_000, 3_000, 0),
+                new TimeControl(600_000, 5_000, 0),
+                new TimeControl(0, 0, 10_000),
+                new TimeControl(0, 0, 30_000),
+        };
+
+        /**
+         * @return Whether the players have unlimited time.
+         */
+        public boolean isUnlimited() {
+            return this.baseMillis <= 0 && this.moveMillis <= 0;
+        }
+
+        /**
+         * Parse a time control: <code>none</code>, <code>&lt;minutes&gt;+&lt;seconds&gt;</code>
+         * (e.g. <code>5+3</code>), or <code>&lt;seconds&gt;/move</code> (e.g. <code>10/move</code>).
+         * @param text The text.
+         * @return The time control.
+         * @throws IllegalArgumentException If the text is not a time control.
+         */
+        public static TimeControl parse(String text) {
+            String s = text.trim().toLowerCase();
+            if (s.equals("none") || s.isEmpty()) {
+                return NONE;
+            }
+            // NumberFormatException is an IllegalArgumentException.
+            if (s.endsWith("/move")) {
+                double seconds = Double.parseDouble(s.substring(0, s.length() - 5));
+                return new TimeControl(0, 0, Math.round(seconds * 1000));
+            }
+            int plus = s.indexOf('+');
+            double minutes = Double.parseDouble(plus < 0 ? s : s.substring(0, plus));
+            double increment = plus < 0 ? 0 : Double.parseDouble(s.substring(plus + 1));
+            if (minutes <= 0 || increment < 0) {
+                throw new IllegalArgumentException("Invalid time control: " + text);
+            }
+            return new TimeControl(Math.round(minutes * 60_000), Math.round(increment * 1000), 0);
+        }
+
+        @Override
+        public String toString() {
+            if (this.isUnlimited()) {
+                return "None";
+            }
+            StringBuilder sb = new StringBuilder();
+            if (this.baseMillis > 0) {
+                sb.append(formatNumber(this.baseMillis / 60_000.0)).append('+')
+                        .append(formatNumber(this.incrementMillis / 1000.0));
+            }
+            if (this.moveMillis > 0) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(formatNumber(this.moveMillis / 1000.0)).append("/move");
+            }
+            return sb.toString();
+        }
+
+        protected static String formatNumber(double value) {
+            return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+        }
+    }
+
+    protected final TimeControl control;
+    protected final long[] remainingNanos;
+    protected final long incrementNanos;
+    protected final long moveNanos;
+    // The player whose clock runs, -1 if none, and since when.
+    protected int running = -1;
+    protected long startNanos;
+    // Since when the running clock is paused, if it is.
+    protected boolean paused;
+    protected long pausedNanos;
+    // The result of the last stop(), for a clock stopped already.
+    protected boolean lastInTime = true;
+
+    /**
+     * Create a clock, stopped.
+     * @param control The time control.
+     * @param playerCount The number of players.
+     */
+    public GameClock(TimeControl control, int playerCount) {
+        this.control = control;
+        this.remainingNanos = new long[playerCount];
+        this.incrementNanos = TimeUnit.MILLISECONDS.toNanos(control.incrementMillis());
+        this.moveNanos = TimeUnit.MILLISECONDS.toNanos(control.moveMillis());
+        long base = control.baseMillis() > 0 ? TimeUnit.MILLISECONDS.toNanos(control.baseMillis()) : Long.MAX_VALUE;
+        Arrays.fill(this.remainingNanos, base);
+    }
+
+    public TimeControl getControl() {
+        return this.control;
+    }
+
+    /**
+     * @return Whether the players have limited time.
+     */
+    public boolean isLimited() {
+        return !this.control.isUnlimited();
+    }
+
+    /**
+     * Start the clock of a player, e.g. when the turn begins.
+     * @param player The index of the player.
+     */
+    public void start(int player) {
+        this.running = player;
+        this.startNanos = System.nanoTime();
+        this.paused = false;
+        this.lastInTime = true;
+    }
+
+    /**
+     * Stop the running clock, e.g. when the move is made, and add the increment
+     * if the move is in time.
+     * @return Whether the move is in time, i.e. the flag has not fallen,
+     *         or the result of the last stop if the clock is stopped already.
+     */
+    public boolean stop() {
+        if (this.running < 0) {
+            return this.lastInTime;
+        }
+        long now = this.now();
+        boolean inTime = !this.hasFlagFallen(now);
+        if (this.remainingNanos[this.running] != Long.MAX_VALUE) {
+            long left = this.remainingNanos[this.running] - (now - this.startNanos);
+            this.remainingNanos[this.running] = inTime ? left + this.incrementNanos : Math.min(left, 0);
+        }
+        this.running = -1;
+        this.paused = false;
+        this.lastInTime = inTime;
+        return inTime;
+    }
+
+    /**
+     * Pause the running clock, e.g. while a dialog pauses the game.
+     */
+    public void pause() {
+        if (this.running >= 0 && !this.paused) {
+            this.paused = true;
+            this.pausedNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Run the paused clock again, from the time left when it was paused.
+     * No increment is added.
+     */
+    public void resume() {
+        if (this.paused) {
+            this.paused = false;
+            this.startNanos += System.nanoTime() - this.pausedNanos;
+        }
+    }
+
+    /**
+     * Helper function to get the time of the running clock, which stands still while paused.
+     */
+    protected long now() {
+        return this.paused ? this.pausedNanos : System.nanoTime();
+    }
+
+    /**
+     * @return The player whose clock runs, -1 if none.
+     */
+    public int getRunning() {
+        return this.running;
+    }
+
+    /**
+     * @return Whether the flag of the running player has fallen.
+     */
+    public boolean hasFlagFallen() {
+        return this.running >= 0 && this.hasFlagFallen(this.now());
+    }
+
+    protected boolean hasFlagFallen(long now) {
+        return this.isLimited() && now - this.getDeadlineNanos() >= 0;
+    }
+
+    /**
+     * @return When the flag of the running player falls, see <code>System.nanoTime()</code>,
+     *         or <code>Long.MAX_VALUE</code> if never.
+     */
+    public long getDeadlineNanos() {
+        if (this.running < 0 || !this.isLimited()) {
+            return Long.MAX_VALUE;
+        }
+        long left = this.remainingNanos[this.running];
+        if (this.moveNanos > 0) {
+            left = Math.min(left, this.moveNanos);
+        }
+        return this.startNanos + left;
+    }
+
+    /**
+     * @return The time until the flag of the running player falls, in milliseconds,
+     *         or <code>Long.MAX_VALUE</code> if never.
+     */
+    public long getMillisToFlag() {
+        long deadline = this.getDeadlineNanos();
+        if (deadline == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - this.now()));
+    }
+
+    /**
+     * @param player The index of the player.
+     * @return The time left of the player, e.g. <code>4:59</code>, or the time left of the move
+     *         with a limit per move.
+     */
+    public String format(int player) {
+        long left;
+        if (player == this.running) {
+            left = this.getDeadlineNanos() - this.now();
+        } else if (this.remainingNanos[player] == Long.MAX_VALUE) {
+            left = this.moveNanos;
+        } else {
+            left = this.remainingNanos[player];
+        }
+        long seconds = (Math.max(0, left) + 999_999_999L) / 1_000_000_000L;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+
+    /**
+     * @return The times left of all the players, for <code>TurnBased.drawUI()</code>,
+     *         or <code>null</code> if the time is unlimited.
+     */
+    public String[] getLabels() {
+        if (!this.isLimited()) {
+            return null;
+        }
+        String[] labels = new String[this.remainingNanos.length];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = this.format(i);
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,126 @@
+package club.denkyoku.tictactoe.models.gameplay.helpers;
+
+import club.denkyoku.tictactoe.models.player.Move;
+
+import java.util.Arrays;
+
+
+/**
+ * The history of the moves of a game, for undo and redo.
+ * <br/>
+ * Every turn is an entry: who has moved, the piece placed and, e.g. in Reversi,
+ * the pieces it has flipped (see <code>ReversiGamePlay.computeFlip()</code>), so a
+ * move is undone or redone by changing these cells only, without replaying the game.
+ * The entries after the position are the undone moves, which can be redone
+ * until another move is pushed.
+ * <pre>
+ *     history.push(new MoveHistory.Entry(turn, turn, move, flips));
+ *     MoveHistory.Entry undone = history.undo();
+ *     MoveHistory.Entry redone = history.redo();
+ * </pre>
+ */
+public class MoveHistory {
+    /**
+     * A turn.
+     * @param turn The index of the player of the turn.
+     * @param owner The index of the player owning the placed piece, -1 for a pass.
+     * @param move The placed piece, <code>null</code> for a pass.
+     * @param flips The pieces flipped to the owner, empty if none.
+     */
+    public record Entry(int turn, int owner, Move move, Move[] flips) {
+        public static final Move[] NO_FLIPS = new Move[0];
+
+        /**
+         * @param turn The index of the player who has passed.
+         * @return The entry of a pass.
+         */
+        public static Entry pass(int turn) {
+            return new Entry(turn, -1, null, NO_FLIPS);
+        }
+
+        public boolean isPass() {
+            return this.move == null;
+        }
+    }
+
+    protected Entry[] entries = new Entry[64];
+    // The number of entries, and the number of them played, i.e. not undone.
+    protected int size;
+    protected int position;
+
+    /**
+     * Add the entry of a turn just played, dropping the undone entries.
+     * @param entry The entry.
+     */
+    public void push(Entry entry) {
+        if (this.position == this.entries.length) {
+            this.entries = Arrays.copyOf(this.entries, this.position * 2);
+        }
+        this.entries[this.position++] = entry;
+        // the undone entries are overwritten later, not cleared.
+        this.size = this.position;
+    }
+
+    public boolean canUndo() {
+        return this.position > 0;
+    }
+
+    public boolean canRedo() {
+        return this.position < this.size;
+    }
+
+    /**
+     * Step back one turn.
+     * @return The entry to undo.
+     */
+    public Entry undo() {
+        if (!this.canUndo()) {
+            throw new IllegalStateException("No move to undo.");
+        }
+        return this.entries[--this.position];
+    }
+
+    /**
+     * Step forward one turn.
+     * @return The entry to redo.
+     */
+    public Entry redo() {
+        if (!this.canRedo()) {
+            throw new IllegalStateException("No move to redo.");
+        }
+        return this.entries[this.position++];
+    }
+
+    /**
+     * @return The number of turns played, i.e. the index of the next entry.
+     */
+    public int getPosition() {
+        return this.position;
+    }
+
+    /**
+     * @return The number of entries, including the undone ones.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @param index The index of the turn.
+     * @return The entry of the turn, e.g. for a replay.
+     */
+    public Entry get(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return this.entries[index];
+    }
+
+    /**
+     * Forget all the turns, e.g. when a new game begins.
+     */
+    public void clear() {
+        Arrays.fill(this.entries, 0, this.size, null);
+        this.size = this.position = 0;
+    }
+}
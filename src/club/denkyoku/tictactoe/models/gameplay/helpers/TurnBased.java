@@ -23,6 +23,25 @@ public class TurnBased {
                               int turn,
                               String[] header,
                               String[] footer) {
+        TurnBased.drawUI(boardString, players, turn, header, footer, null);
+    }
+
+    /**
+     * Helper function for printing UI in turn-based game, with the clocks of the players.
+     * @param boardString <code>String[] </code>The pre-rendered board string.
+     * @param players     <code>Player[] </code>The players.
+     * @param turn        <code>int </code>The current turn.
+     * @param header      Display header. If <code>null</code> then skip this.
+     * @param footer      Display footer. If <code>null</code> then skip this.
+     * @param clocks      The time left of every player, see <code>GameClock.getLabels()</code>.
+     *                    If <code>null</code> then skip this.
+     */
+    public static void drawUI(String[] boardString,
+                              Player[] players,
+                              int turn,
+                              String[] header,
+                              String[] footer,
+                              String[] clocks) {
         int finalBoardStringLength = boardString.length;
         if (header != null) {
             finalBoardStringLength += header.length;
@@ -95,6 +114,10 @@ public class TurnBased {
                     sb.append(players[curPrintPlayer].getSymbol());
                     sb.append(" ");
                     sb.append(players[curPrintPlayer].getName());
+                    if (clocks != null) {
+                        sb.append("  ");
+                        sb.append(clocks[curPrintPlayer]);
+                    }
                 } else if (lineId % 3 == 2) {
                     if (curPrintPlayer == turn) {
                         // If it is the current player, output the prompt information of the current player.
@@ -111,7 +134,7 @@ public class TurnBased {
             }
             gameScreen[lineId] = sb.toString();
         }
-        ConsoleHelper.printScreen(gameScreen);
+        ConsoleHelper.updateScreen(gameScreen);
     }
 
     public static class TurnBasedDataSync extends DataSync {
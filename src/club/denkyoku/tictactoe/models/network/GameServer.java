@@ -0,0 +1,696 @@
+package club.denkyoku.tictactoe.models.network;
+
+import club.denkyoku.tictactoe.models.board.Board;
+import club.denkyoku.tictactoe.models.board.Slot;
+import club.denkyoku.tictactoe.models.gameplay.GamePlay;
+import club.denkyoku.tictactoe.models.player.Move;
+import club.denkyoku.tictactoe.models.player.MoveScheduler;
+import club.denkyoku.tictactoe.models.player.Player;
+import club.denkyoku.tictactoe.models.player.ReversiPlayer;
+import club.denkyoku.tictactoe.models.player.TicTacToeAIPlayer;
+import club.denkyoku.tictactoe.services.network.Broadcast;
+import club.denkyoku.tictactoe.services.network.LineServer;
+import club.denkyoku.tictactoe.services.rating.Matchmaker;
+import club.denkyoku.tictactoe.services.rating.RatingEngine;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+
+/**
+ * The networked multiplayer server, which hosts many games at once.
+ * <br/>
+ * It runs on one <code>LineServer</code> selector thread, so the games
+ * need no locks. The protocol is one command per line, the words are
+ * separated by spaces:
+ * <pre>
+ *     client                        server
+ *                                   HELLO tictactoe 1
+ *     NEW &lt;mod&gt; [size] [players]    JOINED &lt;game&gt; &lt;mod&gt; &lt;size&gt; &lt;players&gt; &lt;seat&gt;
+ *     JOIN &lt;game&gt;                   JOINED ..., and START &lt;turn&gt; to all when full
+ *     MOVE &lt;x&gt; &lt;y&gt; [piece]          MOVED &lt;seat&gt; &lt;owner&gt; &lt;x&gt; &lt;y&gt; to all,
+ *                                   then TURN &lt;seat&gt; or END &lt;winner&gt; (-1 for a draw)
+ *     LEAVE                         END &lt;winner&gt; to the others
+ *     WATCH &lt;game&gt;                  WATCHING &lt;game&gt; &lt;mod&gt; &lt;size&gt; &lt;players&gt;, then FRAME
+ *     UNWATCH
+ *     QUEUE &lt;mod&gt; [name]            QUEUED &lt;mod&gt; &lt;rating&gt;, then JOINED and START when paired
+ *     UNQUEUE                       UNQUEUED
+ *     PING                          PONG
+ *                                   ERR &lt;message&gt; for an invalid command
+ * </pre>
+ * The mods are <code>reversi</code>, <code>tictactoe</code> and <code>orderchaos</code>.
+ * In Order and Chaos, <code>piece</code> is the owner of the placed piece (0 Order, 1 Chaos).
+ * A player who disconnects leaves the game.
+ * <br/>
+ * A spectator gets the board as frames, encoded once per move for all the
+ * spectators of the game (see <code>Broadcast</code>):
+ * <pre>
+ *     FRAME &lt;moves&gt; &lt;turn&gt; &lt;cells&gt;            the whole board, row by row,
+ *                                              '.' for empty, else the owner
+ *     DIFF &lt;moves&gt; &lt;turn&gt; [&lt;x&gt; &lt;y&gt; &lt;owner&gt;]...  the changed slots since the last frame
+ *     END &lt;winner&gt;
+ * </pre>
+ * A spectator too slow to read the diffs gets one FRAME instead of them.
+ * <br/>
+ * A queued player is paired with the queued player of the closest rating in
+ * the same mod, within a window widening as they wait (see <code>Matchmaker</code>).
+ * After <code>QUEUE_TIMEOUT</code>, a player of Reversi or Tic-Tac-Toe plays the
+ * AI level of the closest rating instead, whose moves are searched by a
+ * <code>MoveScheduler</code>. The ratings are of the names in the result store, and the games of
+ * named players are recorded there; an unnamed player is rated the initial rating.
+ */
+public class GameServer implements LineServer.Handler {
+    public static final int DEFAULT_PORT = 7460;
+    public static final int PROTOCOL_VERSION = 1;
+    // How long a queued player waits for a human opponent, then plays the AI.
+    public static final long QUEUE_TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+    // How often the queues are swept for the widened windows and the timeouts, in milliseconds.
+    public static final int TICK_INTERVAL = 250;
+    // The AI levels, from the weakest: the ratings assumed until they are rated,
+    // and the players of Reversi (smart, depth) and Tic-Tac-Toe (smart).
+    protected static final double[] AI_RATINGS = {1200, 1400, 1600, 1800};
+    protected static final double[] REVERSI_AI_SMART = {0.3, 0.5, 0.7, 0.9};
+    protected static final int[] REVERSI_AI_DEPTH = {2, 2, 4, 6};
+    protected static final double[] TICTACTOE_AI_SMART = {0.1, 0.4, 0.8, 1.0};
+    // The time an AI move is due after it is requested, which orders the searches.
+    protected static final long AI_MOVE_BUDGET = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * A game and its connected players.
+     */
+    protected static class Table {
+        protected final long id;
+        protected final GameSession session;
+        protected final LineServer.Connection[] seats;
+        protected int joined;
+        protected boolean started;
+        protected final Broadcast spectators = new Broadcast();
+        // The owners of the slots in the last frame, -1 for empty.
+        protected final int[] cells;
+        // The encoded FRAME of the current state, null until a spectator needs it.
+        protected ByteBuffer keyframe;
+        // The seat of the AI player, -1 if there's none.
+        protected int aiSeat = -1;
+        // Whether the result is recorded in the result store.
+        protected boolean rated;
+        protected long startMillis;
+
+        protected Table(long id, GameSession session) {
+            this.id = id;
+            this.session = session;
+            this.seats = new LineServer.Connection[session.getPlayerCount()];
+            this.cells = new int[session.getSize() * session.getSize()];
+            int size = session.getSize();
+            for (int i = 0; i < this.cells.length; i++) {
+                this.cells[i] = session.ownerAt(i % size, i / size);
+            }
+        }
+
+        /**
+         * @return The FRAME of the current state, encoded once.
+         */
+        protected ByteBuffer getKeyframe() {
+            if (this.keyframe == null) {
+                StringBuilder sb = new StringBuilder("FRAME ");
+                sb.append(this.session.getMoveCount()).append(' ').append(this.session.getTurn()).append(' ');
+                for (int cell : this.cells) {
+                    sb.append(cell < 0 ? '.' : (char) ('0' + cell));
+                }
+                this.keyframe = Broadcast.encode(sb.toString());
+            }
+            return this.keyframe;
+        }
+
+        /**
+         * Send the slots changed since the last frame to the spectators.
+         */
+        protected void publishDiff() {
+            this.keyframe = null;
+            int size = this.session.getSize();
+            // encoded only if there's anyone to send it to.
+            StringBuilder sb = this.spectators.size() == 0 ? null : new StringBuilder("DIFF ");
+            if (sb != null) {
+                sb.append(this.session.getMoveCount()).append(' ').append(this.session.getTurn());
+            }
+            for (int i = 0; i < this.cells.length; i++) {
+                int owner = this.session.ownerAt(i % size, i / size);
+                if (owner != this.cells[i]) {
+                    this.cells[i] = owner;
+                    if (sb != null) {
+                        sb.append(' ').append(i % size).append(' ').append(i / size).append(' ').append(owner);
+                    }
+                }
+            }
+            if (sb != null) {
+                this.spectators.publish(Broadcast.encode(sb.toString()), this::getKeyframe);
+            }
+        }
+
+        protected boolean isFull() {
+            return this.joined + (this.aiSeat < 0 ? 0 : 1) == this.seats.length;
+        }
+
+        protected void broadcast(String line) {
+            for (LineServer.Connection seat : this.seats) {
+                if (seat != null) {
+                    seat.send(line);
+                }
+            }
+        }
+    }
+
+    /**
+     * The state of a connection: its table and seat, if it's in a game.
+     */
+    protected static class Seat {
+        protected Table table;
+        protected int seat;
+        // The table watched, if it's a spectator.
+        protected Table watching;
+        // The place in a queue, if it's waiting for an opponent.
+        protected Matchmaker.Ticket<LineServer.Connection> ticket;
+        // The name given to QUEUE, null if unnamed.
+        protected String name;
+    }
+
+    protected final Map<Long, Table> tables = new HashMap<>();
+    protected long nextTableId = 1;
+    protected long gamesFinished = 0;
+    protected final Matchmaker<LineServer.Connection> matchmaker = new Matchmaker<>();
+    protected long queueTimeout = QUEUE_TIMEOUT;
+    // The endpoint running the server, which the AI moves are handed back to.
+    protected LineServer server;
+    // The scheduler searching the AI moves, created when first needed.
+    protected MoveScheduler moveScheduler;
+    // The worker processes searching the AI moves instead, null to search in this process.
+    protected RemoteSearch remoteSearch;
+
+    /**
+     * Run the server on an endpoint, and sweep the queues every <code>TICK_INTERVAL</code>.
+     * It should be called before <code>LineServer.run()</code>.
+     * @param server The endpoint created with this server as its handler.
+     */
+    public void attach(LineServer server) {
+        this.server = server;
+        server.setTickInterval(TICK_INTERVAL);
+    }
+
+    /**
+     * Change how long a queued player waits for a human opponent.
+     * @param millis The timeout in milliseconds.
+     */
+    public void setQueueTimeout(long millis) {
+        this.queueTimeout = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Search the moves of the AI players on worker processes, see <code>SearchWorker</code>.
+     * @param remoteSearch The client of the workers, <code>null</code> to search in this process.
+     */
+    public void setRemoteSearch(RemoteSearch remoteSearch) {
+        this.remoteSearch = remoteSearch;
+    }
+
+    /**
+     * @param kind The kind of the game.
+     * @return The number of players waiting for an opponent.
+     */
+    public int getQueuedCount(GameSession.Kind kind) {
+        return this.matchmaker.size(kind.modUUID);
+    }
+
+    /**
+     * @return The number of games being played or waiting for players.
+     */
+    public int getTableCount() {
+        return this.tables.size();
+    }
+
+    public long getGamesFinished() {
+        return this.gamesFinished;
+    }
+
+    @Override
+    public void onOpen(LineServer.Connection connection) {
+        connection.setAttachment(new Seat());
+        connection.send("HELLO tictactoe " + PROTOCOL_VERSION);
+    }
+
+    @Override
+    public void onLine(LineServer.Connection connection, String line) {
+        Seat seat = (Seat) connection.getAttachment();
+        String[] words = line.trim().split(" ");
+        try {
+            switch (words[0]) {
+                case "NEW" -> this.create(connection, seat, words);
+                case "JOIN" -> this.join(connection, seat, words);
+                case "MOVE" -> this.move(seat, words);
+                case "LEAVE" -> this.leave(seat);
+                case "WATCH" -> this.watch(connection, seat, words);
+                case "UNWATCH" -> this.unwatch(connection, seat);
+                case "QUEUE" -> this.enqueue(connection, seat, words);
+                case "UNQUEUE" -> {
+                    this.dequeue(seat);
+                    connection.send("UNQUEUED");
+                }
+                case "PING" -> connection.send("PONG");
+                case "" -> { }
+                default -> connection.send("ERR Unknown command.");
+            }
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException included.
+            connection.send("ERR " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void onClose(LineServer.Connection connection) {
+        Seat seat = (Seat) connection.getAttachment();
+        if (seat != null) {
+            this.dequeue(seat);
+            this.leave(seat);
+            this.unwatch(connection, seat);
+        }
+    }
+
+    @Override
+    public void onTick() {
+        long now = System.nanoTime();
+        for (GameSession.Kind kind : GameSession.Kind.values()) {
+            if (this.matchmaker.size(kind.modUUID) == 0) {
+                continue;
+            }
+            for (Matchmaker.Match<LineServer.Connection> match : this.matchmaker.matchAll(kind.modUUID, now)) {
+                this.startMatch(kind, match);
+            }
+            if (kind != GameSession.Kind.ORDER_AND_CHAOS) {
+                for (Matchmaker.Ticket<LineServer.Connection> ticket
+                        : this.matchmaker.expire(kind.modUUID, this.queueTimeout, now)) {
+                    this.startAIMatch(kind, ticket);
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper function to refuse a command of a connection which is already
+     * playing, watching or queued.
+     */
+    protected void checkIdle(Seat seat) {
+        if (seat.table != null || seat.watching != null || seat.ticket != null) {
+            throw new IllegalArgumentException("Already in a game.");
+        }
+    }
+
+    protected void create(LineServer.Connection connection, Seat seat, String[] words) {
+        this.checkIdle(seat);
+        GameSession.Kind kind = words.length > 1 ? GameSession.Kind.of(words[1]) : null;
+        if (kind == null) {
+            throw new IllegalArgumentException("Unknown mod.");
+        }
+        int size = words.length > 2 ? Integer.parseInt(words[2]) : kind.defaultSize;
+        int players = words.length > 3 ? Integer.parseInt(words[3]) : kind.minPlayers;
+        Table table = new Table(this.nextTableId++, new GameSession(kind, size, players));
+        this.tables.put(table.id, table);
+        this.sit(connection, seat, table);
+    }
+
+    protected void join(LineServer.Connection connection, Seat seat, String[] words) {
+        this.checkIdle(seat);
+        Table table = words.length > 1 ? this.tables.get(Long.parseLong(words[1])) : null;
+        if (table == null || table.started) {
+            throw new IllegalArgumentException("No such game.");
+        }
+        this.sit(connection, seat, table);
+    }
+
+    /**
+     * Helper function to seat a connection at the first free seat of a table,
+     * and start the game when the table is full.
+     */
+    protected void sit(LineServer.Connection connection, Seat seat, Table table) {
+        int index = 0;
+        while (table.seats[index] != null || index == table.aiSeat) {
+            index++;
+        }
+        table.seats[index] = connection;
+        table.joined++;
+        seat.table = table;
+        seat.seat = index;
+        GameSession session = table.session;
+        connection.send(String.format("JOINED %d %s %d %d %d", table.id, session.getKind().protocolName,
+                session.getSize(), session.getPlayerCount(), index));
+        if (table.isFull()) {
+            table.started = true;
+            table.startMillis = System.currentTimeMillis();
+            table.broadcast("START " + session.getTurn());
+            table.publishDiff();
+            this.scheduleAI(table);
+        }
+    }
+
+    protected void enqueue(LineServer.Connection connection, Seat seat, String[] words) {
+        this.checkIdle(seat);
+        GameSession.Kind kind = words.length > 1 ? GameSession.Kind.of(words[1]) : null;
+        if (kind == null) {
+            throw new IllegalArgumentException("Unknown mod.");
+        }
+        seat.name = words.length > 2 ? words[2] : null;
+        double rating = seat.name == null ? RatingEngine.INITIAL_RATING
+                : GamePlay.getRating(kind.modUUID, seat.name, RatingEngine.INITIAL_RATING);
+        long now = System.nanoTime();
+        seat.ticket = this.matchmaker.enqueue(kind.modUUID, connection, rating, now);
+        connection.send(String.format(Locale.ROOT, "QUEUED %s %.0f", kind.protocolName, rating));
+        Matchmaker.Match<LineServer.Connection> match = this.matchmaker.findMatch(seat.ticket, now);
+        if (match != null) {
+            this.startMatch(kind, match);
+        }
+    }
+
+    protected void dequeue(Seat seat) {
+        if (seat.ticket != null) {
+            this.matchmaker.cancel(seat.ticket);
+            seat.ticket = null;
+        }
+    }
+
+    /**
+     * Helper function to start the game of two paired players.
+     */
+    protected void startMatch(GameSession.Kind kind, Matchmaker.Match<LineServer.Connection> match) {
+        LineServer.Connection first = match.first().player();
+        LineServer.Connection second = match.second().player();
+        Seat firstSeat = (Seat) first.getAttachment();
+        Seat secondSeat = (Seat) second.getAttachment();
+        firstSeat.ticket = null;
+        secondSeat.ticket = null;
+        Player[] players = new Player[]{
+                GameSession.createPlayer(kind, nameOf(firstSeat, 0), 'A'),
+                GameSession.createPlayer(kind, nameOf(secondSeat, 1), 'B'),
+        };
+        Table table = new Table(this.nextTableId++, new GameSession(kind, kind.defaultSize, players));
+        table.rated = firstSeat.name != null && secondSeat.name != null;
+        this.tables.put(table.id, table);
+        this.sit(first, firstSeat, table);
+        this.sit(second, secondSeat, table);
+    }
+
+    /**
+     * Helper function to start the game of a player who has waited too long,
+     * against the AI level of the closest rating.
+     */
+    protected void startAIMatch(GameSession.Kind kind, Matchmaker.Ticket<LineServer.Connection> ticket) {
+        LineServer.Connection connection = ticket.player();
+        Seat seat = (Seat) connection.getAttachment();
+        seat.ticket = null;
+        int level = 0;
+        double closest = Double.MAX_VALUE;
+        for (int i = 0; i < AI_RATINGS.length; i++) {
+            String identity = createAI(kind, i, 'A').getIdentity();
+            double distance = Math.abs(GamePlay.getRating(kind.modUUID, identity, AI_RATINGS[i]) - ticket.rating());
+            if (distance < closest) {
+                level = i;
+                closest = distance;
+            }
+        }
+        // the AI plays first every other game.
+        int aiSeat = (int) (ticket.sequence() & 1);
+        Player[] players = new Player[2];
+        players[aiSeat] = createAI(kind, level, (char) ('A' + aiSeat));
+        players[aiSeat ^ 1] = GameSession.createPlayer(kind, nameOf(seat, aiSeat ^ 1), (char) ('A' + (aiSeat ^ 1)));
+        Table table = new Table(this.nextTableId++, new GameSession(kind, kind.defaultSize, players));
+        table.aiSeat = aiSeat;
+        table.rated = seat.name != null;
+        this.tables.put(table.id, table);
+        this.sit(connection, seat, table);
+    }
+
+    protected static String nameOf(Seat seat, int index) {
+        return seat.name != null ? seat.name : "Player " + (index + 1);
+    }
+
+    /**
+     * Create the AI player of a level.
+     * @param kind The kind of the game, Reversi or Tic-Tac-Toe.
+     * @param level The level, from 0 (the weakest) to 3.
+     * @param symbol The symbol of the player.
+     * @return The player.
+     */
+    protected static Player createAI(GameSession.Kind kind, int level, char symbol) {
+        if (kind == GameSession.Kind.REVERSI) {
+            return new ReversiPlayer(false, REVERSI_AI_SMART[level], REVERSI_AI_DEPTH[level], "Computer", symbol);
+        }
+        return new TicTacToeAIPlayer(symbol, TICTACTOE_AI_SMART[level]);
+    }
+
+    /**
+     * Helper function to search the move of the AI player, if it's its turn.
+     * The search runs on a worker thread (or a worker process) on a copy of the board,
+     * and the move is played on the selector thread, unless the game has changed meanwhile.
+     */
+    protected void scheduleAI(Table table) {
+        GameSession session = table.session;
+        if (table.aiSeat < 0 || session.isOver() || session.getTurn() != table.aiSeat) {
+            return;
+        }
+        Player[] players = session.getPlayers().clone();
+        Player ai = players[table.aiSeat];
+        Board<Slot> board = session.getBoard().clone();
+        Move[] moves = session.getLegalMoves();
+        int moveCount = session.getMoveCount();
+        if (this.server == null) {
+            // not attached to an endpoint, e.g. driven directly.
+            this.playAI(table, moveCount, ai.getMove(board, players, moves));
+            return;
+        }
+        if (this.remoteSearch != null) {
+            this.remoteSearch.search(session.getKind(), board, players, table.aiSeat, moves)
+                    .exceptionally(error -> moves[0])
+                    .thenAccept(move -> this.server.execute(() -> this.playAI(table, moveCount, move)));
+            return;
+        }
+        this.getMoveScheduler()
+                .submit(session.getKind().modUUID, ai, board, players, moves, System.nanoTime() + AI_MOVE_BUDGET)
+                // a failed search must not stall the game.
+                .exceptionally(error -> moves[0])
+                .thenAccept(move -> this.server.execute(() -> this.playAI(table, moveCount, move)));
+    }
+
+    protected void playAI(Table table, int moveCount, Move move) {
+        GameSession session = table.session;
+        if (session.isOver() || session.getMoveCount() != moveCount || this.tables.get(table.id) != table) {
+            return;
+        }
+        try {
+            this.play(table, table.aiSeat, move.x, move.y, -1);
+        } catch (RuntimeException e) {
+            // e.g. an invalid move, which ends this game only.
+            this.abort(table);
+        }
+    }
+
+    /**
+     * Helper function to end a game which cannot go on, as a draw which is not recorded.
+     */
+    protected void abort(Table table) {
+        if (this.tables.get(table.id) != table) {
+            return;
+        }
+        table.rated = false;
+        table.session.resign(GameSession.DRAW);
+        this.finish(table);
+    }
+
+    /**
+     * @return The scheduler of the AI moves searched in this process, created if needed.
+     */
+    public MoveScheduler getMoveScheduler() {
+        if (this.moveScheduler == null) {
+            this.moveScheduler = new MoveScheduler(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        }
+        return this.moveScheduler;
+    }
+
+    protected void watch(LineServer.Connection connection, Seat seat, String[] words) {
+        this.checkIdle(seat);
+        Table table = words.length > 1 ? this.tables.get(Long.parseLong(words[1])) : null;
+        if (table == null) {
+            throw new IllegalArgumentException("No such game.");
+        }
+        seat.watching = table;
+        GameSession session = table.session;
+        connection.send(String.format("WATCHING %d %s %d %d", table.id, session.getKind().protocolName,
+                session.getSize(), session.getPlayerCount()));
+        table.spectators.add(connection, table.getKeyframe());
+    }
+
+    protected void unwatch(LineServer.Connection connection, Seat seat) {
+        if (seat.watching != null) {
+            seat.watching.spectators.remove(connection);
+            seat.watching = null;
+        }
+    }
+
+    protected void move(Seat seat, String[] words) {
+        Table table = seat.table;
+        if (table == null || !table.started) {
+            throw new IllegalArgumentException("The game has not started.");
+        }
+        if (words.length < 3) {
+            throw new IllegalArgumentException("Invalid move.");
+        }
+        int x = Integer.parseInt(words[1]);
+        int y = Integer.parseInt(words[2]);
+        int piece = words.length > 3 ? Integer.parseInt(words[3]) : -1;
+        this.play(table, seat.seat, x, y, piece);
+    }
+
+    /**
+     * Helper function to play a move at a table, and tell it to the players and the spectators.
+     */
+    protected void play(Table table, int seat, int x, int y, int piece) {
+        GameSession session = table.session;
+        int owner = session.play(seat, x, y, piece);
+        table.broadcast(String.format("MOVED %d %d %d %d", seat, owner, x, y));
+        table.publishDiff();
+        if (session.isOver()) {
+            this.finish(table);
+        } else {
+            table.broadcast("TURN " + session.getTurn());
+            this.scheduleAI(table);
+        }
+    }
+
+    /**
+     * Helper function to leave the table of a connection. A started game is
+     * won by the other player (or drawn, if there are more players left).
+     */
+    protected void leave(Seat seat) {
+        Table table = seat.table;
+        if (table == null) {
+            return;
+        }
+        table.seats[seat.seat] = null;
+        table.joined--;
+        seat.table = null;
+        if (table.joined == 0 && table.aiSeat < 0) {
+            this.tables.remove(table.id);
+            table.session.resign(GameSession.DRAW);
+            this.dismissSpectators(table);
+            return;
+        }
+        if (!table.started) {
+            // still waiting for players, the seat is free again.
+            return;
+        }
+        int winner = GameSession.DRAW;
+        if (table.seats.length == 2) {
+            winner = seat.seat ^ 1;
+        }
+        table.session.resign(winner);
+        this.finish(table);
+    }
+
+    protected void finish(Table table) {
+        table.broadcast("END " + table.session.getWinner());
+        this.tables.remove(table.id);
+        this.gamesFinished++;
+        if (table.rated) {
+            GameSession session = table.session;
+            Player[] players = session.getPlayers();
+            int winner = session.getWinner();
+            GamePlay.doGameStatistics(session.getKind().modUUID, players, winner >= 0 ? players[winner] : null,
+                    session.getMoveCount(), System.currentTimeMillis() - table.startMillis);
+        }
+        for (LineServer.Connection connection : table.seats) {
+            if (connection != null) {
+                ((Seat) connection.getAttachment()).table = null;
+            }
+        }
+        this.dismissSpectators(table);
+    }
+
+    /**
+     * Helper function to send the end of a game to its spectators, who stop watching it.
+     */
+    protected void dismissSpectators(Table table) {
+        if (table.spectators.size() == 0) {
+            return;
+        }
+        ByteBuffer end = Broadcast.encode("END " + table.session.getWinner());
+        // a slow spectator gets the final board with the end.
+        table.spectators.publish(end, () -> {
+            ByteBuffer keyframe = table.getKeyframe();
+            ByteBuffer both = ByteBuffer.allocate(keyframe.remaining() + end.remaining());
+            both.put(keyframe.duplicate()).put(end.duplicate()).flip();
+            return both.asReadOnlyBuffer();
+        });
+        for (LineServer.Connection connection : table.spectators.getConnections()) {
+            Seat seat = (Seat) connection.getAttachment();
+            if (seat != null) {
+                seat.watching = null;
+            }
+        }
+        table.spectators.getConnections().clear();
+    }
+
+    /**
+     * Run a server on the selector of the calling thread.
+     * @param port The port, 0 for any free port.
+     * @param onListening Called with the bound port, before serving, may be <code>null</code>.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static void serve(int port, IntConsumer onListening) throws IOException {
+        GameServer.serve(port, null, onListening);
+    }
+
+    /**
+     * Run a server on the selector of the calling thread.
+     * @param port The port, 0 for any free port.
+     * @param remoteSearch The client of the search workers, <code>null</code> to search in this process.
+     * @param onListening Called with the bound port, before serving, may be <code>null</code>.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static void serve(int port, RemoteSearch remoteSearch, IntConsumer onListening) throws IOException {
+        GameServer game = new GameServer();
+        LineServer server = new LineServer(game);
+        game.attach(server);
+        game.setRemoteSearch(remoteSearch);
+        int bound = server.listen(new InetSocketAddress(port));
+        if (onListening != null) {
+            onListening.accept(bound);
+        }
+        server.run();
+    }
+
+    /**
+     * Run a server from the command line, e.g. <code>Main --server 7460</code>.
+     * @param args The port, optional, then the search workers, optional: a number
+     *             of local worker processes to start, or their addresses, e.g.
+     *             <code>localhost:7461,localhost:7462</code>.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        RemoteSearch remoteSearch = null;
+        if (args.length > 1 && args[1].matches("[0-9]+")) {
+            remoteSearch = RemoteSearch.startLocal(Integer.parseInt(args[1]), RemoteSearch.DEFAULT_TIMEOUT);
+        } else if (args.length > 1) {
+            List<InetSocketAddress> addresses = new ArrayList<>();
+            for (String address : args[1].split(",")) {
+                int colon = address.lastIndexOf(':');
+                addresses.add(new InetSocketAddress(address.substring(0, colon),
+                        Integer.parseInt(address.substring(colon + 1))));
+            }
+            remoteSearch = new RemoteSearch(addresses, RemoteSearch.DEFAULT_TIMEOUT);
+        }
+        GameServer.serve(port, remoteSearch, bound -> System.out.println("Game server listening on port " + bound));
+    }
+}
@@ -0,0 +1,367 @@
+package club.denkyoku.tictactoe.models.network;
+
+import club.denkyoku.tictactoe.models.board.Board;
+import club.denkyoku.tictactoe.models.board.Slot;
+import club.denkyoku.tictactoe.models.game.OrderAndChaosMod;
+import club.denkyoku.tictactoe.models.game.ReversiMod;
+import club.denkyoku.tictactoe.models.game.TicTacToeMod;
+import club.denkyoku.tictactoe.models.gameplay.OrderAndChaosGamePlay;
+import club.denkyoku.tictactoe.models.gameplay.ReversiGamePlay;
+import club.denkyoku.tictactoe.models.gameplay.TicTacToeGamePlay;
+import club.denkyoku.tictactoe.models.player.HumanPlayer;
+import club.denkyoku.tictactoe.models.player.Move;
+import club.denkyoku.tictactoe.models.player.Player;
+import club.denkyoku.tictactoe.models.player.ReversiPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * The rules of one game, without any UI, for the game server.
+ * <br/>
+ * It uses the static rule helpers of the game plays
+ * (<code>ReversiGamePlay.getAvailableMoves</code>, <code>tryTurn</code>,
+ * and the <code>checkWinner</code> of the line games), so a session plays
+ * exactly like the hot-seat game. A client can keep a copy of the session,
+ * and apply the moves broadcast by the server to it.
+ */
+public class GameSession {
+    // The winner of a game which has not ended yet.
+    public static final int NONE = -2;
+    // The winner of a draw.
+    public static final int DRAW = -1;
+
+    /**
+     * The games which can be played on the server.
+     */
+    public enum Kind {
+        REVERSI("reversi", ReversiMod.MOD_UUID, 8, 8, 8, 2, 2),
+        TICTACTOE("tictactoe", TicTacToeMod.MOD_UUID, 3, 3, 9, 2, 4),
+        ORDER_AND_CHAOS("orderchaos", OrderAndChaosMod.MOD_UUID, 6, 5, 9, 2, 2);
+
+        public final String protocolName;
+        // The UUID of the mod, which keys its results and ratings.
+        public final String modUUID;
+        public final int defaultSize;
+        public final int minSize;
+        public final int maxSize;
+        public final int minPlayers;
+        public final int maxPlayers;
+
+        Kind(String protocolName, String modUUID, int defaultSize, int minSize, int maxSize,
+             int minPlayers, int maxPlayers) {
+            this.protocolName = protocolName;
+            this.modUUID = modUUID;
+            this.defaultSize = defaultSize;
+            this.minSize = minSize;
+            this.maxSize = maxSize;
+            this.minPlayers = minPlayers;
+            this.maxPlayers = maxPlayers;
+        }
+
+        /**
+         * Find a kind by its name in the protocol.
+         * @param protocolName The name, e.g. <code>reversi</code>.
+         * @return The kind, or <code>null</code> if there's no such kind.
+         */
+        public static Kind of(String protocolName) {
+            for (Kind kind : Kind.values()) {
+                if (kind.protocolName.equals(protocolName)) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    }
+
+    protected final Kind kind;
+    protected final int size;
+    protected final Player[] players;
+    protected final Board<Slot> board;
+    protected int turn = 0;
+    protected int moveCount = 0;
+    protected int winner = NONE;
+
+    /**
+     * Create a game at its opening position.
+     * @param kind The kind of the game.
+     * @param size The size of the board, ignored by Reversi.
+     * @param playerCount The number of players, ignored by Reversi and Order and Chaos.
+     */
+    public GameSession(Kind kind, int size, int playerCount) {
+        this(kind, size, GameSession.createPlayers(kind, playerCount));
+    }
+
+    /**
+     * Create a game at its opening position, with given players, e.g. an AI player
+     * who computes its moves by <code>getMove()</code> on a copy of the board.
+     * @param kind The kind of the game.
+     * @param size The size of the board, ignored by Reversi.
+     * @param players The players, in the order of their turns.
+     */
+    public GameSession(Kind kind, int size, Player[] players) {
+        if (kind == Kind.REVERSI) {
+            size = kind.defaultSize;
+        }
+        if (size < kind.minSize || size > kind.maxSize) {
+            throw new IllegalArgumentException("Invalid board size.");
+        }
+        if (players.length < kind.minPlayers || players.length > kind.maxPlayers) {
+            throw new IllegalArgumentException("Invalid number of players.");
+        }
+        this.kind = kind;
+        this.size = size;
+        this.players = players;
+        this.board = new Board<>(size, size);
+        if (kind == Kind.REVERSI) {
+            ReversiGamePlay.putOpeningPosition(this.board, this.players);
+        }
+    }
+
+    /**
+     * Create the players of a game, who are all played by the clients.
+     * @param kind The kind of the game.
+     * @param playerCount The number of players, ignored by Reversi and Order and Chaos.
+     * @return The players, named <code>Player 1</code>, <code>Player 2</code>...
+     */
+    public static Player[] createPlayers(Kind kind, int playerCount) {
+        if (kind == Kind.REVERSI || kind == Kind.ORDER_AND_CHAOS) {
+            playerCount = 2;
+        }
+        if (playerCount < kind.minPlayers || playerCount > kind.maxPlayers) {
+            throw new IllegalArgumentException("Invalid number of players.");
+        }
+        Player[] players = new Player[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            players[i] = GameSession.createPlayer(kind, "Player " + (i + 1), (char) ('A' + i));
+        }
+        return players;
+    }
+
+    /**
+     * Create a player played by a client.
+     * <br/>
+     * In Reversi it is a human <code>ReversiPlayer</code>,
+     * as the Reversi AI only plays against those.
+     * @param kind The kind of the game.
+     * @param name The name of the player, which identifies it in the results.
+     * @param symbol The symbol of the player.
+     * @return The player.
+     */
+    public static Player createPlayer(Kind kind, String name, char symbol) {
+        if (kind == Kind.REVERSI) {
+            return new ReversiPlayer(true, 0.0, 0, name, symbol);
+        }
+        return new HumanPlayer(name, symbol);
+    }
+
+    public Kind getKind() {
+        return this.kind;
+    }
+
+    public int getSize() {
+        return this.size;
+    }
+
+    public int getPlayerCount() {
+        return this.players.length;
+    }
+
+    /**
+     * @return The players, in the order of their turns.
+     */
+    public Player[] getPlayers() {
+        return this.players;
+    }
+
+    public Board<Slot> getBoard() {
+        return this.board;
+    }
+
+    /**
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return The index of the owner of the piece at the position, -1 if it's empty.
+     */
+    public int ownerAt(int x, int y) {
+        Slot slot = this.board.at(x, y);
+        return slot == null ? -1 : this.indexOf(slot.getPlayer());
+    }
+
+    /**
+     * @return The owners of the slots, row by row, -1 for empty.
+     */
+    public int[] getCells() {
+        int[] cells = new int[this.size * this.size];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = this.ownerAt(i % this.size, i / this.size);
+        }
+        return cells;
+    }
+
+    /**
+     * Replace the position, e.g. with one received from another process.
+     * @param turn The index of the player to move.
+     * @param cells The owners of the slots, row by row, -1 for empty.
+     */
+    public void setPosition(int turn, int[] cells) {
+        if (turn < 0 || turn >= this.players.length || cells.length != this.size * this.size) {
+            throw new IllegalArgumentException("Invalid position.");
+        }
+        this.board.clear();
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] >= this.players.length) {
+                throw new IllegalArgumentException("Invalid position.");
+            }
+            if (cells[i] >= 0) {
+                this.board.put(i % this.size, i / this.size, new Slot(this.players[cells[i]]));
+            }
+        }
+        this.turn = turn;
+    }
+
+    /**
+     * @return The index of the player to move.
+     */
+    public int getTurn() {
+        return this.turn;
+    }
+
+    public int getMoveCount() {
+        return this.moveCount;
+    }
+
+    public boolean isOver() {
+        return this.winner != NONE;
+    }
+
+    /**
+     * @return The index of the winner, <code>DRAW</code>,
+     *         or <code>NONE</code> if the game has not ended.
+     */
+    public int getWinner() {
+        return this.winner;
+    }
+
+    /**
+     * Compute the legal moves of the player to move.
+     * @return The legal moves. In the line games, every empty slot.
+     */
+    public Move[] getLegalMoves() {
+        if (this.kind == Kind.REVERSI) {
+            return ReversiGamePlay.getAvailableMoves(this.board,
+                    this.players[this.turn], this.players[this.turn ^ 1]);
+        }
+        List<Move> moves = new ArrayList<>();
+        for (int x = 0; x < this.size; x++) {
+            for (int y = 0; y < this.size; y++) {
+                if (this.board.at(x, y) == null) {
+                    moves.add(new Move(x, y));
+                }
+            }
+        }
+        return moves.toArray(new Move[0]);
+    }
+
+    /**
+     * Play a move of the player to move.
+     * <br/>
+     * In Reversi, a player who cannot move passes, so the turn may stay.
+     * @param seat The index of the player.
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @param piece The owner of the placed piece in Order and Chaos (0 or 1),
+     *              ignored by the others, whose piece is of the player.
+     * @return The index of the owner of the placed piece.
+     * @throws IllegalArgumentException If the move is not legal.
+     */
+    public int play(int seat, int x, int y, int piece) {
+        if (this.isOver()) {
+            throw new IllegalArgumentException("The game is over.");
+        }
+        if (seat != this.turn) {
+            throw new IllegalArgumentException("Not your turn.");
+        }
+        if (x < 0 || x >= this.size || y < 0 || y >= this.size || this.board.at(x, y) != null) {
+            throw new IllegalArgumentException("Invalid move.");
+        }
+        int owner = seat;
+        switch (this.kind) {
+            case REVERSI -> {
+                Player self = this.players[seat];
+                Player opponent = this.players[seat ^ 1];
+                if (ReversiGamePlay.computeFlip(this.board, x, y, self, opponent).length == 0) {
+                    throw new IllegalArgumentException("Invalid move.");
+                }
+                ReversiGamePlay.tryTurn(this.board, x, y, self, opponent);
+                this.moveCount++;
+                if (ReversiGamePlay.getAvailableMoves(this.board, opponent, self).length > 0) {
+                    this.turn = seat ^ 1;
+                } else if (ReversiGamePlay.getAvailableMoves(this.board, self, opponent).length == 0) {
+                    // neither can move.
+                    this.winner = this.countWinner();
+                }
+            }
+            case TICTACTOE -> {
+                this.board.put(x, y, new Slot(this.players[seat]));
+                this.moveCount++;
+                Player winner = TicTacToeGamePlay.checkWinner(this.board);
+                if (winner != null) {
+                    this.winner = this.indexOf(winner);
+                } else if (this.board.isFull()) {
+                    this.winner = DRAW;
+                } else {
+                    this.turn = (this.turn + 1) % this.players.length;
+                }
+            }
+            case ORDER_AND_CHAOS -> {
+                if (piece != 0 && piece != 1) {
+                    throw new IllegalArgumentException("Invalid piece.");
+                }
+                owner = piece;
+                this.board.put(x, y, new Slot(this.players[piece]));
+                this.moveCount++;
+                Player winner = OrderAndChaosGamePlay.checkWinner(this.board, this.players);
+                if (winner != null) {
+                    this.winner = this.indexOf(winner);
+                } else {
+                    this.turn = this.turn ^ 1;
+                }
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * End the game before its end, e.g. when a player leaves.
+     * @param winner The index of the winner, or <code>DRAW</code>.
+     */
+    public void resign(int winner) {
+        if (!this.isOver()) {
+            this.winner = winner;
+        }
+    }
+
+    protected int countWinner() {
+        int[] counts = new int[2];
+        for (int x = 0; x < this.size; x++) {
+            for (int y = 0; y < this.size; y++) {
+                Slot slot = this.board.at(x, y);
+                if (slot != null) {
+                    counts[this.indexOf(slot.getPlayer())]++;
+                }
+            }
+        }
+        return counts[0] > counts[1] ? 0 : counts[0] < counts[1] ? 1 : DRAW;
+    }
+
+    protected int indexOf(Player player) {
+        for (int i = 0; i < this.players.length; i++) {
+            if (this.players[i] == player) {
+                return i;
+            }
+        }
+        return DRAW;
+    }
+}
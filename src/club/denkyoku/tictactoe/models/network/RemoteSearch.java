@@ -0,0 +1,317 @@
+package club.denkyoku.tictactoe.models.network;
+
+import club.denkyoku.tictactoe.models.board.Board;
+import club.denkyoku.tictactoe.models.board.Slot;
+import club.denkyoku.tictactoe.models.player.Move;
+import club.denkyoku.tictactoe.models.player.Player;
+import club.denkyoku.tictactoe.models.player.ReversiPlayer;
+import club.denkyoku.tictactoe.services.network.LineServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * The client of a pool of <code>SearchWorker</code> processes, which searches
+ * the moves of the AI players out of the calling process.
+ * <br/>
+ * The requests are handed to a <code>LineServer</code> selector thread of its own,
+ * and sent to the workers in turn. The requests made in one round of the selector
+ * are written to a worker at once, so a busy server sends them in batches.
+ * A request not answered within the timeout, or which cannot be sent
+ * (no worker connected, a worker closed or failing, or a move which is not legal),
+ * is searched locally instead by a shallow search, on a thread of its own, so a game
+ * never waits for a lost worker.
+ * <pre>
+ *     RemoteSearch search = RemoteSearch.startLocal(2, RemoteSearch.DEFAULT_TIMEOUT);
+ *     search.search(kind, board, players, seat, moves).thenAccept(move -> ...);
+ * </pre>
+ */
+public class RemoteSearch implements LineServer.Handler {
+    // How long a request waits for its worker, in milliseconds.
+    public static final long DEFAULT_TIMEOUT = 2000;
+    // How often the timeouts are checked, in milliseconds.
+    protected static final int TICK_INTERVAL = 50;
+    // How long a local worker process may take to start, in milliseconds.
+    protected static final long START_TIMEOUT = 30000;
+
+    /**
+     * A request waiting for its response.
+     * @param moves The legal moves, which the move of the worker must be one of.
+     */
+    protected record Request(CompletableFuture<Move> future, LineServer.Connection worker, long deadline,
+                             Move[] moves) {
+    }
+
+    protected final LineServer endpoint;
+    protected final long timeoutNanos;
+    // The workers which have said hello, on the selector thread only.
+    protected final List<LineServer.Connection> workers = new ArrayList<>();
+    // The requests sent, by id, on the selector thread only.
+    protected final Map<Long, Request> pending = new HashMap<>();
+    protected final AtomicLong nextId = new AtomicLong(1);
+    protected final AtomicLong remoteMoves = new AtomicLong();
+    protected final AtomicLong localMoves = new AtomicLong();
+    protected final List<Process> processes = new ArrayList<>();
+    // The local searches of the requests the workers have failed, off the selector thread.
+    protected final ExecutorService fallbacks;
+    protected int nextWorker;
+
+    /**
+     * Connect to running workers.
+     * @param addresses The addresses of the workers.
+     * @param timeoutMillis How long a request waits for its worker.
+     * @throws IOException If the selector cannot be opened.
+     */
+    public RemoteSearch(List<InetSocketAddress> addresses, long timeoutMillis) throws IOException {
+        this.endpoint = new LineServer(this);
+        this.endpoint.setTickInterval(TICK_INTERVAL);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.fallbacks = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()), task -> {
+            Thread thread = new Thread(task, "remote-search-fallback");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (InetSocketAddress address : addresses) {
+            try {
+                this.endpoint.connect(address);
+            } catch (IOException e) {
+                // the other workers take its requests.
+            }
+        }
+        Thread thread = new Thread(this.endpoint, "remote-search");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Start worker processes on this host, running the classes of this process,
+     * and connect to them. They exit with this process.
+     * @param count The number of processes.
+     * @param timeoutMillis How long a request waits for its worker.
+     * @return The client.
+     * @throws IOException If a process cannot be started.
+     */
+    public static RemoteSearch startLocal(int count, long timeoutMillis) throws IOException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<Process> processes = new ArrayList<>();
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        SearchWorker.class.getName(), "0", "--local");
+                builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+                processes.add(builder.start());
+            }
+            for (Process process : processes) {
+                addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), readPort(process)));
+            }
+        } catch (IOException e) {
+            processes.forEach(Process::destroy);
+            throw e;
+        }
+        RemoteSearch search = new RemoteSearch(addresses, timeoutMillis);
+        search.processes.addAll(processes);
+        return search;
+    }
+
+    /**
+     * Helper function to read the port of a starting worker, from its first line.
+     */
+    protected static int readPort(Process process) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        CompletableFuture<String> line = CompletableFuture.supplyAsync(() -> {
+            try {
+                return reader.readLine();
+            } catch (IOException e) {
+                return null;
+            }
+        });
+        String first;
+        try {
+            first = line.get(START_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            first = null;
+        }
+        if (first == null || !first.startsWith("Search worker listening on port ")) {
+            throw new IOException("The search worker did not start.");
+        }
+        return Integer.parseInt(first.substring(first.lastIndexOf(' ') + 1));
+    }
+
+    /**
+     * Search the move of an AI player, on a worker.
+     * <br/>
+     * The future completes on a thread of the client, never the caller, with the move
+     * of the worker, or the move of the local shallow search if the worker
+     * does not answer in time, or the first legal move if even that fails.
+     * @param kind The kind of the game.
+     * @param board The board, which must not change until the future completes.
+     * @param players The players, in the order of their turns.
+     * @param seat The index of the AI player to move, a <code>ReversiPlayer</code>
+     *             or a <code>TicTacToeAIPlayer</code>.
+     * @param moves The legal moves of the player.
+     * @return The future move.
+     */
+    public CompletableFuture<Move> search(GameSession.Kind kind, Board<Slot> board, Player[] players,
+                                          int seat, Move[] moves) {
+        long id = this.nextId.getAndIncrement();
+        String line = SearchWorker.encode(id, kind, board, players, seat);
+        CompletableFuture<Move> future = new CompletableFuture<>();
+        this.endpoint.execute(() -> this.send(id, line, future, moves));
+        return future.handleAsync((move, error) -> {
+            if (move != null) {
+                this.remoteMoves.incrementAndGet();
+                return move;
+            }
+            this.localMoves.incrementAndGet();
+            try {
+                return RemoteSearch.searchLocally(board, players, seat, moves);
+            } catch (RuntimeException e) {
+                // any legal move rather than a game waiting forever.
+                return moves[0];
+            }
+        }, this.fallbacks);
+    }
+
+    /**
+     * Search a move in this process, shallowly.
+     */
+    protected static Move searchLocally(Board<Slot> board, Player[] players, int seat, Move[] moves) {
+        if (players[seat] instanceof ReversiPlayer reversiPlayer) {
+            return reversiPlayer.getShallowMove(board, players, moves);
+        }
+        // the Tic-Tac-Toe AI takes microseconds anyway.
+        return players[seat].getMove(board, players, moves);
+    }
+
+    /**
+     * Helper function to send a request to the next worker, on the selector thread.
+     */
+    protected void send(long id, String line, CompletableFuture<Move> future, Move[] moves) {
+        if (this.workers.isEmpty()) {
+            future.completeExceptionally(new IOException("No search worker."));
+            return;
+        }
+        this.nextWorker = (this.nextWorker + 1) % this.workers.size();
+        LineServer.Connection worker = this.workers.get(this.nextWorker);
+        worker.send(line);
+        this.pending.put(id, new Request(future, worker, System.nanoTime() + this.timeoutNanos, moves));
+    }
+
+    /**
+     * Helper function to find a move among the legal moves.
+     * @return The legal move, or <code>null</code> if it's not one of them.
+     */
+    protected static Move findMove(Move[] moves, int x, int y) {
+        for (Move move : moves) {
+            if (move.x == x && move.y == y) {
+                return move;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void onOpen(LineServer.Connection connection) {
+    }
+
+    @Override
+    public void onLine(LineServer.Connection connection, String line) {
+        String[] words = line.split(" ");
+        switch (words[0]) {
+            case "HELLO" -> this.workers.add(connection);
+            case "MOVE", "ERR" -> {
+                Request request;
+                try {
+                    request = this.pending.remove(Long.parseLong(words[1]));
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    return;
+                }
+                if (request == null) {
+                    // answered after its timeout.
+                    return;
+                }
+                try {
+                    if (words[0].equals("MOVE") && words.length == 4) {
+                        Move move = findMove(request.moves(), Integer.parseInt(words[2]), Integer.parseInt(words[3]));
+                        // an illegal move, e.g. of a worker of another version, is searched locally.
+                        if (move != null) {
+                            request.future().complete(move);
+                            return;
+                        }
+                    }
+                } catch (NumberFormatException e) {
+                }
+                request.future().completeExceptionally(new IOException(line));
+            }
+            default -> { }
+        }
+    }
+
+    @Override
+    public void onClose(LineServer.Connection connection) {
+        this.workers.remove(connection);
+        Iterator<Request> requests = this.pending.values().iterator();
+        while (requests.hasNext()) {
+            Request request = requests.next();
+            if (request.worker() == connection) {
+                requests.remove();
+                request.future().completeExceptionally(new IOException("The search worker has closed."));
+            }
+        }
+    }
+
+    @Override
+    public void onTick() {
+        long now = System.nanoTime();
+        Iterator<Request> requests = this.pending.values().iterator();
+        while (requests.hasNext()) {
+            Request request = requests.next();
+            if (now - request.deadline() >= 0) {
+                requests.remove();
+                request.future().completeExceptionally(new TimeoutException());
+            }
+        }
+    }
+
+    /**
+     * @return The number of moves searched by the workers.
+     */
+    public long getRemoteMoves() {
+        return this.remoteMoves.get();
+    }
+
+    /**
+     * @return The number of moves searched locally, after a timeout or a failure.
+     */
+    public long getLocalMoves() {
+        return this.localMoves.get();
+    }
+
+    /**
+     * Disconnect from the workers, and stop the worker processes started by <code>startLocal()</code>.
+     */
+    public void close() {
+        this.endpoint.stop();
+        for (Process process : this.processes) {
+            process.destroy();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package club.denkyoku.tictactoe.models.network;
+
+import club.denkyoku.tictactoe.models.board.Board;
+import club.denkyoku.tictactoe.models.board.Slot;
+import club.denkyoku.tictactoe.models.player.Move;
+import club.denkyoku.tictactoe.models.player.Player;
+import club.denkyoku.tictactoe.models.player.ReversiPlayer;
+import club.denkyoku.tictactoe.models.player.TicTacToeAIPlayer;
+import club.denkyoku.tictactoe.services.network.LineServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/**
+ * A worker process which searches the moves of the AI players for other
+ * processes, e.g. the game servers, see <code>RemoteSearch</code>.
+ * <br/>
+ * It listens on the loopback address, and its protocol is one line per
+ * request or response, on a <code>LineServer</code>:
+ * <pre>
+ *     client                                          worker
+ *                                                     HELLO search 1
+ *     SEARCH &lt;id&gt; &lt;mod&gt; &lt;size&gt; &lt;seat&gt; &lt;smart&gt; &lt;depth&gt; &lt;cells&gt;
+ *                                                     MOVE &lt;id&gt; &lt;x&gt; &lt;y&gt;
+ *                                                     ERR &lt;id&gt; &lt;message&gt; for an invalid request
+ * </pre>
+ * The AI player is at <code>seat</code>, which is to move, and <code>cells</code>
+ * is the board row by row, '.' for empty, else the owner, like a <code>FRAME</code>.
+ * The searches run on a thread per processor, and the responses completed in one
+ * round of the selector are written at once, so are the requests of a client.
+ */
+public class SearchWorker implements LineServer.Handler {
+    public static final int DEFAULT_PORT = 7461;
+    public static final int PROTOCOL_VERSION = 1;
+
+    /**
+     * A decoded request: the position, and the AI player to move.
+     */
+    protected record Request(long id, GameSession session, Player player) {
+    }
+
+    protected LineServer server;
+    protected final ExecutorService searchers;
+
+    public SearchWorker() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        this.searchers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "search-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void onOpen(LineServer.Connection connection) {
+        connection.send("HELLO search " + PROTOCOL_VERSION);
+    }
+
+    @Override
+    public void onLine(LineServer.Connection connection, String line) {
+        String[] words = line.trim().split(" ");
+        switch (words[0]) {
+            case "SEARCH" -> {
+                Request request;
+                try {
+                    request = SearchWorker.decode(words);
+                } catch (IllegalArgumentException e) {
+                    // NumberFormatException included.
+                    connection.send("ERR " + (words.length > 1 ? words[1] : "-") + " " + e.getMessage());
+                    return;
+                }
+                this.searchers.execute(() -> {
+                    String response;
+                    try {
+                        Move move = SearchWorker.search(request.session(), request.player());
+                        response = String.format("MOVE %d %d %d", request.id(), move.x, move.y);
+                    } catch (RuntimeException e) {
+                        response = "ERR " + request.id() + " " + e.getMessage();
+                    }
+                    String reply = response;
+                    this.server.execute(() -> connection.send(reply));
+                });
+            }
+            case "PING" -> connection.send("PONG");
+            case "" -> { }
+            default -> connection.send("ERR - Unknown command.");
+        }
+    }
+
+    @Override
+    public void onClose(LineServer.Connection connection) {
+    }
+
+    /**
+     * Encode a request.
+     * @param id The id of the request, echoed by the response.
+     * @param kind The kind of the game.
+     * @param board The board.
+     * @param players The players, in the order of their turns.
+     * @param seat The index of the AI player to move.
+     * @return The <code>SEARCH</code> line.
+     */
+    public static String encode(long id, GameSession.Kind kind, Board<Slot> board, Player[] players, int seat) {
+        Player player = players[seat];
+        double smart;
+        int depth = 0;
+        if (player instanceof ReversiPlayer reversiPlayer) {
+            smart = reversiPlayer.getSmartProb();
+            depth = reversiPlayer.getDepth();
+        } else if (player instanceof TicTacToeAIPlayer ticTacToePlayer) {
+            smart = ticTacToePlayer.getSmartProb();
+        } else {
+            throw new IllegalArgumentException("Not an AI player.");
+        }
+        int size = board.getWidth();
+        StringBuilder sb = new StringBuilder(64 + size * size);
+        sb.append(String.format(Locale.ROOT, "SEARCH %d %s %d %d %.3f %d ",
+                id, kind.protocolName, size, seat, smart, depth));
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                Slot slot = board.at(x, y);
+                int owner = -1;
+                for (int i = 0; slot != null && i < players.length; i++) {
+                    if (players[i] == slot.getPlayer()) {
+                        owner = i;
+                    }
+                }
+                sb.append(owner < 0 ? '.' : (char) ('0' + owner));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Decode a request.
+     * @param words The words of the <code>SEARCH</code> line.
+     * @return The request.
+     * @throws IllegalArgumentException If the request is invalid.
+     */
+    protected static Request decode(String[] words) {
+        if (words.length != 8) {
+            throw new IllegalArgumentException("Invalid request.");
+        }
+        long id = Long.parseLong(words[1]);
+        GameSession.Kind kind = GameSession.Kind.of(words[2]);
+        if (kind == null || kind == GameSession.Kind.ORDER_AND_CHAOS) {
+            throw new IllegalArgumentException("Unknown mod.");
+        }
+        int size = Integer.parseInt(words[3]);
+        int seat = Integer.parseInt(words[4]);
+        double smart = Double.parseDouble(words[5]);
+        int depth = Integer.parseInt(words[6]);
+        String cells = words[7];
+        if (cells.length() != size * size) {
+            throw new IllegalArgumentException("Invalid position.");
+        }
+        int playerCount = kind.minPlayers;
+        int[] owners = new int[cells.length()];
+        for (int i = 0; i < owners.length; i++) {
+            char c = cells.charAt(i);
+            owners[i] = c == '.' ? -1 : c - '0';
+            playerCount = Math.max(playerCount, owners[i] + 1);
+        }
+        playerCount = Math.max(playerCount, seat + 1);
+        if (seat < 0 || playerCount > kind.maxPlayers) {
+            throw new IllegalArgumentException("Invalid position.");
+        }
+        Player[] players = new Player[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            char symbol = (char) ('A' + i);
+            if (i != seat) {
+                players[i] = GameSession.createPlayer(kind, "Player " + (i + 1), symbol);
+            } else if (kind == GameSession.Kind.REVERSI) {
+                players[i] = new ReversiPlayer(false, smart, depth, "Computer", symbol);
+            } else {
+                players[i] = new TicTacToeAIPlayer(symbol, smart);
+            }
+        }
+        GameSession session = new GameSession(kind, size, players);
+        session.setPosition(seat, owners);
+        return new Request(id, session, players[seat]);
+    }
+
+    /**
+     * Helper function to search the move of the player to move.
+     */
+    protected static Move search(GameSession session, Player player) {
+        Move[] moves = session.getLegalMoves();
+        if (moves.length == 0) {
+            throw new IllegalArgumentException("No legal move.");
+        }
+        return player.getMove(session.getBoard(), session.getPlayers(), moves);
+    }
+
+    /**
+     * Run a worker on the selector of the calling thread.
+     * @param port The port, 0 for any free port.
+     * @param local Whether to exit when the standard input ends, i.e. when
+     *              the process which has started the worker is gone.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static void serve(int port, boolean local) throws IOException {
+        SearchWorker worker = new SearchWorker();
+        LineServer server = new LineServer(worker);
+        worker.server = server;
+        int bound = server.listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        // the starting process reads the port from this line.
+        System.out.println("Search worker listening on port " + bound);
+        System.out.flush();
+        if (local) {
+            Thread watchdog = new Thread(() -> {
+                InputStream in = System.in;
+                try {
+                    while (in.read() >= 0) {
+                    }
+                } catch (IOException e) {
+                }
+                server.stop();
+            }, "search-worker-parent");
+            watchdog.setDaemon(true);
+            watchdog.start();
+        }
+        server.run();
+    }
+
+    /**
+     * Run a worker from the command line, e.g. <code>Main --search-worker 7461</code>.
+     * @param args The port, optional, and <code>--local</code> to exit with the standard input.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        boolean local = false;
+        for (String arg : args) {
+            if (arg.equals("--local")) {
+                local = true;
+            } else {
+                port = Integer.parseInt(arg);
+            }
+        }
+        SearchWorker.serve(port, local);
+    }
+}
@@ -0,0 +1,150 @@
+package club.denkyoku.tictactoe.models.network;
+
+import club.denkyoku.tictactoe.models.Config;
+import club.denkyoku.tictactoe.models.Session;
+import club.denkyoku.tictactoe.services.network.TelnetTerminal;
+import club.denkyoku.tictactoe.services.output.controls.MessageDialog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+
+/**
+ * The remote terminal server, which runs the whole terminal UI for every
+ * telnet connection, e.g. <code>telnet host 2323</code>.
+ * <br/>
+ * Every connection gets a <code>Session</code> of its own (settings, screen,
+ * random generator) on a thread of its own, since the menus and the game plays
+ * wait for the keys. The games of the remote sessions are not saved, and their
+ * results go to the shared result store.
+ */
+public class TerminalServer {
+    public static final int DEFAULT_PORT = 2323;
+    // The most sessions at once, a connection over it is refused.
+    public static final int MAX_SESSIONS = 1000;
+    // How long to wait for the window size of a new connection, in milliseconds.
+    protected static final int WINDOW_SIZE_TIMEOUT = 500;
+    // The stack of a session thread, smaller than the default, as there may be many.
+    protected static final long SESSION_STACK_SIZE = 512 * 1024;
+
+    protected final ServerSocket serverSocket;
+    protected final AtomicInteger sessionCount = new AtomicInteger();
+    protected final AtomicLong nextSessionId = new AtomicLong(1);
+
+    /**
+     * Create a server.
+     * @param port The port, 0 for any free port.
+     * @throws IOException If the port cannot be bound.
+     */
+    public TerminalServer(int port) throws IOException {
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.setReuseAddress(true);
+        this.serverSocket.bind(new InetSocketAddress(port), 256);
+    }
+
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return The number of sessions running.
+     */
+    public int getSessionCount() {
+        return this.sessionCount.get();
+    }
+
+    /**
+     * Accept connections until the server is closed, and start a session for each.
+     */
+    public void run() {
+        while (!this.serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = this.serverSocket.accept();
+            } catch (IOException e) {
+                // closed, or e.g. out of file descriptors.
+                continue;
+            }
+            if (this.sessionCount.incrementAndGet() > MAX_SESSIONS) {
+                this.sessionCount.decrementAndGet();
+                try {
+                    socket.getOutputStream().write("The server is full, please try again later.\r\n".getBytes());
+                    socket.close();
+                } catch (IOException e) {
+                }
+                continue;
+            }
+            long id = this.nextSessionId.getAndIncrement();
+            Thread thread = new Thread(null, () -> this.serve(socket, id), "terminal-" + id, SESSION_STACK_SIZE);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stop accepting connections. The running sessions go on until they end.
+     */
+    public void close() {
+        try {
+            this.serverSocket.close();
+        } catch (IOException e) {
+        }
+    }
+
+    /**
+     * Helper function to run the session of a connection, on its own thread.
+     */
+    protected void serve(Socket socket, long id) {
+        TelnetTerminal terminal = null;
+        try {
+            socket.setTcpNoDelay(true);
+            terminal = new TelnetTerminal(socket);
+            terminal.awaitWindowSize(WINDOW_SIZE_TIMEOUT);
+            Session session = new Session(new Config(), terminal, System.nanoTime() ^ id, null);
+            session.run();
+        } catch (IOException | UncheckedIOException e) {
+            // the connection is closed.
+        } finally {
+            if (terminal != null) {
+                terminal.close();
+            } else {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                }
+            }
+            this.sessionCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Run a server on the calling thread.
+     * @param port The port, 0 for any free port.
+     * @param onListening Called with the bound port, before serving, may be <code>null</code>.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static void serve(int port, IntConsumer onListening) throws IOException {
+        TerminalServer server = new TerminalServer(port);
+        if (onListening != null) {
+            onListening.accept(server.getPort());
+        }
+        server.run();
+    }
+
+    /**
+     * Run a server from the command line, e.g. <code>Main --telnet 2323</code>.
+     * @param args The port, optional.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        // the remote users do see the timed messages, even if the server runs without a console.
+        MessageDialog.setTimedDialogSeconds(3);
+        TerminalServer.serve(port, bound -> System.out.println("Terminal server listening on port " + bound));
+    }
+}
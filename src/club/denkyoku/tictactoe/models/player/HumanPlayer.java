@@ -31,12 +31,13 @@ public class HumanPlayer extends Player {
 
     /**
      * Helper functions to Create a List of HumanPlayer
+     * @param config The settings of the players.
      * @return List of HumanPlayer
      */
-    public static Player[] createHumanPlayers() {
-        Player[] players = new Player[Config.getPlayerCounts()];
-        for (int i = 0; i < Config.getPlayerCounts(); i++) {
-            PlayerInfo info = Config.playerInfos.get(i);
+    public static Player[] createHumanPlayers(Config config) {
+        Player[] players = new Player[config.getPlayerCounts()];
+        for (int i = 0; i < config.getPlayerCounts(); i++) {
+            PlayerInfo info = config.playerInfos.get(i);
             players[i] = new HumanPlayer(info.name, info.symbol);
         }
         return players;
@@ -0,0 +1,178 @@
+package club.denkyoku.tictactoe.models.player;
+
+import club.denkyoku.tictactoe.libraries.math.StdRandom;
+import club.denkyoku.tictactoe.models.board.Board;
+import club.denkyoku.tictactoe.models.board.Slot;
+import club.denkyoku.tictactoe.services.profiling.LatencyHistogram;
+import club.denkyoku.tictactoe.services.profiling.MetricsRegistry;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * The scheduler of the AI moves of many concurrent games in one process.
+ * <br/>
+ * The requests, from any thread, are queued by deadline, e.g. the end of the
+ * clock of the player, and searched on a <code>ForkJoinPool</code> of a bounded
+ * number of threads. A pool task searches the most urgent request queued, not
+ * the one it was submitted for, so a request close to its deadline goes first.
+ * <br/>
+ * The searches of the games of a mod share one <code>TranspositionTable</code>,
+ * bound to the pool thread during the search, so a position reached in many
+ * games (e.g. the openings) is searched once for all of them.
+ * The time the requests wait in the queue is the <code>ai.scheduler.wait</code>
+ * histogram of the <code>MetricsRegistry</code>.
+ * <pre>
+ *     MoveScheduler scheduler = new MoveScheduler(4);
+ *     scheduler.submit(modUUID, player, board, players, moves, deadline).thenAccept(move -> ...);
+ * </pre>
+ */
+public class MoveScheduler {
+    public static final int DEFAULT_TABLE_CAPACITY = 1 << 18;
+    protected static final String WAIT_METRIC = "ai.scheduler.wait";
+
+    /**
+     * A move to search.
+     */
+    protected record Request(String modUUID, Player player, Board<Slot> board, Player[] players, Move[] moves,
+                             long deadlineNanos, Long seed, long sequence, long submittedNanos,
+                             CompletableFuture<Move> future) {
+    }
+
+    // the earliest deadline first, then the earliest request.
+    protected static final Comparator<Request> BY_DEADLINE = Comparator
+            .comparingLong((Request request) -> request.deadlineNanos())
+            .thenComparingLong(Request::sequence);
+
+    protected final PriorityBlockingQueue<Request> queue = new PriorityBlockingQueue<>(64, BY_DEADLINE);
+    protected final ForkJoinPool pool;
+    protected final Map<String, TranspositionTable<?>> tables = new ConcurrentHashMap<>();
+    protected final int tableCapacity;
+    protected final AtomicLong nextSequence = new AtomicLong();
+    protected final LongAdder completed = new LongAdder();
+    protected final LatencyHistogram waits = MetricsRegistry.histogram(WAIT_METRIC);
+
+    /**
+     * Create a scheduler.
+     * @param parallelism The number of searching threads.
+     */
+    public MoveScheduler(int parallelism) {
+        this(parallelism, DEFAULT_TABLE_CAPACITY);
+    }
+
+    /**
+     * Create a scheduler.
+     * @param parallelism The number of searching threads.
+     * @param tableCapacity The number of slots of the transposition table of each mod.
+     */
+    public MoveScheduler(int parallelism, int tableCapacity) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.tableCapacity = tableCapacity;
+    }
+
+    /**
+     * Queue the search of a move.
+     * @param modUUID The UUID of the mod, whose transposition table is used.
+     * @param player The AI player to move.
+     * @param board The board, which must not change until the future completes.
+     * @param players The players, in the order of their turns.
+     * @param moves The legal moves of the player.
+     * @param deadlineNanos When the move is due, see <code>System.nanoTime()</code>.
+     * @return The future move, completed on a pool thread.
+     */
+    public CompletableFuture<Move> submit(String modUUID, Player player, Board<Slot> board, Player[] players,
+                                          Move[] moves, long deadlineNanos) {
+        return this.submit(modUUID, player, board, players, moves, deadlineNanos, null);
+    }
+
+    /**
+     * Queue the search of a move, with a random generator of its own, e.g. drawn
+     * from the generator of a session, so the moves of its AI players are replayable.
+     * @param modUUID The UUID of the mod, whose transposition table is used.
+     * @param player The AI player to move.
+     * @param board The board, which must not change until the future completes.
+     * @param players The players, in the order of their turns.
+     * @param moves The legal moves of the player.
+     * @param deadlineNanos When the move is due, see <code>System.nanoTime()</code>.
+     * @param seed The seed of the random generator of the search, <code>null</code> for the global one.
+     * @return The future move, completed on a pool thread.
+     */
+    public CompletableFuture<Move> submit(String modUUID, Player player, Board<Slot> board, Player[] players,
+                                          Move[] moves, long deadlineNanos, Long seed) {
+        CompletableFuture<Move> future = new CompletableFuture<>();
+        this.queue.add(new Request(modUUID, player, board, players, moves, deadlineNanos, seed,
+                this.nextSequence.getAndIncrement(), System.nanoTime(), future));
+        this.pool.execute(this::searchNext);
+        return future;
+    }
+
+    /**
+     * Helper function to search the most urgent request, on a pool thread.
+     */
+    protected void searchNext() {
+        Request request = this.queue.poll();
+        if (request == null) {
+            return;
+        }
+        this.waits.record(System.nanoTime() - request.submittedNanos());
+        TranspositionTable<?> previous = TranspositionTable.bind(this.getTable(request.modUUID()));
+        if (request.seed() != null) {
+            StdRandom.bind(request.seed());
+        }
+        try {
+            Move move = request.player().getMove(request.board(), request.players(), request.moves());
+            request.future().complete(move);
+        } catch (RuntimeException e) {
+            request.future().completeExceptionally(e);
+        } finally {
+            if (request.seed() != null) {
+                StdRandom.unbind();
+            }
+            TranspositionTable.bind(previous);
+            this.completed.increment();
+        }
+    }
+
+    /**
+     * @param modUUID The UUID of the mod.
+     * @return The transposition table of the mod, created empty if needed.
+     */
+    public TranspositionTable<?> getTable(String modUUID) {
+        return this.tables.computeIfAbsent(modUUID, key -> new TranspositionTable<>(this.tableCapacity));
+    }
+
+    /**
+     * @return The number of requests waiting for a thread.
+     */
+    public int getQueueDepth() {
+        return this.queue.size();
+    }
+
+    /**
+     * @return The times the requests have waited for a thread.
+     */
+    public LatencyHistogram.Snapshot getWaitTimes() {
+        return this.waits.snapshot();
+    }
+
+    /**
+     * @return The number of moves searched.
+     */
+    public long getCompleted() {
+        return this.completed.sum();
+    }
+
+    /**
+     * Stop the threads, after the queued requests.
+     */
+    public void close() {
+        this.pool.shutdown();
+    }
+}
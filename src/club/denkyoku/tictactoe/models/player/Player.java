@@ -2,6 +2,9 @@ package club.denkyoku.tictactoe.models.player;
 
 import club.denkyoku.tictactoe.models.board.Board;
 import club.denkyoku.tictactoe.models.board.Slot;
+import club.denkyoku.tictactoe.services.profiling.AllocationProfiler;
+import club.denkyoku.tictactoe.services.profiling.MetricsRegistry;
+import club.denkyoku.tictactoe.services.profiling.SearchEvent;
 
 
 public abstract class Player {
@@ -11,6 +14,12 @@ public abstract class Player {
     public int wins;
     public int losses;
     public int ties;
+    // The losses on time, counted in the losses too.
+    public int timeLosses;
+    // The statistics of the last move search, if the player searches.
+    protected SearchStatistics lastSearchStatistics;
+    // The name of the profiled section of the searches, made once, see AllocationProfiler.
+    protected final String searchSection = "search." + this.getClass().getSimpleName();
 
     public Player() {
         this.symbol = '○';
@@ -38,6 +47,26 @@ public abstract class Player {
         return this.isHuman;
     }
 
+    /**
+     * Get the identity of the player in the game records and ratings.
+     * <br/>
+     * A human player is identified by the name, an AI player should be
+     * identified by its strength, so that every AI level is rated.
+     * @return The identity of the player.
+     */
+    public String getIdentity() {
+        return this.name;
+    }
+
+    /**
+     * Get the statistics of the last <code>getMove()</code> search.
+     * @return The statistics, or <code>null</code> if the player
+     *         has not searched a move.
+     */
+    public SearchStatistics getLastSearchStatistics() {
+        return this.lastSearchStatistics;
+    }
+
     /**
      * Function, given a board, let the player decide which position to take.
      * If <code>isHuman = true</code>, Game can ignore calling this function.
@@ -50,4 +79,58 @@ public abstract class Player {
      */
     public abstract <T extends Slot> Move getMove(Board<T> board, Player[] playerLists, Move[] availableMoves);
 
+    /**
+     * A move search of an AI player, see <code>measureSearch()</code>.
+     */
+    protected interface Search {
+        /**
+         * @param statistics The statistics of the search, which it counts its nodes in,
+         *                   and finishes with the depth completed.
+         * @return The move.
+         */
+        Move run(SearchStatistics statistics);
+    }
+
+    /**
+     * Helper function to run a move search, and measure it: its statistics,
+     * kept as the last ones, its JFR event, its latency and its allocations.
+     * @param metric The name of the latency histogram, e.g. <code>ai.move.reversi[smart=0.9]</code>,
+     *               made once by the player.
+     * @param search The search.
+     * @return The move.
+     */
+    protected Move measureSearch(String metric, Search search) {
+        long allocated = AllocationProfiler.begin();
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        SearchStatistics statistics = new SearchStatistics();
+        this.lastSearchStatistics = statistics;
+        statistics.begin();
+        statistics.countNode();
+        Move move = search.run(statistics);
+        commitSearchEvent(event, this, move, statistics);
+        MetricsRegistry.histogram(metric).record(statistics.getElapsedNanos());
+        AllocationProfiler.end(this.searchSection, allocated);
+        return move;
+    }
+
+    /**
+     * Helper function to end the JFR event of a move search.
+     * @param event The event, which has begun before the search.
+     * @param player The player who has searched.
+     * @param move The result of the search.
+     * @param statistics The statistics of the search.
+     */
+    protected static void commitSearchEvent(SearchEvent event, Player player, Move move, SearchStatistics statistics) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = player.getName();
+            event.moveX = move.x;
+            event.moveY = move.y;
+            event.nodes = statistics.getNodes();
+            event.depth = statistics.getDepthCompleted();
+            event.commit();
+        }
+    }
+
 }
@@ -6,11 +6,15 @@ import club.denkyoku.tictactoe.models.board.Slot;
 import club.denkyoku.tictactoe.models.gameplay.ReversiGamePlay;
 
 import java.util.ArrayList;
+import java.util.Locale;
+import java.util.SplittableRandom;
 
 
 public class ReversiPlayer extends Player {
     protected double smart_prob;
     protected int depth;
+    // The name of the latency histogram of the searches, made once.
+    protected final String moveMetric;
 
     /**
      * There is no very strict distinction between AIPlayer and HumanPlayer.
@@ -32,12 +36,29 @@ public class ReversiPlayer extends Player {
         this.name = name;
         this.symbol = symbol;
         this.smart_prob = smart_prob;
+        this.moveMetric = String.format(Locale.ROOT, "ai.move.reversi[smart=%.1f]", smart_prob);
         if (depth % 2 != 0 || depth < 0) {
             throw new IllegalArgumentException("Depth must be a positive even number.");
         }
         this.depth = depth;
     }
 
+    public double getSmartProb() {
+        return this.smart_prob;
+    }
+
+    public int getDepth() {
+        return this.depth;
+    }
+
+    @Override
+    public String getIdentity() {
+        if (this.isHuman) {
+            return this.name;
+        }
+        return String.format(Locale.ROOT, "Reversi AI (smart %.1f, depth %d)", this.smart_prob, this.depth);
+    }
+
     @Override
     public <T extends Slot> Move getMove(Board<T> board, Player[] playerLists, Move[] availableMoves) {
         ReversiPlayer opponent = null;
@@ -50,12 +71,33 @@ public class ReversiPlayer extends Player {
             throw new IllegalArgumentException("No opponent found.");
         }
 
-        if (StdRandom.bernoulli(smart_prob)) {
-            var myMove = minimax(4, (Board<Slot>) board, availableMoves, this, opponent);
-            return myMove.getMove();
-        } else {
+        ReversiPlayer rival = opponent;
+        return this.measureSearch(this.moveMetric, statistics -> {
+            if (StdRandom.bernoulli(smart_prob)) {
+                var myMove = minimax(4, (Board<Slot>) board, availableMoves, this, rival, statistics);
+                statistics.finish(4);
+                return myMove.getMove();
+            }
+            statistics.finish(0);
             return availableMoves[StdRandom.uniform(availableMoves.length)];
+        });
+    }
+
+    /**
+     * Search a move only 2 plies deep, which takes microseconds,
+     * e.g. when the full search is not available in time.
+     * @param board The board.
+     * @param playerLists The players, including this one.
+     * @param availableMoves The legal moves of this player.
+     * @return The move.
+     */
+    public Move getShallowMove(Board<Slot> board, Player[] playerLists, Move[] availableMoves) {
+        for (Player player : playerLists) {
+            if (player != this && player instanceof ReversiPlayer opponent) {
+                return minimax(2, board, availableMoves, this, opponent).getMove();
+            }
         }
+        throw new IllegalArgumentException("No opponent found.");
     }
 
     protected static record ScoredMove(int moveValue, Move move) {
@@ -79,6 +121,45 @@ public class ReversiPlayer extends Player {
             {99, -8, 8, 6, 6, 8, -8,99}
     };
 
+    // The random keys of the pieces of the player to move (0) and of its opponent (1)
+    // on each slot, whose xor is the hash of a position, with a fixed seed,
+    // so the hashes are the same in every process.
+    protected static final long[][] zobristKeys = new long[2][64];
+    // The keys of the depths of the searches.
+    protected static final long[] zobristDepths = new long[16];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_0F_2E7E25L);
+        for (long[] keys : zobristKeys) {
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextLong();
+            }
+        }
+        for (int i = 0; i < zobristDepths.length; i++) {
+            zobristDepths[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Compute the hash of a position and a search depth, for the transposition table.
+     * @param board the board
+     * @param self the player to move
+     * @param depth the depth of the search
+     * @return the hash
+     */
+    protected static long hash(Board<Slot> board, Player self, int depth) {
+        long hash = zobristDepths[depth & 15];
+        for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < 8; y++) {
+                Slot slot = board.at(x, y);
+                if (slot != null) {
+                    hash ^= zobristKeys[slot.getPlayer() == self ? 0 : 1][x * 8 + y];
+                }
+            }
+        }
+        return hash;
+    }
+
     /**
      * A precomputed value for each slot.
      * @param move the move to be evaluated
@@ -102,25 +183,37 @@ public class ReversiPlayer extends Player {
             Move[] lastAvailableMoves,
             ReversiPlayer self,
             ReversiPlayer opponent) {
+        return minimax(depth, lastBoard, lastAvailableMoves, self, opponent, new SearchStatistics());
+    }
 
+    /**
+     * performs minimax algorithm with depth, counting the visited nodes.
+     * The scores of the positions searched at depth 2 and more are shared in the
+     * transposition table bound to the thread, if any, see <code>TranspositionTable.bind()</code>.
+     * The move is picked among the best ones by every search, never shared.
+     * @param depth the depth of the minimax algorithm
+     * @param lastBoard the last board
+     * @param lastAvailableMoves the last available moves
+     * @param self the self player
+     * @param opponent the opponent player
+     * @param statistics the statistics of the search
+     * @return the value of the move and best move
+     */
+    protected static ScoredMove minimax(int depth,
+            Board<Slot> lastBoard,
+            Move[] lastAvailableMoves,
+            ReversiPlayer self,
+            ReversiPlayer opponent,
+            SearchStatistics statistics) {
         // initialize best move tracking variable
         int bestMoveValue = -999;
         ArrayList<Move> bestMoves = new ArrayList<>();
 
         for (Move move : lastAvailableMoves) {
-            int moveValue = evaluate_coordinate(move);
-            if (depth > 1) {
-                Board<Slot> newBoard = lastBoard.clone();
-                ReversiGamePlay.tryTurn(newBoard, move.x, move.y, self, opponent);
-                // opponent takes their most valuable move
-                Move [] newAvailableMoves = ReversiGamePlay.getAvailableMoves(newBoard, opponent, self);
-                if (newAvailableMoves.length > 0) {
-                    var oppValue = minimax(depth - 1, newBoard, newAvailableMoves, opponent, self);
-                    moveValue -= oppValue.getMoveValue();
-                }
-            }
-
+            statistics.countNode();
+            int moveValue = evaluate_move(depth, lastBoard, move, self, opponent, statistics);
             if (moveValue > bestMoveValue) {
+                bestMoveValue = moveValue;
                 bestMoves.clear();
             }
             if (moveValue >= bestMoveValue) {
@@ -130,4 +223,74 @@ public class ReversiPlayer extends Player {
         // pick a "best" move at random
         return new ScoredMove(bestMoveValue, bestMoves.get(StdRandom.uniform(bestMoves.size())));
     }
+
+    /**
+     * The value of the best move of a position, searched with depth,
+     * or found in the transposition table bound to the thread.
+     * @param depth the depth of the search
+     * @param lastBoard the board
+     * @param lastAvailableMoves the available moves, at least one
+     * @param self the player to move
+     * @param opponent the opponent player
+     * @param statistics the statistics of the search
+     * @return the value of the best move
+     */
+    protected static int score(int depth,
+            Board<Slot> lastBoard,
+            Move[] lastAvailableMoves,
+            ReversiPlayer self,
+            ReversiPlayer opponent,
+            SearchStatistics statistics) {
+        TranspositionTable<Integer> table = depth > 1 ? TranspositionTable.current(Integer.class) : null;
+        long key = 0;
+        if (table != null) {
+            key = hash(lastBoard, self, depth);
+            Integer cached = table.get(key);
+            statistics.countTranspositionProbe(cached != null);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        int bestMoveValue = -999;
+        for (Move move : lastAvailableMoves) {
+            statistics.countNode();
+            bestMoveValue = Math.max(bestMoveValue,
+                    evaluate_move(depth, lastBoard, move, self, opponent, statistics));
+        }
+        if (table != null) {
+            table.put(key, bestMoveValue);
+        }
+        return bestMoveValue;
+    }
+
+    /**
+     * The value of a move: the value of its slot, less the value
+     * of the best move of the opponent after it, with depth.
+     * @param depth the depth of the search
+     * @param lastBoard the board before the move
+     * @param move the move to be evaluated
+     * @param self the player to move
+     * @param opponent the opponent player
+     * @param statistics the statistics of the search
+     * @return the value of the move
+     */
+    protected static int evaluate_move(int depth,
+            Board<Slot> lastBoard,
+            Move move,
+            ReversiPlayer self,
+            ReversiPlayer opponent,
+            SearchStatistics statistics) {
+        int moveValue = evaluate_coordinate(move);
+        if (depth > 1) {
+            Board<Slot> newBoard = lastBoard.clone();
+            ReversiGamePlay.tryTurn(newBoard, move.x, move.y, self, opponent);
+            // opponent takes their most valuable move
+            Move [] newAvailableMoves = ReversiGamePlay.getAvailableMoves(newBoard, opponent, self);
+            if (newAvailableMoves.length > 0) {
+                moveValue -= score(depth - 1, newBoard, newAvailableMoves, opponent, self, statistics);
+            }
+        }
+        return moveValue;
+    }
 }
@@ -0,0 +1,132 @@
+package club.denkyoku.tictactoe.models.player;
+
+import java.util.Locale;
+
+
+/**
+ * The statistics of one move search of an AI player.
+ * <br/>
+ * Rates which the search did not measure (e.g. the transposition table
+ * hit rate, if the search has no transposition table) are <code>NaN</code>,
+ * and shown as <code>n/a</code>.
+ */
+public class SearchStatistics {
+    protected long nodes;
+    protected int depthCompleted;
+    protected long transpositionProbes;
+    protected long transpositionHits;
+    protected long startNanos;
+    protected long elapsedNanos;
+
+    /**
+     * Reset the statistics, and start timing a new search.
+     */
+    public void begin() {
+        this.nodes = 0;
+        this.depthCompleted = 0;
+        this.transpositionProbes = 0;
+        this.transpositionHits = 0;
+        this.elapsedNanos = 0;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Stop timing the search.
+     * @param depthCompleted The deepest fully searched depth.
+     */
+    public void finish(int depthCompleted) {
+        this.depthCompleted = depthCompleted;
+        this.elapsedNanos = System.nanoTime() - this.startNanos;
+    }
+
+    /**
+     * Count a visited node (position) of the search.
+     */
+    public void countNode() {
+        this.nodes++;
+    }
+
+    /**
+     * Count a lookup in the transposition table.
+     * @param hit Whether the position was found.
+     */
+    public void countTranspositionProbe(boolean hit) {
+        this.transpositionProbes++;
+        if (hit) {
+            this.transpositionHits++;
+        }
+    }
+
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    public int getDepthCompleted() {
+        return this.depthCompleted;
+    }
+
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * @return The visited nodes per second, <code>NaN</code> if no time elapsed.
+     */
+    public double getNodesPerSecond() {
+        return this.elapsedNanos == 0 ? Double.NaN : this.nodes * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * @return The transposition table hit rate (0 to 1),
+     *         <code>NaN</code> if the table was not used.
+     */
+    public double getTranspositionHitRate() {
+        return ratio(this.transpositionHits, this.transpositionProbes);
+    }
+
+    private static double ratio(long count, long total) {
+        return total == 0 ? Double.NaN : (double) count / total;
+    }
+
+    private static String percent(double rate) {
+        return Double.isNaN(rate) ? "n/a" : String.format(Locale.ROOT, "%.0f%%", rate * 100);
+    }
+
+    private static String jsonNumber(double value) {
+        return Double.isNaN(value) ? "null" : String.format(Locale.ROOT, "%.4f", value);
+    }
+
+    /**
+     * Format the statistics for one line of the game screen.
+     * @return e.g. <code>Nodes 1234 (56k/s)  Depth 4  TT n/a  22 ms</code>
+     */
+    public String toDisplayString() {
+        double nps = this.getNodesPerSecond();
+        String rate;
+        if (Double.isNaN(nps)) {
+            rate = "n/a";
+        } else if (nps >= 1e6) {
+            rate = String.format(Locale.ROOT, "%.1fM", nps / 1e6);
+        } else if (nps >= 1e3) {
+            rate = String.format(Locale.ROOT, "%.0fk", nps / 1e3);
+        } else {
+            rate = String.format(Locale.ROOT, "%.0f", nps);
+        }
+        return String.format(Locale.ROOT, "Nodes %d (%s/s)  Depth %d  TT %s  %d ms",
+                this.nodes, rate, this.depthCompleted,
+                percent(this.getTranspositionHitRate()),
+                this.elapsedNanos / 1_000_000);
+    }
+
+    /**
+     * Format the statistics as the fields of a JSON object.
+     * @return e.g. <code>"nodes":1234,"nodesPerSecond":...</code>
+     */
+    public String toJsonFields() {
+        return String.format(Locale.ROOT,
+                "\"nodes\":%d,\"nodesPerSecond\":%s,\"depth\":%d,\"ttHitRate\":%s,\"timeNanos\":%d",
+                this.nodes, jsonNumber(this.getNodesPerSecond()), this.depthCompleted,
+                jsonNumber(this.getTranspositionHitRate()),
+                this.elapsedNanos);
+    }
+}
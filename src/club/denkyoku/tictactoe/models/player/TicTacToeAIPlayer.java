@@ -4,17 +4,34 @@ import club.denkyoku.tictactoe.libraries.math.StdRandom;
 import club.denkyoku.tictactoe.models.board.Board;
 import club.denkyoku.tictactoe.models.board.Slot;
 
+import java.util.Locale;
 import java.util.concurrent.ThreadLocalRandom;
 
 
 public class TicTacToeAIPlayer extends Player {
     protected final double smart_prob;
+    // The name of the latency histogram of the searches, made once.
+    protected final String moveMetric;
 
     public TicTacToeAIPlayer(char symbol, double smart_prob) {
+        this("Computer", symbol, smart_prob);
+    }
+
+    public TicTacToeAIPlayer(String name, char symbol, double smart_prob) {
         super();
-        this.name = "Computer";
+        this.name = name;
         this.symbol = symbol;
         this.smart_prob = smart_prob;
+        this.moveMetric = String.format(Locale.ROOT, "ai.move.tictactoe[smart=%.1f]", smart_prob);
+    }
+
+    public double getSmartProb() {
+        return this.smart_prob;
+    }
+
+    @Override
+    public String getIdentity() {
+        return String.format(Locale.ROOT, "TicTacToe AI (smart %.1f)", this.smart_prob);
     }
 
     @Override
@@ -23,7 +40,11 @@ public class TicTacToeAIPlayer extends Player {
             throw new IllegalArgumentException("Board must be 3x3");
         }
 
-        return smartAI(board, playerLists);
+        return this.measureSearch(this.moveMetric, statistics -> {
+            Move move = smartAI(board, playerLists);
+            statistics.finish(1);
+            return move;
+        });
     }
 
     private <T extends Slot> Move smartAI(Board<T> board, Player[] playerLists) {
@@ -0,0 +1,113 @@
+package club.denkyoku.tictactoe.models.player;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A transposition table: the results of the searches of positions, by the hash
+ * of the position, shared by the searches of all the games of a mod.
+ * <br/>
+ * It has a fixed number of slots, and a result replaces the one in its slot,
+ * so it never grows. It is lock-free, and may be used by any number of threads.
+ * <br/>
+ * A table is bound to the thread of a search with <code>bind()</code>, like the
+ * random generator of a session, so the AI players use it without any change
+ * of <code>Player.getMove()</code>.
+ * @param <V> The type of the results.
+ */
+public class TranspositionTable<V> {
+    protected static final ThreadLocal<TranspositionTable<?>> bound = new ThreadLocal<>();
+
+    protected record Entry<V>(long key, V value) {
+    }
+
+    protected final AtomicReferenceArray<Entry<V>> entries;
+    protected final int mask;
+    protected final LongAdder probes = new LongAdder();
+    protected final LongAdder hits = new LongAdder();
+
+    /**
+     * Create an empty table.
+     * @param capacity The number of slots, rounded up to a power of 2.
+     */
+    public TranspositionTable(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.entries = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * @param key The hash of the position.
+     * @return The result of the position, or <code>null</code> if it's not in the table.
+     */
+    public V get(long key) {
+        this.probes.increment();
+        Entry<V> entry = this.entries.get(this.slotOf(key));
+        if (entry == null || entry.key() != key) {
+            return null;
+        }
+        this.hits.increment();
+        return entry.value();
+    }
+
+    /**
+     * @param key The hash of the position.
+     * @param value The result of the position.
+     */
+    public void put(long key, V value) {
+        this.entries.set(this.slotOf(key), new Entry<>(key, value));
+    }
+
+    public long getProbes() {
+        return this.probes.sum();
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return The share of the probes which have found a result.
+     */
+    public double getHitRate() {
+        long probes = this.getProbes();
+        return probes == 0 ? 0.0 : (double) this.getHits() / probes;
+    }
+
+    protected int slotOf(long key) {
+        return (int) (key ^ key >>> 32) & this.mask;
+    }
+
+    /**
+     * @return The table bound to the calling thread, or <code>null</code>.
+     */
+    public static TranspositionTable<?> current() {
+        return bound.get();
+    }
+
+    /**
+     * @param type The type of the results of the searches of the calling thread.
+     * @return The table bound to the calling thread, or <code>null</code>.
+     */
+    // the searches of a mod, which share the table, all store results of one type.
+    @SuppressWarnings("unchecked")
+    public static <V> TranspositionTable<V> current(Class<V> type) {
+        return (TranspositionTable<V>) bound.get();
+    }
+
+    /**
+     * Bind a table to the calling thread, for the searches it runs.
+     * @param table The table, <code>null</code> to unbind.
+     * @return The table bound before, to bind again after.
+     */
+    public static TranspositionTable<?> bind(TranspositionTable<?> table) {
+        TranspositionTable<?> previous = bound.get();
+        if (table == null) {
+            bound.remove();
+        } else {
+            bound.set(table);
+        }
+        return previous;
+    }
+}
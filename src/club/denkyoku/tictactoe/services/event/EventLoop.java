@@ -0,0 +1,207 @@
+package club.denkyoku.tictactoe.services.event;
+
+import club.denkyoku.tictactoe.services.output.terminal.Terminal;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+
+/**
+ * The event loop of a session, which runs all the events of a game
+ * on one thread, one at a time, so the game state needs no locks.
+ * <br/>
+ * The events come from any thread: the keys (see <code>InputPump</code>),
+ * the results of the AI searches (<code>whenDone()</code>), the timers
+ * (<code>schedule()</code>) or e.g. the network (<code>post()</code>).
+ * An event must not wait for anything but the user: a slow computation
+ * runs elsewhere, and hands its result back as an event.
+ * <br/>
+ * The screen is drawn by the renderer, at most once per tick: an event only
+ * requests a render, which is done when the queued events are all run, so
+ * a burst of events (e.g. a held key) draws one frame.
+ * <pre>
+ *     EventLoop loop = new EventLoop();
+ *     loop.setRenderer(this::printUI);
+ *     loop.post(this::beginTurn);
+ *     loop.run(); // until an event calls loop.stop()
+ * </pre>
+ */
+public class EventLoop {
+    // The shortest time between two renders, in milliseconds.
+    public static final int DEFAULT_TICK_MILLIS = 16;
+
+    // The timers of all the loops, which only post the events.
+    protected static final ScheduledExecutorService timers =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "event-loop-timers");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    protected final LinkedBlockingQueue<Runnable> events = new LinkedBlockingQueue<>();
+    protected final long tickNanos;
+    protected Runnable renderer;
+    protected boolean renderRequested;
+    protected long lastRenderNanos;
+    protected boolean running;
+    protected volatile Thread thread;
+    protected long eventCount;
+    protected long renderCount;
+
+    public EventLoop() {
+        this(DEFAULT_TICK_MILLIS);
+    }
+
+    /**
+     * @param tickMillis The shortest time between two renders, in milliseconds.
+     */
+    public EventLoop(int tickMillis) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+    }
+
+    /**
+     * Queue an event, from any thread.
+     * @param event The event.
+     */
+    public void post(Runnable event) {
+        this.events.add(event);
+    }
+
+    /**
+     * Queue an event after a delay, from any thread.
+     * @param event The event.
+     * @param delayMillis The delay, in milliseconds.
+     * @return The handle which can be used to cancel the timer.
+     */
+    public ScheduledFuture<?> schedule(Runnable event, long delayMillis) {
+        return timers.schedule(() -> this.post(event), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue an event repeatedly, from any thread.
+     * @param event The event.
+     * @param periodMillis The period, in milliseconds.
+     * @return The handle which can be used to cancel the timer.
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable event, long periodMillis) {
+        return timers.scheduleAtFixedRate(() -> this.post(event), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue an event when a computation completes, e.g. an AI search.
+     * @param future The computation.
+     * @param handler The event, called with the result or the error.
+     */
+    public <T> void whenDone(CompletableFuture<T> future, BiConsumer<T, Throwable> handler) {
+        future.whenComplete((result, error) -> this.post(() -> handler.accept(result, error)));
+    }
+
+    /**
+     * Set the function which draws the screen, called on the loop.
+     * @param renderer The renderer, <code>null</code> for none.
+     */
+    public void setRenderer(Runnable renderer) {
+        this.renderer = renderer;
+        this.renderRequested = false;
+    }
+
+    /**
+     * Draw the screen once the queued events are run, on the loop.
+     */
+    public void requestRender() {
+        this.renderRequested = true;
+    }
+
+    /**
+     * Draw the requested render now, on the loop,
+     * e.g. before showing a dialog over the screen.
+     */
+    public void flushRender() {
+        if (this.renderRequested) {
+            this.render();
+        }
+    }
+
+    /**
+     * Run the events on the calling thread, until <code>stop()</code>.
+     * The events left are dropped. An exception of an event stops the loop,
+     * and is thrown.
+     */
+    public void run() {
+        this.thread = Thread.currentThread();
+        this.running = true;
+        // the events run on the terminal of the session, whichever thread posted them.
+        Terminal terminal = Terminal.current();
+        try {
+            while (this.running) {
+                Runnable event;
+                if (this.renderRequested) {
+                    long wait = this.lastRenderNanos + this.tickNanos - System.nanoTime();
+                    if (wait <= 0) {
+                        this.render();
+                        continue;
+                    }
+                    event = this.events.poll(wait, TimeUnit.NANOSECONDS);
+                } else {
+                    event = this.events.take();
+                }
+                // run all the events queued, before the render.
+                while (event != null && this.running) {
+                    event.run();
+                    this.eventCount++;
+                    event = this.events.poll();
+                }
+            }
+            this.flushRender();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.running = false;
+            this.thread = null;
+            this.events.clear();
+            Terminal.bind(terminal);
+        }
+    }
+
+    /**
+     * Stop <code>run()</code> after the current event, on the loop.
+     */
+    public void stop() {
+        this.running = false;
+    }
+
+    /**
+     * @return Whether the calling thread is running the loop.
+     */
+    public boolean inLoop() {
+        return this.thread == Thread.currentThread();
+    }
+
+    /**
+     * @return The number of events run.
+     */
+    public long getEventCount() {
+        return this.eventCount;
+    }
+
+    /**
+     * @return The number of renders, which may be far fewer than the requests.
+     */
+    public long getRenderCount() {
+        return this.renderCount;
+    }
+
+    protected void render() {
+        this.renderRequested = false;
+        this.lastRenderNanos = System.nanoTime();
+        if (this.renderer != null) {
+            this.renderer.run();
+            this.renderCount++;
+        }
+    }
+}
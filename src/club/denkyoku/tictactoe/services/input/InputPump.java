@@ -0,0 +1,88 @@
+package club.denkyoku.tictactoe.services.input;
+
+import club.denkyoku.tictactoe.services.event.EventLoop;
+import club.denkyoku.tictactoe.services.output.terminal.Terminal;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+
+/**
+ * The reader of the keys of a terminal for an <code>EventLoop</code>.
+ * <br/>
+ * A key is read only when the loop asks for one, by <code>request()</code>,
+ * on a thread of the pump, and its callback runs on the loop. So the loop never
+ * waits for the user, and between the requests it may read the keys directly,
+ * e.g. by a <code>MessageDialog</code>.
+ * <br/>
+ * A closed remote terminal ends its session as usual: the
+ * <code>UncheckedIOException</code> of the read is thrown on the loop.
+ */
+public class InputPump {
+    protected final EventLoop loop;
+    protected final Terminal terminal;
+    protected final LinkedBlockingQueue<Runnable> requests = new LinkedBlockingQueue<>();
+    protected Thread thread;
+    protected volatile boolean closed;
+
+    /**
+     * Create a pump, whose thread is started by the first request.
+     * @param loop The loop which runs the callbacks.
+     * @param terminal The terminal whose keys are read.
+     */
+    public InputPump(EventLoop loop, Terminal terminal) {
+        this.loop = loop;
+        this.terminal = terminal;
+    }
+
+    /**
+     * Read one key, then run the callback on the loop.
+     * @param handler The handler of the key, run on the thread of the pump.
+     * @param onKey The callback, run on the loop once the handler has run.
+     */
+    public synchronized void request(KeyHandler handler, Runnable onKey) {
+        if (this.closed) {
+            return;
+        }
+        if (this.thread == null) {
+            this.thread = new Thread(this::pump, "input-pump");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+        this.requests.add(() -> {
+            try {
+                handler.run();
+            } catch (UncheckedIOException e) {
+                this.loop.post(() -> {
+                    throw e;
+                });
+                return;
+            }
+            this.loop.post(onKey);
+        });
+    }
+
+    /**
+     * Helper function to run the requests, on the thread of the pump.
+     */
+    protected void pump() {
+        Terminal.bind(this.terminal);
+        try {
+            while (!this.closed) {
+                this.requests.take().run();
+            }
+        } catch (InterruptedException e) {
+            // closed.
+        }
+    }
+
+    /**
+     * Stop the thread of the pump. A key being read is dropped.
+     */
+    public synchronized void close() {
+        this.closed = true;
+        if (this.thread != null) {
+            this.thread.interrupt();
+        }
+    }
+}
@@ -3,18 +3,30 @@ package club.denkyoku.tictactoe.services.input;
 import club.denkyoku.tictactoe.libraries.os.RawConsoleInput;
 import club.denkyoku.tictactoe.libraries.os.SttyHelper;
 import club.denkyoku.tictactoe.services.debug.DebugHelper;
+import club.denkyoku.tictactoe.services.output.terminal.Terminal;
 
-import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 
 
 public abstract class KeyHandler {
-    // The character array used for reading stream.
-    public static final char[] bufferUnix = new char[10];
-    // the buffer reader used on Linux and Mac
-    public static final BufferedReader brUnix = new BufferedReader(new InputStreamReader(System.in));
+    /**
+     * Let the next pressed key run the hook, instead of its usual callback.
+     * It's useful e.g. for dismissing a message with any key.
+     * @param hook The hook to run once.
+     */
+    public static void setKeyPressHook(Runnable hook) {
+        Terminal.current().setKeyPressHook(hook);
+    }
+
+    /**
+     * Remove the hook set by <code>setKeyPressHook()</code>.
+     */
+    public static void clearKeyPressHook() {
+        Terminal.current().setKeyPressHook(null);
+    }
 
     /**
      * The raw function for reading a key from
@@ -33,13 +45,43 @@ public abstract class KeyHandler {
 
     /**
      * The raw function for reading a key from
-     * the console on Unix (Mac)/Linux.
+     * the console on Unix (Mac)/Linux, or a remote terminal.
+     * @throws UncheckedIOException If a remote terminal is closed.
      */
-    private void rawReadKeyBuffer() {
-        Arrays.fill(KeyHandler.bufferUnix, '\0');
+    private void rawReadKeyBuffer(Terminal terminal) {
+        char[] buffer = terminal.getKeyBuffer();
+        Arrays.fill(buffer, '\0');
+        int count;
         try {
-            brUnix.read(KeyHandler.bufferUnix);
+            count = terminal.getInput().read(buffer);
+        } catch (IOException e) {
+            count = -1;
+        }
+        if (count < 0 && !terminal.isConsole()) {
+            // a remote terminal has disconnected, which ends its session.
+            throw new UncheckedIOException(new EOFException("The terminal is closed."));
+        }
+    }
+
+    /**
+     * Check if the user has pressed any key, without waiting.
+     * The pressed key is consumed.
+     * <br/>
+     * On Unix (Mac)/Linux, this relies on the console buffering
+     * by character, which is set by the first <code>run()</code>.
+     * @return <code>true</code> if a key was pressed.
+     */
+    public static boolean pollKeyPressed() {
+        Terminal terminal = Terminal.current();
+        try {
+            if (terminal.usesWindowsConsole()) {
+                return RawConsoleInput.read(false) >= 0;
+            } else if (terminal.getInput().ready()) {
+                terminal.getInput().read(terminal.getKeyBuffer());
+                return true;
+            }
         } catch (IOException e) {}
+        return false;
     }
 
     /**
@@ -48,8 +90,13 @@ public abstract class KeyHandler {
      * it will automatically call the corresponding callback.
      */
     public final void run() {
-        if (RawConsoleInput.getIsWindows()) {
+        Terminal terminal = Terminal.current();
+        if (terminal.usesWindowsConsole()) {
             int key = this.rawGetKeyWindows(true);
+            terminal.getKeyToScreen().keyPressed(key);
+            if (terminal.runKeyPressHook()) {
+                return;
+            }
 
             if (key == 57416)
                 this.onKeyUp();
@@ -108,14 +155,20 @@ public abstract class KeyHandler {
             else
                 System.out.println(key);
         } else {
-            // begin the unix raw input mode
-            SttyHelper.disableEcho();
-            SttyHelper.bufferByCharacter();
+            if (terminal.isConsole()) {
+                // begin the unix raw input mode
+                SttyHelper.disableEcho();
+                SttyHelper.bufferByCharacter();
+            }
 
             // make call to read key stream
-            this.rawReadKeyBuffer();
+            this.rawReadKeyBuffer(terminal);
+            terminal.getKeyToScreen().keyPressed(terminal.getKeyBuffer());
+            if (terminal.runKeyPressHook()) {
+                return;
+            }
 
-            var bf = KeyHandler.bufferUnix;
+            var bf = terminal.getKeyBuffer();
             if (bf[0] == 27 && bf[1] == 91 && bf[2] == 65 && bf[3] == 0)
                 this.onKeyUp();
             else if (bf[0] == 27 && bf[1] == 91 && bf[2] == 66 && bf[3] == 0)
@@ -207,6 +260,9 @@ public abstract class KeyHandler {
      * Exit the Raw key input status.
      */
     public void exitInput() {
+        if (!Terminal.current().isConsole()) {
+            return;
+        }
         try {
             RawConsoleInput.resetConsoleMode();
 
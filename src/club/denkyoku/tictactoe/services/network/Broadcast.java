@@ -0,0 +1,98 @@
+package club.denkyoku.tictactoe.services.network;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+
+/**
+ * A fan-out of frames to many connections, e.g. the spectators of a game.
+ * <br/>
+ * A frame is encoded once into a read-only buffer, and queued on every
+ * connection by <code>Connection.sendFrame()</code> without being copied.
+ * A slow connection, whose queue is full, is never waited for: its queued
+ * frames are dropped, and replaced by one keyframe, the whole current state,
+ * which is encoded at most once per frame, only if a connection needs it.
+ * <br/>
+ * Like the connections, it must only be used on the selector thread.
+ */
+public class Broadcast {
+    protected final List<LineServer.Connection> connections = new ArrayList<>();
+    protected long framesSent;
+    protected long framesDropped;
+
+    /**
+     * Encode a line into a frame, which can be shared by any number of connections.
+     * @param line The line, without the line ending.
+     * @return The read-only frame.
+     */
+    public static ByteBuffer encode(String line) {
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    /**
+     * Add a connection, and send it the current state.
+     * @param connection The connection.
+     * @param keyframe The whole current state.
+     */
+    public void add(LineServer.Connection connection, ByteBuffer keyframe) {
+        this.connections.add(connection);
+        connection.sendFrame(keyframe);
+    }
+
+    public void remove(LineServer.Connection connection) {
+        this.connections.remove(connection);
+    }
+
+    /**
+     * @return The connections, in the order they were added.
+     */
+    public List<LineServer.Connection> getConnections() {
+        return this.connections;
+    }
+
+    public int size() {
+        return this.connections.size();
+    }
+
+    /**
+     * Send a frame to every connection. A connection which cannot take it
+     * gets the keyframe instead of all its queued frames.
+     * @param frame The frame, e.g. the changes of one move.
+     * @param keyframe The supplier of the whole state after the frame,
+     *                 called at most once. If the frame must not be lost
+     *                 (e.g. the end of the game), it should be included.
+     */
+    public void publish(ByteBuffer frame, Supplier<ByteBuffer> keyframe) {
+        ByteBuffer coalesced = null;
+        for (int i = 0; i < this.connections.size(); i++) {
+            LineServer.Connection connection = this.connections.get(i);
+            if (connection.sendFrame(frame)) {
+                this.framesSent++;
+                continue;
+            }
+            if (connection.isClosed()) {
+                continue;
+            }
+            if (coalesced == null) {
+                coalesced = keyframe.get();
+            }
+            this.framesDropped += connection.dropFrames();
+            connection.sendFrame(coalesced);
+        }
+    }
+
+    public long getFramesSent() {
+        return this.framesSent;
+    }
+
+    /**
+     * @return The frames dropped for slow connections, replaced by keyframes.
+     */
+    public long getFramesDropped() {
+        return this.framesDropped;
+    }
+}
@@ -0,0 +1,578 @@
+package club.denkyoku.tictactoe.services.network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * A non-blocking line protocol endpoint on one NIO <code>Selector</code>.
+ * <br/>
+ * Every connection, accepted by <code>listen()</code> or opened by
+ * <code>connect()</code>, exchanges UTF-8 lines ending with <code>'\n'</code>.
+ * The handler is called on the selector thread (the thread of <code>run()</code>),
+ * so it needs no locks, but must never block.
+ * <br/>
+ * <code>Connection.send()</code> only appends to the output buffer of the
+ * connection. The buffers are written after all the ready keys are handled,
+ * so the lines sent to a connection in one round take one write.
+ * <br/>
+ * <code>Connection.sendFrame()</code> queues a shared, read-only buffer instead,
+ * which is written by a gathering write without being copied, so one encoded frame
+ * can be sent to many connections. The lines are written before the frames.
+ * <br/>
+ * Other threads must not touch the connections, they hand their work to the
+ * selector thread by <code>execute()</code> instead. With a tick interval,
+ * <code>Handler.onTick()</code> is called periodically on the selector thread too.
+ * <br/>
+ * A <code>RuntimeException</code> never stops the selector: one thrown by the handler
+ * for a connection closes that connection, and one thrown by a task or a tick is dropped,
+ * so the other connections go on.
+ * <pre>
+ *     LineServer server = new LineServer(handler);
+ *     int port = server.listen(new InetSocketAddress(7460));
+ *     server.run();
+ * </pre>
+ */
+public class LineServer implements Runnable {
+    // The longest accepted line, a longer one closes the connection.
+    public static final int MAX_LINE = 512;
+    // The most bytes of shared frames queued on a connection, see Connection.sendFrame().
+    public static final int MAX_PENDING_FRAMES = 64 * 1024;
+    protected static final int BACKLOG = 4096;
+
+    /**
+     * The callbacks of the connections, called on the selector thread.
+     */
+    public interface Handler {
+        /**
+         * Called when a connection is accepted or connected.
+         * @param connection The connection.
+         */
+        void onOpen(Connection connection);
+
+        /**
+         * Called for every line received.
+         * @param connection The connection.
+         * @param line The line, without the line ending.
+         */
+        void onLine(Connection connection, String line);
+
+        /**
+         * Called once when a connection is closed, by either side.
+         * @param connection The connection.
+         */
+        void onClose(Connection connection);
+
+        /**
+         * Called every tick interval, see <code>setTickInterval()</code>.
+         */
+        default void onTick() {
+        }
+    }
+
+    /**
+     * One connection of the endpoint.
+     */
+    public static class Connection {
+        protected final LineServer server;
+        protected final SocketChannel channel;
+        protected final ByteBuffer input = ByteBuffer.allocate(MAX_LINE);
+        protected ByteBuffer output;
+        // The shared frames to write after the output, and their remaining bytes.
+        protected ArrayDeque<ByteBuffer> frames;
+        protected int frameBytes;
+        protected SelectionKey key;
+        protected boolean dirty;
+        protected boolean opened;
+        protected boolean closed;
+        // The state of the handler for this connection.
+        protected Object attachment;
+
+        protected Connection(LineServer server, SocketChannel channel) {
+            this.server = server;
+            this.channel = channel;
+        }
+
+        public Object getAttachment() {
+            return this.attachment;
+        }
+
+        public void setAttachment(Object attachment) {
+            this.attachment = attachment;
+        }
+
+        public boolean isClosed() {
+            return this.closed;
+        }
+
+        /**
+         * Queue a line, which is written at the end of this round of the selector.
+         * @param line The line, without the line ending.
+         */
+        public void send(String line) {
+            if (this.closed) {
+                return;
+            }
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            int needed = bytes.length + 1;
+            if (this.output == null) {
+                this.output = ByteBuffer.allocate(Math.max(256, needed));
+            } else if (this.output.remaining() < needed) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(this.output.capacity() * 2,
+                        this.output.position() + needed));
+                this.output.flip();
+                grown.put(this.output);
+                this.output = grown;
+            }
+            this.output.put(bytes).put((byte) '\n');
+            if (!this.dirty) {
+                this.dirty = true;
+                this.server.dirty.add(this);
+            }
+        }
+
+        /**
+         * Queue a shared frame, which is written at the end of this round of the selector
+         * without being copied. The frame must not be changed afterwards.
+         * <br/>
+         * It's refused if the frames already queued on this connection (e.g. to a slow
+         * client) exceed <code>MAX_PENDING_FRAMES</code>, so the caller can drop or
+         * coalesce them, see <code>dropFrames()</code>.
+         * @param frame The frame, one or more whole lines.
+         * @return <code>false</code> if the frame is refused, or the connection is closed.
+         */
+        public boolean sendFrame(ByteBuffer frame) {
+            if (this.closed) {
+                return false;
+            }
+            if (this.frames == null) {
+                this.frames = new ArrayDeque<>();
+            }
+            if (this.frameBytes > 0 && this.frameBytes + frame.remaining() > MAX_PENDING_FRAMES) {
+                return false;
+            }
+            // a view of its own, the position of the shared frame is never moved.
+            this.frames.add(frame.duplicate());
+            this.frameBytes += frame.remaining();
+            if (!this.dirty) {
+                this.dirty = true;
+                this.server.dirty.add(this);
+            }
+            return true;
+        }
+
+        /**
+         * Drop the queued frames, but the one being written, whose rest is still sent
+         * so that the client never sees half a line.
+         * @return The number of frames dropped.
+         */
+        public int dropFrames() {
+            if (this.frames == null || this.frames.isEmpty()) {
+                return 0;
+            }
+            ByteBuffer head = this.frames.peekFirst();
+            boolean started = head.position() > 0;
+            int dropped = this.frames.size() - (started ? 1 : 0);
+            this.frames.clear();
+            this.frameBytes = 0;
+            if (started) {
+                this.frames.add(head);
+                this.frameBytes = head.remaining();
+            }
+            return dropped;
+        }
+
+        /**
+         * @return The bytes of the frames queued but not written yet.
+         */
+        public int getPendingFrameBytes() {
+            return this.frameBytes;
+        }
+
+        /**
+         * Close the connection. The queued lines are dropped.
+         */
+        public void close() {
+            this.server.close(this);
+        }
+
+        /**
+         * Helper function to write the output buffer, as much as the socket takes.
+         */
+        protected void flush() {
+            this.dirty = false;
+            if (this.closed) {
+                return;
+            }
+            boolean hasOutput = this.output != null && this.output.position() > 0;
+            if (!hasOutput && this.frameBytes == 0) {
+                return;
+            }
+            if (hasOutput) {
+                this.output.flip();
+            }
+            try {
+                if (this.frameBytes == 0) {
+                    this.channel.write(this.output);
+                } else {
+                    this.writeFrames(hasOutput);
+                }
+            } catch (IOException e) {
+                this.close();
+                return;
+            }
+            if (hasOutput) {
+                this.output.compact();
+            }
+            if (hasOutput && this.output.position() > 0 || this.frameBytes > 0) {
+                // the socket is full, write the rest when it is writable.
+                this.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            } else {
+                this.key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        /**
+         * Helper function to write the output and the frames in one gathering write,
+         * and dequeue the frames written.
+         */
+        protected void writeFrames(boolean hasOutput) throws IOException {
+            int offset = hasOutput ? 1 : 0;
+            ByteBuffer[] buffers = new ByteBuffer[offset + this.frames.size()];
+            if (hasOutput) {
+                buffers[0] = this.output;
+            }
+            int i = offset;
+            for (ByteBuffer frame : this.frames) {
+                buffers[i++] = frame;
+            }
+            long written = this.channel.write(buffers);
+            if (hasOutput) {
+                written -= this.output.position();
+            }
+            this.frameBytes -= (int) written;
+            while (!this.frames.isEmpty() && !this.frames.peekFirst().hasRemaining()) {
+                this.frames.pollFirst();
+            }
+        }
+    }
+
+    protected final Handler handler;
+    protected final Selector selector;
+    protected final List<Connection> dirty = new ArrayList<>();
+    // The work handed from other threads, run on the selector thread.
+    protected final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // The tick interval in nanoseconds, 0 for no tick.
+    protected long tickNanos;
+    protected long nextTick;
+    protected ServerSocketChannel serverChannel;
+    protected volatile boolean running;
+    protected int connectionCount;
+
+    /**
+     * Create an endpoint.
+     * @param handler The callbacks of the connections.
+     * @throws IOException If the selector cannot be opened.
+     */
+    public LineServer(Handler handler) throws IOException {
+        this.handler = handler;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Accept connections on an address. It should be called before <code>run()</code>.
+     * @param address The address, port 0 for any free port.
+     * @return The bound port.
+     * @throws IOException If the address cannot be bound.
+     */
+    public int listen(InetSocketAddress address) throws IOException {
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        this.serverChannel.bind(address, BACKLOG);
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+        return this.serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Open a connection to another endpoint, e.g. for a client.
+     * It should be called before <code>run()</code> or on the selector thread.
+     * <code>Handler.onOpen()</code> is called when it is connected.
+     * @param address The address of the endpoint.
+     * @return The connection.
+     * @throws IOException If the connection cannot be started.
+     */
+    public Connection connect(InetSocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Connection connection = new Connection(this, channel);
+        if (channel.connect(address)) {
+            this.register(connection, SelectionKey.OP_READ);
+            this.opened(connection);
+        } else {
+            this.register(connection, SelectionKey.OP_CONNECT);
+        }
+        return connection;
+    }
+
+    /**
+     * @return The number of open connections.
+     */
+    public int getConnectionCount() {
+        return this.connectionCount;
+    }
+
+    /**
+     * Call <code>Handler.onTick()</code> periodically.
+     * It should be called before <code>run()</code>.
+     * @param millis The interval in milliseconds, 0 for no tick.
+     */
+    public void setTickInterval(long millis) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+        this.nextTick = System.nanoTime() + this.tickNanos;
+    }
+
+    /**
+     * Run a task on the selector thread, from any thread,
+     * e.g. to send the result of a long computation.
+     * @param task The task, which may use the connections.
+     */
+    public void execute(Runnable task) {
+        this.tasks.add(task);
+        this.selector.wakeup();
+    }
+
+    /**
+     * Stop <code>run()</code>, from any thread.
+     */
+    public void stop() {
+        this.running = false;
+        this.selector.wakeup();
+    }
+
+    /**
+     * The selector loop, until <code>stop()</code>. Then all the connections are closed.
+     */
+    @Override
+    public void run() {
+        this.running = true;
+        try {
+            while (this.running) {
+                if (this.tickNanos > 0) {
+                    long wait = this.nextTick - System.nanoTime();
+                    if (wait > 0) {
+                        // 0 would block forever.
+                        this.selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait)));
+                    } else {
+                        this.selector.selectNow();
+                    }
+                } else {
+                    this.selector.select();
+                }
+                Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        this.accept();
+                    } else {
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isConnectable()) {
+                            this.finishConnect(connection);
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            this.read(connection);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.flush();
+                        }
+                    }
+                }
+                Runnable task;
+                while ((task = this.tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        // the task is dropped, it's up to it to clean up what it has touched.
+                    }
+                }
+                if (this.tickNanos > 0 && System.nanoTime() - this.nextTick >= 0) {
+                    this.nextTick = System.nanoTime() + this.tickNanos;
+                    try {
+                        this.handler.onTick();
+                    } catch (RuntimeException e) {
+                        // tried again at the next tick.
+                    }
+                }
+                // one write per connection per round.
+                for (int i = 0; i < this.dirty.size(); i++) {
+                    this.dirty.get(i).flush();
+                }
+                this.dirty.clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+        } finally {
+            for (SelectionKey key : this.selector.keys()) {
+                if (key.attachment() instanceof Connection connection) {
+                    this.close(connection);
+                }
+            }
+            try {
+                if (this.serverChannel != null) {
+                    this.serverChannel.close();
+                }
+                this.selector.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    protected void register(Connection connection, int ops) throws IOException {
+        connection.key = connection.channel.register(this.selector, ops, connection);
+    }
+
+    protected void accept() {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = this.serverChannel.accept();
+            } catch (IOException e) {
+                // e.g. out of file descriptors, the server goes on with the others.
+                return;
+            }
+            if (channel == null) {
+                return;
+            }
+            Connection connection = new Connection(this, channel);
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                this.register(connection, SelectionKey.OP_READ);
+            } catch (IOException e) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+                continue;
+            }
+            this.opened(connection);
+        }
+    }
+
+    protected void finishConnect(Connection connection) {
+        try {
+            if (!connection.channel.finishConnect()) {
+                return;
+            }
+        } catch (IOException e) {
+            connection.closed = true;
+            connection.key.cancel();
+            try {
+                connection.channel.close();
+            } catch (IOException ignored) {
+            }
+            this.closed(connection);
+            return;
+        }
+        connection.key.interestOps(SelectionKey.OP_READ);
+        this.opened(connection);
+    }
+
+    protected void opened(Connection connection) {
+        connection.opened = true;
+        this.connectionCount++;
+        try {
+            this.handler.onOpen(connection);
+        } catch (RuntimeException e) {
+            this.close(connection);
+        }
+    }
+
+    /**
+     * Helper function to read the available bytes, and handle the complete lines.
+     * @param connection The readable connection.
+     */
+    protected void read(Connection connection) {
+        ByteBuffer input = connection.input;
+        int count;
+        try {
+            count = connection.channel.read(input);
+        } catch (IOException e) {
+            count = -1;
+        }
+        if (count < 0) {
+            this.close(connection);
+            return;
+        }
+        byte[] bytes = input.array();
+        int start = 0;
+        for (int i = 0; i < input.position() && !connection.closed; i++) {
+            if (bytes[i] == '\n') {
+                int end = i > start && bytes[i - 1] == '\r' ? i - 1 : i;
+                try {
+                    this.handler.onLine(connection, new String(bytes, start, end - start, StandardCharsets.UTF_8));
+                } catch (RuntimeException e) {
+                    // a line the handler fails on closes its connection only.
+                    this.close(connection);
+                }
+                start = i + 1;
+            }
+        }
+        if (connection.closed) {
+            return;
+        }
+        input.flip().position(start);
+        input.compact();
+        if (!input.hasRemaining()) {
+            // a line longer than MAX_LINE.
+            this.close(connection);
+        }
+    }
+
+    protected void close(Connection connection) {
+        if (connection.closed) {
+            return;
+        }
+        connection.closed = true;
+        if (connection.key != null) {
+            connection.key.cancel();
+        }
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+        }
+        if (connection.opened) {
+            this.connectionCount--;
+        }
+        this.closed(connection);
+    }
+
+    /**
+     * Helper function to call <code>Handler.onClose()</code>, whose failure
+     * leaves the connection closed anyway.
+     */
+    protected void closed(Connection connection) {
+        try {
+            this.handler.onClose(connection);
+        } catch (RuntimeException e) {
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package club.denkyoku.tictactoe.services.network;
+
+import club.denkyoku.tictactoe.services.output.terminal.OutputChannel;
+import club.denkyoku.tictactoe.services.output.terminal.Terminal;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+
+/**
+ * A terminal on a telnet connection, e.g. <code>telnet host 2323</code>.
+ * <br/>
+ * It asks the client to send every key at once without echoing it
+ * (<code>WILL ECHO</code>, <code>WILL SUPPRESS-GO-AHEAD</code>), and to report
+ * its window size (<code>DO NAWS</code>), which becomes the console size.
+ * The telnet commands are removed from the input, which is split into one key
+ * per read, so <code>KeyHandler</code> decodes it like the keys of the console.
+ * The line endings of the output are sent as <code>CR LF</code>.
+ */
+public class TelnetTerminal extends Terminal {
+    protected static final int IAC = 255;
+    protected static final int DONT = 254;
+    protected static final int DO = 253;
+    protected static final int WONT = 252;
+    protected static final int WILL = 251;
+    protected static final int SB = 250;
+    protected static final int SE = 240;
+    protected static final int OPTION_ECHO = 1;
+    protected static final int OPTION_SUPPRESS_GO_AHEAD = 3;
+    protected static final int OPTION_NAWS = 31;
+
+    protected final Socket socket;
+    protected final TelnetReader reader;
+
+    /**
+     * Create the terminal of a connection, and start the negotiation.
+     * @param socket The connection.
+     * @throws IOException If the connection is broken.
+     */
+    public TelnetTerminal(Socket socket) throws IOException {
+        this(socket, new TelnetReader(socket));
+    }
+
+    private TelnetTerminal(Socket socket, TelnetReader reader) throws IOException {
+        super(reader, new OutputChannel(new TelnetChannel(socket.getOutputStream())));
+        this.socket = socket;
+        this.reader = reader;
+        reader.terminal = this;
+        OutputStream out = socket.getOutputStream();
+        out.write(new byte[]{
+                (byte) IAC, (byte) WILL, OPTION_ECHO,
+                (byte) IAC, (byte) WILL, OPTION_SUPPRESS_GO_AHEAD,
+                (byte) IAC, (byte) DO, OPTION_SUPPRESS_GO_AHEAD,
+                (byte) IAC, (byte) DO, OPTION_NAWS,
+        });
+        out.flush();
+    }
+
+    /**
+     * Wait for the window size of the client, which is reported soon after
+     * the negotiation if the client supports it. Else it stays 80x24.
+     * @param timeoutMillis The longest wait.
+     */
+    public void awaitWindowSize(int timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        try {
+            while (!this.reader.sizeReported) {
+                int left = (int) (deadline - System.currentTimeMillis());
+                if (left <= 0) {
+                    break;
+                }
+                this.socket.setSoTimeout(left);
+                if (!this.reader.decode()) {
+                    break;
+                }
+            }
+        } catch (SocketTimeoutException e) {
+        } catch (IOException e) {
+        } finally {
+            try {
+                this.socket.setSoTimeout(0);
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    /**
+     * Close the connection.
+     */
+    public void close() {
+        this.flush();
+        try {
+            this.socket.close();
+        } catch (IOException e) {
+        }
+    }
+
+    /**
+     * The key input of a telnet connection, one key per read.
+     */
+    protected static class TelnetReader extends Reader {
+        protected final InputStream in;
+        protected TelnetTerminal terminal;
+        // The decoded keys not read yet.
+        protected final char[] keys = new char[256];
+        protected int head;
+        protected int tail;
+        protected boolean sizeReported;
+        protected boolean closed;
+
+        protected TelnetReader(Socket socket) throws IOException {
+            this.in = new BufferedInputStream(socket.getInputStream());
+        }
+
+        /**
+         * Read one key: a character, or a whole escape sequence.
+         */
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            while (this.head == this.tail) {
+                if (!this.decode()) {
+                    return -1;
+                }
+            }
+            int end = this.head + 1;
+            if (this.keys[this.head] == 27) {
+                // the rest of an escape sequence may be in the next packet.
+                if (end == this.tail && this.in.available() > 0) {
+                    this.decode();
+                }
+                end = this.endOfSequence(this.head);
+            }
+            int count = Math.min(length, end - this.head);
+            System.arraycopy(this.keys, this.head, buffer, offset, count);
+            this.head += count;
+            return count;
+        }
+
+        /**
+         * Helper function to find the end of the escape sequence (or the single ESC) at a position.
+         */
+        protected int endOfSequence(int start) {
+            int i = start + 1;
+            if (i == this.tail) {
+                return i;
+            }
+            if (this.keys[i] == 'O') {
+                return Math.min(i + 2, this.tail);
+            }
+            if (this.keys[i] != '[') {
+                return i;
+            }
+            for (i++; i < this.tail; i++) {
+                if (this.keys[i] >= 0x40 && this.keys[i] <= 0x7E) {
+                    return i + 1;
+                }
+            }
+            return this.tail;
+        }
+
+        @Override
+        public boolean ready() throws IOException {
+            return this.head < this.tail || this.in.available() > 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.in.close();
+        }
+
+        /**
+         * Helper function to read some bytes, and decode them into keys.
+         * @return <code>false</code> if the connection is closed.
+         */
+        protected boolean decode() throws IOException {
+            if (this.closed) {
+                return false;
+            }
+            if (this.head == this.tail) {
+                this.head = this.tail = 0;
+            } else if (this.tail > this.keys.length - 16) {
+                System.arraycopy(this.keys, this.head, this.keys, 0, this.tail - this.head);
+                this.tail -= this.head;
+                this.head = 0;
+            }
+            int b = this.in.read();
+            if (b < 0) {
+                this.closed = true;
+                return false;
+            }
+            do {
+                this.decodeByte(b);
+            } while (this.in.available() > 0 && this.tail < this.keys.length - 16 && (b = this.in.read()) >= 0);
+            return true;
+        }
+
+        protected void decodeByte(int b) throws IOException {
+            switch (b) {
+                case IAC -> this.decodeCommand();
+                case '\r' -> {
+                    // CR LF or CR NUL is the Enter key, sent in one packet.
+                    if (this.in.available() > 0) {
+                        this.in.mark(1);
+                        int next = this.in.read();
+                        if (next != '\n' && next != 0) {
+                            this.in.reset();
+                        }
+                    }
+                    this.keys[this.tail++] = '\n';
+                }
+                case 0 -> { }
+                case 8 -> this.keys[this.tail++] = 127;
+                default -> this.keys[this.tail++] = (char) b;
+            }
+        }
+
+        /**
+         * Helper function to handle a telnet command, after its IAC.
+         */
+        protected void decodeCommand() throws IOException {
+            int command = this.in.read();
+            switch (command) {
+                case IAC -> this.keys[this.tail++] = (char) IAC;
+                case WILL, WONT, DO, DONT -> this.in.read();
+                case SB -> {
+                    int option = this.in.read();
+                    int[] data = new int[4];
+                    int count = 0;
+                    while (true) {
+                        int b = this.in.read();
+                        if (b < 0) {
+                            return;
+                        }
+                        if (b == IAC) {
+                            b = this.in.read();
+                            if (b == SE) {
+                                break;
+                            }
+                        }
+                        if (count < data.length) {
+                            data[count] = b;
+                        }
+                        count++;
+                    }
+                    if (option == OPTION_NAWS && count == 4 && this.terminal != null) {
+                        int width = data[0] << 8 | data[1];
+                        int height = data[2] << 8 | data[3];
+                        // 0 means unknown, which keeps 80x24.
+                        this.terminal.setConsoleSize(width, height);
+                        this.sizeReported = true;
+                    }
+                }
+                default -> { }
+            }
+        }
+    }
+
+    /**
+     * The screen output of a telnet connection, with <code>CR LF</code> line endings.
+     */
+    protected static class TelnetChannel implements WritableByteChannel {
+        protected final OutputStream out;
+        protected byte[] buffer = new byte[4096];
+        protected boolean open = true;
+
+        protected TelnetChannel(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int count = src.remaining();
+            if (this.buffer.length < count * 2) {
+                this.buffer = new byte[count * 2];
+            }
+            int length = 0;
+            while (src.hasRemaining()) {
+                byte b = src.get();
+                if (b == '\n') {
+                    this.buffer[length++] = '\r';
+                }
+                this.buffer[length++] = b;
+            }
+            this.out.write(this.buffer, 0, length);
+            this.out.flush();
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return this.open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.open = false;
+            this.out.close();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package club.denkyoku.tictactoe.services.output.animation;
+
+import club.denkyoku.tictactoe.services.input.KeyHandler;
+
+import java.util.concurrent.ScheduledFuture;
+
+
+/**
+ * Abstract class for a frame based animation.
+ * <br/>
+ * The frames are drawn by the <code>AnimationScheduler</code> with a fixed
+ * frame rate, so <code>start()</code> returns immediately. Before drawing
+ * anything else onto the screen, call <code>await()</code> (which the user
+ * can shorten with any key) or <code>skip()</code>.
+ */
+public abstract class Animation {
+    protected final int frameCount;
+    protected final int frameMillis;
+
+    private int currentFrame = 0;
+    private boolean finished = false;
+    private ScheduledFuture<?> future;
+    private Runnable then;
+
+    /**
+     * @param frameCount The number of frames to draw.
+     * @param frameMillis The duration of one frame, in milliseconds.
+     */
+    protected Animation(int frameCount, int frameMillis) {
+        this.frameCount = frameCount;
+        this.frameMillis = frameMillis;
+    }
+
+    /**
+     * Draw one frame of the animation.
+     * @param frame The index of the frame, starting from 0.
+     */
+    protected abstract void drawFrame(int frame);
+
+    /**
+     * Draw the final state of the animation.
+     * It's called exactly once, either when all the frames are drawn
+     * or when the animation is skipped.
+     */
+    protected abstract void drawFinal();
+
+    /**
+     * Begin playing the animation in the background.
+     */
+    public synchronized void start() {
+        if (this.frameCount <= 0) {
+            this.finish();
+            return;
+        }
+        this.future = AnimationScheduler.scheduleAtFixedRate(this::tick, this.frameMillis);
+    }
+
+    private synchronized void tick() {
+        if (this.finished) {
+            return;
+        }
+        if (this.currentFrame >= this.frameCount) {
+            this.finish();
+            return;
+        }
+        try {
+            this.drawFrame(this.currentFrame++);
+        } catch (RuntimeException e) {
+            // never leave the waiting game thread hanging.
+            this.finish();
+        }
+    }
+
+    private void finish() {
+        this.finished = true;
+        if (this.future != null) {
+            this.future.cancel(false);
+        }
+        try {
+            this.drawFinal();
+            if (this.then != null) {
+                this.then.run();
+            }
+        } finally {
+            this.notifyAll();
+        }
+    }
+
+    /**
+     * Run an action once the animation has ended, e.g. draw over it
+     * while the game thread is busy. <code>await()</code> returns after it.
+     * @param action The action, run at once if the animation has already ended.
+     */
+    public synchronized void whenFinished(Runnable action) {
+        if (this.finished) {
+            action.run();
+        } else {
+            this.then = action;
+        }
+    }
+
+    /**
+     * Stop the animation immediately, and draw its final state.
+     */
+    public synchronized void skip() {
+        if (!this.finished) {
+            this.finish();
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the animation has ended.
+     */
+    public synchronized boolean isFinished() {
+        return this.finished;
+    }
+
+    /**
+     * Wait until the animation ends.
+     * If the user presses any key meanwhile, the animation is skipped.
+     */
+    public void await() {
+        while (true) {
+            synchronized (this) {
+                if (this.finished) {
+                    return;
+                }
+            }
+            if (KeyHandler.pollKeyPressed()) {
+                this.skip();
+                return;
+            }
+            synchronized (this) {
+                if (!this.finished) {
+                    try {
+                        this.wait(this.frameMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        this.finish();
+                    }
+                }
+            }
+        }
+    }
+}
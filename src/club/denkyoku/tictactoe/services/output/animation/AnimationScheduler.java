@@ -0,0 +1,46 @@
+package club.denkyoku.tictactoe.services.output.animation;
+
+import club.denkyoku.tictactoe.services.output.terminal.Terminal;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The shared scheduler which drives every animation frame.
+ * <br/>
+ * All the frames are drawn on one single daemon thread, so the
+ * game thread is free to read keys or let the AI think meanwhile.
+ * <br/>
+ * A task draws on the terminal of the thread which scheduled it.
+ */
+public class AnimationScheduler {
+    private static final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "animation-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Run the task repeatedly with a fixed frame rate.
+     * @param task The task to run on every frame.
+     * @param frameMillis The duration of one frame, in milliseconds.
+     * @return The handle which can be used to cancel the task.
+     */
+    public static ScheduledFuture<?> scheduleAtFixedRate(Runnable task, int frameMillis) {
+        return executor.scheduleAtFixedRate(Terminal.wrap(task), 0, frameMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Run the task once after the given delay.
+     * @param task The task to run.
+     * @param delayMillis The delay, in milliseconds.
+     * @return The handle which can be used to cancel the task.
+     */
+    public static ScheduledFuture<?> schedule(Runnable task, int delayMillis) {
+        return executor.schedule(Terminal.wrap(task), delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -1,12 +1,16 @@
 package club.denkyoku.tictactoe.services.output.controls;
 
-import club.denkyoku.tictactoe.libraries.os.Time;
 import club.denkyoku.tictactoe.services.input.DataSync;
 import club.denkyoku.tictactoe.services.input.KeyHandler;
+import club.denkyoku.tictactoe.services.output.animation.Animation;
 import club.denkyoku.tictactoe.services.output.terminal.ConsoleHelper;
+import club.denkyoku.tictactoe.services.output.terminal.ScreenCompositor;
+import club.denkyoku.tictactoe.services.output.terminal.Terminal;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 
 public class MessageDialog {
@@ -51,9 +55,11 @@ public class MessageDialog {
         }
     }
 
-    protected static Button[] wait3 = { new Button("Disappear in 3s", '\0') };
-    protected static Button[] wait2 = { new Button("Disappear in 2s", '\0') };
-    protected static Button[] wait1 = { new Button("Disappear in 1s", '\0') };
+    // How long a timed message stays, in seconds.
+    // Without a console (headless or batch runs), it is not shown at all.
+    protected static int timedDialogSeconds = System.console() == null ? 0 : 3;
+    // The timed message which is currently shown, on each terminal.
+    protected static final Map<Terminal, TimedDialog> timedDialogs = new WeakHashMap<>();
 
     /**
      * Helper method to get the default OK and Cancel buttons.
@@ -126,10 +132,91 @@ public class MessageDialog {
 
     /**
      * Helper method to show a message that will disappear in 3 seconds.
+     * <br/>
+     * It returns immediately: the message stays over the screen while
+     * the caller goes on, and disappears when the time is up, when any
+     * key is pressed, or when another Message Dialog is shown.
      * @param message A list of strings, representing the message to show.
      */
     public static void show(String[] message) {
-        show(message, new Button[0], -1, -1);
+        dismissTimed();
+        if (timedDialogSeconds <= 0) {
+            return;
+        }
+        TimedDialog dialog = new TimedDialog(message, timedDialogSeconds);
+        synchronized (MessageDialog.class) {
+            timedDialogs.put(Terminal.current(), dialog);
+        }
+        KeyHandler.setKeyPressHook(dialog::skip);
+        dialog.start();
+    }
+
+    /**
+     * Set how long the timed messages stay.
+     * @param seconds The duration in seconds. If <code>0</code>,
+     *                the timed messages are skipped, e.g. in batch runs.
+     */
+    public static void setTimedDialogSeconds(int seconds) {
+        timedDialogSeconds = Math.max(0, seconds);
+    }
+
+    /**
+     * Remove the timed message immediately, if there is one.
+     */
+    public static void dismissTimed() {
+        TimedDialog dialog;
+        synchronized (MessageDialog.class) {
+            dialog = timedDialogs.remove(Terminal.current());
+        }
+        if (dialog != null) {
+            dialog.skip();
+        }
+    }
+
+    /**
+     * The timed message, counting down on the <code>AnimationScheduler</code>.
+     */
+    private static class TimedDialog extends Animation {
+        private final String[] message;
+        // the screen under the dialog, and the screen drawn with the dialog over it.
+        private String[] lastScreen;
+        private String[] drawnScreen;
+
+        public TimedDialog(String[] message, int seconds) {
+            super(seconds, 1000);
+            this.message = message;
+            this.lastScreen = ConsoleHelper.GetLastScreen();
+        }
+
+        /**
+         * Helper function to get the screen under the dialog,
+         * which the game may have redrawn since the dialog was drawn.
+         */
+        private String[] getScreenUnder() {
+            String[] current = ConsoleHelper.GetLastScreen();
+            if (current != this.drawnScreen) {
+                this.lastScreen = current;
+            }
+            return this.lastScreen;
+        }
+
+        @Override
+        protected void drawFrame(int frame) {
+            Button[] countdown = {
+                    new Button(String.format("Disappear in %ds", this.frameCount - frame), '\0')
+            };
+            printDialog(this.message, countdown, -1, this.getScreenUnder());
+            this.drawnScreen = ConsoleHelper.GetLastScreen();
+        }
+
+        @Override
+        protected void drawFinal() {
+            KeyHandler.clearKeyPressHook();
+            synchronized (MessageDialog.class) {
+                timedDialogs.remove(Terminal.current(), this);
+            }
+            closeDialog(this.getScreenUnder());
+        }
     }
 
     /**
@@ -205,8 +292,8 @@ public class MessageDialog {
      * @param buttons An array of <code>MessageDialog.Button</code>,
      *                representing the buttons to show.
      *                If the array is empty, then the Message Dialog
-     *                will display only 3 seconds, and then will
-     *                automatically exit.
+     *                will display only 3 seconds without blocking,
+     *                see <code>show(String[])</code>.
      * @param defaultButton The index of the default button.
      *                      The user can press the Enter key to select this button.
      *                      If <code>-1</code>, then there's no default button.
@@ -216,19 +303,21 @@ public class MessageDialog {
      * @return The index of the button pressed.
      */
     public static int show(String[] message, Button[] buttons, int defaultButton, int cancelButton) {
+        if (buttons.length == 0) {
+            show(message);
+            return -1;
+        }
+        dismissTimed();
+
         // If the button has an access key, index it once
         HashMap<Character, ArrayList<Integer>> accessKeyIndex = new HashMap<>();
-        boolean autoExitMode;
-        autoExitMode = buttons.length == 0;
-        if (!autoExitMode) {
-            for (int i = 0; i < buttons.length; i++) {
-                char key = buttons[i].getAccessKey();
-                if (key != '\0') {
-                    if (!accessKeyIndex.containsKey(key)) {
-                        accessKeyIndex.put(key, new ArrayList<>());
-                    }
-                    accessKeyIndex.get(key).add(i);
+        for (int i = 0; i < buttons.length; i++) {
+            char key = buttons[i].getAccessKey();
+            if (key != '\0') {
+                if (!accessKeyIndex.containsKey(key)) {
+                    accessKeyIndex.put(key, new ArrayList<>());
                 }
+                accessKeyIndex.get(key).add(i);
             }
         }
 
@@ -236,81 +325,85 @@ public class MessageDialog {
         int ret_value = -1;
         int currentButton = defaultButton;
 
-        // not the auto exit mode
-        if (!autoExitMode) {
-            ShowDataSync dataSync = new ShowDataSync();
-            // draw the first time
-            dataSync.redraw = true;
-            KeyHandler keyHandler = new ShowDialogKeyHandler(dataSync);
+        ShowDataSync dataSync = new ShowDataSync();
+        // draw the first time
+        dataSync.redraw = true;
+        KeyHandler keyHandler = new ShowDialogKeyHandler(dataSync);
 
-            while (dataSync.keepRun) {
-                if (dataSync.redraw) {
-                    printDialog(message, buttons, currentButton, lastScreen);
-                }
+        while (dataSync.keepRun) {
+            if (dataSync.redraw) {
+                printDialog(message, buttons, currentButton, lastScreen);
+            }
 
-                dataSync.reset();
-                keyHandler.run();
+            dataSync.reset();
+            keyHandler.run();
 
-                if (!dataSync.keepRun && cancelButton >= 0) {
-                    ret_value = cancelButton;
-                    break;
-                } else if (dataSync.doDecrement) {
-                    currentButton --;
-                    if (currentButton < 0) {
-                        currentButton = buttons.length - 1;
-                    }
-                    dataSync.redraw = true;
-                } else if (dataSync.doIncrement) {
-                    currentButton ++;
-                    if (currentButton >= buttons.length) {
-                        currentButton = 0;
-                    }
-                    dataSync.redraw = true;
-                } else if (dataSync.doExecute) {
-                    ret_value = currentButton;
-                    break;
-                } else if (dataSync.accessKey != '\0') {
-                    char key = dataSync.accessKey;
-
-                    if (accessKeyIndex.containsKey(key)) {
-                        ArrayList<Integer> indexList = accessKeyIndex.get(key);
-
-                        // There happens to be a button, we just click it
-                        if (indexList.size() == 1) {
-                            ret_value = indexList.get(0);
-                            break;
-                        } else if (indexList.size() > 1) {
-
-                            // If there are multiple buttons, we cycle through them
-                            if (indexList.contains(currentButton)) {
-                                int curIndex = indexList.indexOf(currentButton);
-                                curIndex ++;
-                                if (curIndex >= indexList.size()) {
-                                    curIndex = 0;
-                                }
-                                currentButton = indexList.get(curIndex);
-                            } else {
-                                currentButton = indexList.get(0);
+            if (!dataSync.keepRun && cancelButton >= 0) {
+                ret_value = cancelButton;
+                break;
+            } else if (dataSync.doDecrement) {
+                currentButton --;
+                if (currentButton < 0) {
+                    currentButton = buttons.length - 1;
+                }
+                dataSync.redraw = true;
+            } else if (dataSync.doIncrement) {
+                currentButton ++;
+                if (currentButton >= buttons.length) {
+                    currentButton = 0;
+                }
+                dataSync.redraw = true;
+            } else if (dataSync.doExecute) {
+                ret_value = currentButton;
+                break;
+            } else if (dataSync.accessKey != '\0') {
+                char key = dataSync.accessKey;
+
+                if (accessKeyIndex.containsKey(key)) {
+                    ArrayList<Integer> indexList = accessKeyIndex.get(key);
+
+                    // There happens to be a button, we just click it
+                    if (indexList.size() == 1) {
+                        ret_value = indexList.get(0);
+                        break;
+                    } else if (indexList.size() > 1) {
+
+                        // If there are multiple buttons, we cycle through them
+                        if (indexList.contains(currentButton)) {
+                            int curIndex = indexList.indexOf(currentButton);
+                            curIndex ++;
+                            if (curIndex >= indexList.size()) {
+                                curIndex = 0;
                             }
-                            dataSync.redraw = true;
+                            currentButton = indexList.get(curIndex);
+                        } else {
+                            currentButton = indexList.get(0);
                         }
+                        dataSync.redraw = true;
                     }
                 }
             }
-            keyHandler.exitInput();
-        } else {
-            printDialog(message, wait3, currentButton, lastScreen);
-            Time.waitMilliseconds(1000);
-            printDialog(message, wait2, currentButton, lastScreen);
-            Time.waitMilliseconds(1000);
-            printDialog(message, wait1, currentButton, lastScreen);
-            Time.waitMilliseconds(1000);
         }
+        keyHandler.exitInput();
 
-        ConsoleHelper.printScreen(lastScreen);
+        closeDialog(lastScreen);
         return ret_value;
     }
 
+    /**
+     * Functions for internal use
+     *
+     * Remove the Message Dialog from the terminal.
+     * @param lastScreen The last screen before the dialog was displayed.
+     */
+    protected static void closeDialog(String[] lastScreen) {
+        if (ConsoleHelper.supportsCursorAddressing()) {
+            ScreenCompositor.clearOverlay();
+        } else {
+            ConsoleHelper.printScreen(lastScreen);
+        }
+    }
+
     /**
      * Functions for internal use
      *
@@ -371,18 +464,8 @@ public class MessageDialog {
         int dialog_Y = Math.max(0, (width - neededWidth) / 2),
                 dialog_X = Math.max(0, (height - neededHeight) / 2);
 
-        // Get the previous screen first, then modify it.
-        ArrayList<String> newScreen = new ArrayList<>();
-        int lines = 0;
-        while (lines < dialog_X) {
-            if (lastScreen.length <= lines)
-                newScreen.add("");
-            else
-                newScreen.add(lastScreen[lines]);
-            lines++;
-        }
-
-        // replace text with window
+        // draw the window on its own layer
+        String[] dialogScreen = new String[neededHeight];
         int dialogLines = 0;
         String leftTopCorner = "", rightTopCorner = "",
                 leftBottomCorner = "", rightBottomCorner = "",
@@ -404,65 +487,60 @@ public class MessageDialog {
             leftBottomCorner += "━";
             rightBottomCorner = "━" + rightBottomCorner;
         }
-        if (dialog_Y > 0) {
-            leftTopCorner = " ".repeat(dialog_Y) + leftTopCorner;
-            leftMargin = " ".repeat(dialog_Y) + leftMargin;
-            leftBottomCorner = " ".repeat(dialog_Y) + leftBottomCorner;
-        }
 
         int curMessage = 0;
         int curButton = 0;
         while (dialogLines < neededHeight) {
             if (showTopBottomBorder && dialogLines == 0) {
                 if (showLeftRightBorder && showLeftRightMargin) {
-                    newScreen.add(leftTopCorner + "─".repeat(neededWidth - 4) + rightTopCorner);
+                    dialogScreen[dialogLines] = leftTopCorner + "─".repeat(neededWidth - 4) + rightTopCorner;
                 } else if (showLeftRightBorder) {
-                    newScreen.add(leftTopCorner + "─".repeat(neededWidth - 2) + rightTopCorner);
+                    dialogScreen[dialogLines] = leftTopCorner + "─".repeat(neededWidth - 2) + rightTopCorner;
                 } else {
-                    newScreen.add("─".repeat(neededWidth));
+                    dialogScreen[dialogLines] = "─".repeat(neededWidth);
                 }
             } else if (showTopBottomMargin && dialogLines == 1) {
                 if (showLeftRightBorder && showLeftRightMargin) {
-                    newScreen.add(leftMargin + " ".repeat(neededWidth - 4) + rightMargin);
+                    dialogScreen[dialogLines] = leftMargin + " ".repeat(neededWidth - 4) + rightMargin;
                 } else if (showLeftRightBorder) {
-                    newScreen.add(leftMargin + " ".repeat(neededWidth - 2) + rightMargin);
+                    dialogScreen[dialogLines] = leftMargin + " ".repeat(neededWidth - 2) + rightMargin;
                 } else {
-                    newScreen.add(" ".repeat(neededWidth));
+                    dialogScreen[dialogLines] = " ".repeat(neededWidth);
                 }
             } else if (showTopBottomMargin && dialogLines == neededHeight - 2) {
                 if (showLeftRightBorder && showLeftRightMargin) {
-                    newScreen.add(leftMargin + " ".repeat(neededWidth - 4) + rightMargin);
+                    dialogScreen[dialogLines] = leftMargin + " ".repeat(neededWidth - 4) + rightMargin;
                 } else if (showLeftRightBorder) {
-                    newScreen.add(leftMargin + " ".repeat(neededWidth - 2) + rightMargin);
+                    dialogScreen[dialogLines] = leftMargin + " ".repeat(neededWidth - 2) + rightMargin;
                 } else {
-                    newScreen.add(" ".repeat(neededWidth));
+                    dialogScreen[dialogLines] = " ".repeat(neededWidth);
                 }
             } else if (showTopBottomBorder && dialogLines == neededHeight - 1) {
                 if (showLeftRightBorder && showLeftRightMargin) {
-                    newScreen.add(leftBottomCorner + "━".repeat(neededWidth - 4) + rightBottomCorner);
+                    dialogScreen[dialogLines] = leftBottomCorner + "━".repeat(neededWidth - 4) + rightBottomCorner;
                 } else if (showLeftRightBorder) {
-                    newScreen.add(leftBottomCorner + "━".repeat(neededWidth - 2) + rightBottomCorner);
+                    dialogScreen[dialogLines] = leftBottomCorner + "━".repeat(neededWidth - 2) + rightBottomCorner;
                 } else {
-                    newScreen.add("━".repeat(neededWidth));
+                    dialogScreen[dialogLines] = "━".repeat(neededWidth);
                 }
             } else {
                 if (curMessage < message.length) {
                     String s = message[curMessage];
                     if (showLeftRightBorder && showLeftRightMargin) {
-                        newScreen.add(leftMargin + s + " ".repeat(Math.max(0, neededWidth - 4 - s.length())) + rightMargin);
+                        dialogScreen[dialogLines] = leftMargin + s + " ".repeat(Math.max(0, neededWidth - 4 - s.length())) + rightMargin;
                     } else if (showLeftRightBorder) {
-                        newScreen.add(leftMargin + s + " ".repeat(Math.max(0, neededWidth - 2 - s.length())) + rightMargin);
+                        dialogScreen[dialogLines] = leftMargin + s + " ".repeat(Math.max(0, neededWidth - 2 - s.length())) + rightMargin;
                     } else {
-                        newScreen.add(s);
+                        dialogScreen[dialogLines] = s;
                     }
                     curMessage++;
                 } else if (curMessage == message.length) {
                     if (showLeftRightBorder && showLeftRightMargin) {
-                        newScreen.add(leftMargin + "─".repeat(neededWidth - 4) + rightMargin);
+                        dialogScreen[dialogLines] = leftMargin + "─".repeat(neededWidth - 4) + rightMargin;
                     } else if (showLeftRightBorder) {
-                        newScreen.add(leftMargin + "─".repeat(neededWidth - 2) + rightMargin);
+                        dialogScreen[dialogLines] = leftMargin + "─".repeat(neededWidth - 2) + rightMargin;
                     } else {
-                        newScreen.add("─".repeat(neededWidth));
+                        dialogScreen[dialogLines] = "─".repeat(neededWidth);
                     }
                     curMessage++;
                 } else if (curButton < buttons.length) {
@@ -472,28 +550,43 @@ public class MessageDialog {
                     }
                     String s = buttons[curButton].getTitle();
                     if (showLeftRightBorder && showLeftRightMargin) {
-                        newScreen.add(leftMargin + prefix + s + " ".repeat(Math.max(0, neededWidth - 2 - 4 - s.length())) + rightMargin);
+                        dialogScreen[dialogLines] = leftMargin + prefix + s + " ".repeat(Math.max(0, neededWidth - 2 - 4 - s.length())) + rightMargin;
                     } else if (showLeftRightBorder) {
-                        newScreen.add(leftMargin + prefix + s + " ".repeat(Math.max(0, neededWidth - 2 - 2 - s.length())) + rightMargin);
+                        dialogScreen[dialogLines] = leftMargin + prefix + s + " ".repeat(Math.max(0, neededWidth - 2 - 2 - s.length())) + rightMargin;
                     } else {
-                        newScreen.add(prefix + s);
+                        dialogScreen[dialogLines] = prefix + s;
                     }
                     curButton++;
                 }
             }
 
             dialogLines++;
-            lines++;
         }
 
-        while (lines < lastScreen.length) {
-            newScreen.add(lastScreen[lines]);
-            lines++;
+        for (int i = 0; i < neededHeight; i++) {
+            if (dialogScreen[i] == null) {
+                dialogScreen[i] = "";
+            }
+        }
+
+        if (ConsoleHelper.supportsCursorAddressing()) {
+            ScreenCompositor.showOverlay(dialog_X, dialog_Y, dialogScreen);
+            return;
         }
 
-        String[] newScreenArray = new String[newScreen.size()];
-        newScreen.toArray(newScreenArray);
-        ConsoleHelper.printScreen(newScreenArray);
+        // Otherwise, merge the window into the previous screen.
+        String[] newScreen = new String[Math.max(lastScreen.length, dialog_X + neededHeight)];
+        String padding = " ".repeat(dialog_Y);
+        for (int lines = 0; lines < newScreen.length; lines++) {
+            if (dialog_X <= lines && lines < dialog_X + neededHeight) {
+                newScreen[lines] = padding + dialogScreen[lines - dialog_X];
+            } else if (lines < lastScreen.length) {
+                newScreen[lines] = lastScreen[lines];
+            } else {
+                newScreen[lines] = "";
+            }
+        }
+        ConsoleHelper.printScreen(newScreen);
     }
 
 }
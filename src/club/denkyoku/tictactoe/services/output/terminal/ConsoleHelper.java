@@ -1,87 +1,93 @@
 package club.denkyoku.tictactoe.services.output.terminal;
 
-import club.denkyoku.tictactoe.libraries.os.RawConsoleInput;
-import club.denkyoku.tictactoe.libraries.os.ShellHelper;
-
-import java.io.IOException;
-import java.io.PrintStream;
-import java.io.PrintWriter;
-import java.nio.charset.StandardCharsets;
-
 
+/**
+ * Helper methods for the terminal of the calling thread.
+ * <br/>
+ * They delegate to <code>Terminal.current()</code>, which is the process console
+ * unless a session has bound its own terminal to the thread.
+ */
 public class ConsoleHelper {
-    // Used for Linux to output UTF-8
-    protected static final PrintWriter printWriterUnix = new PrintWriter(System.out, true);
-
-    // Used for Windows to output UTF-8
-    protected static PrintStream outStreamWin = new PrintStream(System.out, true, StandardCharsets.UTF_8);
-
-    protected static String[] lastScreen = new String[]{""};
-
-    private static boolean windowsRunOnce = true;
+    /**
+     * Replace the terminal output, e.g. with an in-memory sink for benchmarks.
+     * @param output The new <code>OutputChannel</code>.
+     */
+    public static void setOutput(OutputChannel output) {
+        Terminal.current().setOutput(output);
+    }
 
-    private static void winRunOnce() {
-        if (windowsRunOnce) {
-            try {
-                new ProcessBuilder("cmd", "/c", "chcp 65001").inheritIO().start().waitFor();
-            } catch (IOException | InterruptedException e) {
-            }
-            windowsRunOnce = false;
-        }
+    /**
+     * @return The current console output.
+     */
+    public static OutputChannel getOutput() {
+        return Terminal.current().getOutput();
     }
 
     /**
      * Helper method to clear the console.
      */
     public static void CleanConsole() {
-        if (RawConsoleInput.getIsWindows()) {
-            winRunOnce();
-            try {
-                new ProcessBuilder("cmd", "/c", "cls").inheritIO().start().waitFor();
-            } catch (IOException | InterruptedException e) {
-            }
-        } else {
-            printWriterUnix.print("\033[H\033[2J");
-        }
+        Terminal.current().cleanConsole();
     }
 
     /**
      * Helper method to print UTF-8 into the console.
+     * <br/>
+     * The line is flushed at once.
      * @param str The string to print.
      */
     public static void println(String str) {
-        if (RawConsoleInput.getIsWindows()) {
-            winRunOnce();
-            outStreamWin.println(str);
-        } else {
-            printWriterUnix.println(str);
-        }
+        Terminal terminal = Terminal.current();
+        terminal.println(str);
+        terminal.flush();
     }
 
     /**
      * Helper method to print UTF-8 into the console.
+     * The output is not flushed, call <code>flush()</code> after the last one.
      * @param str The string to print.
      */
     public static void print(String str) {
-        if (RawConsoleInput.getIsWindows()) {
-            winRunOnce();
-            outStreamWin.print(str);
-        } else {
-            printWriterUnix.print(str);
-        }
+        Terminal.current().print(str);
     }
 
     /**
      * Helper method to print UTF-8 into the console.
+     * The output is not flushed, call <code>flush()</code> after the last one.
      * @param c The character to print.
      */
     public static void print(char c) {
-        if (RawConsoleInput.getIsWindows()) {
-            winRunOnce();
-            outStreamWin.print(c);
-        } else {
-            printWriterUnix.print(c);
-        }
+        Terminal.current().print(c);
+    }
+
+    /**
+     * Helper method to flush everything printed into the console.
+     */
+    public static void flush() {
+        Terminal.current().flush();
+    }
+
+    /**
+     * Whether the console can move its cursor to draw at any position,
+     * so that only a part of the screen is redrawn.
+     * @return <code>true</code> if <code>printAt()</code> can be used.
+     */
+    public static boolean supportsCursorAddressing() {
+        return Terminal.current().supportsCursorAddressing();
+    }
+
+    /**
+     * Helper method to print UTF-8 at the given position of the screen,
+     * leaving the rest of the screen and the cursor untouched.
+     * <br/>
+     * Only works if <code>supportsCursorAddressing()</code> returns <code>true</code>.
+     * The output is not flushed, call <code>flush()</code> after the last one.
+     * @param line The line on the screen, starting from 0.
+     * @param column The column on the screen, starting from 0.
+     * @param str The string to print.
+     */
+    public static void printAt(int line, int column, String str) {
+        print("\0337\033[" + (line + 1) + ";" + (column + 1) + "H" + str + "\0338");
     }
 
     /**
@@ -101,11 +107,22 @@ public class ConsoleHelper {
      * @param screen The new screen strings.
      */
     public static void printScreen(String[] screen) {
-        ConsoleHelper.CleanConsole();
-        ConsoleHelper.lastScreen = screen;
-        for (String line : screen) {
-            ConsoleHelper.println(line);
-        }
+        Terminal.current().printScreen(screen);
+    }
+
+    /**
+     * Helper method to print the new screen, only redrawing the lines
+     * which differ from the last screen, and update the last screen
+     * strings storage.
+     * <br/>
+     * Useful for screens which are redrawn frequently, e.g. when moving
+     * a cursor on the board. If the console cannot redraw single lines,
+     * it falls back to <code>printScreen()</code>.
+     *
+     * @param screen The new screen strings.
+     */
+    public static void updateScreen(String[] screen) {
+        Terminal.current().updateScreen(screen);
     }
 
     /**
@@ -116,40 +133,38 @@ public class ConsoleHelper {
      * @return The previous screen strings.
      */
     public static String[] GetLastScreen() {
-        return ConsoleHelper.lastScreen;
+        return Terminal.current().getLastScreen();
+    }
+
+    /**
+     * Fix the console size, instead of querying it from the terminal,
+     * e.g. when rendering into an in-memory sink.
+     * @param width The console width. If <code>0</code>, query it again.
+     * @param height The console height. If <code>0</code>, query it again.
+     */
+    public static void setConsoleSize(int width, int height) {
+        Terminal.current().setConsoleSize(width, height);
     }
 
     /**
      * Helper method to get the console width.
+     * <br/>
+     * The result is cached for a short while, as querying it spawns a process.
      *
      * @return The width of console window.
      */
     public static int GetConsoleWidth() {
-        try {
-            // TODO: add support for Windows
-            ShellHelper.Result result = ShellHelper.shell("tput cols");
-            if (result.ret == 0) {
-                return Integer.parseInt(result.output);
-            }
-        } catch (IOException e) {
-        }
-        return 80; //default value
+        return Terminal.current().getConsoleWidth();
     }
 
     /**
      * Helper method to get the console height.
+     * <br/>
+     * The result is cached for a short while, as querying it spawns a process.
      *
      * @return The height of console window.
      */
     public static int GetConsoleHeight() {
-        try {
-            // TODO: add support for Windows
-            ShellHelper.Result result = ShellHelper.shell("tput lines");
-            if (result.ret == 0) {
-                return Integer.parseInt(result.output);
-            }
-        } catch (IOException e) {
-        }
-        return 24; //default value
+        return Terminal.current().getConsoleHeight();
     }
 }
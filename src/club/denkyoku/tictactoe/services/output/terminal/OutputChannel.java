@@ -0,0 +1,126 @@
+package club.denkyoku.tictactoe.services.output.terminal;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * A buffered UTF-8 output channel.
+ * <br/>
+ * The printed text is collected until <code>flush()</code>, which encodes
+ * it into a reusable direct <code>ByteBuffer</code> and writes it to the
+ * sink at once. So a whole frame costs one write, instead of one per line.
+ */
+public class OutputChannel {
+    protected static final int DEFAULT_CAPACITY = 16 * 1024;
+
+    protected final WritableByteChannel sink;
+    protected final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    protected final StringBuilder pending = new StringBuilder();
+    protected ByteBuffer buffer;
+    protected long bytesWritten = 0;
+
+    /**
+     * Create an output channel writing to the given sink.
+     * @param sink The channel which receives the encoded bytes,
+     *             e.g. the standard output, or an in-memory sink.
+     */
+    public OutputChannel(WritableByteChannel sink) {
+        this(sink, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an output channel writing to the given sink.
+     * @param sink The channel which receives the encoded bytes.
+     * @param capacity The initial capacity of the byte buffer,
+     *                 it grows when a frame does not fit.
+     */
+    public OutputChannel(WritableByteChannel sink, int capacity) {
+        this.sink = sink;
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * Create an output channel writing to the standard output.
+     * @return The new <code>OutputChannel</code>.
+     */
+    public static OutputChannel stdout() {
+        return new OutputChannel(new FileOutputStream(FileDescriptor.out).getChannel());
+    }
+
+    /**
+     * Append a string to the pending frame.
+     * @param str The string to print.
+     */
+    public synchronized void print(String str) {
+        this.pending.append(str);
+    }
+
+    /**
+     * Append a character to the pending frame.
+     * @param c The character to print.
+     */
+    public synchronized void print(char c) {
+        this.pending.append(c);
+    }
+
+    /**
+     * Append a string and a line break to the pending frame.
+     * @param str The string to print.
+     */
+    public synchronized void println(String str) {
+        this.pending.append(str).append(System.lineSeparator());
+    }
+
+    /**
+     * Encode the pending frame and write it to the sink.
+     */
+    public synchronized void flush() {
+        if (this.pending.length() == 0) {
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(this.pending);
+        this.encoder.reset();
+        this.buffer.clear();
+        while (true) {
+            CoderResult result = this.encoder.encode(chars, this.buffer, true);
+            if (result.isUnderflow()) {
+                result = this.encoder.flush(this.buffer);
+            }
+            if (result.isUnderflow()) {
+                break;
+            }
+            // the frame does not fit, grow the buffer and keep the encoded part.
+            ByteBuffer larger = ByteBuffer.allocateDirect(this.buffer.capacity() * 2);
+            this.buffer.flip();
+            larger.put(this.buffer);
+            this.buffer = larger;
+        }
+        this.pending.setLength(0);
+
+        this.buffer.flip();
+        try {
+            while (this.buffer.hasRemaining()) {
+                this.bytesWritten += this.sink.write(this.buffer);
+            }
+        } catch (IOException e) {
+        }
+    }
+
+    /**
+     * @return The number of bytes written to the sink so far.
+     */
+    public synchronized long getBytesWritten() {
+        return this.bytesWritten;
+    }
+}
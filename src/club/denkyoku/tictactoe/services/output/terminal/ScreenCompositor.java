@@ -0,0 +1,51 @@
+package club.denkyoku.tictactoe.services.output.terminal;
+
+
+/**
+ * A two-layer screen compositor.
+ * <br/>
+ * The base layer is the last screen printed by <code>ConsoleHelper</code>.
+ * The overlay layer (e.g. a dialog) is a rectangle drawn over it: showing
+ * the overlay only emits the rows of the rectangle which changed, and
+ * clearing it only restores the base rows it covered. The base layer is
+ * never touched by the overlay.
+ * <br/>
+ * Only works if <code>ConsoleHelper.supportsCursorAddressing()</code>
+ * returns <code>true</code>.
+ * <br/>
+ * The overlay may be changed from another thread (e.g. a timed message),
+ * so all the screen output is serialized on the <code>Terminal</code>,
+ * which holds both layers.
+ */
+public class ScreenCompositor {
+    /**
+     * Show the overlay, replacing the previous one.
+     * @param top The screen line of the first overlay line, starting from 0.
+     * @param left The screen column of the overlay, starting from 0.
+     * @param lines The lines of the overlay.
+     */
+    public static void showOverlay(int top, int left, String[] lines) {
+        Terminal.current().showOverlay(top, left, lines);
+    }
+
+    /**
+     * Remove the overlay, restoring the base rows it covered.
+     */
+    public static void clearOverlay() {
+        Terminal.current().clearOverlay();
+    }
+
+    /**
+     * Draw the whole overlay again, after the base layer has been redrawn.
+     */
+    public static void redrawOverlay() {
+        Terminal.current().redrawOverlay();
+    }
+
+    /**
+     * @return <code>true</code> if an overlay is shown.
+     */
+    public static boolean hasOverlay() {
+        return Terminal.current().hasOverlay();
+    }
+}
@@ -0,0 +1,432 @@
+package club.denkyoku.tictactoe.services.output.terminal;
+
+import club.denkyoku.tictactoe.libraries.os.RawConsoleInput;
+import club.denkyoku.tictactoe.libraries.os.ShellHelper;
+import club.denkyoku.tictactoe.services.profiling.FrameEvent;
+import club.denkyoku.tictactoe.services.profiling.KeyToScreenEvent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+
+/**
+ * The terminal of one user: the key input, the screen output,
+ * and the state of the screen (the last screen, the overlay, the size).
+ * <br/>
+ * <code>ConsoleHelper</code>, <code>ScreenCompositor</code> and <code>KeyHandler</code>
+ * are static facades of the terminal bound to the calling thread by <code>bind()</code>,
+ * or of the process console if none is bound. So several sessions can run at once,
+ * each on its own thread with its own terminal.
+ */
+public class Terminal {
+    // How long the console size is cached, in nanoseconds.
+    protected static final long CONSOLE_SIZE_CACHE_NANOS = 1_000_000_000L;
+
+    protected static final ThreadLocal<Terminal> bound = new ThreadLocal<>();
+    private static volatile Terminal console;
+    private static boolean windowsRunOnce = true;
+
+    // Whether it's the console of the process, which has a raw mode and can be queried.
+    protected final boolean isConsole;
+    protected final Reader input;
+    // The character array used for reading the key stream.
+    protected final char[] keyBuffer = new char[10];
+    // called once by the next pressed key, which is then swallowed.
+    protected volatile Runnable keyPressHook;
+    // Used to output UTF-8, one write per flush.
+    protected OutputChannel output;
+    protected final KeyToScreenEvent.Tracker keyToScreen = new KeyToScreenEvent.Tracker();
+
+    protected String[] lastScreen = new String[]{""};
+    protected int overlayTop = 0;
+    protected int overlayLeft = 0;
+    protected String[] overlay = new String[0];
+
+    private int consoleWidth = 0;
+    private long consoleWidthTime;
+    private int consoleHeight = 0;
+    private long consoleHeightTime;
+    // The fixed console size, if set, instead of querying it.
+    private int fixedConsoleWidth = 0;
+    private int fixedConsoleHeight = 0;
+
+    /**
+     * Create a terminal on other streams than the console, e.g. a network connection.
+     * It's 80x24 until <code>setConsoleSize()</code>.
+     * @param input The key input, escape sequences as sent by a Unix terminal.
+     *              Every read should return one key, as the keys are decoded by read.
+     * @param output The screen output.
+     */
+    public Terminal(Reader input, OutputChannel output) {
+        this(false, input, output);
+    }
+
+    protected Terminal(boolean isConsole, Reader input, OutputChannel output) {
+        this.isConsole = isConsole;
+        this.input = input;
+        this.output = output;
+    }
+
+    /**
+     * @return The console of the process (standard input and output).
+     */
+    public static Terminal console() {
+        Terminal terminal = console;
+        if (terminal == null) {
+            synchronized (Terminal.class) {
+                if (console == null) {
+                    console = new Terminal(true, new BufferedReader(new InputStreamReader(System.in)),
+                            OutputChannel.stdout());
+                }
+                terminal = console;
+            }
+        }
+        return terminal;
+    }
+
+    /**
+     * @return The terminal bound to the calling thread, or the console.
+     */
+    public static Terminal current() {
+        Terminal terminal = bound.get();
+        return terminal != null ? terminal : console();
+    }
+
+    /**
+     * Bind a terminal to the calling thread.
+     * @param terminal The terminal, <code>null</code> for the console.
+     * @return The terminal bound before, to be restored with <code>bind()</code>.
+     */
+    public static Terminal bind(Terminal terminal) {
+        Terminal previous = bound.get();
+        if (terminal == null) {
+            bound.remove();
+        } else {
+            bound.set(terminal);
+        }
+        return previous;
+    }
+
+    /**
+     * Wrap a task to run with the terminal of the calling thread,
+     * e.g. an animation drawn on another thread.
+     * @param task The task.
+     * @return The wrapped task.
+     */
+    public static Runnable wrap(Runnable task) {
+        Terminal terminal = bound.get();
+        if (terminal == null) {
+            return task;
+        }
+        return () -> {
+            Terminal previous = Terminal.bind(terminal);
+            try {
+                task.run();
+            } finally {
+                Terminal.bind(previous);
+            }
+        };
+    }
+
+    public boolean isConsole() {
+        return this.isConsole;
+    }
+
+    public Reader getInput() {
+        return this.input;
+    }
+
+    public char[] getKeyBuffer() {
+        return this.keyBuffer;
+    }
+
+    public OutputChannel getOutput() {
+        return this.output;
+    }
+
+    public void setOutput(OutputChannel output) {
+        this.output = output;
+    }
+
+    public KeyToScreenEvent.Tracker getKeyToScreen() {
+        return this.keyToScreen;
+    }
+
+    /**
+     * Let the next pressed key run the hook, instead of its usual callback.
+     * @param hook The hook to run once, <code>null</code> to remove it.
+     */
+    public void setKeyPressHook(Runnable hook) {
+        this.keyPressHook = hook;
+    }
+
+    /**
+     * Run the key press hook, if there is one.
+     * @return <code>true</code> if the hook has consumed the key.
+     */
+    public boolean runKeyPressHook() {
+        Runnable hook = this.keyPressHook;
+        if (hook == null) {
+            return false;
+        }
+        this.keyPressHook = null;
+        hook.run();
+        return true;
+    }
+
+    /**
+     * @return <code>true</code> if the Windows console input is used instead of the reader.
+     */
+    public boolean usesWindowsConsole() {
+        return this.isConsole && RawConsoleInput.getIsWindows();
+    }
+
+    private static void winRunOnce() {
+        if (windowsRunOnce) {
+            try {
+                new ProcessBuilder("cmd", "/c", "chcp 65001").inheritIO().start().waitFor();
+            } catch (IOException | InterruptedException e) {
+            }
+            windowsRunOnce = false;
+        }
+    }
+
+    public void cleanConsole() {
+        if (this.usesWindowsConsole()) {
+            this.flush();
+            try {
+                new ProcessBuilder("cmd", "/c", "cls").inheritIO().start().waitFor();
+            } catch (IOException | InterruptedException e) {
+            }
+        } else {
+            this.output.print("\033[H\033[2J");
+        }
+    }
+
+    public void print(String str) {
+        this.output.print(str);
+    }
+
+    public void print(char c) {
+        this.output.print(c);
+    }
+
+    public void println(String str) {
+        this.output.println(str);
+    }
+
+    public void flush() {
+        if (this.usesWindowsConsole()) {
+            winRunOnce();
+        }
+        this.output.flush();
+        this.keyToScreen.screenUpdated();
+    }
+
+    public boolean supportsCursorAddressing() {
+        return !this.usesWindowsConsole();
+    }
+
+    /**
+     * Print a new screen, see <code>ConsoleHelper.printScreen()</code>.
+     * @param screen The new screen strings.
+     */
+    public synchronized void printScreen(String[] screen) {
+        FrameEvent event = new FrameEvent();
+        event.begin();
+        this.cleanConsole();
+        this.lastScreen = screen;
+        for (String line : screen) {
+            this.output.println(line);
+        }
+        if (this.overlay.length > 0) {
+            this.redrawOverlay();
+        } else {
+            this.flush();
+        }
+        if (event.shouldCommit()) {
+            event.lines = event.changedLines = screen.length;
+            event.fullRedraw = true;
+            event.commit();
+        }
+    }
+
+    /**
+     * Print a new screen, only redrawing the changed lines,
+     * see <code>ConsoleHelper.updateScreen()</code>.
+     * @param screen The new screen strings.
+     */
+    public synchronized void updateScreen(String[] screen) {
+        if (!this.supportsCursorAddressing()) {
+            this.printScreen(screen);
+            return;
+        }
+        FrameEvent event = new FrameEvent();
+        event.begin();
+        String[] last = this.lastScreen;
+        StringBuilder sb = new StringBuilder();
+        int changedLines = 0;
+        for (int i = 0; i < screen.length; i++) {
+            if (i >= last.length || !screen[i].equals(last[i])) {
+                sb.append("\033[").append(i + 1).append(";1H").append(screen[i]).append("\033[K");
+                changedLines++;
+            }
+        }
+        for (int i = screen.length; i < last.length; i++) {
+            sb.append("\033[").append(i + 1).append(";1H\033[K");
+        }
+        // leave the cursor below the screen, as printScreen() does.
+        sb.append("\033[").append(screen.length + 1).append(";1H");
+        this.lastScreen = screen;
+        this.print(sb.toString());
+        this.redrawOverlay();
+        this.flush();
+        if (event.shouldCommit()) {
+            event.lines = screen.length;
+            event.changedLines = changedLines;
+            event.commit();
+        }
+    }
+
+    public String[] getLastScreen() {
+        return this.lastScreen;
+    }
+
+    /**
+     * Draw an overlay, see <code>ScreenCompositor.showOverlay()</code>.
+     * @param top The screen line of the first overlay line, starting from 0.
+     * @param left The screen column of the overlay, starting from 0.
+     * @param lines The lines of the overlay.
+     */
+    public synchronized void showOverlay(int top, int left, String[] lines) {
+        StringBuilder sb = new StringBuilder("\0337");
+
+        // restore the rows of the old overlay which are no longer covered
+        for (int row = this.overlayTop; row < this.overlayTop + this.overlay.length; row++) {
+            if (row < top || row >= top + lines.length) {
+                this.appendBaseRow(sb, row);
+            }
+        }
+
+        for (int i = 0; i < lines.length; i++) {
+            int row = top + i;
+            int old = row - this.overlayTop;
+            if (0 <= old && old < this.overlay.length) {
+                if (left == this.overlayLeft && lines[i].equals(this.overlay[old])) {
+                    continue;
+                }
+                if (left != this.overlayLeft || lines[i].length() != this.overlay[old].length()) {
+                    // the old overlay row might not be fully covered
+                    this.appendBaseRow(sb, row);
+                }
+            }
+            sb.append("\033[").append(row + 1).append(';').append(left + 1).append('H');
+            sb.append(lines[i]);
+        }
+
+        sb.append("\0338");
+        this.overlayTop = top;
+        this.overlayLeft = left;
+        this.overlay = lines;
+        this.print(sb.toString());
+        this.flush();
+    }
+
+    /**
+     * Remove the overlay, see <code>ScreenCompositor.clearOverlay()</code>.
+     */
+    public synchronized void clearOverlay() {
+        if (this.overlay.length == 0) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder("\0337");
+        for (int row = this.overlayTop; row < this.overlayTop + this.overlay.length; row++) {
+            this.appendBaseRow(sb, row);
+        }
+        sb.append("\0338");
+        this.overlay = new String[0];
+        this.print(sb.toString());
+        this.flush();
+    }
+
+    /**
+     * Draw the overlay again, after the screen under it has been redrawn.
+     */
+    public synchronized void redrawOverlay() {
+        if (this.overlay.length == 0) {
+            return;
+        }
+        String[] lines = this.overlay;
+        this.overlay = new String[0];
+        this.showOverlay(this.overlayTop, this.overlayLeft, lines);
+    }
+
+    public synchronized boolean hasOverlay() {
+        return this.overlay.length > 0;
+    }
+
+    private void appendBaseRow(StringBuilder sb, int row) {
+        String[] base = this.lastScreen;
+        sb.append("\033[").append(row + 1).append(";1H");
+        if (row < base.length) {
+            sb.append(base[row]);
+        }
+        sb.append("\033[K");
+    }
+
+    /**
+     * Fix the console size, instead of querying it from the terminal.
+     * @param width The console width. If <code>0</code>, query it again.
+     * @param height The console height. If <code>0</code>, query it again.
+     */
+    public void setConsoleSize(int width, int height) {
+        this.fixedConsoleWidth = Math.max(0, width);
+        this.fixedConsoleHeight = Math.max(0, height);
+    }
+
+    public int getConsoleWidth() {
+        if (this.fixedConsoleWidth > 0) {
+            return this.fixedConsoleWidth;
+        }
+        if (!this.isConsole) {
+            return 80;
+        }
+        long now = System.nanoTime();
+        if (this.consoleWidth > 0 && now - this.consoleWidthTime < CONSOLE_SIZE_CACHE_NANOS) {
+            return this.consoleWidth;
+        }
+        this.consoleWidth = queryConsoleSize("tput cols", 80);
+        this.consoleWidthTime = now;
+        return this.consoleWidth;
+    }
+
+    public int getConsoleHeight() {
+        if (this.fixedConsoleHeight > 0) {
+            return this.fixedConsoleHeight;
+        }
+        if (!this.isConsole) {
+            return 24;
+        }
+        long now = System.nanoTime();
+        if (this.consoleHeight > 0 && now - this.consoleHeightTime < CONSOLE_SIZE_CACHE_NANOS) {
+            return this.consoleHeight;
+        }
+        this.consoleHeight = queryConsoleSize("tput lines", 24);
+        this.consoleHeightTime = now;
+        return this.consoleHeight;
+    }
+
+    private static int queryConsoleSize(String command, int defaultValue) {
+        try {
+            // TODO: add support for Windows
+            ShellHelper.Result result = ShellHelper.shell(command);
+            if (result.ret == 0) {
+                return Integer.parseInt(result.output);
+            }
+        } catch (IOException e) {
+        }
+        return defaultValue;
+    }
+}
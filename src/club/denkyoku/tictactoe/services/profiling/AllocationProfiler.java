@@ -0,0 +1,131 @@
+package club.denkyoku.tictactoe.services.profiling;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A diagnostic mode, which measures the bytes allocated by the game thread
+ * per turn, per AI search and per rendered frame.
+ * <br/>
+ * It reads the allocated-bytes counter of the current thread from
+ * <code>com.sun.management.ThreadMXBean</code> before and after a section:
+ * <pre>
+ *     long allocated = AllocationProfiler.begin();
+ *     ...
+ *     AllocationProfiler.end("frame.ReversiGamePlay", allocated);
+ * </pre>
+ * The mode is enabled with <code>-Dtictactoe.allocationProfile=true</code>,
+ * otherwise <code>begin()</code> and <code>end()</code> do nothing.
+ */
+public class AllocationProfiler {
+    protected static final String ENABLE_PROPERTY = "tictactoe.allocationProfile";
+
+    protected static final com.sun.management.ThreadMXBean threadBean = getThreadBean();
+    protected static final boolean enabled = threadBean != null && Boolean.getBoolean(ENABLE_PROPERTY);
+
+    protected static final ConcurrentHashMap<String, Section> sections = new ConcurrentHashMap<>();
+
+    /**
+     * The allocations of one kind of section.
+     */
+    protected static class Section {
+        protected final LongAdder count = new LongAdder();
+        protected final LongAdder bytes = new LongAdder();
+        protected final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * Helper function to get the thread bean,
+     * if the JVM supports measuring thread allocations.
+     * @return The thread bean, or <code>null</code> if not supported.
+     */
+    protected static com.sun.management.ThreadMXBean getThreadBean() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean)) {
+            return null;
+        }
+        try {
+            if (!bean.isThreadAllocatedMemorySupported()) {
+                return null;
+            }
+            bean.setThreadAllocatedMemoryEnabled(true);
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+        return bean;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start measuring a section on the current thread.
+     * @return The bytes allocated by the thread so far, or -1 if disabled.
+     */
+    public static long begin() {
+        if (!enabled) {
+            return -1;
+        }
+        return threadBean.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * End measuring a section on the current thread.
+     * @param name The name of the section, e.g. <code>turn.ReversiGamePlay</code>.
+     * @param begin The value returned by <code>begin()</code> on the same thread.
+     */
+    public static void end(String name, long begin) {
+        if (begin < 0) {
+            return;
+        }
+        long allocated = threadBean.getCurrentThreadAllocatedBytes() - begin;
+        Section section = sections.computeIfAbsent(name, key -> new Section());
+        section.count.increment();
+        section.bytes.add(allocated);
+        section.max.accumulate(allocated);
+    }
+
+    /**
+     * Helper function to format a number of bytes.
+     * @param bytes The number of bytes.
+     * @return e.g. <code>512 B</code>, <code>12.3 KB</code>, <code>4.5 MB</code>.
+     */
+    protected static String formatBytes(double bytes) {
+        if (bytes >= 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f MB", bytes / (1024 * 1024));
+        } else if (bytes >= 1024) {
+            return String.format(Locale.ROOT, "%.1f KB", bytes / 1024);
+        }
+        return String.format(Locale.ROOT, "%.0f B", bytes);
+    }
+
+    /**
+     * Format the allocations of all sections as a table.
+     * <br/>
+     * All lines have the same width, so they stay aligned in a dialog.
+     * @return The lines of the table, empty if the mode is disabled.
+     */
+    public static List<String> toTable() {
+        List<String> lines = new ArrayList<>();
+        if (!enabled) {
+            return lines;
+        }
+        lines.add(String.format(Locale.ROOT, "%-28s %7s %10s %10s", "Allocated", "count", "avg", "max"));
+        for (Map.Entry<String, Section> entry : new TreeMap<>(sections).entrySet()) {
+            Section section = entry.getValue();
+            long count = section.count.sum();
+            lines.add(String.format(Locale.ROOT, "%-28s %7d %10s %10s", entry.getKey(), count,
+                    formatBytes(count == 0 ? 0 : (double) section.bytes.sum() / count),
+                    formatBytes(section.max.get())));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,27 @@
+package club.denkyoku.tictactoe.services.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * JFR event for rendering one screen to the terminal.
+ */
+@Name("club.denkyoku.tictactoe.Frame")
+@Label("Frame")
+@Category({"Tic-Tac-Toe", "Rendering"})
+@Description("One screen written to the terminal")
+public class FrameEvent extends Event {
+    @Label("Lines")
+    public int lines;
+
+    @Label("Changed Lines")
+    @Description("The lines which were written, all of them for a full redraw")
+    public int changedLines;
+
+    @Label("Full Redraw")
+    public boolean fullRedraw;
+}
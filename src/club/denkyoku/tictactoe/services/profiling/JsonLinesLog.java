@@ -0,0 +1,84 @@
+package club.denkyoku.tictactoe.services.profiling;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * A structured log, which appends one JSON object per line to a file,
+ * for offline analysis.
+ * <br/>
+ * The file is opened on the first record. If it cannot be written,
+ * the log is disabled quietly, so it never disturbs the game.
+ */
+public class JsonLinesLog {
+    protected final Path path;
+    protected BufferedWriter writer;
+    protected boolean failed = false;
+
+    /**
+     * Create a log appending to the given file.
+     * @param path The path of the log file.
+     */
+    public JsonLinesLog(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Create a log from a system property naming its file.
+     * @param property The name of the system property.
+     * @return The log, or <code>null</code> if the property is not set.
+     */
+    public static JsonLinesLog fromProperty(String property) {
+        String path = System.getProperty(property);
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        return new JsonLinesLog(Path.of(path));
+    }
+
+    /**
+     * Append a record.
+     * @param json One JSON object, without line breaks.
+     */
+    public synchronized void append(String json) {
+        if (this.failed) {
+            return;
+        }
+        try {
+            if (this.writer == null) {
+                this.writer = Files.newBufferedWriter(this.path, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            this.writer.write(json);
+            this.writer.newLine();
+            this.writer.flush();
+        } catch (IOException e) {
+            this.failed = true;
+        }
+    }
+
+    /**
+     * Helper method to quote a string as a JSON string.
+     * @param str The string.
+     * @return The quoted and escaped string.
+     */
+    public static String quote(String str) {
+        StringBuilder sb = new StringBuilder(str.length() + 2).append('"');
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
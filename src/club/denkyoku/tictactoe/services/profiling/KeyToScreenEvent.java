@@ -0,0 +1,101 @@
+package club.denkyoku.tictactoe.services.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * JFR event for the latency from a key press to the next screen update.
+ * <br/>
+ * <code>Tracker.keyPressed()</code> starts the event when a key is read,
+ * and <code>Tracker.screenUpdated()</code> commits it when the next frame is written.
+ * Every terminal has its own tracker.
+ * <br/>
+ * The latency is also recorded in the <code>input.keyToScreen</code> histogram
+ * of <code>MetricsRegistry</code>, whether JFR is recording or not.
+ */
+@Name("club.denkyoku.tictactoe.KeyToScreen")
+@Label("Key to Screen")
+@Category({"Tic-Tac-Toe", "Input"})
+@Description("From reading a key press to writing the next frame")
+public class KeyToScreenEvent extends Event {
+    private static final LatencyHistogram latency = MetricsRegistry.histogram("input.keyToScreen");
+
+    @Label("Key")
+    @Description("The key code, or the escape sequence read from the terminal")
+    public String key;
+
+    /**
+     * The key presses of one terminal, waiting for its next frame.
+     */
+    public static class Tracker {
+        // The event of the last key press, waiting for the next frame.
+        private volatile KeyToScreenEvent pending;
+        // The time of the last key press, 0 if the next frame has been written.
+        private volatile long pressedNanos;
+
+        /**
+         * Start the event for a key press, if the event is enabled.
+         * @param keyCode The key code, read on Windows.
+         */
+        public void keyPressed(int keyCode) {
+            this.pressedNanos = System.nanoTime();
+            KeyToScreenEvent event = new KeyToScreenEvent();
+            if (event.isEnabled()) {
+                event.key = Integer.toString(keyCode);
+                this.start(event);
+            }
+        }
+
+        /**
+         * Start the event for a key press, if the event is enabled.
+         * @param buffer The characters read on Unix (Mac)/Linux, ending with <code>'\0'</code>.
+         */
+        public void keyPressed(char[] buffer) {
+            this.pressedNanos = System.nanoTime();
+            KeyToScreenEvent event = new KeyToScreenEvent();
+            if (event.isEnabled()) {
+                StringBuilder sb = new StringBuilder();
+                for (char c : buffer) {
+                    if (c == 0) {
+                        break;
+                    }
+                    sb.append(c < 32 || c == 127 ? "^" + (char) (c ^ 64) : String.valueOf(c));
+                }
+                event.key = sb.toString();
+                this.start(event);
+            }
+        }
+
+        private void start(KeyToScreenEvent event) {
+            event.begin();
+            this.pending = event;
+        }
+
+        /**
+         * Commit the event of the last key press, if there is one.
+         */
+        public void screenUpdated() {
+            if (this.pending == null && this.pressedNanos == 0) {
+                return;
+            }
+            KeyToScreenEvent event;
+            long pressed;
+            synchronized (this) {
+                event = this.pending;
+                this.pending = null;
+                pressed = this.pressedNanos;
+                this.pressedNanos = 0;
+            }
+            if (pressed != 0) {
+                latency.record(System.nanoTime() - pressed);
+            }
+            if (event != null) {
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package club.denkyoku.tictactoe.services.profiling;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A lock-free latency histogram, in the style of HdrHistogram.
+ * <br/>
+ * Values (nanoseconds) are counted in log-linear buckets: every power of two
+ * is split into 32 linear sub-buckets, so any value is kept with a relative
+ * error below 1/32 (about 3%), from 1 ns up to <code>Long.MAX_VALUE</code>,
+ * in a fixed array of under 2000 counters.
+ * <br/>
+ * <code>record()</code> is one atomic increment, and can be called from
+ * any thread. <code>snapshot()</code> copies the counters for the percentiles.
+ */
+public class LatencyHistogram {
+    // 2 ^ SUB_BUCKET_BITS sub-buckets for the values below it,
+    // and half of that for every power of two above.
+    protected static final int SUB_BUCKET_BITS = 6;
+    protected static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    protected static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+    protected static final int BUCKET_COUNT = indexOf(Long.MAX_VALUE) + 1;
+
+    protected final String name;
+    protected final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    protected final LongAdder sum = new LongAdder();
+    protected final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Helper function to get the bucket of a value.
+     * @param value The value, not negative.
+     * @return The index of the bucket.
+     */
+    protected static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+    }
+
+    /**
+     * Helper function to get the highest value counted in a bucket.
+     * @param index The index of the bucket.
+     * @return The highest value of the bucket.
+     */
+    protected static long highestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF - 1;
+        long lowest = (long) (index - shift * SUB_BUCKET_HALF) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Record a value.
+     * @param nanos The latency in nanoseconds. Negative values are counted as 0.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        this.counts.incrementAndGet(indexOf(nanos));
+        this.sum.add(nanos);
+        this.max.accumulate(nanos);
+    }
+
+    /**
+     * Take a snapshot of the recorded values.
+     * <br/>
+     * Values recorded while copying may or may not be included.
+     * @return The snapshot.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = this.counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(this.name, copy, count, this.sum.sum(), this.max.get());
+    }
+
+    /**
+     * The recorded values of a histogram at one moment.
+     */
+    public static class Snapshot {
+        protected final String name;
+        protected final long[] counts;
+        protected final long count;
+        protected final long sum;
+        protected final long max;
+
+        protected Snapshot(String name, long[] counts, long count, long sum, long max) {
+            this.name = name;
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public long getMax() {
+            return this.max;
+        }
+
+        /**
+         * @return The mean value, <code>NaN</code> if nothing was recorded.
+         */
+        public double getMean() {
+            return this.count == 0 ? Double.NaN : (double) this.sum / this.count;
+        }
+
+        /**
+         * Get the value at a percentile.
+         * @param percentile The percentile, from 0 to 100, e.g. <code>99.9</code>.
+         * @return The highest value of the bucket at the percentile,
+         *         capped by the recorded maximum. 0 if nothing was recorded.
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (this.count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * this.count));
+            long seen = 0;
+            for (int i = 0; i < this.counts.length; i++) {
+                seen += this.counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueOf(i), this.max);
+                }
+            }
+            return this.max;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package club.denkyoku.tictactoe.services.profiling;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * The registry of the latency histograms of the game.
+ * <br/>
+ * Histograms are created on their first use by name, e.g.
+ * <code>MetricsRegistry.histogram("render.ReversiGamePlay").record(nanos)</code>.
+ * <br/>
+ * If the system property <code>tictactoe.metrics</code> names a file,
+ * the percentiles of all histograms are written to it when the program exits.
+ */
+public class MetricsRegistry {
+    protected static final String EXPORT_PROPERTY = "tictactoe.metrics";
+
+    protected static final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    static {
+        String path = System.getProperty(EXPORT_PROPERTY);
+        if (path != null && !path.isEmpty()) {
+            Runtime.getRuntime().addShutdownHook(new Thread(
+                    () -> MetricsRegistry.export(Path.of(path)), "metrics-export"));
+        }
+    }
+
+    /**
+     * Get the histogram of a name, created if it does not exist.
+     * @param name The name of the metric.
+     * @return The histogram.
+     */
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /**
+     * Take snapshots of all histograms.
+     * @return The snapshots, sorted by name.
+     */
+    public static List<LatencyHistogram.Snapshot> snapshot() {
+        List<LatencyHistogram.Snapshot> snapshots = new ArrayList<>();
+        for (LatencyHistogram histogram : histograms.values()) {
+            snapshots.add(histogram.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(LatencyHistogram.Snapshot::getName));
+        return snapshots;
+    }
+
+    /**
+     * Format the snapshots of all histograms as a table, in milliseconds.
+     * @return The lines of the table.
+     */
+    public static List<String> toTable() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "%-40s %8s %10s %10s %10s %10s %10s",
+                "metric (ms)", "count", "mean", "p50", "p99", "p999", "max"));
+        for (LatencyHistogram.Snapshot snapshot : snapshot()) {
+            lines.add(String.format(Locale.ROOT, "%-40s %8d %10.3f %10.3f %10.3f %10.3f %10.3f",
+                    snapshot.getName(), snapshot.getCount(),
+                    snapshot.getMean() / 1e6,
+                    snapshot.getValueAtPercentile(50) / 1e6,
+                    snapshot.getValueAtPercentile(99) / 1e6,
+                    snapshot.getValueAtPercentile(99.9) / 1e6,
+                    snapshot.getMax() / 1e6));
+        }
+        return lines;
+    }
+
+    /**
+     * Write the table of all histograms to a file, replacing it.
+     * Errors are ignored, so it never disturbs the exit of the game.
+     * @param path The path of the file.
+     */
+    public static void export(Path path) {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (String line : toTable()) {
+                writer.write(line);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package club.denkyoku.tictactoe.services.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * JFR event for one move search of an AI player.
+ */
+@Name("club.denkyoku.tictactoe.Search")
+@Label("AI Search")
+@Category({"Tic-Tac-Toe", "AI"})
+@Description("One getMove() search of an AI player, with its result")
+public class SearchEvent extends Event {
+    @Label("Player")
+    public String player;
+
+    @Label("Move X")
+    public int moveX;
+
+    @Label("Move Y")
+    public int moveY;
+
+    @Label("Nodes")
+    public long nodes;
+
+    @Label("Depth")
+    public int depth;
+}
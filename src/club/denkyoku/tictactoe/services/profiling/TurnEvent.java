@@ -0,0 +1,30 @@
+package club.denkyoku.tictactoe.services.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * JFR event for one turn of a game, from its start to its end.
+ */
+@Name("club.denkyoku.tictactoe.Turn")
+@Label("Turn")
+@Category({"Tic-Tac-Toe", "Gameplay"})
+@Description("One turn of a game, including the player's thinking")
+public class TurnEvent extends Event {
+    @Label("Game")
+    public String game;
+
+    @Label("Player")
+    public String player;
+
+    @Label("Human")
+    public boolean human;
+
+    @Label("Exit Code")
+    @Description("The result of the turn, -2 if the user quits")
+    public int exitCode;
+}
@@ -0,0 +1,125 @@
+package club.denkyoku.tictactoe.services.rating;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+
+/**
+ * The ratings of the players of one mod, sorted for leaderboard queries.
+ * <br/>
+ * The standings are kept in a skip list sorted by rating, for the top of the
+ * board, and counted in a Fenwick tree over the rating points, so that the
+ * rank of a player is found in O(log n) without walking the list.
+ */
+public class Leaderboard {
+    // Ratings are counted by whole points, clamped into [0, RATING_BUCKETS).
+    protected static final int RATING_BUCKETS = 4096;
+
+    /**
+     * The rating of a player.
+     * @param id The identity of the player.
+     * @param rating The rating.
+     * @param games The number of rated games.
+     */
+    public record Standing(String id, double rating, int games) {
+    }
+
+    protected static final Comparator<Standing> ORDER =
+            Comparator.comparingDouble(Standing::rating).reversed().thenComparing(Standing::id);
+
+    protected final HashMap<String, Standing> standings = new HashMap<>();
+    protected final ConcurrentSkipListSet<Standing> sorted = new ConcurrentSkipListSet<>(ORDER);
+    // Fenwick tree of the number of players per rating bucket, 1-based.
+    protected final int[] tree = new int[RATING_BUCKETS + 1];
+
+    protected static int bucketOf(double rating) {
+        return (int) Math.max(0, Math.min(RATING_BUCKETS - 1, Math.round(rating)));
+    }
+
+    protected void addToTree(int bucket, int delta) {
+        for (int i = bucket + 1; i <= RATING_BUCKETS; i += i & -i) {
+            this.tree[i] += delta;
+        }
+    }
+
+    /**
+     * @return The number of players in the buckets up to (and including) <code>bucket</code>.
+     */
+    protected int countUpTo(int bucket) {
+        int count = 0;
+        for (int i = bucket + 1; i > 0; i -= i & -i) {
+            count += this.tree[i];
+        }
+        return count;
+    }
+
+    /**
+     * Set the rating of a player.
+     * @param id The identity of the player.
+     * @param rating The new rating.
+     * @param games The number of rated games.
+     */
+    public synchronized void put(String id, double rating, int games) {
+        Standing old = this.standings.get(id);
+        if (old != null) {
+            this.sorted.remove(old);
+            this.addToTree(bucketOf(old.rating()), -1);
+        }
+        Standing standing = new Standing(id, rating, games);
+        this.standings.put(id, standing);
+        this.sorted.add(standing);
+        this.addToTree(bucketOf(rating), 1);
+    }
+
+    /**
+     * Get the rating of a player.
+     * @param id The identity of the player.
+     * @return The standing, or <code>null</code> if the player is not rated.
+     */
+    public synchronized Standing get(String id) {
+        return this.standings.get(id);
+    }
+
+    /**
+     * Get the rank of a player. Players within the same rating point share a rank.
+     * @param id The identity of the player.
+     * @return The rank from 1, or 0 if the player is not rated.
+     */
+    public synchronized int rankOf(String id) {
+        Standing standing = this.standings.get(id);
+        if (standing == null) {
+            return 0;
+        }
+        return this.standings.size() - this.countUpTo(bucketOf(standing.rating())) + 1;
+    }
+
+    /**
+     * Get the best rated players.
+     * @param count The maximum number of players.
+     * @return The standings, the highest rating first.
+     */
+    public List<Standing> top(int count) {
+        List<Standing> top = new ArrayList<>(count);
+        for (Standing standing : this.sorted) {
+            if (top.size() == count) {
+                break;
+            }
+            top.add(standing);
+        }
+        return top;
+    }
+
+    public synchronized int size() {
+        return this.standings.size();
+    }
+
+    /**
+     * @return All the standings, the highest rating first.
+     */
+    public List<Standing> all() {
+        return new ArrayList<>(this.sorted);
+    }
+}
@@ -0,0 +1,234 @@
+package club.denkyoku.tictactoe.services.rating;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Queues of players waiting for a game, one per mod, paired by rating.
+ * <br/>
+ * A queue is a concurrent skip list sorted by rating, so the closest opponents
+ * of a player are its neighbours, found in <code>O(log n)</code> whatever the
+ * size of the queue. A player accepts an opponent within its window, which
+ * widens the longer it waits:
+ * <pre>
+ *     window = INITIAL_WINDOW + WINDOW_WIDENING * seconds waited, at most MAX_WINDOW
+ * </pre>
+ * A second skip list sorted by arrival finds the players waiting too long,
+ * e.g. to give them an AI opponent. All the methods may be called from any thread.
+ * @param <T> The type of the players.
+ */
+public class Matchmaker<T> {
+    public static final double INITIAL_WINDOW = 50.0;
+    // How much the window widens per second of waiting.
+    public static final double WINDOW_WIDENING = 25.0;
+    public static final double MAX_WINDOW = 400.0;
+
+    /**
+     * A player in a queue.
+     * @param queue The key of the queue, e.g. the UUID of the mod.
+     * @param player The player.
+     * @param rating The rating of the player.
+     * @param enqueuedNanos The time the player was queued.
+     * @param sequence The arrival order, which breaks the ties of ratings.
+     */
+    public record Ticket<T>(String queue, T player, double rating, long enqueuedNanos, long sequence) {
+        /**
+         * @param nowNanos The current time.
+         * @return The largest rating difference accepted by the player now.
+         */
+        public double window(long nowNanos) {
+            double waited = (nowNanos - this.enqueuedNanos) / 1e9;
+            return Math.min(MAX_WINDOW, INITIAL_WINDOW + WINDOW_WIDENING * waited);
+        }
+    }
+
+    /**
+     * Two players paired.
+     */
+    public record Match<T>(Ticket<T> first, Ticket<T> second) {
+    }
+
+    protected static final Comparator<Ticket<?>> BY_RATING =
+            Comparator.<Ticket<?>>comparingDouble(Ticket::rating).thenComparingLong(Ticket::sequence);
+    protected static final Comparator<Ticket<?>> BY_ARRIVAL = Comparator.comparingLong(Ticket::sequence);
+
+    /**
+     * The queue of one mod.
+     */
+    protected static class Queue<T> {
+        protected final ConcurrentSkipListSet<Ticket<T>> byRating = new ConcurrentSkipListSet<>(BY_RATING);
+        protected final ConcurrentSkipListSet<Ticket<T>> byArrival = new ConcurrentSkipListSet<>(BY_ARRIVAL);
+    }
+
+    protected final Map<String, Queue<T>> queues = new ConcurrentHashMap<>();
+    protected final AtomicLong nextSequence = new AtomicLong();
+
+    protected Queue<T> queue(String key) {
+        return this.queues.computeIfAbsent(key, k -> new Queue<>());
+    }
+
+    /**
+     * Queue a player.
+     * @param queue The key of the queue, e.g. the UUID of the mod.
+     * @param player The player.
+     * @param rating The rating of the player.
+     * @param nowNanos The current time, see <code>System.nanoTime()</code>.
+     * @return The ticket, to find a match or to cancel.
+     */
+    public Ticket<T> enqueue(String queue, T player, double rating, long nowNanos) {
+        Ticket<T> ticket = new Ticket<>(queue, player, rating, nowNanos, this.nextSequence.getAndIncrement());
+        Queue<T> q = this.queue(queue);
+        q.byArrival.add(ticket);
+        q.byRating.add(ticket);
+        return ticket;
+    }
+
+    /**
+     * Remove a player from its queue.
+     * @param ticket The ticket of the player.
+     * @return <code>false</code> if it was not queued any more, e.g. already paired.
+     */
+    public boolean cancel(Ticket<T> ticket) {
+        Queue<T> q = this.queue(ticket.queue());
+        if (!q.byRating.remove(ticket)) {
+            return false;
+        }
+        q.byArrival.remove(ticket);
+        return true;
+    }
+
+    /**
+     * @param queue The key of the queue.
+     * @return The number of players waiting in it.
+     */
+    public int size(String queue) {
+        Queue<T> q = this.queues.get(queue);
+        return q == null ? 0 : q.byRating.size();
+    }
+
+    /**
+     * Pair a player with the queued player of the closest rating, if both accept it.
+     * The pair is removed from the queue.
+     * @param ticket The ticket of the player.
+     * @param nowNanos The current time.
+     * @return The match, or <code>null</code> if there's no acceptable opponent (yet).
+     */
+    public Match<T> findMatch(Ticket<T> ticket, long nowNanos) {
+        Queue<T> q = this.queue(ticket.queue());
+        while (q.byRating.contains(ticket)) {
+            Ticket<T> lower = q.byRating.lower(ticket);
+            Ticket<T> higher = q.byRating.higher(ticket);
+            Ticket<T> best = null;
+            double bestDistance = Double.MAX_VALUE;
+            for (Ticket<T> candidate : Arrays.asList(lower, higher)) {
+                if (candidate == null) {
+                    continue;
+                }
+                double distance = Math.abs(candidate.rating() - ticket.rating());
+                // the one waiting longer widens the window of both.
+                double window = Math.max(ticket.window(nowNanos), candidate.window(nowNanos));
+                if (distance <= window && distance < bestDistance) {
+                    best = candidate;
+                    bestDistance = distance;
+                }
+            }
+            if (best == null) {
+                return null;
+            }
+            if (this.claim(q, best)) {
+                if (this.claim(q, ticket)) {
+                    return new Match<>(best, ticket);
+                }
+                // paired by another thread meanwhile, the opponent waits again.
+                q.byArrival.add(best);
+                q.byRating.add(best);
+                return null;
+            }
+            // the opponent was taken by another thread, look again.
+        }
+        return null;
+    }
+
+    /**
+     * Pair all the players of a queue who accept each other now, e.g. periodically,
+     * as their windows widen. Neighbours by rating are paired, from the lowest.
+     * @param queue The key of the queue.
+     * @param nowNanos The current time.
+     * @return The matches, removed from the queue.
+     */
+    public List<Match<T>> matchAll(String queue, long nowNanos) {
+        List<Match<T>> matches = new ArrayList<>();
+        Queue<T> q = this.queues.get(queue);
+        if (q == null) {
+            return matches;
+        }
+        Ticket<T> previous = null;
+        for (Ticket<T> ticket : q.byRating) {
+            if (previous != null) {
+                double distance = ticket.rating() - previous.rating();
+                double window = Math.max(ticket.window(nowNanos), previous.window(nowNanos));
+                if (distance <= window && this.claim(q, previous)) {
+                    if (this.claim(q, ticket)) {
+                        matches.add(new Match<>(previous, ticket));
+                        previous = null;
+                        continue;
+                    }
+                    q.byArrival.add(previous);
+                    q.byRating.add(previous);
+                }
+            }
+            previous = ticket;
+        }
+        return matches;
+    }
+
+    /**
+     * Remove the players who have waited longer than a timeout, oldest first.
+     * @param queue The key of the queue.
+     * @param timeoutNanos The longest wait.
+     * @param nowNanos The current time.
+     * @return The tickets of the players removed.
+     */
+    public List<Ticket<T>> expire(String queue, long timeoutNanos, long nowNanos) {
+        List<Ticket<T>> expired = new ArrayList<>();
+        Queue<T> q = this.queues.get(queue);
+        if (q == null) {
+            return expired;
+        }
+        for (Ticket<T> ticket : q.byArrival) {
+            if (nowNanos - ticket.enqueuedNanos() < timeoutNanos) {
+                break;
+            }
+            if (this.claim(q, ticket)) {
+                expired.add(ticket);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * @return The keys of the queues, which have had players.
+     */
+    public List<String> getQueues() {
+        return new ArrayList<>(this.queues.keySet());
+    }
+
+    /**
+     * Helper function to remove a ticket from both orders,
+     * only one thread succeeds for a ticket.
+     */
+    protected boolean claim(Queue<T> q, Ticket<T> ticket) {
+        if (!q.byRating.remove(ticket)) {
+            return false;
+        }
+        q.byArrival.remove(ticket);
+        return true;
+    }
+}
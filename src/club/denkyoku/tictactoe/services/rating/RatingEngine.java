@@ -0,0 +1,137 @@
+package club.denkyoku.tictactoe.services.rating;
+
+import club.denkyoku.tictactoe.services.storage.GameResult;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+
+/**
+ * Elo ratings of the players, one leaderboard per mod.
+ * <br/>
+ * A game with more than two players is rated as the pairwise games
+ * between its players: the winner beats every other player, a draw is
+ * a draw for every pair, and the losers are not compared with each other.
+ * A draw where a player has lost on time is lost by that player against
+ * every other player, who draw with each other.
+ * The K-factor is shared among the pairs of a player.
+ */
+public class RatingEngine {
+    public static final double INITIAL_RATING = 1500.0;
+    public static final double K_FACTOR = 32.0;
+
+    protected final ConcurrentHashMap<String, Leaderboard> leaderboards = new ConcurrentHashMap<>();
+
+    /**
+     * The expected score of a player against an opponent.
+     * @param rating The rating of the player.
+     * @param opponentRating The rating of the opponent.
+     * @return The expected score, from 0 to 1.
+     */
+    public static double expectedScore(double rating, double opponentRating) {
+        return 1.0 / (1.0 + Math.pow(10.0, (opponentRating - rating) / 400.0));
+    }
+
+    /**
+     * Get the leaderboard of a mod.
+     * @param modUUID The UUID of the mod.
+     * @return The leaderboard, created empty if the mod has no rated game.
+     */
+    public Leaderboard getLeaderboard(String modUUID) {
+        return this.leaderboards.computeIfAbsent(modUUID, key -> new Leaderboard());
+    }
+
+    /**
+     * @return The UUIDs of the mods with rated games.
+     */
+    public Collection<String> getModUUIDs() {
+        return this.leaderboards.keySet();
+    }
+
+    /**
+     * Set a rating, e.g. loaded from a checkpoint.
+     * @param modUUID The UUID of the mod.
+     * @param id The identity of the player.
+     * @param rating The rating.
+     * @param games The number of rated games.
+     */
+    public void put(String modUUID, String id, double rating, int games) {
+        this.getLeaderboard(modUUID).put(id, rating, games);
+    }
+
+    /**
+     * Update the ratings of the players of a finished game.
+     * @param result The result of the game.
+     */
+    public void record(GameResult result) {
+        String[] players = result.players();
+        if (players.length < 2) {
+            return;
+        }
+        Leaderboard leaderboard = this.getLeaderboard(result.modUUID());
+        synchronized (leaderboard) {
+            double[] ratings = new double[players.length];
+            int[] games = new int[players.length];
+            for (int i = 0; i < players.length; i++) {
+                Leaderboard.Standing standing = leaderboard.get(players[i]);
+                ratings[i] = standing == null ? INITIAL_RATING : standing.rating();
+                games[i] = standing == null ? 0 : standing.games();
+            }
+
+            int winner = result.winner();
+            double[] deltas = new double[players.length];
+            for (int i = 0; i < players.length; i++) {
+                for (int j = i + 1; j < players.length; j++) {
+                    double score;
+                    if (winner == i) {
+                        score = 1.0;
+                    } else if (winner == j) {
+                        score = 0.0;
+                    } else if (winner >= 0) {
+                        continue;
+                    } else if (result.isLoser(i)) {
+                        score = 0.0;
+                    } else if (result.isLoser(j)) {
+                        score = 1.0;
+                    } else {
+                        score = 0.5;
+                    }
+                    double change = score - expectedScore(ratings[i], ratings[j]);
+                    deltas[i] += change;
+                    deltas[j] -= change;
+                }
+            }
+
+            double k = K_FACTOR / (players.length - 1);
+            for (int i = 0; i < players.length; i++) {
+                leaderboard.put(players[i], ratings[i] + k * deltas[i], games[i] + 1);
+            }
+        }
+    }
+
+    /**
+     * Rate a whole history of games from scratch.
+     * <br/>
+     * Elo depends on the order of the games, so the games of one mod are
+     * replayed in time order, and the mods are rated in parallel.
+     * @param history The results of all the games.
+     * @return The new engine.
+     */
+    public static RatingEngine recompute(List<GameResult> history) {
+        RatingEngine engine = new RatingEngine();
+        Map<String, List<GameResult>> byMod = history.stream()
+                .collect(Collectors.groupingBy(GameResult::modUUID));
+        byMod.entrySet().parallelStream().forEach(entry -> {
+            List<GameResult> games = entry.getValue();
+            games.sort(Comparator.comparingLong(GameResult::timeMillis));
+            for (GameResult game : games) {
+                engine.record(game);
+            }
+        });
+        return engine;
+    }
+}
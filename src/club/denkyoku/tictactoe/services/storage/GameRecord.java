@@ -0,0 +1,131 @@
+package club.denkyoku.tictactoe.services.storage;
+
+import java.util.Arrays;
+
+
+/**
+ * The moves of one game, as stored in a game record archive.
+ * <br/>
+ * A move is the owner of the placed piece (the index of a player) and the
+ * cell it is placed on (<code>y * width + x</code>). The turn order is not
+ * stored, a pass is a move of the next player.
+ * <br/>
+ * The binary format, see <code>GameRecordWriter</code> and <code>GameRecordReader</code>:
+ * <pre>
+ *     "TTTR" version:byte
+ *     modUUID:string width:varint height:varint
+ *     playerCount:byte player:string ...
+ *     seed:long
+ *     (owner:byte cell:varint) ...
+ *     0xFF winner:byte
+ * </pre>
+ * Strings are a varint length and UTF-8 bytes. So a move on a board of up to
+ * 128 cells takes 2 bytes, and a whole Reversi game about 180 bytes.
+ */
+public class GameRecord {
+    public static final int MAGIC = 0x54545452; // "TTTR"
+    public static final int VERSION = 1;
+    // The owner byte which ends the moves.
+    public static final int END_OF_MOVES = 0xFF;
+    // The winner of a game which was quit before its end.
+    public static final int UNFINISHED = -2;
+
+    protected final String modUUID;
+    protected final int width;
+    protected final int height;
+    protected final String[] players;
+    protected final long seed;
+    protected byte[] owners = new byte[64];
+    protected int[] cells = new int[64];
+    protected int moveCount = 0;
+    protected int winner = UNFINISHED;
+
+    /**
+     * Create an empty record.
+     * @param modUUID The UUID of the mod.
+     * @param width The width of the board.
+     * @param height The height of the board.
+     * @param players The identities of the players, in turn order.
+     * @param seed The seed of the random generator of the game.
+     */
+    public GameRecord(String modUUID, int width, int height, String[] players, long seed) {
+        this.modUUID = modUUID;
+        this.width = width;
+        this.height = height;
+        this.players = players;
+        this.seed = seed;
+    }
+
+    /**
+     * Add a move.
+     * @param owner The index of the player owning the placed piece.
+     * @param x The x coordinate of the piece.
+     * @param y The y coordinate of the piece.
+     */
+    public void addMove(int owner, int x, int y) {
+        if (this.moveCount == this.owners.length) {
+            this.owners = Arrays.copyOf(this.owners, this.moveCount * 2);
+            this.cells = Arrays.copyOf(this.cells, this.moveCount * 2);
+        }
+        this.owners[this.moveCount] = (byte) owner;
+        this.cells[this.moveCount] = y * this.width + x;
+        this.moveCount++;
+    }
+
+    /**
+     * Remove the last move, e.g. when it is taken back.
+     */
+    public void removeLastMove() {
+        if (this.moveCount > 0) {
+            this.moveCount--;
+        }
+    }
+
+    public String getModUUID() {
+        return this.modUUID;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    public String[] getPlayers() {
+        return this.players;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public int getMoveCount() {
+        return this.moveCount;
+    }
+
+    public int getOwner(int move) {
+        return this.owners[move];
+    }
+
+    public int getX(int move) {
+        return this.cells[move] % this.width;
+    }
+
+    public int getY(int move) {
+        return this.cells[move] / this.width;
+    }
+
+    /**
+     * @return The index of the winner, -1 for a draw,
+     *         <code>UNFINISHED</code> if the game was quit.
+     */
+    public int getWinner() {
+        return this.winner;
+    }
+
+    public void setWinner(int winner) {
+        this.winner = winner;
+    }
+}
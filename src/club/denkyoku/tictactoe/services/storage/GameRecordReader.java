@@ -0,0 +1,122 @@
+package club.denkyoku.tictactoe.services.storage;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+/**
+ * A streaming reader of the records of an archive (see <code>GameRecord</code>).
+ * <pre>
+ *     try (GameRecordReader reader = GameRecordReader.open(path)) {
+ *         GameRecord record;
+ *         while ((record = reader.next()) != null) {
+ *             ...
+ *         }
+ *     }
+ * </pre>
+ */
+public class GameRecordReader implements AutoCloseable {
+    protected final InputStream in;
+
+    /**
+     * Create a reader of a stream.
+     * @param in The stream of the archive, it should be buffered.
+     */
+    public GameRecordReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Open an archive file.
+     * @param path The path of the archive.
+     * @return The reader.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static GameRecordReader open(Path path) throws IOException {
+        return new GameRecordReader(new BufferedInputStream(Files.newInputStream(path), 64 * 1024));
+    }
+
+    /**
+     * Read the next record.
+     * @return The record, or <code>null</code> at the end of the archive.
+     * @throws IOException If the archive is malformed, or ends inside a record.
+     */
+    public GameRecord next() throws IOException {
+        int first = this.in.read();
+        if (first < 0) {
+            return null;
+        }
+        int magic = (first << 24) | (this.readByte() << 16) | (this.readByte() << 8) | this.readByte();
+        if (magic != GameRecord.MAGIC) {
+            throw new IOException("not a game record");
+        }
+        int version = this.readByte();
+        if (version != GameRecord.VERSION) {
+            throw new IOException("unsupported game record version " + version);
+        }
+
+        String modUUID = this.readString();
+        int width = this.readVarInt();
+        int height = this.readVarInt();
+        String[] players = new String[this.readByte()];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = this.readString();
+        }
+        long seed = ((long) this.readInt() << 32) | (this.readInt() & 0xFFFFFFFFL);
+
+        GameRecord record = new GameRecord(modUUID, width, height, players, seed);
+        while (true) {
+            int owner = this.readByte();
+            if (owner == GameRecord.END_OF_MOVES) {
+                break;
+            }
+            int cell = this.readVarInt();
+            record.addMove(owner, cell % width, cell / width);
+        }
+        record.setWinner((byte) this.readByte());
+        return record;
+    }
+
+    protected int readByte() throws IOException {
+        int value = this.in.read();
+        if (value < 0) {
+            throw new EOFException("the archive ends inside a record");
+        }
+        return value;
+    }
+
+    protected int readInt() throws IOException {
+        return (this.readByte() << 24) | (this.readByte() << 16) | (this.readByte() << 8) | this.readByte();
+    }
+
+    protected int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = this.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    protected String readString() throws IOException {
+        int length = this.readVarInt();
+        byte[] bytes = this.in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("the archive ends inside a record");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+}
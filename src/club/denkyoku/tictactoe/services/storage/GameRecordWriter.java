@@ -0,0 +1,169 @@
+package club.denkyoku.tictactoe.services.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * A streaming writer of game records into an archive.
+ * <br/>
+ * An archive is a sequence of records (see <code>GameRecord</code>),
+ * so games are appended to one file. The moves are encoded as they are
+ * played, and a game is written to the file at once when it ends,
+ * so the archive never holds half a game.
+ * <br/>
+ * If the archive cannot be written, the writer is disabled quietly,
+ * so it never disturbs the game.
+ */
+public class GameRecordWriter {
+    protected final OutputStream out;
+    // The encoded current game.
+    protected final ByteArrayOutputStream game = new ByteArrayOutputStream(256);
+    protected int width;
+    protected boolean inGame = false;
+    protected boolean failed = false;
+
+    /**
+     * Create a writer to a stream.
+     * @param out The stream of the archive.
+     */
+    public GameRecordWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Create a writer appending to the archive file of a system property.
+     * @param property The name of the system property.
+     * @return The writer, or <code>null</code> if the property is not set
+     *         or the file cannot be opened.
+     */
+    public static GameRecordWriter fromProperty(String property) {
+        String path = System.getProperty(property);
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        try {
+            return new GameRecordWriter(new BufferedOutputStream(Files.newOutputStream(Path.of(path),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Start a game. An unfinished game is ended first.
+     * @param modUUID The UUID of the mod.
+     * @param width The width of the board.
+     * @param height The height of the board.
+     * @param players The identities of the players, in turn order.
+     * @param seed The seed of the random generator of the game.
+     */
+    public synchronized void begin(String modUUID, int width, int height, String[] players, long seed) {
+        if (this.inGame) {
+            this.end(GameRecord.UNFINISHED);
+        }
+        this.width = width;
+        this.inGame = true;
+        this.game.reset();
+        try {
+            writeInt(this.game, GameRecord.MAGIC);
+            this.game.write(GameRecord.VERSION);
+            writeString(this.game, modUUID);
+            writeVarInt(this.game, width);
+            writeVarInt(this.game, height);
+            this.game.write(players.length);
+            for (String player : players) {
+                writeString(this.game, player);
+            }
+            writeLong(this.game, seed);
+        } catch (IOException e) {
+            this.failed = true;
+        }
+    }
+
+    /**
+     * Write a move of the current game.
+     * @param owner The index of the player owning the placed piece.
+     * @param x The x coordinate of the piece.
+     * @param y The y coordinate of the piece.
+     */
+    public synchronized void move(int owner, int x, int y) {
+        if (!this.inGame || this.failed) {
+            return;
+        }
+        try {
+            this.game.write(owner);
+            writeVarInt(this.game, y * this.width + x);
+        } catch (IOException e) {
+            this.failed = true;
+        }
+    }
+
+    /**
+     * End the current game, and flush it to the archive.
+     * @param winner The index of the winner, -1 for a draw,
+     *               <code>GameRecord.UNFINISHED</code> if the game was quit.
+     */
+    public synchronized void end(int winner) {
+        if (!this.inGame) {
+            return;
+        }
+        this.inGame = false;
+        if (this.failed) {
+            return;
+        }
+        try {
+            this.game.write(GameRecord.END_OF_MOVES);
+            this.game.write(winner);
+            this.game.writeTo(this.out);
+            this.out.flush();
+        } catch (IOException e) {
+            this.failed = true;
+        }
+    }
+
+    /**
+     * Write a whole record, e.g. when converting or filtering an archive.
+     * @param record The record.
+     */
+    public synchronized void write(GameRecord record) {
+        this.begin(record.getModUUID(), record.getWidth(), record.getHeight(),
+                record.getPlayers(), record.getSeed());
+        for (int i = 0; i < record.getMoveCount(); i++) {
+            this.move(record.getOwner(i), record.getX(i), record.getY(i));
+        }
+        this.end(record.getWinner());
+    }
+
+    protected static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    protected static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    protected static void writeLong(OutputStream out, long value) throws IOException {
+        writeInt(out, (int) (value >>> 32));
+        writeInt(out, (int) value);
+    }
+
+    protected static void writeString(OutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,32 @@
+package club.denkyoku.tictactoe.services.storage;
+
+
+/**
+ * The result of one finished game.
+ * @param timeMillis The time the game ended, in milliseconds since the epoch.
+ * @param modUUID The UUID of the game mod.
+ * @param players The names of the players, in turn order.
+ * @param winner The index of the winner in <code>players</code>, -1 for a draw.
+ * @param moveCount The number of moves played.
+ * @param durationMillis The duration of the game in milliseconds.
+ * @param flagged The index of the player who has lost on time, -1 if none.
+ *                Without a winner, this player loses and the others tie.
+ */
+public record GameResult(long timeMillis, String modUUID, String[] players, int winner,
+                         int moveCount, long durationMillis, int flagged) {
+    /**
+     * The result of a game not lost on time.
+     */
+    public GameResult(long timeMillis, String modUUID, String[] players, int winner,
+                      int moveCount, long durationMillis) {
+        this(timeMillis, modUUID, players, winner, moveCount, durationMillis, -1);
+    }
+
+    /**
+     * @param player The index of a player.
+     * @return Whether the player has lost the game, on time or not.
+     */
+    public boolean isLoser(int player) {
+        return this.winner >= 0 ? this.winner != player : this.flagged == player;
+    }
+}
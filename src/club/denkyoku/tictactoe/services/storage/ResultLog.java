@@ -0,0 +1,286 @@
+package club.denkyoku.tictactoe.services.storage;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+
+/**
+ * An append-only, memory-mapped binary log of game results.
+ * <br/>
+ * The file starts with a header (<code>TTTS</code>, version), followed by
+ * the records: <code>[int length][payload][int crc32 of payload]</code>.
+ * The file grows by mapped regions, whose unused tail is zero, so a
+ * length of 0 marks the end of the log. A torn record at the end (e.g.
+ * after a crash) fails its checksum, and is overwritten by the next append.
+ * <br/>
+ * The payload ends with the player who has lost on time, which the records
+ * written before it was added lack: they are read as not lost on time.
+ * <br/>
+ * The log is not thread-safe, it is owned by the writer thread of
+ * <code>ResultStore</code>. Across processes, the file is locked by the first
+ * one to open it, the others open it read-only: they can replay it, but not append.
+ */
+public class ResultLog implements AutoCloseable {
+    protected static final int MAGIC = 0x54545453; // "TTTS"
+    protected static final int VERSION = 1;
+    protected static final int HEADER_SIZE = 16;
+    // The size of one mapped region, both for appending and scanning.
+    protected static final int REGION_SIZE = 4 * 1024 * 1024;
+
+    protected final FileChannel channel;
+    // Whether another process (or another log of this one) has locked the file.
+    protected final boolean readOnly;
+    protected MappedByteBuffer region;
+    protected long regionStart;
+    protected long end;
+
+    /**
+     * Open (or create) a log, and lock it, or else open it read-only.
+     * @param path The path of the log file.
+     * @throws IOException If the file cannot be opened, or is not a result log.
+     */
+    public ResultLog(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            // released when the channel is closed.
+            lock = this.channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+        this.readOnly = lock == null;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (this.channel.size() == 0) {
+            if (!this.readOnly) {
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                this.channel.write(header, 0);
+            }
+        } else {
+            this.channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < 8 || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                this.channel.close();
+                throw new IOException("not a result log: " + path);
+            }
+        }
+        this.end = HEADER_SIZE;
+    }
+
+    /**
+     * @return Whether the log is locked by another process, so it cannot be appended to.
+     */
+    public boolean isReadOnly() {
+        return this.readOnly;
+    }
+
+    /**
+     * @return The offset after the last valid record.
+     */
+    public long getEnd() {
+        return this.end;
+    }
+
+    /**
+     * Read the records from an offset, and place the end of the log
+     * after the last valid one.
+     * @param from The offset of the first record to read,
+     *             e.g. the offset saved by a checkpoint.
+     * @param consumer The consumer of the results.
+     * @return The number of records read.
+     * @throws IOException If the file cannot be read.
+     */
+    public long replay(long from, Consumer<GameResult> consumer) throws IOException {
+        long size = this.channel.size();
+        long offset = Math.max(from, HEADER_SIZE);
+        long count = 0;
+        MappedByteBuffer window = null;
+        long windowStart = 0;
+
+        while (offset + 4 <= size) {
+            // map a new window when the record may not be inside the current one.
+            if (window == null || offset + 4 > windowStart + window.capacity()) {
+                windowStart = offset;
+                window = this.channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        Math.min(REGION_SIZE, size - offset));
+            }
+            int length = window.getInt((int) (offset - windowStart));
+            if (length <= 0 || offset + 8 + length > size) {
+                break;
+            }
+            if (offset + 8 + length > windowStart + window.capacity()) {
+                windowStart = offset;
+                window = this.channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        Math.min(Math.max(REGION_SIZE, 8L + length), size - offset));
+            }
+            ByteBuffer payload = window.slice((int) (offset - windowStart) + 4, length);
+            int crc = window.getInt((int) (offset - windowStart) + 4 + length);
+            if (crc != checksum(payload)) {
+                break;
+            }
+            GameResult result = decode(payload);
+            if (result == null) {
+                break;
+            }
+            consumer.accept(result);
+            count++;
+            offset += 8 + length;
+        }
+        this.end = offset;
+        return count;
+    }
+
+    /**
+     * Walk the records from the header up to an offset, by their lengths only,
+     * e.g. to check that the offset saved by a checkpoint is the end of a record.
+     * @param to The offset to walk to.
+     * @return The offset of the first record at or after <code>to</code>,
+     *         or the end of the log if it's before <code>to</code>.
+     * @throws IOException If the file cannot be read.
+     */
+    public long skip(long to) throws IOException {
+        long size = this.channel.size();
+        long offset = HEADER_SIZE;
+        MappedByteBuffer window = null;
+        long windowStart = 0;
+
+        while (offset < to && offset + 4 <= size) {
+            if (window == null || offset + 4 > windowStart + window.capacity()) {
+                windowStart = offset;
+                window = this.channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        Math.min(REGION_SIZE, size - offset));
+            }
+            int length = window.getInt((int) (offset - windowStart));
+            if (length <= 0 || offset + 8 + length > size) {
+                break;
+            }
+            offset += 8 + length;
+        }
+        return offset;
+    }
+
+    /**
+     * Append a record to the end of the log.
+     * <br/>
+     * The record is in the page cache when it returns, <code>force()</code>
+     * writes it to the disk.
+     * @param result The result to append.
+     * @throws IOException If the file cannot be mapped, or the log is read-only.
+     */
+    public void append(GameResult result) throws IOException {
+        if (this.readOnly) {
+            throw new IOException("The result log is locked by another process.");
+        }
+        byte[] payload = encode(result);
+        int recordSize = 8 + payload.length;
+        // the record is followed by the end marker, both must fit in the region.
+        if (this.region == null || this.end + recordSize + 4 > this.regionStart + this.region.capacity()) {
+            if (this.region != null) {
+                this.region.force();
+            }
+            this.regionStart = this.end;
+            this.region = this.channel.map(FileChannel.MapMode.READ_WRITE, this.regionStart,
+                    Math.max(REGION_SIZE, recordSize + 4));
+        }
+        int position = (int) (this.end - this.regionStart);
+        this.region.put(position + 4, payload);
+        this.region.putInt(position + 4 + payload.length, checksum(ByteBuffer.wrap(payload)));
+        // mark the end, in case a torn record was overwritten.
+        this.region.putInt(position + recordSize, 0);
+        // the length is written last, so a record is never seen half written.
+        this.region.putInt(position, payload.length);
+        this.end += recordSize;
+    }
+
+    /**
+     * Write the appended records to the disk.
+     */
+    public void force() {
+        if (this.region != null) {
+            this.region.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.force();
+        this.region = null;
+        this.channel.close();
+    }
+
+    protected static int checksum(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Helper function to encode a result into a payload.
+     * @param result The result.
+     * @return The payload.
+     */
+    protected static byte[] encode(GameResult result) {
+        byte[] mod = result.modUUID().getBytes(StandardCharsets.UTF_8);
+        byte[][] names = new byte[result.players().length][];
+        int size = 8 + 2 + mod.length + 1 + 1 + 4 + 8 + 1;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = result.players()[i].getBytes(StandardCharsets.UTF_8);
+            size += 2 + names[i].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(result.timeMillis());
+        buffer.putShort((short) mod.length).put(mod);
+        buffer.put((byte) names.length);
+        for (byte[] name : names) {
+            buffer.putShort((short) name.length).put(name);
+        }
+        buffer.put((byte) result.winner());
+        buffer.putInt(result.moveCount());
+        buffer.putLong(result.durationMillis());
+        buffer.put((byte) result.flagged());
+        return buffer.array();
+    }
+
+    /**
+     * Helper function to decode a payload.
+     * @param payload The payload.
+     * @return The result, or <code>null</code> if the payload is malformed.
+     */
+    protected static GameResult decode(ByteBuffer payload) {
+        try {
+            long time = payload.getLong();
+            String mod = getString(payload);
+            String[] players = new String[payload.get() & 0xff];
+            for (int i = 0; i < players.length; i++) {
+                players[i] = getString(payload);
+            }
+            int winner = payload.get();
+            int moveCount = payload.getInt();
+            long duration = payload.getLong();
+            int flagged = payload.hasRemaining() ? payload.get() : -1;
+            return new GameResult(time, mod, players, winner, moveCount, duration, flagged);
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    protected static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
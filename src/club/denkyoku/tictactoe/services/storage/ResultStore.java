@@ -0,0 +1,387 @@
+package club.denkyoku.tictactoe.services.storage;
+
+import club.denkyoku.tictactoe.services.rating.Leaderboard;
+import club.denkyoku.tictactoe.services.rating.RatingEngine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * The persistent store of game results.
+ * <br/>
+ * Every result is appended to a <code>ResultLog</code> (<code>results.log</code>),
+ * and counted in an in-memory index of wins, losses and ties per mod and player,
+ * and in the Elo ratings of the players (<code>RatingEngine</code>).
+ * <br/>
+ * <code>append()</code> only queues the result, a writer thread writes it,
+ * so a turn never waits for the disk. The index follows the writer, a result
+ * is counted as soon as it is written, and <code>flush()</code> waits for it,
+ * e.g. to show the records with the game just ended.
+ * <br/>
+ * Every <code>CHECKPOINT_INTERVAL</code> results (and on close), the index is
+ * compacted into a checkpoint (<code>results.idx</code>) with the log offset
+ * it covers. At startup, the checkpoint is loaded and only the log after it
+ * is replayed, so startup stays fast however many games are recorded. The offset
+ * is checked to end a record of the log, walking the record lengths only.
+ * <br/>
+ * Only one process writes the store: if another one holds the lock of the log,
+ * the store is read-only, the results of this process are counted in memory,
+ * but neither logged nor checkpointed.
+ */
+public class ResultStore {
+    protected static final int CHECKPOINT_MAGIC = 0x54545449; // "TTTI"
+    protected static final int CHECKPOINT_VERSION = 2;
+    protected static final int CHECKPOINT_INTERVAL = 4096;
+
+    // The result which asks the writer thread to stop.
+    protected static final GameResult CLOSE = new GameResult(0, "", new String[0], -1, 0, 0);
+
+    protected final Path checkpointPath;
+    protected final ResultLog log;
+    protected final ConcurrentHashMap<String, PlayerRecord> index = new ConcurrentHashMap<>();
+    protected final LinkedBlockingQueue<GameResult> queue = new LinkedBlockingQueue<>();
+    protected final Thread writer;
+    protected volatile RatingEngine ratings = new RatingEngine();
+    protected int uncheckpointed = 0;
+    // The number of results appended, and of them counted (or failed), see flush().
+    protected final AtomicLong appended = new AtomicLong();
+    protected long counted = 0;
+    // The number of results whose writing (or checkpoint) has failed.
+    protected final AtomicLong failed = new AtomicLong();
+
+    /**
+     * The record of a player in one mod.
+     */
+    public static class PlayerRecord {
+        protected volatile int wins;
+        protected volatile int losses;
+        protected volatile int ties;
+
+        public int getWins() {
+            return this.wins;
+        }
+
+        public int getLosses() {
+            return this.losses;
+        }
+
+        public int getTies() {
+            return this.ties;
+        }
+
+        public int getGames() {
+            return this.wins + this.losses + this.ties;
+        }
+    }
+
+    /**
+     * Open the store in a directory, and start its writer thread.
+     * @param directory The directory of the store, created if it does not exist.
+     * @throws IOException If the log cannot be opened or read.
+     */
+    public ResultStore(Path directory) throws IOException {
+        this(directory, false);
+    }
+
+    /**
+     * Open the store in a directory, and start its writer thread.
+     * @param directory The directory of the store, created if it does not exist.
+     * @param recomputeRatings Whether to rate the whole history again,
+     *                         instead of loading the ratings from the checkpoint.
+     * @throws IOException If the log cannot be opened or read.
+     */
+    public ResultStore(Path directory, boolean recomputeRatings) throws IOException {
+        Files.createDirectories(directory);
+        this.checkpointPath = directory.resolve("results.idx");
+        Path logPath = directory.resolve("results.log");
+        this.log = new ResultLog(logPath);
+
+        long offset = this.loadCheckpoint();
+        try {
+            if (offset > 0 && this.log.skip(offset) != offset) {
+                // the checkpoint is not of this log (e.g. newer than it, the file being
+                // padded by the mapping), rebuild the index and the ratings from the log.
+                this.index.clear();
+                this.ratings = new RatingEngine();
+                offset = 0;
+            }
+            this.uncheckpointed = (int) Math.min(Integer.MAX_VALUE, this.log.replay(offset, this::count));
+            if (recomputeRatings) {
+                List<GameResult> history = new ArrayList<>();
+                this.log.replay(0, history::add);
+                this.ratings = RatingEngine.recompute(history);
+            }
+        } catch (IOException e) {
+            this.log.close();
+            throw e;
+        }
+
+        this.writer = new Thread(this::runWriter, "result-store-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Open the store in a directory, quietly.
+     * @param directory The directory of the store.
+     * @param recomputeRatings Whether to rate the whole history again.
+     * @return The store, or <code>null</code> if it cannot be opened,
+     *         so that the game goes on without it.
+     */
+    public static ResultStore open(Path directory, boolean recomputeRatings) {
+        try {
+            ResultStore store = new ResultStore(directory, recomputeRatings);
+            Runtime.getRuntime().addShutdownHook(new Thread(store::close, "result-store-close"));
+            return store;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return Whether the store is written by another process, see <code>ResultLog.isReadOnly()</code>.
+     */
+    public boolean isReadOnly() {
+        return this.log.isReadOnly();
+    }
+
+    /**
+     * Queue a result to be written. It never blocks.
+     * @param result The result of a game.
+     */
+    public void append(GameResult result) {
+        this.appended.incrementAndGet();
+        this.queue.offer(result);
+    }
+
+    /**
+     * Wait until the results appended so far are counted, in the index and the ratings.
+     * @param timeoutMillis The longest wait, in milliseconds.
+     * @return Whether they are counted, <code>false</code> on a timeout.
+     */
+    public boolean flush(long timeoutMillis) {
+        long target = this.appended.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (this) {
+            while (this.counted < target && this.writer.isAlive()) {
+                long wait = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (wait <= 0) {
+                    return false;
+                }
+                try {
+                    this.wait(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return this.counted >= target;
+        }
+    }
+
+    /**
+     * @return The number of results whose writing (or checkpoint) has failed.
+     */
+    public long getFailedCount() {
+        return this.failed.get();
+    }
+
+    /**
+     * Get the record of a player in a mod.
+     * @param modUUID The UUID of the mod.
+     * @param player The name of the player.
+     * @return The record, or <code>null</code> if the player has no recorded game.
+     */
+    public PlayerRecord getRecord(String modUUID, String player) {
+        return this.index.get(key(modUUID, player));
+    }
+
+    /**
+     * Get the Elo ratings of the players. They are updated by the writer thread.
+     * @return The rating engine.
+     */
+    public RatingEngine getRatings() {
+        return this.ratings;
+    }
+
+    /**
+     * Write the queued results, compact the index into a checkpoint,
+     * and stop the writer thread.
+     */
+    public void close() {
+        if (!this.writer.isAlive()) {
+            return;
+        }
+        this.queue.offer(CLOSE);
+        try {
+            this.writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    protected static String key(String modUUID, String player) {
+        return modUUID + '\n' + player;
+    }
+
+    /**
+     * Helper function to count a result in the index.
+     * @param result The result.
+     */
+    protected void count(GameResult result) {
+        String[] players = result.players();
+        for (int i = 0; i < players.length; i++) {
+            PlayerRecord record = this.index.computeIfAbsent(
+                    key(result.modUUID(), players[i]), k -> new PlayerRecord());
+            // only the writer thread (or the constructor) counts.
+            if (result.winner() == i) {
+                record.wins++;
+            } else if (result.isLoser(i)) {
+                record.losses++;
+            } else {
+                record.ties++;
+            }
+        }
+        this.ratings.record(result);
+    }
+
+    protected void runWriter() {
+        try {
+            while (true) {
+                GameResult result = this.queue.take();
+                if (result == CLOSE) {
+                    break;
+                }
+                try {
+                    if (this.log.isReadOnly()) {
+                        this.count(result);
+                    } else {
+                        this.log.append(result);
+                        this.count(result);
+                        if (++this.uncheckpointed >= CHECKPOINT_INTERVAL) {
+                            this.saveCheckpoint();
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // the writer goes on with the next results.
+                    this.failed.incrementAndGet();
+                }
+                // a result which cannot be written is given up, its waiters too.
+                synchronized (this) {
+                    this.counted++;
+                    this.notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+        }
+
+        try {
+            if (!this.log.isReadOnly()) {
+                this.saveCheckpoint();
+            }
+            this.log.close();
+        } catch (IOException | RuntimeException e) {
+        }
+        synchronized (this) {
+            // the results left are never counted.
+            this.notifyAll();
+        }
+    }
+
+    /**
+     * Helper function to load the checkpoint into the index.
+     * @return The log offset the checkpoint covers, 0 if there's no valid checkpoint.
+     */
+    protected long loadCheckpoint() {
+        Map<String, PlayerRecord> records = new HashMap<>();
+        RatingEngine ratings = new RatingEngine();
+        long offset;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(this.checkpointPath)))) {
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION) {
+                return 0;
+            }
+            offset = in.readLong();
+            int entries = in.readInt();
+            for (int i = 0; i < entries; i++) {
+                String key = in.readUTF();
+                PlayerRecord record = new PlayerRecord();
+                record.wins = in.readInt();
+                record.losses = in.readInt();
+                record.ties = in.readInt();
+                records.put(key, record);
+            }
+            int mods = in.readInt();
+            for (int i = 0; i < mods; i++) {
+                String modUUID = in.readUTF();
+                int standings = in.readInt();
+                for (int j = 0; j < standings; j++) {
+                    ratings.put(modUUID, in.readUTF(), in.readDouble(), in.readInt());
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            // a broken checkpoint, rebuild the index from the whole log.
+            return 0;
+        }
+        this.index.putAll(records);
+        this.ratings = ratings;
+        return offset;
+    }
+
+    /**
+     * Helper function to write the index into a new checkpoint,
+     * which replaces the old one at once.
+     * @throws IOException If the checkpoint cannot be written.
+     */
+    protected void saveCheckpoint() throws IOException {
+        this.log.force();
+        Path temp = this.checkpointPath.resolveSibling(this.checkpointPath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temp)))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(CHECKPOINT_VERSION);
+            out.writeLong(this.log.getEnd());
+            Map<String, PlayerRecord> records = new HashMap<>(this.index);
+            out.writeInt(records.size());
+            for (Map.Entry<String, PlayerRecord> entry : records.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().wins);
+                out.writeInt(entry.getValue().losses);
+                out.writeInt(entry.getValue().ties);
+            }
+            RatingEngine ratings = this.ratings;
+            List<String> mods = new ArrayList<>(ratings.getModUUIDs());
+            out.writeInt(mods.size());
+            for (String modUUID : mods) {
+                List<Leaderboard.Standing> standings = ratings.getLeaderboard(modUUID).all();
+                out.writeUTF(modUUID);
+                out.writeInt(standings.size());
+                for (Leaderboard.Standing standing : standings) {
+                    out.writeUTF(standing.id());
+                    out.writeDouble(standing.rating());
+                    out.writeInt(standing.games());
+                }
+            }
+        }
+        Files.move(temp, this.checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.uncheckpointed = 0;
+    }
+}
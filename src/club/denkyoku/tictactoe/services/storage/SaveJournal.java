@@ -0,0 +1,324 @@
+package club.denkyoku.tictactoe.services.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+
+/**
+ * The save of an in-progress game: a snapshot of the game state,
+ * and a journal of the turns played after it.
+ * <br/>
+ * <code>snapshot()</code>, <code>append()</code> and <code>clear()</code> only
+ * queue the operation, a writer thread does it in order. The journal entries
+ * queued together are written at once and synced with one <code>force()</code>
+ * (group commit), so a turn never waits for the disk.
+ * <br/>
+ * A snapshot replaces the old one at once, and empties the journal.
+ * Every snapshot has a random generation, which is written with the journal
+ * entries after it, so entries left by a crash between replacing the snapshot
+ * and emptying the journal are ignored.
+ * <br/>
+ * The snapshot (<code>game.snapshot</code>) is <code>[int magic][long generation][int length][state][int crc32]</code>,
+ * the journal (<code>game.journal</code>) is a sequence of <code>[short length][long generation][entry][int crc32]</code>.
+ * The state and the entries are opaque bytes for the store.
+ * <br/>
+ * Only one process saves its game in a directory: the save is locked
+ * (<code>game.lock</code>) by the first one to open it, and cannot be opened
+ * by the others, whose games are then not saved.
+ */
+public class SaveJournal {
+    protected static final int SNAPSHOT_MAGIC = 0x54545447; // "TTTG"
+
+    /**
+     * A loaded save.
+     * @param snapshot The state of the last snapshot.
+     * @param entries The journal entries after the snapshot, in order.
+     */
+    public record Saved(byte[] snapshot, List<byte[]> entries) {
+    }
+
+    protected enum Kind { SNAPSHOT, ENTRY, CLEAR, CLOSE }
+
+    protected record Operation(Kind kind, byte[] data) {
+    }
+
+    protected final Path snapshotPath;
+    protected final Path journalPath;
+    protected final LinkedBlockingQueue<Operation> queue = new LinkedBlockingQueue<>();
+    protected final Thread writer;
+    // The lock file, locked until the writer thread stops.
+    protected final FileChannel lock;
+    protected FileChannel journal;
+    // The generation of the current snapshot.
+    protected volatile long generation;
+
+    /**
+     * Open the save in a directory, lock it, and start its writer thread.
+     * @param directory The directory, created if it does not exist.
+     * @throws IOException If the directory cannot be created,
+     *                     or the save is locked by another process.
+     */
+    public SaveJournal(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.snapshotPath = directory.resolve("game.snapshot");
+        this.journalPath = directory.resolve("game.journal");
+        this.lock = FileChannel.open(directory.resolve("game.lock"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock fileLock;
+        try {
+            // released when the channel is closed.
+            fileLock = this.lock.tryLock();
+        } catch (OverlappingFileLockException e) {
+            fileLock = null;
+        } catch (IOException e) {
+            this.lock.close();
+            throw e;
+        }
+        if (fileLock == null) {
+            this.lock.close();
+            throw new IOException("The save is locked by another process.");
+        }
+        this.writer = new Thread(this::runWriter, "save-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Open the save in a directory, quietly.
+     * @param directory The directory.
+     * @return The save, or <code>null</code> if it cannot be opened,
+     *         e.g. another process saves its game there,
+     *         so that the game goes on without it.
+     */
+    public static SaveJournal open(Path directory) {
+        try {
+            SaveJournal save = new SaveJournal(directory);
+            Runtime.getRuntime().addShutdownHook(new Thread(save::close, "save-journal-close"));
+            return save;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Queue a new snapshot, which replaces the save.
+     * @param state The encoded game state.
+     */
+    public void snapshot(byte[] state) {
+        this.queue.offer(new Operation(Kind.SNAPSHOT, state));
+    }
+
+    /**
+     * Queue a journal entry.
+     * @param entry The encoded entry, at most 65535 bytes.
+     */
+    public void append(byte[] entry) {
+        this.queue.offer(new Operation(Kind.ENTRY, entry));
+    }
+
+    /**
+     * Queue the deletion of the save, e.g. when the game ends.
+     */
+    public void clear() {
+        this.queue.offer(new Operation(Kind.CLEAR, null));
+    }
+
+    /**
+     * Write the queued operations, and stop the writer thread.
+     */
+    public void close() {
+        if (!this.writer.isAlive()) {
+            return;
+        }
+        this.queue.offer(new Operation(Kind.CLOSE, null));
+        try {
+            this.writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Load the save. It should be called before any operation is queued.
+     * <br/>
+     * The journal is read up to its first broken entry, e.g. one torn by a crash.
+     * @return The save, or <code>null</code> if there's no valid snapshot.
+     */
+    public Saved load() {
+        byte[] snapshot;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.snapshotPath));
+            if (buffer.remaining() < 20 || buffer.getInt() != SNAPSHOT_MAGIC) {
+                return null;
+            }
+            this.generation = buffer.getLong();
+            int length = buffer.getInt();
+            if (length < 0 || buffer.remaining() != length + 4) {
+                return null;
+            }
+            snapshot = new byte[length];
+            buffer.get(snapshot);
+            if (buffer.getInt() != checksum(snapshot)) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+
+        List<byte[]> entries = new ArrayList<>();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.journalPath));
+            while (buffer.remaining() >= 10) {
+                int length = buffer.getShort() & 0xFFFF;
+                long generation = buffer.getLong();
+                if (buffer.remaining() < length + 4) {
+                    break;
+                }
+                byte[] entry = new byte[length];
+                buffer.get(entry);
+                if (buffer.getInt() != checksum(entry) || generation != this.generation) {
+                    break;
+                }
+                entries.add(entry);
+            }
+        } catch (NoSuchFileException e) {
+        } catch (IOException e) {
+        }
+        return new Saved(snapshot, entries);
+    }
+
+    protected static int checksum(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    protected void runWriter() {
+        List<Operation> batch = new ArrayList<>();
+        ByteBuffer pending = ByteBuffer.allocate(4096);
+        boolean running = true;
+        while (running) {
+            batch.clear();
+            try {
+                batch.add(this.queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            this.queue.drainTo(batch);
+
+            for (Operation operation : batch) {
+                if (operation.kind() == Kind.ENTRY) {
+                    int size = 2 + 8 + operation.data().length + 4;
+                    if (pending.remaining() < size) {
+                        pending = this.commit(pending, size);
+                    }
+                    pending.putShort((short) operation.data().length)
+                            .putLong(this.generation)
+                            .put(operation.data())
+                            .putInt(checksum(operation.data()));
+                    continue;
+                }
+                // the entries before a snapshot (or a clear) go first.
+                pending = this.commit(pending, 0);
+                switch (operation.kind()) {
+                    case SNAPSHOT -> this.writeSnapshot(operation.data());
+                    case CLEAR -> this.deleteSave();
+                    case CLOSE -> running = false;
+                    default -> { }
+                }
+            }
+            pending = this.commit(pending, 0);
+        }
+        try {
+            if (this.journal != null) {
+                this.journal.close();
+            }
+        } catch (IOException e) {
+        }
+        try {
+            this.lock.close();
+        } catch (IOException e) {
+        }
+    }
+
+    /**
+     * Helper function to write and sync the pending journal entries at once.
+     * @param pending The pending entries.
+     * @param needed The size of the next entry.
+     * @return The empty buffer for the next entries, grown if needed.
+     */
+    protected ByteBuffer commit(ByteBuffer pending, int needed) {
+        if (pending.position() > 0) {
+            pending.flip();
+            try {
+                if (this.journal == null) {
+                    this.journal = FileChannel.open(this.journalPath, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                }
+                while (pending.hasRemaining()) {
+                    this.journal.write(pending);
+                }
+                this.journal.force(false);
+            } catch (IOException e) {
+            }
+        }
+        pending.clear();
+        if (pending.capacity() < needed) {
+            return ByteBuffer.allocate(Math.max(needed, pending.capacity() * 2));
+        }
+        return pending;
+    }
+
+    protected void writeSnapshot(byte[] state) {
+        Path temp = this.snapshotPath.resolveSibling(this.snapshotPath.getFileName() + ".tmp");
+        long generation = ThreadLocalRandom.current().nextLong();
+        ByteBuffer buffer = ByteBuffer.allocate(20 + state.length);
+        buffer.putInt(SNAPSHOT_MAGIC).putLong(generation).putInt(state.length)
+                .put(state).putInt(checksum(state)).flip();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            return;
+        }
+        try {
+            Files.move(temp, this.snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.generation = generation;
+            this.truncateJournal();
+        } catch (IOException e) {
+        }
+    }
+
+    protected void deleteSave() {
+        try {
+            Files.deleteIfExists(this.snapshotPath);
+            this.truncateJournal();
+        } catch (IOException e) {
+        }
+    }
+
+    protected void truncateJournal() throws IOException {
+        if (this.journal != null) {
+            this.journal.truncate(0);
+            this.journal.force(false);
+        } else {
+            Files.deleteIfExists(this.journalPath);
+        }
+    }
+}
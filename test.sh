@@ -0,0 +1,42 @@
+work_path=$(dirname $(readlink -f $0))
+cd ${work_path}
+
+./requirements.sh
+ret=$?
+if [ $ret -ne 0 ]; then
+  echo "Cannot find necessary libraries."
+  exit $ret
+fi
+
+# JUnit, with its console launcher
+mkdir -p test/lib
+path1="org/junit/platform/junit-platform-console-standalone/1.10.2/junit-platform-console-standalone-1.10.2.jar"
+jar1="test/lib/$(basename $path1)"
+if [ ! -f $jar1 ]
+then
+  curl "https://repo1.maven.org/maven2/$path1" -o $jar1
+  ret=$?
+  if [ $ret -ne 0 ]; then
+    echo "Cannot find necessary libraries."
+    exit $ret
+  fi
+fi
+
+rm -rf out/test/tictactoe
+find src test -name "*.java" > sources.txt
+javac -encoding UTF-8 -classpath ./jna-5.10.0.jar:$jar1 @sources.txt -d out/test/tictactoe
+
+ret=$?
+rm sources.txt
+if [ $ret -ne 0 ]; then
+  echo "Failed to build tests."
+  exit $ret
+fi
+
+# Run all the tests, or pass the options of the launcher,
+# e.g. ./test.sh --select-class club.denkyoku.tictactoe.services.storage.ResultLogTest
+if [ $# -eq 0 ]; then
+  set -- --scan-class-path
+fi
+java -Dfile.encoding=UTF-8 -jar $jar1 execute \
+  --class-path out/test/tictactoe:./jna-5.10.0.jar "$@"
@@ -0,0 +1,107 @@
+package club.denkyoku.tictactoe.models.gameplay;
+
+import club.denkyoku.tictactoe.models.Config;
+import club.denkyoku.tictactoe.models.Session;
+import club.denkyoku.tictactoe.models.board.Slot;
+import club.denkyoku.tictactoe.models.gameplay.helpers.MoveHistory;
+import club.denkyoku.tictactoe.models.player.Move;
+import club.denkyoku.tictactoe.models.player.Player;
+import club.denkyoku.tictactoe.models.player.ReversiPlayer;
+import club.denkyoku.tictactoe.services.output.terminal.OutputChannel;
+import club.denkyoku.tictactoe.services.output.terminal.Terminal;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+class ReversiGamePlayTest {
+    private final ReversiPlayer[] players = {
+            new ReversiPlayer(true, 1.0, 0, "black", '●'),
+            new ReversiPlayer(true, 1.0, 0, "white", '○'),
+    };
+    private final ReversiGamePlay game = new ReversiGamePlay(
+            new Session(new Config(), new Terminal(new StringReader(""),
+                    new OutputChannel(Channels.newChannel(OutputStream.nullOutputStream()))), 0, null),
+            this.players, false);
+
+    // The owners of the slots, the piece counts and the turn.
+    private String state() {
+        SavedGame saved = new SavedGame();
+        saved.setCells(this.game.board, this.players);
+        StringBuilder sb = new StringBuilder();
+        for (int owner : saved.cells) {
+            sb.append(owner < 0 ? '.' : (char) ('0' + owner));
+        }
+        return sb.append(' ').append(this.game.playerMovesCount[0])
+                .append(' ').append(this.game.playerMovesCount[1])
+                .append(' ').append(this.game.turn).toString();
+    }
+
+    // Play a turn as doOneTurn() does: the first legal move, or a pass.
+    private void playTurn() {
+        Player self = this.players[this.game.turn];
+        Player opponent = this.players[this.game.turn ^ 1];
+        Move[] moves = ReversiGamePlay.getAvailableMoves(this.game.board, self, opponent);
+        if (moves.length == 0) {
+            this.game.history.push(MoveHistory.Entry.pass(this.game.turn));
+        } else {
+            Move move = moves[moves.length / 2];
+            Move[] flips = ReversiGamePlay.computeFlip(this.game.board, move.x, move.y, self, opponent);
+            this.game.history.push(new MoveHistory.Entry(this.game.turn, this.game.turn, move, flips));
+            this.game.board.put(move.x, move.y, new Slot(self));
+            for (Move flip : flips) {
+                this.game.board.put(flip.x, flip.y, new Slot(self));
+            }
+            this.game.playerMovesCount[this.game.turn] += 1 + flips.length;
+            this.game.playerMovesCount[this.game.turn ^ 1] -= flips.length;
+            this.game.moveCount++;
+        }
+        this.game.nextTurn();
+    }
+
+    @Test
+    void undoAndRedoRestoreTheBoardAndTheCounts() {
+        this.game.reset();
+        List<String> states = new ArrayList<>();
+        states.add(this.state());
+        for (int n = 0; n < 30; n++) {
+            this.playTurn();
+            states.add(this.state());
+        }
+
+        for (int n = states.size() - 2; n >= 0; n--) {
+            this.game.undoTurn(this.game.history.undo());
+            assertEquals(states.get(n), this.state());
+        }
+        for (int n = 1; n < states.size(); n++) {
+            this.game.redoTurn(this.game.history.redo());
+            assertEquals(states.get(n), this.state());
+        }
+    }
+
+    @Test
+    void thePiecesAreCountedAsOnTheBoard() {
+        this.game.reset();
+        for (int n = 0; n < 20; n++) {
+            this.playTurn();
+        }
+        this.game.undoTurn(this.game.history.undo());
+        this.game.undoTurn(this.game.history.undo());
+        SavedGame saved = new SavedGame();
+        saved.setCells(this.game.board, this.players);
+        int[] counted = new int[2];
+        for (int owner : saved.cells) {
+            if (owner >= 0) {
+                counted[owner]++;
+            }
+        }
+        assertArrayEquals(counted, this.game.playerMovesCount);
+    }
+}
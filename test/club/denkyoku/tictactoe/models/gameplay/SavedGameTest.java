@@ -0,0 +1,164 @@
+package club.denkyoku.tictactoe.models.gameplay;
+
+import club.denkyoku.tictactoe.models.board.Board;
+import club.denkyoku.tictactoe.models.board.Slot;
+import club.denkyoku.tictactoe.models.player.HumanPlayer;
+import club.denkyoku.tictactoe.models.player.Move;
+import club.denkyoku.tictactoe.models.player.Player;
+import club.denkyoku.tictactoe.models.player.ReversiPlayer;
+import club.denkyoku.tictactoe.models.player.TicTacToeAIPlayer;
+import club.denkyoku.tictactoe.services.storage.SaveJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class SavedGameTest {
+    @TempDir
+    Path directory;
+
+    private final Player[] reversiPlayers = {
+            new ReversiPlayer(true, 1.0, 0, "Alice", '●'),
+            new ReversiPlayer(false, 0.8, 4, "Computer", '○'),
+    };
+
+    // The owner of every slot, -1 if empty.
+    private static int[] owners(Board<Slot> board, Player[] players) {
+        SavedGame saved = new SavedGame();
+        saved.setCells(board, players);
+        return saved.cells;
+    }
+
+    private SavedGame reversiGame(Board<Slot> board, int turn) {
+        SavedGame saved = new SavedGame();
+        saved.modUUID = "reversi";
+        saved.players = this.reversiPlayers;
+        saved.setCells(board, this.reversiPlayers);
+        saved.turn = turn;
+        saved.cursorX = 3;
+        saved.cursorY = 5;
+        saved.moveCount = 4;
+        saved.showAnimation = true;
+        saved.freshBoard = true;
+        return saved;
+    }
+
+    @Test
+    void aSnapshotIsDecodedAsEncoded() {
+        Board<Slot> board = new Board<>(8, 8);
+        ReversiGamePlay.putOpeningPosition(board, this.reversiPlayers);
+        SavedGame decoded = SavedGame.decode(this.reversiGame(board, 1).encode());
+
+        assertEquals("reversi", decoded.modUUID);
+        assertEquals(8, decoded.boardSize);
+        assertArrayEquals(owners(board, this.reversiPlayers), decoded.cells);
+        assertEquals(1, decoded.turn);
+        assertEquals(3, decoded.cursorX);
+        assertEquals(5, decoded.cursorY);
+        assertEquals(4, decoded.moveCount);
+        assertTrue(decoded.showAnimation);
+        assertFalse(decoded.cheats);
+        assertTrue(decoded.freshBoard);
+
+        assertEquals(2, decoded.players.length);
+        ReversiPlayer human = assertInstanceOf(ReversiPlayer.class, decoded.players[0]);
+        ReversiPlayer ai = assertInstanceOf(ReversiPlayer.class, decoded.players[1]);
+        assertTrue(human.isHumanPlayer());
+        assertEquals("Alice", human.getName());
+        assertEquals('●', human.getSymbol());
+        assertFalse(ai.isHumanPlayer());
+        assertEquals("Computer", ai.getName());
+        assertEquals(0.8, ai.getSmartProb());
+        assertEquals(4, ai.getDepth());
+    }
+
+    @Test
+    void theTicTacToePlayersKeepTheirNames() {
+        SavedGame saved = new SavedGame();
+        saved.modUUID = "tictactoe";
+        saved.players = new Player[]{new HumanPlayer("Ann", 'O'), new TicTacToeAIPlayer("Bob", 'X', 0.5)};
+        saved.setCells(new Board<>(3, 3), saved.players);
+        SavedGame decoded = SavedGame.decode(saved.encode());
+
+        assertInstanceOf(HumanPlayer.class, decoded.players[0]);
+        assertEquals("Ann", decoded.players[0].getName());
+        TicTacToeAIPlayer ai = assertInstanceOf(TicTacToeAIPlayer.class, decoded.players[1]);
+        assertEquals("Bob", ai.getName());
+        assertEquals('X', ai.getSymbol());
+        assertEquals(0.5, ai.getSmartProb());
+    }
+
+    @Test
+    void aBrokenSnapshotIsNotDecoded() {
+        Board<Slot> board = new Board<>(8, 8);
+        byte[] state = this.reversiGame(board, 0).encode();
+        assertNull(SavedGame.decode(Arrays.copyOf(state, 20)));
+        state[0] = 2;
+        assertNull(SavedGame.decode(state));
+    }
+
+    @Test
+    void theJournaledTurnsAreReplayedOnTheSnapshot() throws IOException {
+        Player black = this.reversiPlayers[0];
+        Player white = this.reversiPlayers[1];
+        Board<Slot> board = new Board<>(8, 8);
+        ReversiGamePlay.putOpeningPosition(board, this.reversiPlayers);
+
+        SaveJournal save = new SaveJournal(this.directory);
+        save.snapshot(this.reversiGame(board, 0).encode());
+        // the turns after the snapshot, the first legal move of each, then a pass.
+        int turn = 0;
+        for (int n = 0; n < 6; n++) {
+            Player self = this.reversiPlayers[turn];
+            Player opponent = this.reversiPlayers[turn ^ 1];
+            Move move = ReversiGamePlay.getAvailableMoves(board, self, opponent)[0];
+            ReversiGamePlay.tryTurn(board, move.x, move.y, self, opponent);
+            save.append(SavedGame.encodeTurn(turn, turn, move.x, move.y));
+            turn ^= 1;
+        }
+        save.append(SavedGame.encodeTurn(turn, -1, 0, 0));
+        save.close();
+
+        save = new SaveJournal(this.directory);
+        SaveJournal.Saved loaded = save.load();
+        save.close();
+        SavedGame saved = SavedGame.decode(loaded.snapshot());
+        Board<Slot> restored = new Board<>(8, 8);
+        // a leftover piece, cleared first.
+        restored.put(0, 0, new Slot(black));
+        assertEquals(turn ^ 1, saved.restoreBoard(restored, loaded.entries(), true));
+
+        assertArrayEquals(owners(board, this.reversiPlayers), owners(restored, saved.players));
+        assertEquals(4 + 6, saved.moveCount);
+        assertFalse(saved.freshBoard);
+    }
+
+    @Test
+    void aLineGameIsRestoredWithoutFlips() {
+        Player[] players = {new HumanPlayer("Ann", 'O'), new HumanPlayer("Bob", 'X')};
+        SavedGame saved = new SavedGame();
+        saved.modUUID = "tictactoe";
+        saved.players = players;
+        saved.setCells(new Board<>(3, 3), players);
+        List<byte[]> entries = new ArrayList<>();
+        entries.add(SavedGame.encodeTurn(0, 0, 1, 1));
+        entries.add(SavedGame.encodeTurn(1, 1, 0, 1));
+        entries.add(SavedGame.encodeTurn(0, 0, 2, 1));
+
+        Board<Slot> board = new Board<>(3, 3);
+        assertEquals(1, saved.restoreBoard(board, entries, false));
+        assertArrayEquals(new int[]{-1, -1, -1, 1, 0, 0, -1, -1, -1}, owners(board, players));
+    }
+}
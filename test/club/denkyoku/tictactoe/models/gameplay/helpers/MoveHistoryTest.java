@@ -0,0 +1,82 @@
+package club.denkyoku.tictactoe.models.gameplay.helpers;
+
+import club.denkyoku.tictactoe.models.player.Move;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class MoveHistoryTest {
+    private static MoveHistory.Entry entry(int n) {
+        return new MoveHistory.Entry(n % 2, n % 2, new Move(n / 8, n % 8), MoveHistory.Entry.NO_FLIPS);
+    }
+
+    @Test
+    void movesAreUndoneAndRedoneInOrder() {
+        MoveHistory history = new MoveHistory();
+        MoveHistory.Entry[] entries = {entry(0), entry(1), MoveHistory.Entry.pass(0), entry(3)};
+        for (MoveHistory.Entry entry : entries) {
+            history.push(entry);
+        }
+        assertFalse(history.canRedo());
+
+        for (int i = entries.length - 1; i >= 0; i--) {
+            assertSame(entries[i], history.undo());
+        }
+        assertFalse(history.canUndo());
+        assertEquals(0, history.getPosition());
+        assertEquals(entries.length, history.size());
+
+        for (MoveHistory.Entry entry : entries) {
+            assertSame(entry, history.redo());
+        }
+        assertEquals(entries.length, history.getPosition());
+        assertTrue(history.get(2).isPass());
+    }
+
+    @Test
+    void aMoveDropsTheUndoneMoves() {
+        MoveHistory history = new MoveHistory();
+        history.push(entry(0));
+        history.push(entry(1));
+        history.push(entry(2));
+        history.undo();
+        history.undo();
+        MoveHistory.Entry other = entry(9);
+        history.push(other);
+
+        assertFalse(history.canRedo());
+        assertEquals(2, history.size());
+        assertSame(other, history.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> history.get(2));
+    }
+
+    @Test
+    void theHistoryGrowsBeyondItsFirstCapacity() {
+        MoveHistory history = new MoveHistory();
+        for (int n = 0; n < 200; n++) {
+            history.push(entry(n));
+        }
+        for (int n = 199; n >= 0; n--) {
+            assertEquals(entry(n).move().x, history.undo().move().x);
+        }
+        assertEquals(200, history.size());
+    }
+
+    @Test
+    void thereIsNothingToTakeBackAtTheEnds() {
+        MoveHistory history = new MoveHistory();
+        assertThrows(IllegalStateException.class, history::undo);
+        assertThrows(IllegalStateException.class, history::redo);
+
+        history.push(entry(0));
+        history.clear();
+        assertEquals(0, history.size());
+        assertFalse(history.canUndo());
+        assertThrows(IndexOutOfBoundsException.class, () -> history.get(0));
+    }
+}
@@ -0,0 +1,84 @@
+package club.denkyoku.tictactoe.models.player;
+
+import club.denkyoku.tictactoe.libraries.math.StdRandom;
+import club.denkyoku.tictactoe.models.board.Board;
+import club.denkyoku.tictactoe.models.board.Slot;
+import club.denkyoku.tictactoe.models.gameplay.ReversiGamePlay;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class ReversiPlayerTest {
+    private final ReversiPlayer black = new ReversiPlayer(false, 1.0, 4, "black", '●');
+    private final ReversiPlayer white = new ReversiPlayer(false, 1.0, 4, "white", '○');
+
+    @AfterEach
+    void unbind() {
+        TranspositionTable.bind(null);
+        StdRandom.unbind();
+    }
+
+    // The positions of a game where each player plays its first legal move.
+    private List<Board<Slot>> positions(int count) {
+        Board<Slot> board = new Board<>(8, 8);
+        ReversiGamePlay.putOpeningPosition(board, new Player[]{this.black, this.white});
+        List<Board<Slot>> positions = new ArrayList<>();
+        for (int n = 0; n < count; n++) {
+            ReversiPlayer self = n % 2 == 0 ? this.black : this.white;
+            ReversiPlayer opponent = n % 2 == 0 ? this.white : this.black;
+            positions.add(board.clone());
+            Move move = ReversiGamePlay.getAvailableMoves(board, self, opponent)[0];
+            ReversiGamePlay.tryTurn(board, move.x, move.y, self, opponent);
+        }
+        return positions;
+    }
+
+    private ReversiPlayer.ScoredMove search(Board<Slot> board, boolean blackToMove, long seed) {
+        ReversiPlayer self = blackToMove ? this.black : this.white;
+        ReversiPlayer opponent = blackToMove ? this.white : this.black;
+        StdRandom.bind(seed);
+        return ReversiPlayer.minimax(4, board, ReversiGamePlay.getAvailableMoves(board, self, opponent),
+                self, opponent);
+    }
+
+    @Test
+    void theSharedTableChangesNeitherTheScoreNorTheMove() {
+        List<Board<Slot>> positions = this.positions(12);
+        List<ReversiPlayer.ScoredMove> alone = new ArrayList<>();
+        for (int n = 0; n < positions.size(); n++) {
+            alone.add(this.search(positions.get(n), n % 2 == 0, n));
+        }
+
+        TranspositionTable<?> table = new TranspositionTable<>(1 << 12);
+        TranspositionTable.bind(table);
+        // searched twice, the second time mostly from the table.
+        for (int round = 0; round < 2; round++) {
+            for (int n = positions.size() - 1; n >= 0; n--) {
+                ReversiPlayer.ScoredMove shared = this.search(positions.get(n), n % 2 == 0, n);
+                assertEquals(alone.get(n).getMoveValue(), shared.getMoveValue());
+                assertEquals(alone.get(n).getMove().x, shared.getMove().x);
+                assertEquals(alone.get(n).getMove().y, shared.getMove().y);
+            }
+        }
+        assertTrue(table.getHits() > 0);
+    }
+
+    @Test
+    void theMoveIsOneOfTheBest() {
+        Board<Slot> board = this.positions(6).get(5);
+        Move[] moves = ReversiGamePlay.getAvailableMoves(board, this.white, this.black);
+        ReversiPlayer.ScoredMove best = this.search(board, false, 1);
+        for (Move move : moves) {
+            int value = ReversiPlayer.evaluate_move(4, board, move, this.white, this.black, new SearchStatistics());
+            assertTrue(value <= best.getMoveValue());
+        }
+        assertEquals(best.getMoveValue(), ReversiPlayer.evaluate_move(4, board, best.getMove(),
+                this.white, this.black, new SearchStatistics()));
+    }
+}
@@ -0,0 +1,48 @@
+package club.denkyoku.tictactoe.services.output.animation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class AnimationTest {
+    static class Recording extends Animation {
+        final List<String> drawn = new ArrayList<>();
+
+        Recording(int frameCount) {
+            super(frameCount, 5);
+        }
+
+        @Override
+        protected void drawFrame(int frame) {
+            this.drawn.add("frame " + frame);
+        }
+
+        @Override
+        protected void drawFinal() {
+            this.drawn.add("final");
+        }
+    }
+
+    @Test
+    void whenFinishedRunsAfterTheFinalFrameAndBeforeAwaitReturns() {
+        Recording animation = new Recording(3);
+        animation.start();
+        animation.whenFinished(() -> animation.drawn.add("then"));
+        animation.await();
+        assertTrue(animation.isFinished());
+        assertEquals(List.of("frame 0", "frame 1", "frame 2", "final", "then"), animation.drawn);
+    }
+
+    @Test
+    void whenFinishedRunsAtOnceOnAnEndedAnimation() {
+        Recording animation = new Recording(0);
+        animation.start();
+        animation.whenFinished(() -> animation.drawn.add("then"));
+        assertEquals(List.of("final", "then"), animation.drawn);
+    }
+}
@@ -0,0 +1,75 @@
+package club.denkyoku.tictactoe.services.output.controls;
+
+import club.denkyoku.tictactoe.services.output.terminal.ConsoleHelper;
+import club.denkyoku.tictactoe.services.output.terminal.OutputChannel;
+import club.denkyoku.tictactoe.services.output.terminal.Terminal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+
+class MessageDialogTest {
+    // A terminal which redraws whole screens, like the Windows console.
+    static class ScreenTerminal extends Terminal {
+        ScreenTerminal() {
+            super(new StringReader(""), new OutputChannel(new WritableByteChannel() {
+                @Override
+                public int write(ByteBuffer src) {
+                    int length = src.remaining();
+                    src.position(src.limit());
+                    return length;
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return true;
+                }
+
+                @Override
+                public void close() {
+                }
+            }));
+        }
+
+        @Override
+        public boolean supportsCursorAddressing() {
+            return false;
+        }
+    }
+
+    private Terminal previous;
+
+    @BeforeEach
+    void bind() {
+        this.previous = Terminal.bind(new ScreenTerminal());
+        MessageDialog.setTimedDialogSeconds(3);
+    }
+
+    @AfterEach
+    void unbind() {
+        MessageDialog.dismissTimed();
+        Terminal.bind(this.previous);
+    }
+
+    @Test
+    void aTimedDialogClosesOntoTheScreenRedrawnUnderIt() throws InterruptedException {
+        String[] before = {"before", "the", "dialog"};
+        ConsoleHelper.printScreen(before);
+        MessageDialog.show(new String[]{"Hello"});
+        // the first frame is drawn at once.
+        Thread.sleep(200);
+        assertNotSame(before, ConsoleHelper.GetLastScreen());
+
+        String[] redrawn = {"redrawn", "by", "the", "game"};
+        ConsoleHelper.printScreen(redrawn);
+        MessageDialog.dismissTimed();
+        assertSame(redrawn, ConsoleHelper.GetLastScreen());
+    }
+}
@@ -0,0 +1,182 @@
+package club.denkyoku.tictactoe.services.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class ResultLogTest {
+    @TempDir
+    Path directory;
+
+    // A result whose record takes 64 bytes, so the records fill a region exactly.
+    private static GameResult result(int i) {
+        return new GameResult(i, "m", new String[]{"player-one-12", "player-two-34"}, i % 2, i, 1000);
+    }
+
+    private Path path() {
+        return this.directory.resolve("results.log");
+    }
+
+    private List<GameResult> replay() throws IOException {
+        List<GameResult> results = new ArrayList<>();
+        try (ResultLog log = new ResultLog(this.path())) {
+            log.replay(0, results::add);
+        }
+        return results;
+    }
+
+    private void append(GameResult... results) throws IOException {
+        try (ResultLog log = new ResultLog(this.path())) {
+            log.replay(0, result -> { });
+            for (GameResult result : results) {
+                log.append(result);
+            }
+        }
+    }
+
+    // Overwrite bytes of the log, e.g. as a crash would have left them.
+    private void write(long offset, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(this.path(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), offset);
+        }
+    }
+
+    private static void assertResult(GameResult expected, GameResult actual) {
+        assertEquals(expected.timeMillis(), actual.timeMillis());
+        assertEquals(expected.modUUID(), actual.modUUID());
+        assertArrayEquals(expected.players(), actual.players());
+        assertEquals(expected.winner(), actual.winner());
+        assertEquals(expected.moveCount(), actual.moveCount());
+        assertEquals(expected.durationMillis(), actual.durationMillis());
+        assertEquals(expected.flagged(), actual.flagged());
+    }
+
+    @Test
+    void resultsAreReadBackAsAppended() throws IOException {
+        GameResult[] results = {
+                new GameResult(1700000000000L, "reversi", new String[]{"Alice", "Computer"}, 0, 60, 95000),
+                new GameResult(1700000001000L, "order-chaos", new String[]{"Ann", "Bob", "Cid"}, -1, 9, 4000, 2),
+                new GameResult(1700000002000L, "tictactoe", new String[]{"名前", "Computer"}, -1, 9, 3000),
+        };
+        this.append(results);
+        List<GameResult> read = this.replay();
+        assertEquals(results.length, read.size());
+        for (int i = 0; i < results.length; i++) {
+            assertResult(results[i], read.get(i));
+        }
+    }
+
+    @Test
+    void replayFromAnOffsetReadsTheRecordsAfterIt() throws IOException {
+        this.append(result(0), result(1), result(2));
+        List<GameResult> results = new ArrayList<>();
+        try (ResultLog log = new ResultLog(this.path())) {
+            assertEquals(1, log.replay(ResultLog.HEADER_SIZE + 2 * 64, results::add));
+            assertEquals(ResultLog.HEADER_SIZE + 3 * 64, log.getEnd());
+        }
+        assertResult(result(2), results.get(0));
+    }
+
+    @Test
+    void aTornRecordEndsTheLogAndIsOverwritten() throws IOException {
+        this.append(result(0), result(1), result(2));
+        // the checksum of the last record is broken.
+        this.write(ResultLog.HEADER_SIZE + 3 * 64 - 4, new byte[4]);
+        try (ResultLog log = new ResultLog(this.path())) {
+            assertEquals(2, log.replay(0, result -> { }));
+            assertEquals(ResultLog.HEADER_SIZE + 2 * 64, log.getEnd());
+        }
+
+        this.append(result(7));
+        List<GameResult> results = this.replay();
+        assertEquals(3, results.size());
+        assertResult(result(7), results.get(2));
+    }
+
+    @Test
+    void theEndMarkerHidesTheRecordsAfterATornOne() throws IOException {
+        this.append(result(0), result(1), result(2), result(3));
+        // the second record is torn, the two valid ones after it are lost.
+        this.write(ResultLog.HEADER_SIZE + 2 * 64 - 4, new byte[4]);
+        this.append(result(7));
+        List<GameResult> results = this.replay();
+        assertEquals(2, results.size());
+        assertResult(result(0), results.get(0));
+        assertResult(result(7), results.get(1));
+    }
+
+    @Test
+    void aTornLengthEndsTheLog() throws IOException {
+        this.append(result(0), result(1));
+        // a length beyond the end of the file.
+        this.write(ResultLog.HEADER_SIZE + 2 * 64, ByteBuffer.allocate(4).putInt(Integer.MAX_VALUE).array());
+        assertEquals(2, this.replay().size());
+    }
+
+    @Test
+    void recordsFillingTheRegionLeaveRoomForTheEndMarker() throws IOException {
+        assertEquals(64, 8 + ResultLog.encode(result(0)).length);
+        int count = (ResultLog.REGION_SIZE - ResultLog.HEADER_SIZE) / 64 + 2;
+        try (ResultLog log = new ResultLog(this.path())) {
+            for (int i = 0; i < count; i++) {
+                log.append(result(i));
+            }
+            assertEquals(ResultLog.HEADER_SIZE + 64L * count, log.getEnd());
+        }
+
+        List<GameResult> results = new ArrayList<>();
+        try (ResultLog log = new ResultLog(this.path())) {
+            assertEquals(count, log.replay(0, results::add));
+            assertEquals(ResultLog.HEADER_SIZE + 64L * count, log.getEnd());
+            assertEquals(log.getEnd(), log.skip(Long.MAX_VALUE));
+        }
+        for (int i = 0; i < count; i++) {
+            assertResult(result(i), results.get(i));
+        }
+    }
+
+    @Test
+    void aRecordWithoutTheFlaggedPlayerIsNotLostOnTime() {
+        byte[] payload = ResultLog.encode(new GameResult(5, "m", new String[]{"a", "b"}, -1, 9, 100, 1));
+        GameResult old = ResultLog.decode(ByteBuffer.wrap(Arrays.copyOf(payload, payload.length - 1)));
+        assertEquals(-1, old.flagged());
+        assertEquals(9, old.moveCount());
+        assertNull(ResultLog.decode(ByteBuffer.wrap(Arrays.copyOf(payload, 12))));
+    }
+
+    @Test
+    void aSecondLogOfTheFileIsReadOnly() throws IOException {
+        this.append(result(0));
+        try (ResultLog first = new ResultLog(this.path());
+             ResultLog second = new ResultLog(this.path())) {
+            assertFalse(first.isReadOnly());
+            assertTrue(second.isReadOnly());
+            assertEquals(1, second.replay(0, result -> { }));
+            assertThrows(IOException.class, () -> second.append(result(1)));
+        }
+    }
+
+    @Test
+    void aFileWhichIsNotALogIsRejected() throws IOException {
+        Files.write(this.path(), "not a result log".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> new ResultLog(this.path()));
+    }
+}
@@ -0,0 +1,70 @@
+package club.denkyoku.tictactoe.services.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class ResultStoreTest {
+    @TempDir
+    Path directory;
+
+    private void record(int games) throws IOException {
+        ResultStore store = new ResultStore(this.directory);
+        for (int i = 0; i < games; i++) {
+            store.append(new GameResult(i, "m", new String[]{"a", "b"}, 0, 10, 1000));
+        }
+        assertTrue(store.flush(5000));
+        store.close();
+    }
+
+    // Overwrite the log from an offset with zeros, keeping its size.
+    private void erase(long from) throws IOException {
+        try (FileChannel channel = FileChannel.open(this.directory.resolve("results.log"),
+                StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate((int) (channel.size() - from)), from);
+        }
+    }
+
+    @Test
+    void theCheckpointIsLoadedWithTheLogAfterIt() throws IOException {
+        this.record(3);
+        this.record(2);
+        ResultStore store = new ResultStore(this.directory);
+        assertEquals(5, store.getRecord("m", "a").getWins());
+        assertEquals(5, store.getRecord("m", "b").getLosses());
+        assertEquals(5, store.getRatings().getLeaderboard("m").all().get(0).games());
+        store.close();
+    }
+
+    @Test
+    void aCheckpointBeyondTheRecordsIsIgnored() throws IOException {
+        this.record(3);
+        // the records are lost, the checkpoint offset is in the padding of the log.
+        this.erase(ResultLog.HEADER_SIZE);
+        ResultStore store = new ResultStore(this.directory);
+        assertNull(store.getRecord("m", "a"));
+        assertTrue(store.getRatings().getLeaderboard("m").all().isEmpty());
+        store.close();
+    }
+
+    @Test
+    void aCheckpointInsideARecordIsIgnored() throws IOException {
+        this.record(3);
+        long recordSize = 8 + ResultLog.encode(new GameResult(0, "m", new String[]{"a", "b"}, 0, 10, 1000)).length;
+        // a torn second record: the checkpoint covers three, the log one.
+        this.erase(ResultLog.HEADER_SIZE + recordSize + 4);
+        ResultStore store = new ResultStore(this.directory);
+        assertEquals(1, store.getRecord("m", "a").getWins());
+        store.close();
+    }
+}
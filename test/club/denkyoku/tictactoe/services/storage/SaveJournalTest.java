@@ -0,0 +1,147 @@
+package club.denkyoku.tictactoe.services.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class SaveJournalTest {
+    @TempDir
+    Path directory;
+
+    // Load the save in a journal of its own, as the next process would.
+    private SaveJournal.Saved load() throws IOException {
+        SaveJournal save = new SaveJournal(this.directory);
+        try {
+            return save.load();
+        } finally {
+            save.close();
+        }
+    }
+
+    @Test
+    void theJournalIsReplayedAfterTheSnapshot() throws IOException {
+        SaveJournal save = new SaveJournal(this.directory);
+        save.snapshot(new byte[]{1, 2, 3});
+        for (int i = 0; i < 100; i++) {
+            save.append(new byte[]{(byte) i, (byte) (i * 7)});
+        }
+        save.close();
+
+        SaveJournal.Saved saved = this.load();
+        assertNotNull(saved);
+        assertArrayEquals(new byte[]{1, 2, 3}, saved.snapshot());
+        assertEquals(100, saved.entries().size());
+        for (int i = 0; i < 100; i++) {
+            assertArrayEquals(new byte[]{(byte) i, (byte) (i * 7)}, saved.entries().get(i));
+        }
+    }
+
+    @Test
+    void aSnapshotEmptiesTheJournal() throws IOException {
+        SaveJournal save = new SaveJournal(this.directory);
+        save.snapshot(new byte[]{1});
+        save.append(new byte[]{10});
+        save.append(new byte[]{11});
+        save.snapshot(new byte[]{2});
+        save.append(new byte[]{12});
+        save.close();
+
+        SaveJournal.Saved saved = this.load();
+        assertArrayEquals(new byte[]{2}, saved.snapshot());
+        assertEquals(1, saved.entries().size());
+        assertArrayEquals(new byte[]{12}, saved.entries().get(0));
+    }
+
+    @Test
+    void theJournalOfAnOlderSnapshotIsIgnored() throws IOException {
+        SaveJournal save = new SaveJournal(this.directory);
+        save.snapshot(new byte[]{1});
+        save.append(new byte[]{10});
+        save.close();
+        Path journal = this.directory.resolve("game.journal");
+        Path old = this.directory.resolve("old.journal");
+        Files.copy(journal, old);
+
+        save = new SaveJournal(this.directory);
+        save.snapshot(new byte[]{2});
+        save.close();
+        // a crash between replacing the snapshot and emptying the journal.
+        Files.move(old, journal, StandardCopyOption.REPLACE_EXISTING);
+
+        SaveJournal.Saved saved = this.load();
+        assertArrayEquals(new byte[]{2}, saved.snapshot());
+        assertTrue(saved.entries().isEmpty());
+    }
+
+    @Test
+    void theJournalIsReadUpToATornEntry() throws IOException {
+        SaveJournal save = new SaveJournal(this.directory);
+        save.snapshot(new byte[]{1});
+        save.append(new byte[]{10});
+        save.append(new byte[]{11});
+        save.close();
+        Path journal = this.directory.resolve("game.journal");
+        long size = Files.size(journal);
+        // the second entry is cut, as by a crash while writing it.
+        byte[] bytes = Files.readAllBytes(journal);
+        Files.write(journal, Arrays.copyOf(bytes, (int) size - 2));
+        assertEquals(1, this.load().entries().size());
+
+        // and its checksum broken.
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(journal, bytes);
+        assertEquals(1, this.load().entries().size());
+    }
+
+    @Test
+    void aBrokenSnapshotIsNoSave() throws IOException {
+        SaveJournal save = new SaveJournal(this.directory);
+        save.snapshot(new byte[]{1, 2, 3});
+        save.close();
+        Path snapshot = this.directory.resolve("game.snapshot");
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[16] ^= 1;
+        Files.write(snapshot, bytes);
+        assertNull(this.load());
+
+        Files.write(snapshot, new byte[]{1, 2}, StandardOpenOption.TRUNCATE_EXISTING);
+        assertNull(this.load());
+    }
+
+    @Test
+    void aClearedSaveIsNoSave() throws IOException {
+        SaveJournal save = new SaveJournal(this.directory);
+        save.snapshot(new byte[]{1});
+        save.append(new byte[]{10});
+        save.clear();
+        save.close();
+        assertNull(this.load());
+        assertTrue(Files.notExists(this.directory.resolve("game.snapshot")));
+    }
+
+    @Test
+    void onlyOneSaveIsOpenedInADirectory() throws IOException {
+        SaveJournal first = new SaveJournal(this.directory);
+        assertThrows(IOException.class, () -> new SaveJournal(this.directory));
+        assertNull(SaveJournal.open(this.directory));
+        first.close();
+
+        SaveJournal second = new SaveJournal(this.directory);
+        assertNotNull(second);
+        second.close();
+    }
+}